@@ -1,16 +1,74 @@
 package com.sfl.browser;
 
 import android.util.Log;
+import com.sfl.browser.models.FarmState;
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.HttpURLConnection;
+import java.net.InetAddress;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.GZIPInputStream;
 
 public class APIClient {
     private static final String TAG = "APIClient";
-    private static final int CONNECTION_TIMEOUT = 30000; // 30 seconds
-    private static final int READ_TIMEOUT = 30000; // 30 seconds
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Callback that consumes a decoded response body while the connection is still open
+     */
+    public interface ResponseHandler<T> {
+        T handle(Reader body) throws Exception;
+    }
+
+    /**
+     * Outcome of a conditional fetch: a 304, a handled body plus the validators and checksum
+     * needed to detect an unchanged payload on the next poll, or a typed failure
+     */
+    public static class FetchResult<T> {
+        public final int status;
+        public final T body;
+        public final String etag;
+        public final String lastModified;
+        public final long bodyChecksum;
+        public final long bodyLength;
+        public final FetchFailure failure;
+
+        FetchResult(int status, T body, String etag, String lastModified, long bodyChecksum, long bodyLength) {
+            this.status = status;
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.bodyChecksum = bodyChecksum;
+            this.bodyLength = bodyLength;
+            this.failure = null;
+        }
+
+        FetchResult(FetchFailure failure) {
+            this.status = failure.httpStatus;
+            this.body = null;
+            this.etag = null;
+            this.lastModified = null;
+            this.bodyChecksum = 0;
+            this.bodyLength = 0;
+            this.failure = failure;
+        }
+
+        public boolean isNotModified() {
+            return status == HttpURLConnection.HTTP_NOT_MODIFIED;
+        }
+
+        public boolean isFailure() {
+            return failure != null;
+        }
+    }
 
     /**
      * Fetches raw JSON from the farm API endpoint
@@ -19,53 +77,405 @@ public class APIClient {
      * @return Raw JSON response as string, or null if request failed
      */
     public static String fetchRawJSON(String apiUrl, String apiKey) {
+        return fetchRawJSONResult(apiUrl, apiKey).body;
+    }
+
+    /**
+     * Same as fetchRawJSON, but reports why the request failed
+     * @return FetchResult whose body is the raw JSON string, or whose failure is set
+     */
+    public static FetchResult<String> fetchRawJSONResult(String apiUrl, String apiKey) {
+        FetchResult<String> result = fetchConditional(apiUrl, apiKey, null, null, APIClient::readFully);
+        if (result.body != null) {
+            Log.d(TAG, "API Response received. Size: " + result.body.length() + " chars");
+        }
+        return result;
+    }
+
+    /**
+     * Fetches the farm API endpoint and hands the body to the handler as it arrives.
+     * Requests gzip and decodes it incrementally so the payload is never held as a String.
+     * Sends If-None-Match / If-Modified-Since when validators from a previous response are
+     * known, and checksums the decoded body while the handler reads it.
+     * @param apiUrl The full API URL to call
+     * @param apiKey The API key for authentication (x-api-key header)
+     * @param etag ETag from the previous response, or null
+     * @param lastModified Last-Modified from the previous response, or null
+     * @param handler Consumer for the decoded body (e.g. readFarmState)
+     * @return FetchResult; status 304 has a null body, failed requests carry a FetchFailure
+     */
+    public static <T> FetchResult<T> fetchConditional(String apiUrl, String apiKey, String etag,
+                                                      String lastModified, ResponseHandler<T> handler) {
+        return fetchConditional(apiUrl, apiKey, etag, lastModified, null, handler);
+    }
+
+    /**
+     * Like fetchConditional, but also copies the decoded body to snapshotFile as the handler
+     * reads it. The copy goes to a temp file that only replaces snapshotFile once the handler
+     * has accepted the whole body, so a failed or interrupted fetch keeps the previous snapshot.
+     * @param snapshotFile Where to keep the raw response, or null for no copy
+     */
+    public static <T> FetchResult<T> fetchConditional(String apiUrl, String apiKey, String etag, String lastModified,
+                                                      File snapshotFile, ResponseHandler<T> handler) {
+        FarmHttpClient client = FarmHttpClient.getShared();
         HttpURLConnection connection = null;
+        boolean bodyConsumed = false;
+        NetworkMetrics.Sample metrics = new NetworkMetrics.Sample();
+        long phaseStart = System.nanoTime();
         try {
             Log.d(TAG, "Starting API call to: " + apiUrl);
-            URL url = new URL(apiUrl);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(CONNECTION_TIMEOUT);
-            connection.setReadTimeout(READ_TIMEOUT);
+            if (!client.hasWarmConnection(apiUrl)) {
+                // Only a cold connect resolves the host; time it separately, and connect() then
+                // hits the resolver cache. A pooled socket needs no lookup, so dnsMs stays 0.
+                InetAddress.getAllByName(new URL(apiUrl).getHost());
+                metrics.dnsMs = elapsedMs(phaseStart);
+                phaseStart = System.nanoTime();
+            }
+            connection = client.open(apiUrl);
             connection.setRequestProperty("Accept", "application/json");
+            connection.setRequestProperty("Accept-Encoding", "gzip");
             connection.setRequestProperty("x-api-key", apiKey);
             Log.d(TAG, "Added x-api-key header for authentication");
+            if (etag != null && !etag.isEmpty()) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+            if (lastModified != null && !lastModified.isEmpty()) {
+                connection.setRequestProperty("If-Modified-Since", lastModified);
+            }
 
+            // TCP + TLS handshake; close to zero when a pooled keep-alive socket is reused
+            connection.connect();
+            metrics.connectMs = elapsedMs(phaseStart);
+            phaseStart = System.nanoTime();
             int responseCode = connection.getResponseCode();
+            metrics.ttfbMs = elapsedMs(phaseStart);
+            phaseStart = System.nanoTime();
+            metrics.status = responseCode;
             Log.d(TAG, "API Response Code: " + responseCode);
 
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                String response = readResponse(connection);
-                Log.d(TAG, "API Response received. Size: " + response.length() + " bytes");
-                return response;
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                Log.d(TAG, "API reports farm not modified since last poll");
+                bodyConsumed = client.drainErrorStream(connection);
+                if (snapshotFile != null && snapshotFile.isFile()) {
+                    // The saved snapshot was just confirmed current
+                    snapshotFile.setLastModified(System.currentTimeMillis());
+                }
+                return new FetchResult<>(responseCode, null, etag, lastModified, 0, 0);
+            } else if (responseCode == HttpURLConnection.HTTP_OK) {
+                CRC32 crc = new CRC32();
+                CountingInputStream wire = new CountingInputStream(connection.getInputStream());
+                CountingInputStream decoded = new CountingInputStream(decodeBody(connection, wire));
+                SnapshotTee tee = snapshotFile != null ? SnapshotTee.open(snapshotFile) : null;
+                T body;
+                long length;
+                try (CountingReader reader = new CountingReader(openBodyReader(decoded, crc, tee))) {
+                    body = handler.handle(reader);
+                    // Drain trailing bytes so the checksum (and snapshot) covers the whole payload
+                    reader.skip(Long.MAX_VALUE);
+                    length = reader.count;
+                    if (tee != null) {
+                        int expected = connection.getContentLength();
+                        if (expected > 0 && wire.count < expected) {
+                            tee.abort();
+                        } else {
+                            tee.commit();
+                        }
+                    }
+                } catch (Exception e) {
+                    if (tee != null) {
+                        tee.abort();
+                    }
+                    metrics.wireBytes = wire.count;
+                    metrics.decodedBytes = decoded.count;
+                    // A connection dropped mid-body can surface as a parser error; report it as a transfer failure
+                    int expected = connection.getContentLength();
+                    if (expected > 0 && wire.count < expected) {
+                        Log.e(TAG, "Response truncated after " + wire.count + " of " + expected + " bytes");
+                        metrics.failure = FetchFailure.Kind.IO.name();
+                        return new FetchResult<>(new FetchFailure(FetchFailure.Kind.IO, responseCode, -1,
+                                "Body truncated after " + wire.count + " of " + expected + " bytes"));
+                    }
+                    throw e;
+                }
+                bodyConsumed = true;
+                metrics.wireBytes = wire.count;
+                metrics.decodedBytes = decoded.count;
+                Log.d(TAG, "API Response received: " + wire.count + " bytes on the wire, " + decoded.count + " decoded");
+                return new FetchResult<>(responseCode, body, connection.getHeaderField("ETag"),
+                        connection.getHeaderField("Last-Modified"), crc.getValue(), length);
             } else {
                 Log.e(TAG, "API call failed with response code: " + responseCode);
-                return null;
+                long retryAfterMs = parseRetryAfter(connection);
+                bodyConsumed = client.drainErrorStream(connection);
+                FetchFailure failure = FetchFailure.fromStatus(responseCode, retryAfterMs);
+                metrics.failure = failure.kind.name();
+                return new FetchResult<>(failure);
             }
         } catch (Exception e) {
             Log.e(TAG, "API call failed with exception: " + e.getMessage(), e);
-            return null;
+            FetchFailure failure = FetchFailure.fromException(e);
+            metrics.failure = failure.kind.name();
+            return new FetchResult<>(failure);
         } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
+            // Leave the socket in the keep-alive pool unless the body was abandoned mid-way
+            client.release(connection, bodyConsumed);
+            metrics.downloadMs = elapsedMs(phaseStart);
+            NetworkMetrics.record(metrics);
         }
     }
 
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
     /**
-     * Reads the response from an HTTP connection
+     * Unwraps gzip if the server used it
      * @param connection The HttpURLConnection to read from
+     * @param in The connection's raw input stream
+     * @return Stream of decoded body bytes
+     */
+    static InputStream decodeBody(HttpURLConnection connection, InputStream in) throws Exception {
+        String encoding = connection.getContentEncoding();
+        if (encoding != null && encoding.toLowerCase().contains("gzip")) {
+            Log.d(TAG, "Response is gzip encoded (" + connection.getContentLength() + " bytes on the wire)");
+            return new GZIPInputStream(in, READ_BUFFER_SIZE);
+        }
+        return in;
+    }
+
+    /**
+     * Opens a buffered UTF-8 reader over the decoded response body
+     * @param in Decoded body bytes (see decodeBody)
+     * @param crc Checksum updated with the decoded bytes, or null
+     * @param tee Receives a copy of the decoded bytes, or null
+     * @return Reader over the decoded body
+     */
+    static Reader openBodyReader(InputStream in, CRC32 crc, SnapshotTee tee) throws Exception {
+        if (crc != null) {
+            in = new CheckedInputStream(in, crc);
+        }
+        if (tee != null) {
+            in = tee.wrap(in);
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+    }
+
+    /**
+     * ResponseHandler for the notification pipeline: decodes the farm straight into FarmState,
+     * reading only the keys used by categories enabled in the plan (all of them when plan is null)
+     */
+    public static FarmState readFarmState(Reader body, NotificationPlan plan) throws IOException {
+        return FarmStateReader.read(body, plan);
+    }
+
+    /**
+     * Reads Retry-After as either delta-seconds or an HTTP date
+     * @return Delay in milliseconds, or -1 if the header is absent or unparseable
+     */
+    private static long parseRetryAfter(HttpURLConnection connection) {
+        String value = connection.getHeaderField("Retry-After");
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            long date = connection.getHeaderFieldDate("Retry-After", -1);
+            return date > 0 ? Math.max(0, date - System.currentTimeMillis()) : -1;
+        }
+    }
+
+    /**
+     * Reads the whole body into a string, keeping line breaks intact
+     * @param reader Reader over the response body
      * @return Response body as string
      */
-    private static String readResponse(HttpURLConnection connection) throws Exception {
-        StringBuilder response = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
+    private static String readFully(Reader reader) throws Exception {
+        StringBuilder response = new StringBuilder(READ_BUFFER_SIZE);
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            response.append(buffer, 0, read);
         }
         return response.toString();
     }
+
+    /**
+     * Stream wrapper that counts bytes as they come off the wire (before gzip decoding)
+     */
+    static class CountingInputStream extends java.io.FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws java.io.IOException {
+            int b = super.read();
+            if (b != -1) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws java.io.IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws java.io.IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    /**
+     * Copies the decoded body to a temp file next to the snapshot while the parser reads it,
+     * then fsyncs and renames it over the snapshot. Snapshot I/O errors are logged and never
+     * fail the fetch itself.
+     */
+    static class SnapshotTee {
+        private final File target;
+        private final File temp;
+        private FileOutputStream out;
+
+        private SnapshotTee(File target, File temp, FileOutputStream out) {
+            this.target = target;
+            this.temp = temp;
+            this.out = out;
+        }
+
+        /**
+         * @return A tee writing to target's temp file, or null if it could not be created
+         */
+        static SnapshotTee open(File target) {
+            File temp = new File(target.getParentFile(), target.getName() + ".tmp");
+            try {
+                return new SnapshotTee(target, temp, new FileOutputStream(temp));
+            } catch (IOException e) {
+                Log.w(TAG, "Not saving raw response: " + e.getMessage());
+                return null;
+            }
+        }
+
+        InputStream wrap(InputStream in) {
+            return new java.io.FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b != -1) copy(b);
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    if (n > 0) copy(b, off, n);
+                    return n;
+                }
+
+                @Override
+                public long skip(long n) throws IOException {
+                    // Skipped bytes still belong in the snapshot
+                    byte[] buffer = new byte[READ_BUFFER_SIZE];
+                    long skipped = 0;
+                    int read;
+                    while (skipped < n && (read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped))) != -1) {
+                        skipped += read;
+                    }
+                    return skipped;
+                }
+            };
+        }
+
+        private void copy(int b) {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.write(b);
+            } catch (IOException e) {
+                Log.w(TAG, "Dropping raw response copy: " + e.getMessage());
+                abort();
+            }
+        }
+
+        private void copy(byte[] b, int off, int len) {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.write(b, off, len);
+            } catch (IOException e) {
+                Log.w(TAG, "Dropping raw response copy: " + e.getMessage());
+                abort();
+            }
+        }
+
+        void commit() {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.flush();
+                out.getFD().sync();
+                out.close();
+                out = null;
+                if (!temp.renameTo(target)) {
+                    throw new IOException("Could not replace " + target.getName());
+                }
+                Log.d(TAG, "Raw response saved: " + target.getAbsolutePath() + " (" + target.length() + " bytes)");
+            } catch (IOException e) {
+                Log.w(TAG, "Error saving raw response: " + e.getMessage());
+                abort();
+            }
+        }
+
+        void abort() {
+            try {
+                if (out != null) {
+                    out.close();
+                }
+            } catch (IOException e) {
+                // Nothing left to save
+            }
+            out = null;
+            temp.delete();
+        }
+    }
+
+    /**
+     * Reader wrapper that counts decoded characters handed to the parser
+     */
+    private static class CountingReader extends java.io.FilterReader {
+        long count;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws java.io.IOException {
+            int c = super.read();
+            if (c != -1) count++;
+            return c;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws java.io.IOException {
+            int n = super.read(cbuf, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws java.io.IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
 }
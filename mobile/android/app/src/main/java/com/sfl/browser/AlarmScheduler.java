@@ -7,6 +7,12 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.util.Log;
 import com.sfl.browser.clustering.NotificationGroup;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -29,17 +35,36 @@ import java.util.Set;
  * Deduplication:
  * - Tracks scheduled group IDs to prevent duplicate alarms
  * - Clears duplicates if same groupId with earlier readyTime is scheduled again
+ *
+ * Incremental updates:
+ * - applyChanges() cancels and re-arms only the groups that changed since the last run
+ * - Every cancelAllPendingAlarms() starts a new alarm generation; changes are only valid
+ *   against groups armed in the current generation
+ * 
+ * Notification IDs:
+ * - Each groupId gets its own notification ID (also the alarm's request code) from
+ *   NotificationIdAllocator, so groups never share an alarm
+ * - The allocation is shared with other processes (the legacy service runs in :notifications),
+ *   so it is only read and written under a FileLock, besides ID_LOCK within the process
+ * - cancelAllPendingAlarms() only cancels the IDs of groups still to fire
+ * - A group that has fired keeps its ID until NotificationIdAllocator.EXPIRY_MS after it was
+ *   due, since its notification may still be posted under it
  */
 public class AlarmScheduler {
     private static final String TAG = "AlarmScheduler";
     private static final String ACTION_FARM_NOTIFICATION = "com.sfl.browser.FARM_NOTIFICATION";
-    private static final int NOTIFICATION_ID_BASE = 5000; // Base ID to avoid conflicts
+    private static final int NOTIFICATION_ID_BASE = 5000; // Base of the hashed IDs used before NotificationIdAllocator
+    private static final int LEGACY_ID_SLOTS = 1000;
+    private static final Object ID_LOCK = new Object();   // Guards the ID allocation within the process
     private static final String PREFS_NAME = "alarm_scheduler_prefs";
     private static final String PREFS_KEY_SCHEDULED = "scheduled_group_ids";
+    private static final String PREFS_KEY_GENERATION = "alarm_generation";
     
     private Context context;
     private AlarmManager alarmManager;
     private SharedPreferences prefs;
+    private NotificationIdAllocator ids;  // Loaded for the duration of one public call
+    private boolean idsStored;            // Whether ids came from a file written before
     
     public AlarmScheduler(Context context) {
         this.context = context;
@@ -67,10 +92,63 @@ public class AlarmScheduler {
         
         Log.d(TAG, "Processing " + groups.size() + " notification group(s)...");
         
-        // Get previously scheduled group IDs to prevent duplicates
-        Set<String> scheduledIds = prefs.getStringSet(PREFS_KEY_SCHEDULED, new HashSet<>());
-        Set<String> newScheduledIds = new HashSet<>();
-        
+        withIds(() -> {
+            // Get previously scheduled group IDs to prevent duplicates
+            Set<String> scheduledIds = prefs.getStringSet(PREFS_KEY_SCHEDULED, new HashSet<>());
+            Set<String> newScheduledIds = new HashSet<>();
+            scheduleGroups(groups, scheduledIds, newScheduledIds);
+            
+            // Update the set of scheduled group IDs
+            prefs.edit().putStringSet(PREFS_KEY_SCHEDULED, newScheduledIds).apply();
+            Log.d(TAG, "Scheduled " + newScheduledIds.size() + " new alarm(s). Total scheduled: " + newScheduledIds.size());
+        });
+    }
+    
+    /**
+     * Updates the alarms armed for the last run's groups to this run's, touching only the
+     * groups that differ. Groups keep their groupId across runs (GroupTracker), so an
+     * unchanged group's alarm is left as it is.
+     * 
+     * @param added Groups new in this run
+     * @param changed Groups whose count or details changed (same groupId, so the same alarm,
+     *                which is re-armed in place)
+     * @param removed Last run's groups that are gone; alarms still to fire are cancelled
+     */
+    public void applyChanges(List<NotificationGroup> added, List<NotificationGroup> changed,
+                             List<NotificationGroup> removed) {
+        withIds(() -> {
+            Set<String> scheduledIds = new HashSet<>(prefs.getStringSet(PREFS_KEY_SCHEDULED, new HashSet<>()));
+            long now = System.currentTimeMillis();
+            int cancelled = 0;
+            for (NotificationGroup group : removed) {
+                scheduledIds.remove(group.groupId);
+                // A group that has fired usually drops out on the next run; its notification
+                // may still be posted, so its ID stays held until it expires
+                int notificationId = ids.releasePending(group.groupId, now);
+                if (notificationId >= 0) {
+                    cancelAlarm(notificationId);
+                    cancelled++;
+                }
+            }
+            for (NotificationGroup group : changed) {
+                scheduledIds.remove(group.groupId);
+            }
+            
+            List<NotificationGroup> toSchedule = new ArrayList<>(added);
+            toSchedule.addAll(changed);
+            Set<String> newScheduledIds = new HashSet<>(scheduledIds);
+            scheduleGroups(toSchedule, scheduledIds, newScheduledIds);
+            prefs.edit().putStringSet(PREFS_KEY_SCHEDULED, newScheduledIds).apply();
+            Log.d(TAG, "Applied changes: cancelled " + cancelled + " alarm(s), armed " + toSchedule.size() +
+                  " group(s), " + ids.size() + " notification ID(s) in use");
+        });
+    }
+    
+    /**
+     * Arms (or, for marketplace, delivers) every group not yet in scheduledIds whose ready
+     * time is still ahead, adding each handled group's ID to newScheduledIds
+     */
+    private void scheduleGroups(List<NotificationGroup> groups, Set<String> scheduledIds, Set<String> newScheduledIds) {
         for (NotificationGroup group : groups) {
             try {
                 long currentTime = System.currentTimeMillis();
@@ -105,10 +183,46 @@ public class AlarmScheduler {
                 Log.e(TAG, "Error processing group: " + e.getMessage(), e);
             }
         }
-        
-        // Update the set of scheduled group IDs
-        prefs.edit().putStringSet(PREFS_KEY_SCHEDULED, newScheduledIds).apply();
-        Log.d(TAG, "Scheduled " + newScheduledIds.size() + " new alarm(s). Total scheduled: " + newScheduledIds.size());
+    }
+    
+    /**
+     * Notification ID (and alarm request code) of a group: the one its groupId holds, or a
+     * newly allocated one
+     */
+    private int notificationIdFor(NotificationGroup group) {
+        return ids.idFor(group.groupId, group.earliestReadyTime);
+    }
+    
+    /**
+     * Run work with the stored ID allocation loaded into ids (IDs whose alarms fired long ago
+     * already freed), then store it again. Other threads and processes wait meanwhile.
+     */
+    private void withIds(Runnable work) {
+        synchronized (ID_LOCK) {
+            File file = new File(context.getFilesDir(), NotificationIdAllocator.FILE_NAME);
+            boolean ran = false;
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                 FileChannel channel = raf.getChannel();
+                 FileLock lock = channel.lock()) {
+                idsStored = channel.size() > 0;
+                ids = NotificationIdAllocator.read(channel);
+                int expired = ids.expire(System.currentTimeMillis());
+                if (expired > 0) {
+                    Log.d(TAG, "Expired " + expired + " notification ID(s)");
+                }
+                ran = true;
+                work.run();
+                ids.write(channel);
+            } catch (IOException e) {
+                Log.e(TAG, "Notification ID file unusable: " + e.getMessage(), e);
+                if (!ran) {
+                    // Still arm this run's alarms; IDs may then collide with stored ones
+                    idsStored = false;
+                    ids = new NotificationIdAllocator();
+                    work.run();
+                }
+            }
+        }
     }
     
     /**
@@ -120,7 +234,7 @@ public class AlarmScheduler {
             long readyTime = group.earliestReadyTime;
             
             // Generate unique notification ID based on groupId hash
-            int notificationId = NOTIFICATION_ID_BASE + Math.abs(group.groupId.hashCode() % 1000);
+            int notificationId = notificationIdFor(group);
             
             Log.d(TAG, "Scheduling alarm for: " + group.name + " (category: " + group.category + 
                   ", ID: " + notificationId + ", readyTime: " + readyTime + ", delayMs: " + (readyTime - currentTime) + ")");
@@ -255,7 +369,7 @@ public class AlarmScheduler {
             long readyTime = group.earliestReadyTime;
             
             // Generate notification ID based on group ID
-            int notificationId = NOTIFICATION_ID_BASE + Math.abs(group.groupId.hashCode() % 1000);
+            int notificationId = notificationIdFor(group);
             
             Intent intent = new Intent(context, NotificationReceiver.class);
             intent.setAction(ACTION_FARM_NOTIFICATION);
@@ -307,35 +421,64 @@ public class AlarmScheduler {
      * We iterate through a range of possible notification IDs and cancel each one.
      */
     public void cancelAllPendingAlarms() {
-        try {
-            Log.d(TAG, "Attempting to cancel all pending alarms...");
-            
-            // We need to cancel all possible notification IDs that could have been scheduled
-            // The IDs range from NOTIFICATION_ID_BASE to NOTIFICATION_ID_BASE + 1000
-            for (int i = 0; i < 1000; i++) {
-                int notificationId = NOTIFICATION_ID_BASE + i;
-                
-                Intent intent = new Intent(context, NotificationReceiver.class);
-                intent.setAction(ACTION_FARM_NOTIFICATION);
-                
-                PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                        context,
-                        notificationId,
-                        intent,
-                        PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE
-                );
+        withIds(() -> {
+            try {
+                Log.d(TAG, "Attempting to cancel all pending alarms...");
                 
-                // If the pending intent exists, cancel it
-                if (pendingIntent != null && alarmManager != null) {
-                    alarmManager.cancel(pendingIntent);
-                    pendingIntent.cancel();
-                    Log.d(TAG, "Cancelled alarm with ID: " + notificationId);
+                List<Integer> pending;
+                if (idsStored) {
+                    // Only groups still to fire have an alarm; the others keep their IDs
+                    // while their notifications may be posted
+                    pending = ids.releaseAllPending(System.currentTimeMillis());
+                } else {
+                    // First run since IDs were hashed into 1000 slots: any of them may be armed
+                    ids = new NotificationIdAllocator();
+                    pending = new ArrayList<>();
+                    for (int i = 0; i < LEGACY_ID_SLOTS; i++) {
+                        pending.add(NOTIFICATION_ID_BASE + i);
+                    }
+                }
+                for (int notificationId : pending) {
+                    cancelAlarm(notificationId);
                 }
+                
+                // Alarms armed before this point no longer exist
+                prefs.edit().putLong(PREFS_KEY_GENERATION, getAlarmGeneration() + 1).apply();
+                Log.d(TAG, "Completed cancellation of all pending alarms (attempted " + pending.size() + " IDs, "
+                      + ids.size() + " fired kept)");
+            } catch (Exception e) {
+                Log.e(TAG, "Error cancelling pending alarms: " + e.getMessage(), e);
             }
-            
-            Log.d(TAG, "Completed cancellation of all pending alarms (attempted 1000 IDs)");
-        } catch (Exception e) {
-            Log.e(TAG, "Error cancelling pending alarms: " + e.getMessage(), e);
+        });
+    }
+    
+    /**
+     * Number of cancelAllPendingAlarms() calls so far; a caller that armed alarms under one
+     * generation knows they are all still armed while it is current
+     */
+    public long getAlarmGeneration() {
+        return prefs.getLong(PREFS_KEY_GENERATION, 0);
+    }
+    
+    /**
+     * Cancels the alarm armed under a notification ID, if any
+     */
+    private void cancelAlarm(int notificationId) {
+        Intent intent = new Intent(context, NotificationReceiver.class);
+        intent.setAction(ACTION_FARM_NOTIFICATION);
+        
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(
+                context,
+                notificationId,
+                intent,
+                PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE
+        );
+        
+        // If the pending intent exists, cancel it
+        if (pendingIntent != null && alarmManager != null) {
+            alarmManager.cancel(pendingIntent);
+            pendingIntent.cancel();
+            Log.d(TAG, "Cancelled alarm with ID: " + notificationId);
         }
     }
 }
@@ -12,11 +12,8 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Extracts auction schedule data for notifications
@@ -103,7 +100,7 @@ public class AuctionScheduleExtractor {
      * - Sets expired=true when no future auctions remain
      * - Only resumes processing when file is updated with new schedule
      */
-    public List<FarmItem> extractAuctionNotifications(JsonObject farmData) {
+    public List<FarmItem> extractAuctionNotifications() {
         List<FarmItem> items = new ArrayList<>();
 
         // Read raw auction data from assets
@@ -314,12 +311,7 @@ public class AuctionScheduleExtractor {
      * Format timestamp for logging
      */
     private String formatTimestamp(long timestamp) {
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-            return sdf.format(new Date(timestamp));
-        } catch (Exception e) {
-            return String.valueOf(timestamp);
-        }
+        return TimeUtils.formatDateTime(timestamp);
     }
 
     /**
@@ -1,32 +1,35 @@
 package com.sfl.browser;
 
 import android.util.Log;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.sfl.browser.models.FarmItem;
+import com.sfl.browser.models.FarmState;
+import com.sfl.browser.models.ItemBatch;
 import com.sfl.browser.models.SickAnimal;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 public class CategoryExtractors {
-    // Map to store flower bed finish times (id -> finishTime)
-    private static Map<String, Long> flowerBedFinishTimes = new HashMap<>();
     private static final String TAG = "CategoryExtractors";
 
+    // Resource node collections in the farm object, each keyed by node ID
+    static final String[] RESOURCE_TYPES = {"trees", "stones", "iron", "gold", "crimstones", "oilReserves", "sunstones"};
+
+    // Building types in farm.buildings that the cooking, composter and crop machine extractors read
+    static final String[] COOKING_BUILDINGS = {"Fire Pit", "Bakery", "Kitchen", "Deli", "Smoothie Shack"};
+    static final String[] COMPOSTER_BUILDINGS = {"Compost Bin", "Turbo Composter", "Premium Composter"};
+    static final String CROP_MACHINE = "Crop Machine";
+
     /**
      * Extracts crops from raw API response
      * Navigates to farm.crops object (which contains plots with IDs as keys)
      * Each plot contains a nested "crop" object with name and plantedAt timestamp
      * 
-     * Calculation: readyTime = plantedAt + Constants.CROP_GROWTH_TIMES.get(cropName)
+     * Calculation: readyTime = plantedAt + GameTables.CROPS[cropName]
      * 
      * @param farmData JsonObject farm object from API response (already extracted from root)
      * @return List<FarmItem> sorted by readyTime ascending (earliest first)
@@ -35,48 +38,56 @@ public class CategoryExtractors {
         Log.d(TAG, "Extracting crops...");
         List<FarmItem> crops = new ArrayList<>();
 
-        try {
-            if (farmData == null || !farmData.has("crops")) {
-                Log.w(TAG, "No crops data found in farm object");
-                return crops;
-            }
+        if (farmData == null || !farmData.has("crops")) {
+            Log.w(TAG, "No crops data found in farm object");
+            return crops;
+        }
+
+        // Get crops object (contains plots with numeric string keys: "1", "2", "3", etc.)
+        ItemBatch batch = new ItemBatch();
+        extractCropsInto(new ExtractionContext(System.currentTimeMillis()), FarmStateReader.fromTree(farmData).crops, batch);
+        crops.addAll(batch.toItems());
+
+        // Sort by timestamp ascending (earliest first)
+        sortByTimestamp(crops);
+        Log.d(TAG, "Extracted " + crops.size() + " crop(s)");
+        return crops;
+    }
 
-            // Get crops object (contains plots with numeric string keys: "1", "2", "3", etc.)
-            JsonObject cropsObject = farmData.getAsJsonObject("crops");
-            Log.d(TAG, "Found " + cropsObject.size() + " crop plot(s)");
+    /**
+     * Walks farm.crops (plot id -> planted crop; empty plots are absent) and appends its
+     * items to crops (unsorted)
+     */
+    static void extractCropsInto(ExtractionContext ctx, Map<String, FarmState.Planting> plots, ItemBatch crops) {
+        if (plots == null) {
+            return;
+        }
+        try {
+            Log.d(TAG, "Found " + plots.size() + " planted crop plot(s)");
 
             // Iterate over each crop plot by key
-            for (String cropPlotId : cropsObject.keySet()) {
+            for (Map.Entry<String, FarmState.Planting> plot : plots.entrySet()) {
+                String cropPlotId = plot.getKey();
                 try {
-                    JsonObject plotData = cropsObject.getAsJsonObject(cropPlotId);
-                    
-                    // Crop data is nested inside a "crop" object
-                    if (!plotData.has("crop")) {
-                        Log.w(TAG, "Plot " + cropPlotId + " missing 'crop' field");
-                        continue;
-                    }
-                    
-                    JsonObject cropData = plotData.getAsJsonObject("crop");
+                    FarmState.Planting cropData = plot.getValue();
                     
                     // Extract crop name
-                    String name = getJsonString(cropData, "name");
+                    String name = cropData.name;
                     if (name == null || name.isEmpty()) {
                         Log.w(TAG, "Plot " + cropPlotId + " missing crop name");
                         continue;
                     }
 
                     // Extract plantedAt timestamp (in milliseconds)
-                    long plantedAt = 0;
-                    if (cropData.has("plantedAt") && !cropData.get("plantedAt").isJsonNull()) {
-                        plantedAt = cropData.get("plantedAt").getAsLong();
-                    } else {
+                    long plantedAt = cropData.plantedAt;
+                    if (plantedAt <= 0) {
                         Log.w(TAG, "Plot " + cropPlotId + " (" + name + ") missing plantedAt");
                         continue;
                     }
 
-                    // Calculate readyTime = plantedAt + baseTime from Constants
-                    Long baseTime = Constants.CROP_GROWTH_TIMES.get(name);
-                    if (baseTime == null || baseTime <= 0) {
+                    // Calculate readyTime = plantedAt + baseTime from GameTables
+                    long baseTime = GameTables.CROPS.duration(cropData.itemId);
+                    if (baseTime <= 0) {
                         Log.w(TAG, "Plot " + cropPlotId + ": Unknown crop '" + name + "' or invalid baseTime");
                         continue;
                     }
@@ -84,7 +95,7 @@ public class CategoryExtractors {
                     long readyTime = plantedAt + baseTime;
                     
                     // Only include crops that will be ready in the future (not already passed)
-                    long currentTime = System.currentTimeMillis();
+                    long currentTime = ctx.now;
                     if (readyTime <= currentTime) {
                         Log.d(TAG, "Skipping crop: 1 " + name + 
                               " (ready=" + formatTimestamp(readyTime) + 
@@ -93,8 +104,7 @@ public class CategoryExtractors {
                     }
                     
                     // Each crop plot counts as amount=1
-                    FarmItem item = new FarmItem("crops", name, 1, readyTime);
-                    crops.add(item);
+                    crops.add("crops", name, 1, readyTime);
                     Log.d(TAG, "Added crop: 1 " + name + 
                           " (planted=" + formatTimestamp(plantedAt) + 
                           ", baseTime=" + (baseTime / 1000) + "s" +
@@ -107,11 +117,6 @@ public class CategoryExtractors {
         } catch (Exception e) {
             Log.e(TAG, "Error extracting crops: " + e.getMessage(), e);
         }
-
-        // Sort by timestamp ascending (earliest first)
-        sortByTimestamp(crops);
-        Log.d(TAG, "Extracted " + crops.size() + " crop(s)");
-        return crops;
     }
 
     /**
@@ -119,7 +124,7 @@ public class CategoryExtractors {
      * Navigates to farm.fruitPatches object (which contains patches with IDs as keys)
      * Each patch contains a nested "fruit" object with name, plantedAt, and harvestedAt timestamps
      * 
-     * Calculation: readyTime = max(plantedAt, harvestedAt) + Constants.FRUIT_GROWTH_TIMES.get(fruitName)
+     * Calculation: readyTime = max(plantedAt, harvestedAt) + GameTables.FRUITS[fruitName]
      * If harvestedAt is later than plantedAt, use harvestedAt (fruit was already harvested once)
      * Otherwise use plantedAt (first harvest)
      * 
@@ -130,59 +135,64 @@ public class CategoryExtractors {
         Log.d(TAG, "Extracting fruits...");
         List<FarmItem> fruits = new ArrayList<>();
 
-        try {
-            if (farmData == null || !farmData.has("fruitPatches")) {
-                Log.w(TAG, "No fruit patches data found in farm object");
-                return fruits;
-            }
+        if (farmData == null || !farmData.has("fruitPatches")) {
+            Log.w(TAG, "No fruit patches data found in farm object");
+            return fruits;
+        }
+
+        // Get fruitPatches object (contains patches with IDs as keys)
+        ItemBatch batch = new ItemBatch();
+        extractFruitsInto(new ExtractionContext(System.currentTimeMillis()), FarmStateReader.fromTree(farmData).fruitPatches, batch);
+        fruits.addAll(batch.toItems());
+
+        // Sort by timestamp ascending (earliest first)
+        sortByTimestamp(fruits);
+        Log.d(TAG, "Extracted " + fruits.size() + " fruit(s)");
+        return fruits;
+    }
 
-            // Get fruitPatches object (contains patches with IDs as keys)
-            JsonObject patchesObject = farmData.getAsJsonObject("fruitPatches");
-            Log.d(TAG, "Found " + patchesObject.size() + " fruit patch(es)");
+    /**
+     * Walks farm.fruitPatches (patch id -> planted fruit; empty patches are absent) and appends
+     * its items to fruits (unsorted)
+     */
+    static void extractFruitsInto(ExtractionContext ctx, Map<String, FarmState.Planting> patches, ItemBatch fruits) {
+        if (patches == null) {
+            return;
+        }
+        try {
+            Log.d(TAG, "Found " + patches.size() + " planted fruit patch(es)");
 
             // Iterate over each fruit patch by key
-            for (String patchId : patchesObject.keySet()) {
+            for (Map.Entry<String, FarmState.Planting> patch : patches.entrySet()) {
+                String patchId = patch.getKey();
                 try {
-                    JsonObject patchData = patchesObject.getAsJsonObject(patchId);
-                    
-                    // Fruit data is nested inside a "fruit" object
-                    if (!patchData.has("fruit")) {
-                        Log.w(TAG, "Patch " + patchId + " missing 'fruit' field");
-                        continue;
-                    }
-                    
-                    JsonObject fruitData = patchData.getAsJsonObject("fruit");
+                    FarmState.Planting fruitData = patch.getValue();
                     
                     // Extract fruit name
-                    String name = getJsonString(fruitData, "name");
+                    String name = fruitData.name;
                     if (name == null || name.isEmpty()) {
                         Log.w(TAG, "Patch " + patchId + " missing fruit name");
                         continue;
                     }
 
                     // Extract plantedAt timestamp (in milliseconds)
-                    long plantedAt = 0;
-                    if (fruitData.has("plantedAt") && !fruitData.get("plantedAt").isJsonNull()) {
-                        plantedAt = fruitData.get("plantedAt").getAsLong();
-                    } else {
+                    long plantedAt = fruitData.plantedAt;
+                    if (plantedAt <= 0) {
                         Log.w(TAG, "Patch " + patchId + " (" + name + ") missing plantedAt");
                         continue;
                     }
 
-                    // Extract harvestedAt timestamp (may be 0 if never harvested)
-                    long harvestedAt = 0;
-                    if (fruitData.has("harvestedAt") && !fruitData.get("harvestedAt").isJsonNull()) {
-                        harvestedAt = fruitData.get("harvestedAt").getAsLong();
-                    }
+                    // Extract harvestedAt timestamp (0 if never harvested)
+                    long harvestedAt = fruitData.harvestedAt;
 
                     // Use the later of plantedAt or harvestedAt as the base time
                     // If fruit was harvested, we calculate next ready time from harvestedAt
                     // Otherwise from plantedAt
                     long baseTimestamp = Math.max(plantedAt, harvestedAt);
                     
-                    // Calculate readyTime = baseTimestamp + baseTime from Constants
-                    Long baseTime = Constants.FRUIT_GROWTH_TIMES.get(name);
-                    if (baseTime == null || baseTime <= 0) {
+                    // Calculate readyTime = baseTimestamp + baseTime from GameTables
+                    long baseTime = GameTables.FRUITS.duration(fruitData.itemId);
+                    if (baseTime <= 0) {
                         Log.w(TAG, "Patch " + patchId + ": Unknown fruit '" + name + "' or invalid baseTime");
                         continue;
                     }
@@ -190,7 +200,7 @@ public class CategoryExtractors {
                     long readyTime = baseTimestamp + baseTime;
                     
                     // Only include fruits that will be ready in the future (not already passed)
-                    long currentTime = System.currentTimeMillis();
+                    long currentTime = ctx.now;
                     if (readyTime <= currentTime) {
                         Log.d(TAG, "Skipping fruit: 1 " + name + 
                               " (ready=" + formatTimestamp(readyTime) + 
@@ -199,8 +209,7 @@ public class CategoryExtractors {
                     }
                     
                     // Each fruit patch counts as amount=1
-                    FarmItem item = new FarmItem("fruits", name, 1, readyTime);
-                    fruits.add(item);
+                    fruits.add("fruits", name, 1, readyTime);
                     Log.d(TAG, "Added fruit: 1 " + name + 
                           " (base=" + formatTimestamp(baseTimestamp) + 
                           ", baseTime=" + (baseTime / 1000) + "s" +
@@ -213,11 +222,6 @@ public class CategoryExtractors {
         } catch (Exception e) {
             Log.e(TAG, "Error extracting fruits: " + e.getMessage(), e);
         }
-
-        // Sort by timestamp ascending (earliest first)
-        sortByTimestamp(fruits);
-        Log.d(TAG, "Extracted " + fruits.size() + " fruit(s)");
-        return fruits;
     }
 
     /**
@@ -227,7 +231,7 @@ public class CategoryExtractors {
      * Similar structure to fruitPatches: contains patches with IDs as keys
      * Each patch contains a nested "crop" object with name, plantedAt, and harvestedAt timestamps
      * 
-     * Calculation: readyTime = max(plantedAt, harvestedAt) + Constants.GREENHOUSE_CROP_GROWTH_TIMES.get(cropName)
+     * Calculation: readyTime = max(plantedAt, harvestedAt) + GameTables.GREENHOUSE_CROPS[cropName]
      * 
      * @param farmData JsonObject farm object from API response
      * @return List<FarmItem> sorted by readyTime ascending (earliest first), only future items
@@ -236,39 +240,42 @@ public class CategoryExtractors {
         Log.d(TAG, "Extracting greenhouse crops...");
         List<FarmItem> greenhouseCrops = new ArrayList<>();
 
-        try {
-            if (farmData == null || !farmData.has("greenhouse")) {
-                Log.d(TAG, "No greenhouse data found in farm object");
-                return greenhouseCrops;
-            }
+        if (farmData == null || !farmData.has("greenhouse")) {
+            Log.d(TAG, "No greenhouse data found in farm object");
+            return greenhouseCrops;
+        }
 
-            // Get greenhouse object
-            JsonObject greenhouseObject = farmData.getAsJsonObject("greenhouse");
-            
-            // Check if pots exist
-            if (!greenhouseObject.has("pots")) {
-                Log.d(TAG, "No pots found in greenhouse object");
-                return greenhouseCrops;
-            }
-            
-            JsonObject potsObject = greenhouseObject.getAsJsonObject("pots");
-            Log.d(TAG, "Found greenhouse pots with " + potsObject.size() + " pot(s)");
+        // Get greenhouse pots
+        ItemBatch batch = new ItemBatch();
+        extractGreenhouseCropsInto(new ExtractionContext(System.currentTimeMillis()), FarmStateReader.fromTree(farmData).greenhousePots, batch);
+        greenhouseCrops.addAll(batch.toItems());
+
+        // Sort by timestamp ascending (earliest first)
+        sortByTimestamp(greenhouseCrops);
+        Log.d(TAG, "Extracted " + greenhouseCrops.size() + " greenhouse crop(s)");
+        return greenhouseCrops;
+    }
+
+    /**
+     * Walks farm.greenhouse.pots (pot id -> plant; empty pots are absent) and appends its
+     * items to greenhouseCrops (unsorted)
+     */
+    static void extractGreenhouseCropsInto(ExtractionContext ctx, Map<String, FarmState.Planting> pots, ItemBatch greenhouseCrops) {
+        if (pots == null) {
+            Log.d(TAG, "No pots found in greenhouse object");
+            return;
+        }
+        try {
+            Log.d(TAG, "Found greenhouse pots with " + pots.size() + " planted pot(s)");
 
             // Iterate over each greenhouse pot by key (1, 2, 3, 4, etc.)
-            for (String potId : potsObject.keySet()) {
+            for (Map.Entry<String, FarmState.Planting> pot : pots.entrySet()) {
+                String potId = pot.getKey();
                 try {
-                    JsonObject potData = potsObject.getAsJsonObject(potId);
-                    
-                    // Plant data is nested inside a "plant" object (not "crop")
-                    if (!potData.has("plant")) {
-                        Log.d(TAG, "Greenhouse pot " + potId + " missing 'plant' field");
-                        continue;
-                    }
-                    
-                    JsonObject plantData = potData.getAsJsonObject("plant");
+                    FarmState.Planting plantData = pot.getValue();
                     
                     // Extract crop name
-                    String name = getJsonString(plantData, "name");
+                    String name = plantData.name;
                     if (name == null || name.isEmpty()) {
                         Log.w(TAG, "Greenhouse pot " + potId + " missing plant name");
                         continue;
@@ -281,10 +288,8 @@ public class CategoryExtractors {
                     }
 
                     // Extract plantedAt timestamp (in milliseconds)
-                    long plantedAt = 0;
-                    if (plantData.has("plantedAt") && !plantData.get("plantedAt").isJsonNull()) {
-                        plantedAt = plantData.get("plantedAt").getAsLong();
-                    } else {
+                    long plantedAt = plantData.plantedAt;
+                    if (plantedAt <= 0) {
                         Log.w(TAG, "Greenhouse pot " + potId + " (" + name + ") missing plantedAt");
                         continue;
                     }
@@ -292,9 +297,9 @@ public class CategoryExtractors {
                     // Greenhouse crops don't have harvestedAt, so we just use plantedAt as base
                     long baseTimestamp = plantedAt;
                     
-                    // Calculate readyTime = baseTimestamp + baseTime from Constants
-                    Long baseTime = Constants.GREENHOUSE_CROP_GROWTH_TIMES.get(name);
-                    if (baseTime == null || baseTime <= 0) {
+                    // Calculate readyTime = baseTimestamp + baseTime from GameTables
+                    long baseTime = GameTables.GREENHOUSE_CROPS.duration(plantData.itemId);
+                    if (baseTime <= 0) {
                         Log.w(TAG, "Greenhouse pot " + potId + ": Unknown greenhouse crop '" + name + "' or invalid baseTime");
                         continue;
                     }
@@ -302,7 +307,7 @@ public class CategoryExtractors {
                     long readyTime = baseTimestamp + baseTime;
                     
                     // Only include crops that will be ready in the future (not already passed)
-                    long currentTime = System.currentTimeMillis();
+                    long currentTime = ctx.now;
                     if (readyTime <= currentTime) {
                         Log.d(TAG, "Skipping greenhouse crop: 1 " + name + 
                               " (ready=" + formatTimestamp(readyTime) + 
@@ -311,8 +316,7 @@ public class CategoryExtractors {
                     }
                     
                     // Each greenhouse pot counts as amount=1
-                    FarmItem item = new FarmItem("greenhouse_crops", name, 1, readyTime);
-                    greenhouseCrops.add(item);
+                    greenhouseCrops.add("greenhouse_crops", name, 1, readyTime);
                     Log.d(TAG, "Added greenhouse crop: 1 " + name + 
                           " (base=" + formatTimestamp(baseTimestamp) + 
                           ", baseTime=" + (baseTime / 1000) + "s" +
@@ -325,11 +329,6 @@ public class CategoryExtractors {
         } catch (Exception e) {
             Log.e(TAG, "Error extracting greenhouse crops: " + e.getMessage(), e);
         }
-
-        // Sort by timestamp ascending (earliest first)
-        sortByTimestamp(greenhouseCrops);
-        Log.d(TAG, "Extracted " + greenhouseCrops.size() + " greenhouse crop(s)");
-        return greenhouseCrops;
     }
     
     /**
@@ -347,8 +346,8 @@ public class CategoryExtractors {
      * with resource IDs as keys. Each resource contains a nested "wood" or "stone" object
      * with harvest/mine timestamp and boostedTime.
      * 
-     * For trees: uses wood.choppedAt + Constants.RESOURCE_REPLENISH_TIMES["Tree"]
-     * For others: uses stone.minedAt + Constants.RESOURCE_REPLENISH_TIMES[type]
+     * For trees: uses wood.choppedAt + GameTables.RESOURCES["Tree"]
+     * For others: uses stone.minedAt + GameTables.RESOURCES[type]
      * 
      * @param farmData JsonObject farm object from API response
      * @return List<FarmItem> sorted by readyTime ascending (earliest first), only future items
@@ -363,177 +362,185 @@ public class CategoryExtractors {
         }
 
         try {
-            // Map of resource types and their key names in the farm object
-            String[] resourceTypes = {"trees", "stones", "iron", "gold", "crimstones", "oilReserves", "sunstones"};
+            FarmState farm = FarmStateReader.fromTree(farmData);
+            ExtractionContext ctx = new ExtractionContext(System.currentTimeMillis());
+            ItemBatch batch = new ItemBatch();
+            for (String resourceType : RESOURCE_TYPES) {
+                Map<String, FarmState.ResourceNode> nodes = farm.resources.get(resourceType);
+                if (nodes == null) {
+                    Log.d(TAG, "No " + resourceType + " data in farm object");
+                    continue;
+                }
+                extractResourceTypeInto(ctx, resourceType, nodes, batch);
+            }
+            
+            // Extract from Lava Pits (different structure - has readyAt directly, not stone.minedAt)
+            extractLavaPitsInto(ctx, farm.lavaPits, batch);
+            resources.addAll(batch.toItems());
+            
+        } catch (Exception e) {
+            Log.e(TAG, "Error extracting resources: " + e.getMessage(), e);
+        }
+
+        // Sort by timestamp ascending (earliest first)
+        sortByTimestamp(resources);
+        Log.d(TAG, "Extracted " + resources.size() + " resource(s)");
+        return resources;
+    }
+
+    /**
+     * Walks one resource node collection (farm.trees, farm.stones, ...) and appends its items
+     * to resources (unsorted)
+     * @param resourceType One of RESOURCE_TYPES
+     */
+    static void extractResourceTypeInto(ExtractionContext ctx, String resourceType, Map<String, FarmState.ResourceNode> nodes,
+                                        ItemBatch resources) {
+        if (nodes == null) {
+            return;
+        }
+        try {
+            // Convert plural type to singular for Constants lookup and notification name
+            String singularType;
+            if ("crimstones".equals(resourceType)) {
+                singularType = "Crimstone";
+            } else if ("oilReserves".equals(resourceType)) {
+                singularType = "Oil";
+            } else if ("sunstones".equals(resourceType)) {
+                singularType = "Sunstone";
+            } else if ("STONE".equals(resourceType.toUpperCase())) {
+                singularType = "Stone";
+            } else if ("TREE".equals(resourceType.toUpperCase())) {
+                singularType = "Tree";
+            } else {
+                // Generic plural-to-singular conversion: stones -> Stone, iron -> Iron
+                String temp = resourceType.endsWith("s") ? 
+                    resourceType.substring(0, resourceType.length() - 1) : 
+                    resourceType;
+                singularType = temp.substring(0, 1).toUpperCase() + temp.substring(1).toLowerCase();
+            }
+            
+            Log.d(TAG, "Processing " + resourceType + " (looking up: " + singularType + 
+                  ", found " + nodes.size() + " resource(s))");
             
-            for (String resourceType : resourceTypes) {
+            // Get replenish time from GameTables
+            long replenishTime = GameTables.RESOURCES.duration(singularType);
+            if (replenishTime <= 0) {
+                Log.w(TAG, "Unknown resource type or invalid replenish time: " + singularType);
+                return;
+            }
+            
+            // Iterate over each resource in this type
+            for (Map.Entry<String, FarmState.ResourceNode> node : nodes.entrySet()) {
+                String resourceId = node.getKey();
                 try {
-                    if (!farmData.has(resourceType)) {
-                        Log.d(TAG, "No " + resourceType + " data in farm object");
+                    // Extract harvest/mine timestamp (wood.choppedAt, oil.drilledAt or stone.minedAt)
+                    long harvestedAt = node.getValue().harvestedAt;
+                    if (harvestedAt <= 0) {
+                        Log.w(TAG, resourceType + " resource " + resourceId + 
+                              " missing " + harvestFieldFor(resourceType) + "." + harvestTimestampFieldFor(resourceType));
                         continue;
                     }
-
-                    JsonObject resourcesObject = farmData.getAsJsonObject(resourceType);
-                    
-                    // Convert plural type to singular for Constants lookup and notification name
-                    String singularType;
-                    if ("crimstones".equals(resourceType)) {
-                        singularType = "Crimstone";
-                    } else if ("oilReserves".equals(resourceType)) {
-                        singularType = "Oil";
-                    } else if ("sunstones".equals(resourceType)) {
-                        singularType = "Sunstone";
-                    } else if ("STONE".equals(resourceType.toUpperCase())) {
-                        singularType = "Stone";
-                    } else if ("TREE".equals(resourceType.toUpperCase())) {
-                        singularType = "Tree";
-                    } else {
-                        // Generic plural-to-singular conversion: stones -> Stone, iron -> Iron
-                        String temp = resourceType.endsWith("s") ? 
-                            resourceType.substring(0, resourceType.length() - 1) : 
-                            resourceType;
-                        singularType = temp.substring(0, 1).toUpperCase() + temp.substring(1).toLowerCase();
-                    }
                     
-                    Log.d(TAG, "Processing " + resourceType + " (looking up: " + singularType + 
-                          ", found " + resourcesObject.size() + " resource(s))");
+                    // Calculate readyTime = harvestedAt + replenishTime
+                    long readyTime = harvestedAt + replenishTime;
                     
-                    // Get replenish time from Constants
-                    Long replenishTime = Constants.RESOURCE_REPLENISH_TIMES.get(singularType);
-                    if (replenishTime == null || replenishTime <= 0) {
-                        Log.w(TAG, "Unknown resource type or invalid replenish time: " + singularType);
+                    // Only include resources that will be ready in the future
+                    long currentTime = ctx.now;
+                    if (readyTime <= currentTime) {
+                        Log.d(TAG, "Skipping " + singularType + ": 1 " + singularType + 
+                              " (ready=" + formatTimestamp(readyTime) + 
+                              " - already passed)");
                         continue;
                     }
                     
-                    // Iterate over each resource in this type
-                    for (String resourceId : resourcesObject.keySet()) {
-                        try {
-                            JsonObject resourceData = resourcesObject.getAsJsonObject(resourceId);
-                            
-                            // Determine which field to use (wood for trees, oil for oilReserves, stone for others)
-                            String harvestFieldName;
-                            if ("trees".equals(resourceType)) {
-                                harvestFieldName = "wood";
-                            } else if ("oilReserves".equals(resourceType)) {
-                                harvestFieldName = "oil";
-                            } else {
-                                harvestFieldName = "stone";
-                            }
-                            
-                            if (!resourceData.has(harvestFieldName)) {
-                                Log.w(TAG, resourceType + " resource " + resourceId + 
-                                      " missing '" + harvestFieldName + "' field");
-                                continue;
-                            }
-                            
-                            JsonObject harvestData = resourceData.getAsJsonObject(harvestFieldName);
-                            
-                            // Extract harvest/mine timestamp
-                            long harvestedAt = 0;
-                            String timestampField;
-                            if ("trees".equals(resourceType)) {
-                                timestampField = "choppedAt";
-                            } else if ("oilReserves".equals(resourceType)) {
-                                timestampField = "drilledAt";
-                            } else {
-                                timestampField = "minedAt";
-                            }
-                            
-                            if (harvestData.has(timestampField) && 
-                                !harvestData.get(timestampField).isJsonNull()) {
-                                harvestedAt = harvestData.get(timestampField).getAsLong();
-                            } else {
-                                Log.w(TAG, resourceType + " resource " + resourceId + 
-                                      " missing " + timestampField);
-                                continue;
-                            }
-                            
-                            // Calculate readyTime = harvestedAt + replenishTime
-                            long readyTime = harvestedAt + replenishTime;
-                            
-                            // Only include resources that will be ready in the future
-                            long currentTime = System.currentTimeMillis();
-                            if (readyTime <= currentTime) {
-                                Log.d(TAG, "Skipping " + singularType + ": 1 " + singularType + 
-                                      " (ready=" + formatTimestamp(readyTime) + 
-                                      " - already passed)");
-                                continue;
-                            }
-                            
-                            // Count this resource as amount=1
-                            FarmItem item = new FarmItem("resource", singularType, 1, readyTime);
-                            resources.add(item);
-                            Log.d(TAG, "Added resource: 1 " + singularType + 
-                                  " (harvested=" + formatTimestamp(harvestedAt) + 
-                                  ", replenishTime=" + (replenishTime / 1000) + "s" +
-                                  ", ready=" + formatTimestamp(readyTime) + ")");
-                            
-                        } catch (Exception e) {
-                            Log.w(TAG, "Error processing " + resourceType + " resource " + resourceId + 
-                                  ": " + e.getMessage());
-                        }
-                    }
+                    // Count this resource as amount=1
+                    resources.add("resource", singularType, 1, readyTime);
+                    Log.d(TAG, "Added resource: 1 " + singularType + 
+                          " (harvested=" + formatTimestamp(harvestedAt) + 
+                          ", replenishTime=" + (replenishTime / 1000) + "s" +
+                          ", ready=" + formatTimestamp(readyTime) + ")");
                     
                 } catch (Exception e) {
-                    Log.w(TAG, "Error processing resource type " + resourceType + ": " + e.getMessage());
+                    Log.w(TAG, "Error processing " + resourceType + " resource " + resourceId + 
+                          ": " + e.getMessage());
                 }
             }
             
-            // Extract from Lava Pits (different structure - has readyAt directly, not stone.minedAt)
-            if (farmData.has("lavaPits")) {
+        } catch (Exception e) {
+            Log.w(TAG, "Error processing resource type " + resourceType + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Object under each node that holds its harvest timestamp: wood for trees, oil for oil
+     * reserves, stone for everything else
+     */
+    static String harvestFieldFor(String resourceType) {
+        if ("trees".equals(resourceType)) {
+            return "wood";
+        } else if ("oilReserves".equals(resourceType)) {
+            return "oil";
+        }
+        return "stone";
+    }
+
+    /**
+     * Timestamp inside harvestFieldFor(resourceType): choppedAt, drilledAt or minedAt
+     */
+    static String harvestTimestampFieldFor(String resourceType) {
+        if ("trees".equals(resourceType)) {
+            return "choppedAt";
+        } else if ("oilReserves".equals(resourceType)) {
+            return "drilledAt";
+        }
+        return "minedAt";
+    }
+
+    /**
+     * Walks farm.lavaPits and appends one Obsidian item per pit to resources (unsorted)
+     */
+    static void extractLavaPitsInto(ExtractionContext ctx, Map<String, FarmState.LavaPit> lavaPits, ItemBatch resources) {
+        if (lavaPits == null) {
+            return;
+        }
+        try {
+            Log.d(TAG, "Processing " + lavaPits.size() + " lava pit(s)");
+            
+            long currentTime = ctx.now;
+            long replenishTime = GameTables.RESOURCES.duration("Lavapit");
+            if (replenishTime <= 0) {
+                Log.w(TAG, "Unknown or invalid replenish time for Lavapit");
+                return;
+            }
+            
+            for (Map.Entry<String, FarmState.LavaPit> lavaPit : lavaPits.entrySet()) {
+                String lavaPitId = lavaPit.getKey();
                 try {
-                    JsonObject lavaPits = farmData.getAsJsonObject("lavaPits");
-                    Log.d(TAG, "Processing " + lavaPits.size() + " lava pit(s)");
-                    
-                    long currentTime = System.currentTimeMillis();
-                    Long replenishTime = Constants.RESOURCE_REPLENISH_TIMES.get("Lavapit");
-                    if (replenishTime == null || replenishTime <= 0) {
-                        Log.w(TAG, "Unknown or invalid replenish time for Lavapit");
-                        return resources;
+                    // Lava pits have readyAt directly (already calculated by API)
+                    long readyAt = lavaPit.getValue().readyAt;
+                    if (readyAt <= 0) {
+                        Log.w(TAG, "Lava pit " + lavaPitId + " missing readyAt");
+                        continue;
                     }
                     
-                    for (String lavaPitId : lavaPits.keySet()) {
-                        try {
-                            JsonObject lavaPitData = lavaPits.getAsJsonObject(lavaPitId);
-                            
-                            // Lava pits have readyAt directly (already calculated by API)
-                            long readyAt = 0;
-                            if (lavaPitData.has("readyAt") && !lavaPitData.get("readyAt").isJsonNull()) {
-                                readyAt = lavaPitData.get("readyAt").getAsLong();
-                            } else {
-                                Log.w(TAG, "Lava pit " + lavaPitId + " missing readyAt");
-                                continue;
-                            }
-                            
-                            // Only include lava pits that will be ready in the future
-                            if (readyAt <= currentTime) {
-                                Log.d(TAG, "Skipping lava pit: 1 Obsidian (ready=" + formatTimestamp(readyAt) + 
-                                      " - already passed)");
-                                continue;
-                            }
-                            
-                            // Each lava pit produces Obsidian
-                            FarmItem item = new FarmItem("resource", "Obsidian", 1, readyAt);
-                            resources.add(item);
-                            Log.d(TAG, "Added resource: 1 Obsidian from lava pit (ready=" + formatTimestamp(readyAt) + ")");
-                            
-                        } catch (Exception e) {
-                            Log.w(TAG, "Error processing lava pit " + lavaPitId + ": " + e.getMessage());
-                        }
+                    // Only include lava pits that will be ready in the future
+                    if (readyAt <= currentTime) {
+                        Log.d(TAG, "Skipping lava pit: 1 Obsidian (ready=" + formatTimestamp(readyAt) + 
+                              " - already passed)");
+                        continue;
                     }
+                    
+                    // Each lava pit produces Obsidian
+                    resources.add("resource", "Obsidian", 1, readyAt);
+                    Log.d(TAG, "Added resource: 1 Obsidian from lava pit (ready=" + formatTimestamp(readyAt) + ")");
+                    
                 } catch (Exception e) {
-                    Log.w(TAG, "Error processing lava pits: " + e.getMessage());
+                    Log.w(TAG, "Error processing lava pit " + lavaPitId + ": " + e.getMessage());
                 }
             }
-            
         } catch (Exception e) {
-            Log.e(TAG, "Error extracting resources: " + e.getMessage(), e);
+            Log.w(TAG, "Error processing lava pits: " + e.getMessage());
         }
-
-        // Sort by timestamp ascending (earliest first)
-        sortByTimestamp(resources);
-        Log.d(TAG, "Extracted " + resources.size() + " resource(s)");
-        return resources;
     }
 
     /**
@@ -543,7 +550,7 @@ public class CategoryExtractors {
      * Structure: farm.henHouse.animals and farm.barn.animals
      * Each animal has: type, awakeAt, asleepAt, experience, etc.
      * 
-     * For production readiness: readyTime = awakeAt + Constants.ANIMAL_PRODUCTION_TIMES[type]
+     * For production readiness: readyTime = awakeAt + GameTables.ANIMALS[type]
      * awakeAt is when animal wakes up and can produce (egg/milk/wool)
      * 
      * @param farmData JsonObject farm object from API response
@@ -559,207 +566,16 @@ public class CategoryExtractors {
         }
 
         try {
-            long currentTime = System.currentTimeMillis();
-            
+            FarmState farm = FarmStateReader.fromTree(farmData);
+            ExtractionContext ctx = new ExtractionContext(System.currentTimeMillis());
+            ItemBatch batch = new ItemBatch();
+
             // Extract from Hen House
-            if (farmData.has("henHouse")) {
-                try {
-                    JsonObject henHouse = farmData.getAsJsonObject("henHouse");
-                    if (henHouse.has("animals")) {
-                        JsonObject henHouseAnimals = henHouse.getAsJsonObject("animals");
-                        Log.d(TAG, "Processing " + henHouseAnimals.size() + " henHouse animal(s)");
-                        
-                        // Maps to group animals by type for counting
-                        Map<String, List<Long>> animalsByType = new HashMap<>();
-                        Map<String, List<Long>> loveNotificationsByType = new HashMap<>();
-                        
-                        for (String animalId : henHouseAnimals.keySet()) {
-                            try {
-                                JsonObject animal = henHouseAnimals.getAsJsonObject(animalId);
-                                
-                                String type = getJsonString(animal, "type");
-                                if (type == null) {
-                                    Log.w(TAG, "HenHouse animal " + animalId + " missing type");
-                                    continue;
-                                }
-                                
-                                long awakeAt = 0;
-                                if (animal.has("awakeAt") && !animal.get("awakeAt").isJsonNull()) {
-                                    awakeAt = animal.get("awakeAt").getAsLong();
-                                } else {
-                                    Log.w(TAG, "HenHouse animal " + animalId + " (" + type + ") missing awakeAt");
-                                    continue;
-                                }
-                                
-                                long asleepAt = 0;
-                                if (animal.has("asleepAt") && !animal.get("asleepAt").isJsonNull()) {
-                                    asleepAt = animal.get("asleepAt").getAsLong();
-                                }
-                                
-                                // Extract production notification (when animal wakes up)
-                                // For animals, use awakeAt directly as the notification time
-                                if (awakeAt <= currentTime) {
-                                    Log.d(TAG, "Skipping " + type + " (AWAKE): already passed");
-                                } else {
-                                    // Group by type for later counting
-                                    animalsByType.computeIfAbsent(type, k -> new ArrayList<>()).add(awakeAt);
-                                    Log.d(TAG, "Added animal (AWAKE): 1 " + type + 
-                                          " at " + formatTimestamp(awakeAt));
-                                }
-                                
-                                // Extract love notification
-                                long loveTime = 0;
-                                long lovedAt = 0;
-                                if (animal.has("lovedAt") && !animal.get("lovedAt").isJsonNull()) {
-                                    lovedAt = animal.get("lovedAt").getAsLong();
-                                }
-                                
-                                // Calculate loveTime using game logic: max of both thresholds
-                                // Animal needs love when BOTH conditions are true (asleepAt + 1/3 cycle AND lovedAt + 1/3 cycle)
-                                long oneThirdCycle = (awakeAt - asleepAt) / 3;
-                                long sleepThreshold = asleepAt + oneThirdCycle;
-                                long loveThreshold = lovedAt + oneThirdCycle;
-                                loveTime = Math.max(sleepThreshold, loveThreshold);
-                                
-                                // Only include love notification if it occurs before awakeAt
-                                if (loveTime < awakeAt && loveTime > currentTime) {
-                                    loveNotificationsByType.computeIfAbsent(type, k -> new ArrayList<>()).add(loveTime);
-                                    Log.d(TAG, "Added animal (LOVE): 1 " + type + 
-                                          " at " + formatTimestamp(loveTime));
-                                } else if (loveTime >= awakeAt) {
-                                    Log.d(TAG, "Skipping " + type + " (LOVE): occurs after awakeAt");
-                                } else if (loveTime <= currentTime) {
-                                    Log.d(TAG, "Skipping " + type + " (LOVE): already passed");
-                                }
-                                
-                            } catch (Exception e) {
-                                Log.w(TAG, "Error processing henHouse animal " + animalId + ": " + e.getMessage());
-                            }
-                        }
-                        
-                        // Convert grouped animals to FarmItems (production notifications)
-                        for (String type : animalsByType.keySet()) {
-                            List<Long> readyTimes = animalsByType.get(type);
-                            for (Long readyTime : readyTimes) {
-                                FarmItem item = new FarmItem("animals", type, 1, readyTime);
-                                animals.add(item);
-                            }
-                        }
-                        
-                        // Convert grouped love notifications to FarmItems
-                        for (String type : loveNotificationsByType.keySet()) {
-                            List<Long> loveTimes = loveNotificationsByType.get(type);
-                            for (Long loveTime : loveTimes) {
-                                // Use a special marker in the name to identify this as a love notification
-                                FarmItem item = new FarmItem("animals_love", type, 1, loveTime);
-                                animals.add(item);
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    Log.w(TAG, "Error processing henHouse: " + e.getMessage());
-                }
-            }
+            extractAnimalHouseInto(ctx, "henHouse", farm.henHouse, batch);
             
             // Extract from Barn
-            if (farmData.has("barn")) {
-                try {
-                    JsonObject barn = farmData.getAsJsonObject("barn");
-                    if (barn.has("animals")) {
-                        JsonObject barnAnimals = barn.getAsJsonObject("animals");
-                        Log.d(TAG, "Processing " + barnAnimals.size() + " barn animal(s)");
-                        
-                        // Maps to group animals by type for counting
-                        Map<String, List<Long>> animalsByType = new HashMap<>();
-                        Map<String, List<Long>> loveNotificationsByType = new HashMap<>();
-                        
-                        for (String animalId : barnAnimals.keySet()) {
-                            try {
-                                JsonObject animal = barnAnimals.getAsJsonObject(animalId);
-                                
-                                String type = getJsonString(animal, "type");
-                                if (type == null) {
-                                    Log.w(TAG, "Barn animal " + animalId + " missing type");
-                                    continue;
-                                }
-                                
-                                long awakeAt = 0;
-                                if (animal.has("awakeAt") && !animal.get("awakeAt").isJsonNull()) {
-                                    awakeAt = animal.get("awakeAt").getAsLong();
-                                } else {
-                                    Log.w(TAG, "Barn animal " + animalId + " (" + type + ") missing awakeAt");
-                                    continue;
-                                }
-                                
-                                long asleepAt = 0;
-                                if (animal.has("asleepAt") && !animal.get("asleepAt").isJsonNull()) {
-                                    asleepAt = animal.get("asleepAt").getAsLong();
-                                }
-                                
-                                // Extract production notification (when animal wakes up)
-                                // For animals, use awakeAt directly as the notification time
-                                if (awakeAt <= currentTime) {
-                                    Log.d(TAG, "Skipping " + type + " (AWAKE): already passed");
-                                } else {
-                                    // Group by type for later counting
-                                    animalsByType.computeIfAbsent(type, k -> new ArrayList<>()).add(awakeAt);
-                                    Log.d(TAG, "Added animal (AWAKE): 1 " + type + 
-                                          " at " + formatTimestamp(awakeAt));
-                                }
-                                
-                                // Extract love notification
-                                long loveTime = 0;
-                                long lovedAt = 0;
-                                if (animal.has("lovedAt") && !animal.get("lovedAt").isJsonNull()) {
-                                    lovedAt = animal.get("lovedAt").getAsLong();
-                                }
-                                
-                                // Calculate loveTime using game logic: max of both thresholds
-                                // Animal needs love when BOTH conditions are true (asleepAt + 1/3 cycle AND lovedAt + 1/3 cycle)
-                                long oneThirdCycle = (awakeAt - asleepAt) / 3;
-                                long sleepThreshold = asleepAt + oneThirdCycle;
-                                long loveThreshold = lovedAt + oneThirdCycle;
-                                loveTime = Math.max(sleepThreshold, loveThreshold);
-                                
-                                // Only include love notification if it occurs before awakeAt
-                                if (loveTime < awakeAt && loveTime > currentTime) {
-                                    loveNotificationsByType.computeIfAbsent(type, k -> new ArrayList<>()).add(loveTime);
-                                    Log.d(TAG, "Added animal (LOVE): 1 " + type + 
-                                          " at " + formatTimestamp(loveTime));
-                                } else if (loveTime >= awakeAt) {
-                                    Log.d(TAG, "Skipping " + type + " (LOVE): occurs after awakeAt");
-                                } else if (loveTime <= currentTime) {
-                                    Log.d(TAG, "Skipping " + type + " (LOVE): already passed");
-                                }
-                                
-                            } catch (Exception e) {
-                                Log.w(TAG, "Error processing barn animal " + animalId + ": " + e.getMessage());
-                            }
-                        }
-                        
-                        // Convert grouped animals to FarmItems (production notifications)
-                        for (String type : animalsByType.keySet()) {
-                            List<Long> readyTimes = animalsByType.get(type);
-                            for (Long readyTime : readyTimes) {
-                                FarmItem item = new FarmItem("animals", type, 1, readyTime);
-                                animals.add(item);
-                            }
-                        }
-                        
-                        // Convert grouped love notifications to FarmItems
-                        for (String type : loveNotificationsByType.keySet()) {
-                            List<Long> loveTimes = loveNotificationsByType.get(type);
-                            for (Long loveTime : loveTimes) {
-                                // Use a special marker in the name to identify this as a love notification
-                                FarmItem item = new FarmItem("animals_love", type, 1, loveTime);
-                                animals.add(item);
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    Log.w(TAG, "Error processing barn: " + e.getMessage());
-                }
-            }
+            extractAnimalHouseInto(ctx, "barn", farm.barn, batch);
+            animals.addAll(batch.toItems());
             
         } catch (Exception e) {
             Log.e(TAG, "Error extracting animals: " + e.getMessage(), e);
@@ -771,6 +587,104 @@ public class CategoryExtractors {
         return animals;
     }
 
+    /**
+     * Walks one animal building (farm.henHouse or farm.barn) and appends its wake-up and
+     * love items to animals (unsorted)
+     * @param house "henHouse" or "barn", for logging
+     * @param houseAnimals The building's animals by id, or null
+     */
+    static void extractAnimalHouseInto(ExtractionContext ctx, String house, Map<String, FarmState.Animal> houseAnimals,
+                                       ItemBatch animals) {
+        if (houseAnimals == null) {
+            return;
+        }
+        try {
+            long currentTime = ctx.now;
+            String label = house.substring(0, 1).toUpperCase() + house.substring(1);
+            Log.d(TAG, "Processing " + houseAnimals.size() + " " + house + " animal(s)");
+            
+            // Maps to group animals by type for counting
+            Map<String, List<Long>> animalsByType = new HashMap<>();
+            Map<String, List<Long>> loveNotificationsByType = new HashMap<>();
+            
+            for (Map.Entry<String, FarmState.Animal> entry : houseAnimals.entrySet()) {
+                String animalId = entry.getKey();
+                try {
+                    FarmState.Animal animal = entry.getValue();
+                    
+                    String type = animal.type;
+                    if (type == null) {
+                        Log.w(TAG, label + " animal " + animalId + " missing type");
+                        continue;
+                    }
+                    
+                    long awakeAt = animal.awakeAt;
+                    if (awakeAt <= 0) {
+                        Log.w(TAG, label + " animal " + animalId + " (" + type + ") missing awakeAt");
+                        continue;
+                    }
+                    
+                    long asleepAt = animal.asleepAt;
+                    
+                    // Extract production notification (when animal wakes up)
+                    // For animals, use awakeAt directly as the notification time
+                    if (awakeAt <= currentTime) {
+                        Log.d(TAG, "Skipping " + type + " (AWAKE): already passed");
+                    } else {
+                        // Group by type for later counting
+                        animalsByType.computeIfAbsent(type, k -> new ArrayList<>()).add(awakeAt);
+                        Log.d(TAG, "Added animal (AWAKE): 1 " + type + 
+                              " at " + formatTimestamp(awakeAt));
+                    }
+                    
+                    // Extract love notification
+                    long loveTime = 0;
+                    long lovedAt = animal.lovedAt;
+                    
+                    // Calculate loveTime using game logic: max of both thresholds
+                    // Animal needs love when BOTH conditions are true (asleepAt + 1/3 cycle AND lovedAt + 1/3 cycle)
+                    long oneThirdCycle = (awakeAt - asleepAt) / 3;
+                    long sleepThreshold = asleepAt + oneThirdCycle;
+                    long loveThreshold = lovedAt + oneThirdCycle;
+                    loveTime = Math.max(sleepThreshold, loveThreshold);
+                    
+                    // Only include love notification if it occurs before awakeAt
+                    if (loveTime < awakeAt && loveTime > currentTime) {
+                        loveNotificationsByType.computeIfAbsent(type, k -> new ArrayList<>()).add(loveTime);
+                        Log.d(TAG, "Added animal (LOVE): 1 " + type + 
+                              " at " + formatTimestamp(loveTime));
+                    } else if (loveTime >= awakeAt) {
+                        Log.d(TAG, "Skipping " + type + " (LOVE): occurs after awakeAt");
+                    } else if (loveTime <= currentTime) {
+                        Log.d(TAG, "Skipping " + type + " (LOVE): already passed");
+                    }
+                    
+                } catch (Exception e) {
+                    Log.w(TAG, "Error processing " + house + " animal " + animalId + ": " + e.getMessage());
+                }
+            }
+            
+            // Convert grouped animals to items (production notifications)
+            for (String type : animalsByType.keySet()) {
+                List<Long> readyTimes = animalsByType.get(type);
+                for (Long readyTime : readyTimes) {
+                    animals.add("animals", type, 1, readyTime);
+                }
+            }
+            
+            // Convert grouped love notifications to items
+            for (String type : loveNotificationsByType.keySet()) {
+                List<Long> loveTimes = loveNotificationsByType.get(type);
+                for (Long loveTime : loveTimes) {
+                    // Use a special marker in the name to identify this as a love notification
+                    animals.add("animals_love", type, 1, loveTime);
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Error processing " + house + ": " + e.getMessage());
+        }
+    }
+
     /**
      * Extracts sick animals from barn and henHouse for sick animal notifications
      * Collects state information for all animals to detect sickness
@@ -791,87 +705,14 @@ public class CategoryExtractors {
         }
 
         try {
-            long currentTime = System.currentTimeMillis();
-            
+            FarmState farm = FarmStateReader.fromTree(farmData);
+            ExtractionContext ctx = new ExtractionContext(System.currentTimeMillis());
+
             // Extract from Hen House
-            if (farmData.has("henHouse")) {
-                try {
-                    JsonObject henHouse = farmData.getAsJsonObject("henHouse");
-                    if (henHouse.has("animals")) {
-                        JsonObject henHouseAnimals = henHouse.getAsJsonObject("animals");
-                        DebugLog.log("🐔 Sick Animals: Processing " + henHouseAnimals.size() + " henHouse animal(s)");
-                        
-                        for (String animalId : henHouseAnimals.keySet()) {
-                            try {
-                                JsonObject animal = henHouseAnimals.getAsJsonObject(animalId);
-                                
-                                String type = getJsonString(animal, "type");
-                                if (type == null) {
-                                    continue;
-                                }
-                                
-                                String state = getJsonString(animal, "state");
-                                if (state == null) {
-                                    state = "idle"; // Default state if not specified
-                                }
-                                
-                                com.sfl.browser.models.SickAnimal sickAnimal = 
-                                    new com.sfl.browser.models.SickAnimal(type, animalId, state, currentTime);
-                                sickAnimals.add(sickAnimal);
-                                
-                                if ("sick".equals(state)) {
-                                    DebugLog.log("🐔 Sick Animals: Found SICK henHouse animal - " + type + " (ID: " + animalId + ")");
-                                }
-                                
-                            } catch (Exception e) {
-                                DebugLog.log("⚠️ Sick Animals: Error processing henHouse animal " + animalId + ": " + e.getMessage());
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    DebugLog.log("⚠️ Sick Animals: Error processing henHouse: " + e.getMessage());
-                }
-            }
+            extractAnimalStatesInto(ctx, "henHouse", farm.henHouse, sickAnimals);
             
             // Extract from Barn
-            if (farmData.has("barn")) {
-                try {
-                    JsonObject barn = farmData.getAsJsonObject("barn");
-                    if (barn.has("animals")) {
-                        JsonObject barnAnimals = barn.getAsJsonObject("animals");
-                        DebugLog.log("🐔 Sick Animals: Processing " + barnAnimals.size() + " barn animal(s)");
-                        
-                        for (String animalId : barnAnimals.keySet()) {
-                            try {
-                                JsonObject animal = barnAnimals.getAsJsonObject(animalId);
-                                
-                                String type = getJsonString(animal, "type");
-                                if (type == null) {
-                                    continue;
-                                }
-                                
-                                String state = getJsonString(animal, "state");
-                                if (state == null) {
-                                    state = "idle"; // Default state if not specified
-                                }
-                                
-                                com.sfl.browser.models.SickAnimal sickAnimal = 
-                                    new com.sfl.browser.models.SickAnimal(type, animalId, state, currentTime);
-                                sickAnimals.add(sickAnimal);
-                                
-                                if ("sick".equals(state)) {
-                                    DebugLog.log("🐔 Sick Animals: Found SICK barn animal - " + type + " (ID: " + animalId + ")");
-                                }
-                                
-                            } catch (Exception e) {
-                                DebugLog.log("⚠️ Sick Animals: Error processing barn animal " + animalId + ": " + e.getMessage());
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    DebugLog.log("⚠️ Sick Animals: Error processing barn: " + e.getMessage());
-                }
-            }
+            extractAnimalStatesInto(ctx, "barn", farm.barn, sickAnimals);
             
         } catch (Exception e) {
             DebugLog.log("❌ Sick Animals: Error extracting animal states: " + e.getMessage());
@@ -881,6 +722,53 @@ public class CategoryExtractors {
         return sickAnimals;
     }
 
+    /**
+     * Walks one animal building (farm.henHouse or farm.barn) and appends every animal's
+     * state to sickAnimals
+     * @param house "henHouse" or "barn", for logging
+     * @param houseAnimals The building's animals by id, or null
+     */
+    static void extractAnimalStatesInto(ExtractionContext ctx, String house, Map<String, FarmState.Animal> houseAnimals,
+                                        List<com.sfl.browser.models.SickAnimal> sickAnimals) {
+        if (houseAnimals == null) {
+            return;
+        }
+        try {
+            long currentTime = ctx.now;
+            DebugLog.log("🐔 Sick Animals: Processing " + houseAnimals.size() + " " + house + " animal(s)");
+            
+            for (Map.Entry<String, FarmState.Animal> entry : houseAnimals.entrySet()) {
+                String animalId = entry.getKey();
+                try {
+                    FarmState.Animal animal = entry.getValue();
+                    
+                    String type = animal.type;
+                    if (type == null) {
+                        continue;
+                    }
+                    
+                    String state = animal.state;
+                    if (state == null) {
+                        state = "idle"; // Default state if not specified
+                    }
+                    
+                    com.sfl.browser.models.SickAnimal sickAnimal = 
+                        new com.sfl.browser.models.SickAnimal(type, animalId, state, currentTime);
+                    sickAnimals.add(sickAnimal);
+                    
+                    if ("sick".equals(state)) {
+                        DebugLog.log("🐔 Sick Animals: Found SICK " + house + " animal - " + type + " (ID: " + animalId + ")");
+                    }
+                    
+                } catch (Exception e) {
+                    DebugLog.log("⚠️ Sick Animals: Error processing " + house + " animal " + animalId + ": " + e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            DebugLog.log("⚠️ Sick Animals: Error processing " + house + ": " + e.getMessage());
+        }
+    }
+
     /**
      * Extracts cooking items from raw API response
      * 
@@ -907,68 +795,69 @@ public class CategoryExtractors {
             return cooking;
         }
 
-        try {
-            if (!farmData.has("buildings")) {
-                Log.w(TAG, "No buildings data found in farm object");
-                return cooking;
-            }
+        if (!farmData.has("buildings")) {
+            Log.w(TAG, "No buildings data found in farm object");
+            return cooking;
+        }
 
-            JsonObject buildings = farmData.getAsJsonObject("buildings");
-            
-            // List of all cooking building types
-            String[] cookingBuildings = {
-                "Fire Pit", "Bakery", "Kitchen", "Deli", "Smoothie Shack"
-            };
-            
-            long currentTime = System.currentTimeMillis();
+        ItemBatch batch = new ItemBatch();
+
+        extractCookingInto(new ExtractionContext(System.currentTimeMillis()), FarmStateReader.fromTree(farmData).buildings, batch);
+
+        cooking.addAll(batch.toItems());
+
+        // Sort by timestamp ascending (earliest first)
+        sortByTimestamp(cooking);
+        Log.d(TAG, "Extracted " + cooking.size() + " cooking item(s)");
+        return cooking;
+    }
+
+    /**
+     * Walks farm.buildings and appends its items to cooking (unsorted)
+     */
+    static void extractCookingInto(ExtractionContext ctx, Map<String, List<FarmState.Building>> buildings, ItemBatch cooking) {
+        if (buildings == null) {
+            return;
+        }
+        try {
+            long currentTime = ctx.now;
             
-            for (String buildingType : cookingBuildings) {
+            for (String buildingType : COOKING_BUILDINGS) {
                 try {
-                    if (!buildings.has(buildingType)) {
+                    List<FarmState.Building> buildingArray = buildings.get(buildingType);
+                    if (buildingArray == null) {
                         Log.d(TAG, "No " + buildingType + " found");
                         continue;
                     }
                     
-                    JsonArray buildingArray = buildings.getAsJsonArray(buildingType);
                     Log.d(TAG, "Processing " + buildingArray.size() + " " + buildingType + " building(s)");
                     
-                    for (JsonElement buildingElement : buildingArray) {
+                    for (FarmState.Building building : buildingArray) {
                         try {
-                            JsonObject building = buildingElement.getAsJsonObject();
-                            
                             // Check if building has crafting array
-                            if (!building.has("crafting") || building.get("crafting").isJsonNull()) {
+                            if (building.crafting == null) {
                                 continue;
                             }
                             
-                            JsonArray craftingArray = building.getAsJsonArray("crafting");
-                            
                             // Each crafting item in the array
-                            for (JsonElement craftingElement : craftingArray) {
+                            for (FarmState.CraftingItem craftingItem : building.crafting) {
                                 try {
-                                    JsonObject craftingItem = craftingElement.getAsJsonObject();
-                                    
                                     // Extract cooking item name
-                                    String name = getJsonString(craftingItem, "name");
+                                    String name = craftingItem.name;
                                     if (name == null || name.isEmpty()) {
                                         Log.w(TAG, buildingType + ": Crafting item missing name");
                                         continue;
                                     }
                                     
                                     // Extract readyAt (already calculated by game, use directly)
-                                    long readyAt = 0;
-                                    if (craftingItem.has("readyAt") && !craftingItem.get("readyAt").isJsonNull()) {
-                                        readyAt = craftingItem.get("readyAt").getAsLong();
-                                    } else {
+                                    long readyAt = craftingItem.readyAt;
+                                    if (readyAt <= 0) {
                                         Log.w(TAG, buildingType + " (" + name + "): Missing readyAt");
                                         continue;
                                     }
                                     
-                                    // Extract amount being cooked
-                                    int amount = 1;
-                                    if (craftingItem.has("amount") && !craftingItem.get("amount").isJsonNull()) {
-                                        amount = craftingItem.get("amount").getAsInt();
-                                    }
+                                    // Amount being cooked (1 if the API left it out)
+                                    int amount = craftingItem.amount;
                                     
                                     // Only include items that will be ready in the future
                                     if (readyAt <= currentTime) {
@@ -977,9 +866,8 @@ public class CategoryExtractors {
                                         continue;
                                     }
                                     
-                                    FarmItem item = new FarmItem("cooking", name, amount, readyAt);
-                                    item.setBuildingName(buildingType);  // Store building name for clustering logic
-                                    cooking.add(item);
+                                    int item = cooking.add("cooking", name, amount, readyAt);
+                                    cooking.setBuildingName(item, buildingType);  // Store building name for clustering logic
                                     Log.d(TAG, "Added " + buildingType + " item: " + amount + " " + name + 
                                           " (ready=" + formatTimestamp(readyAt) + ")");
                                     
@@ -1001,11 +889,6 @@ public class CategoryExtractors {
         } catch (Exception e) {
             Log.e(TAG, "Error extracting cooking: " + e.getMessage(), e);
         }
-
-        // Sort by timestamp ascending (earliest first)
-        sortByTimestamp(cooking);
-        Log.d(TAG, "Extracted " + cooking.size() + " cooking item(s)");
-        return cooking;
     }
 
     /**
@@ -1032,67 +915,73 @@ public class CategoryExtractors {
             return composters;
         }
 
-        try {
-            if (!farmData.has("buildings")) {
-                Log.w(TAG, "No buildings data found in farm object");
-                return composters;
-            }
+        if (!farmData.has("buildings")) {
+            Log.w(TAG, "No buildings data found in farm object");
+            return composters;
+        }
 
-            JsonObject buildings = farmData.getAsJsonObject("buildings");
-            
-            // List of all composter building types
-            String[] composterBuildings = {
-                "Compost Bin", "Turbo Composter", "Premium Composter"
-            };
-            
-            long currentTime = System.currentTimeMillis();
+        ItemBatch batch = new ItemBatch();
+
+        extractCompostersInto(new ExtractionContext(System.currentTimeMillis()), FarmStateReader.fromTree(farmData).buildings, batch);
+
+        composters.addAll(batch.toItems());
+
+        // Sort by timestamp ascending (earliest first)
+        sortByTimestamp(composters);
+        Log.d(TAG, "Extracted " + composters.size() + " composter(s)");
+        return composters;
+    }
+
+    /**
+     * Walks farm.buildings and appends its items to composters (unsorted)
+     */
+    static void extractCompostersInto(ExtractionContext ctx, Map<String, List<FarmState.Building>> buildings, ItemBatch composters) {
+        if (buildings == null) {
+            return;
+        }
+        try {
+            long currentTime = ctx.now;
             
-            for (String buildingType : composterBuildings) {
+            for (String buildingType : COMPOSTER_BUILDINGS) {
                 try {
-                    if (!buildings.has(buildingType)) {
+                    List<FarmState.Building> buildingArray = buildings.get(buildingType);
+                    if (buildingArray == null) {
                         Log.d(TAG, "No " + buildingType + " found");
                         continue;
                     }
                     
-                    JsonArray buildingArray = buildings.getAsJsonArray(buildingType);
                     Log.d(TAG, "Processing " + buildingArray.size() + " " + buildingType + " composter(s)");
                     
-                    for (JsonElement buildingElement : buildingArray) {
+                    for (FarmState.Building composter : buildingArray) {
                         try {
-                            JsonObject composter = buildingElement.getAsJsonObject();
-                            
                             // Check if composter has producing object
-                            if (!composter.has("producing") || composter.get("producing").isJsonNull()) {
+                            FarmState.Producing producing = composter.producing;
+                            if (producing == null) {
                                 continue;
                             }
                             
-                            JsonObject producing = composter.getAsJsonObject("producing");
-                            
                             // Extract readyAt timestamp (already calculated by game, use directly)
-                            long readyAt = 0;
-                            if (producing.has("readyAt") && !producing.get("readyAt").isJsonNull()) {
-                                readyAt = producing.get("readyAt").getAsLong();
-                            } else {
+                            long readyAt = producing.readyAt;
+                            if (readyAt <= 0) {
                                 Log.w(TAG, buildingType + ": Missing readyAt in producing");
                                 continue;
                             }
                             
                             // Extract items being produced
-                            if (!producing.has("items") || producing.get("items").isJsonNull()) {
+                            if (producing.items == null) {
                                 Log.w(TAG, buildingType + ": Missing items in producing");
                                 continue;
                             }
                             
-                            JsonObject itemsObject = producing.getAsJsonObject("items");
                             StringBuilder itemsList = new StringBuilder();
                             int totalQuantity = 0;
                             
                             // Build items list and calculate total quantity
                             java.util.List<String> itemNames = new java.util.ArrayList<>();
-                            for (String itemName : itemsObject.keySet()) {
-                                int quantity = itemsObject.get(itemName).getAsInt();
+                            for (Map.Entry<String, Integer> produced : producing.items.entrySet()) {
+                                int quantity = produced.getValue();
                                 totalQuantity += quantity;
-                                itemNames.add(quantity + " " + itemName);
+                                itemNames.add(quantity + " " + produced.getKey());
                             }
                             
                             // Join items with commas
@@ -1110,11 +999,10 @@ public class CategoryExtractors {
                                 continue;
                             }
                             
-                            // Create FarmItem with building name for clustering context
-                            FarmItem item = new FarmItem("composters", buildingType, totalQuantity, readyAt);
-                            item.setBuildingName(buildingType);
-                            item.setDetails(itemsList.toString());  // Store the produced items
-                            composters.add(item);
+                            // Add the item with building name for clustering context
+                            int item = composters.add("composters", buildingType, totalQuantity, readyAt);
+                            composters.setBuildingName(item, buildingType);
+                            composters.setDetails(item, itemsList.toString());  // Store the produced items
                             Log.d(TAG, "Added " + buildingType + ": " + itemsList.toString() + 
                                   " (ready=" + formatTimestamp(readyAt) + ")");
                             
@@ -1131,11 +1019,6 @@ public class CategoryExtractors {
         } catch (Exception e) {
             Log.e(TAG, "Error extracting composters: " + e.getMessage(), e);
         }
-
-        // Sort by timestamp ascending (earliest first)
-        sortByTimestamp(composters);
-        Log.d(TAG, "Extracted " + composters.size() + " composter(s)");
-        return composters;
     }
 
     /**
@@ -1146,7 +1029,7 @@ public class CategoryExtractors {
      * - name: flower type (e.g., "Yellow Cosmos", "Blue Gladiolus")
      * - plantedAt: timestamp when planted
      * 
-     * Calculation: readyTime = plantedAt + Constants.FLOWER_GROWTH_TIMES[flowerName]
+     * Calculation: readyTime = plantedAt + GameTables.FLOWERS[flowerName]
      * Growth times vary by flower type (typically 1-7 days)
      * 
      * @param farmData JsonObject farm object from API response
@@ -1156,71 +1039,72 @@ public class CategoryExtractors {
         Log.d(TAG, "Extracting flowers...");
         List<FarmItem> flowers = new ArrayList<>();
 
-    // Clear the map before each extraction
-    flowerBedFinishTimes.clear();
-
         if (farmData == null) {
             Log.w(TAG, "farmData is null");
             return flowers;
         }
 
-        try {
-            if (!farmData.has("flowers")) {
-                Log.w(TAG, "No flowers data found in farm object");
-                return flowers;
-            }
+        if (!farmData.has("flowers")) {
+            Log.w(TAG, "No flowers data found in farm object");
+            return flowers;
+        }
 
-            JsonObject flowersData = farmData.getAsJsonObject("flowers");
-            
-            // Check for flowerBeds object
-            if (!flowersData.has("flowerBeds")) {
-                Log.w(TAG, "No flowerBeds found in flowers object");
-                return flowers;
-            }
+        ItemBatch batch = new ItemBatch();
 
-            JsonObject flowerBeds = flowersData.getAsJsonObject("flowerBeds");
-            Log.d(TAG, "Found " + flowerBeds.size() + " flower bed(s)");
+        extractFlowersInto(new ExtractionContext(System.currentTimeMillis()), FarmStateReader.fromTree(farmData).flowerBeds, batch);
 
-            long currentTime = System.currentTimeMillis();
+        flowers.addAll(batch.toItems());
 
-            // Iterate over each flower bed by key
-            for (String bedId : flowerBeds.keySet()) {
-                try {
-                    JsonObject bedData = flowerBeds.getAsJsonObject(bedId);
+        // Sort by timestamp ascending (earliest first)
+        sortByTimestamp(flowers);
+        Log.d(TAG, "Extracted " + flowers.size() + " flower(s)");
+        return flowers;
+    }
 
-                    // Check if bed has flower object
-                    if (!bedData.has("flower") || bedData.get("flower").isJsonNull()) {
-                        continue;
-                    }
+    /**
+     * Walks farm.flowers.flowerBeds (bed id -> flower; empty beds are absent) and appends its
+     * items to flowers (unsorted)
+     */
+    static void extractFlowersInto(ExtractionContext ctx, Map<String, FarmState.Planting> flowerBeds, ItemBatch flowers) {
+        if (flowerBeds == null) {
+            Log.w(TAG, "No flowerBeds found in flowers object");
+            return;
+        }
+        try {
+            Log.d(TAG, "Found " + flowerBeds.size() + " planted flower bed(s)");
 
-                    JsonObject flowerData = bedData.getAsJsonObject("flower");
+            long currentTime = ctx.now;
+
+            // Iterate over each flower bed by key
+            for (Map.Entry<String, FarmState.Planting> bed : flowerBeds.entrySet()) {
+                String bedId = bed.getKey();
+                try {
+                    FarmState.Planting flowerData = bed.getValue();
 
                     // Extract flower name
-                    String name = getJsonString(flowerData, "name");
+                    String name = flowerData.name;
                     if (name == null || name.isEmpty()) {
                         Log.w(TAG, "Flower bed " + bedId + " missing name");
                         continue;
                     }
 
                     // Extract plantedAt timestamp (in milliseconds)
-                    long plantedAt = 0;
-                    if (flowerData.has("plantedAt") && !flowerData.get("plantedAt").isJsonNull()) {
-                        plantedAt = flowerData.get("plantedAt").getAsLong();
-                    } else {
+                    long plantedAt = flowerData.plantedAt;
+                    if (plantedAt <= 0) {
                         Log.w(TAG, "Flower bed " + bedId + " (" + name + ") missing plantedAt");
                         continue;
                     }
 
-                    // Calculate readyTime = plantedAt + baseTime from Constants
-                    Long baseTime = Constants.FLOWER_GROWTH_TIMES.get(name);
-                    if (baseTime == null || baseTime <= 0) {
+                    // Calculate readyTime = plantedAt + baseTime from GameTables
+                    long baseTime = GameTables.FLOWERS.duration(flowerData.itemId);
+                    if (baseTime <= 0) {
                         Log.w(TAG, "Flower bed " + bedId + ": Unknown flower '" + name + "' or invalid baseTime");
                         continue;
                     }
 
                     long finishTime = plantedAt + baseTime;
                     // Store finish time for this flower bed
-                    flowerBedFinishTimes.put(bedId, finishTime);
+                    ctx.flowerBedFinishTimes.put(bedId, finishTime);
 
                     long readyTime = finishTime;
 
@@ -1233,8 +1117,7 @@ public class CategoryExtractors {
                     }
 
                     // Each flower bed counts as amount=1
-                    FarmItem item = new FarmItem("flowers", name, 1, readyTime);
-                    flowers.add(item);
+                    flowers.add("flowers", name, 1, readyTime);
                     Log.d(TAG, "Added flower: 1 " + name +
                           " (planted=" + formatTimestamp(plantedAt) + 
                           ", baseTime=" + (baseTime / 1000 / 60 / 60 / 24) + " days" +
@@ -1248,17 +1131,12 @@ public class CategoryExtractors {
         } catch (Exception e) {
             Log.e(TAG, "Error extracting flowers: " + e.getMessage(), e);
         }
-
-        // Sort by timestamp ascending (earliest first)
-        sortByTimestamp(flowers);
-        Log.d(TAG, "Extracted " + flowers.size() + " flower(s)");
-        return flowers;
     }
 
     /**
      * Sorts FarmItems by timestamp in ascending order (earliest first)
      */
-    private static void sortByTimestamp(List<FarmItem> items) {
+    static void sortByTimestamp(List<FarmItem> items) {
         Collections.sort(items, new Comparator<FarmItem>() {
             @Override
             public int compare(FarmItem o1, FarmItem o2) {
@@ -1267,20 +1145,6 @@ public class CategoryExtractors {
         });
     }
 
-    /**
-     * Safely extracts a string value from JsonObject
-     */
-    private static String getJsonString(JsonObject obj, String key) {
-        try {
-            if (obj.has(key) && !obj.get(key).isJsonNull()) {
-                return obj.get(key).getAsString();
-            }
-        } catch (Exception e) {
-            Log.w(TAG, "Error reading string field: " + key + ", " + e.getMessage());
-        }
-        return null;
-    }
-
     /**
      * Safely extracts an integer value from JsonObject with default fallback
      */
@@ -1296,67 +1160,50 @@ public class CategoryExtractors {
     }
 
     /**
-     * Parses ISO 8601 formatted timestamp string to Unix timestamp (milliseconds)
-     * Format: "2025-11-01T15:30:00Z" or "2025-11-01T15:30:00.000Z"
+     * Formats Unix timestamp to human-readable MM/DD HH:MM:SS format
      */
-    private static long parseISO8601(String isoString) {
-        try {
-            if (isoString == null || isoString.isEmpty()) {
-                return 0;
-            }
-            // Handle both formats with and without milliseconds
-            String normalized = isoString.replace("Z", "+00:00");
-            if (isoString.contains("T")) {
-                // Use SimpleDateFormat for parsing
-                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
-                Date date = sdf.parse(isoString.substring(0, 19)); // Take only YYYY-MM-DDTHH:MM:SS
-                return date.getTime();
-            }
-        } catch (Exception e) {
-            Log.w(TAG, "Error parsing ISO8601 timestamp: " + isoString + ", " + e.getMessage());
+    public static List<FarmItem> extractCraftingBox(JsonObject farmObject) {
+        List<FarmItem> items = new ArrayList<>();
+        
+        if (!farmObject.has("craftingBox")) {
+            Log.d(TAG, "No craftingBox found");
+            return items;
         }
-        return 0;
+
+        ItemBatch batch = new ItemBatch();
+
+        extractCraftingBoxInto(new ExtractionContext(System.currentTimeMillis()), FarmStateReader.fromTree(farmObject).craftingBox, batch);
+
+        items.addAll(batch.toItems());
+        
+        return items;
     }
 
     /**
-     * Formats Unix timestamp to human-readable MM/DD HH:MM:SS format
+     * Walks farm.craftingBox and appends its items to items (unsorted)
      */
-    public static List<FarmItem> extractCraftingBox(JsonObject farmObject) {
-        List<FarmItem> items = new ArrayList<>();
-        
+    static void extractCraftingBoxInto(ExtractionContext ctx, FarmState.CraftingBox craftingBox, ItemBatch items) {
+        if (craftingBox == null) {
+            return;
+        }
         try {
-            if (!farmObject.has("craftingBox")) {
-                Log.d(TAG, "No craftingBox found");
-                return items;
-            }
-            
-            JsonObject craftingBox = farmObject.getAsJsonObject("craftingBox");
-            
             // Check if status is "crafting" and readyAt is in the future
-            if (!craftingBox.has("status") || !craftingBox.has("readyAt")) {
+            if (craftingBox.status == null || craftingBox.readyAt <= 0) {
                 Log.d(TAG, "Crafting box missing status or readyAt");
-                return items;
+                return;
             }
             
-            String status = craftingBox.get("status").getAsString();
-            long readyAt = craftingBox.get("readyAt").getAsLong();
-            long currentTime = System.currentTimeMillis();
+            String status = craftingBox.status;
+            long readyAt = craftingBox.readyAt;
+            long currentTime = ctx.now;
             
             // Only include if currently crafting and readyAt is in the future
             if ("crafting".equals(status) && readyAt > currentTime) {
                 // Get the collectible name
-                String collectibleName = "Unknown";
-                if (craftingBox.has("item")) {
-                    JsonObject item = craftingBox.getAsJsonObject("item");
-                    if (item.has("collectible")) {
-                        collectibleName = item.get("collectible").getAsString();
-                    }
-                }
-                
-                // Create notification item using proper constructor
-                FarmItem farmItem = new FarmItem("crafting", collectibleName, 1, readyAt);
+                String collectibleName = craftingBox.collectible != null ? craftingBox.collectible : "Unknown";
                 
-                items.add(farmItem);
+                // Add the notification item
+                items.add("crafting", collectibleName, 1, readyAt);
                 Log.d(TAG, "Added crafting box item: " + collectibleName + " ready at " + formatTimestamp(readyAt));
             } else {
                 Log.d(TAG, "Crafting box status: " + status + ", readyAt: " + formatTimestamp(readyAt) + " (current: " + formatTimestamp(currentTime) + ")");
@@ -1365,8 +1212,6 @@ public class CategoryExtractors {
         } catch (Exception e) {
             Log.e(TAG, "Error extracting crafting box: " + e.getMessage(), e);
         }
-        
-        return items;
     }
 
     /**
@@ -1376,82 +1221,92 @@ public class CategoryExtractors {
     public static List<FarmItem> extractBeehives(JsonObject farmObject) {
         List<FarmItem> items = new ArrayList<>();
         
+        if (!farmObject.has("beehives")) {
+            Log.d(TAG, "No beehives found in farm data");
+            return items;
+        }
+
+        // Honey stops when the attached flower finishes, so the flower beds are walked first
+        FarmState farm = FarmStateReader.fromTree(farmObject);
+        ExtractionContext ctx = new ExtractionContext(System.currentTimeMillis());
+        ItemBatch batch = new ItemBatch();
+        extractFlowersInto(ctx, farm.flowerBeds, new ItemBatch());
+        extractBeehivesInto(ctx, farm.beehives, batch);
+        items.addAll(batch.toItems());
+        
+        return items;
+    }
+
+    /**
+     * Walks farm.beehives and appends its items to items (unsorted)
+     */
+    static void extractBeehivesInto(ExtractionContext ctx, Map<String, FarmState.Beehive> beehives, ItemBatch items) {
+        if (beehives == null) {
+            return;
+        }
         try {
-            if (!farmObject.has("beehives")) {
-                Log.d(TAG, "No beehives found in farm data");
-                return items;
-            }
-            
-            JsonObject beehives = farmObject.getAsJsonObject("beehives");
-            long currentTime = System.currentTimeMillis();
+            long currentTime = ctx.now;
             int beehiveIndex = 0; // For numbering 1, 2, 3...
             
-            for (String uuid : beehives.keySet()) {
+            for (Map.Entry<String, FarmState.Beehive> entry : beehives.entrySet()) {
                 beehiveIndex++;
-                JsonObject beehive = beehives.getAsJsonObject(uuid);
+                String uuid = entry.getKey();
+                FarmState.Beehive beehive = entry.getValue();
                 String displayNumber = String.valueOf(beehiveIndex);
                 
                 // SWARM ALERT: Check if swarm is true
-                if (beehive.has("swarm") && beehive.get("swarm").getAsBoolean()) {
+                if (beehive.swarm) {
                     // Create swarm alert with special marker to track state changes
-                    FarmItem swarmItem = new FarmItem("Beehive Swarm", "Beehive " + displayNumber, 1, currentTime);
-                    swarmItem.setBuildingName(uuid); // Store UUID for state tracking
-                    items.add(swarmItem);
+                    int swarmItem = items.add("Beehive Swarm", "Beehive " + displayNumber, 1, currentTime);
+                    items.setBuildingName(swarmItem, uuid); // Store UUID for state tracking
                     Log.d(TAG, "Added beehive swarm alert: Beehive " + displayNumber + " (uuid: " + uuid + ")");
                 }
                 
                 // HONEY FULLNESS ALERT: Calculate when honey will be full
-                if (beehive.has("honey") && beehive.has("flowers")) {
+                if (beehive.honeyUpdatedAt > 0 && beehive.flowerCount > 0) {
                     try {
-                        JsonObject honey = beehive.getAsJsonObject("honey");
-                        JsonArray flowers = beehive.getAsJsonArray("flowers");
-                        
-                        if (honey.has("updatedAt") && flowers.size() > 0) {
-                            long honeyUpdatedAt = honey.get("updatedAt").getAsLong();
-                            double alreadyProduced = honey.has("produced") ? honey.get("produced").getAsDouble() : 0.0;
-
-                            // Find the attached flower bed id for this beehive (assume first flower in array has the id)
-                            JsonObject firstFlower = flowers.get(0).getAsJsonObject();
-                            String flowerBedId = firstFlower.has("id") ? firstFlower.get("id").getAsString() : null;
-                            Long finishTime = (flowerBedId != null) ? flowerBedFinishTimes.get(flowerBedId) : null;
-
-                            // Only produce honey if the finish time is in the future
-                            if (finishTime == null || finishTime <= currentTime) {
-                                Log.d(TAG, "Beehive " + displayNumber + " has no flower currently attached (by finishTime), skipping honey calculation.");
-                                continue;
-                            }
+                        long honeyUpdatedAt = beehive.honeyUpdatedAt;
+                        double alreadyProduced = beehive.honeyProduced;
 
-                            // Use the first flower's rate for honey production
-                            double flowerRate = firstFlower.has("rate") ? firstFlower.get("rate").getAsDouble() : 1.0;
-                            long flowerAttachedUntil = finishTime;
-
-                            // Calculate honey produced since last update (from honey.updatedAt)
-                            long productionStartTime = honeyUpdatedAt;
-                            long productionEndTime = Math.min(currentTime, flowerAttachedUntil);
-                            long timeSinceStart = Math.max(0, productionEndTime - productionStartTime);
-                            double honeyProducedNow = timeSinceStart * flowerRate;
-
-                            double currentHoney = alreadyProduced + honeyProducedNow;
-                            double remainingCapacity = 86400000.0 - currentHoney;
-
-                            if (remainingCapacity > 0) {
-                                long millisecondsToFull = Math.round(remainingCapacity / flowerRate);
-                                long fullnessTime = currentTime + millisecondsToFull;
-
-                                // Only include if fullness will occur BEFORE flower detaches
-                                if (fullnessTime > currentTime && fullnessTime < flowerAttachedUntil) {
-                                    FarmItem fullItem = new FarmItem("Beehive Full", "Beehive " + displayNumber, 1, fullnessTime);
-                                    fullItem.setBuildingName(uuid); // Store UUID for reference
-                                    items.add(fullItem);
-                                    Log.d(TAG, "Added beehive fullness alert: Beehive " + displayNumber + " (uuid: " + uuid + ") full at " + formatTimestamp(fullnessTime) +
-                                            " (current: " + String.format("%.0f", currentHoney) + "ml, rate: " + flowerRate + "ml/ms, flower detaches at: " + formatTimestamp(flowerAttachedUntil) + ")");
-                                } else {
-                                    Log.d(TAG, "Beehive " + displayNumber + " won't fill before flower detaches: fullAt=" + formatTimestamp(fullnessTime) +
-                                            " detachAt=" + formatTimestamp(flowerAttachedUntil));
-                                }
+                        // Find the attached flower bed id for this beehive (assume first flower in array has the id)
+                        String flowerBedId = beehive.firstFlowerId;
+                        Long finishTime = (flowerBedId != null) ? ctx.flowerBedFinishTimes.get(flowerBedId) : null;
+
+                        // Only produce honey if the finish time is in the future
+                        if (finishTime == null || finishTime <= currentTime) {
+                            Log.d(TAG, "Beehive " + displayNumber + " has no flower currently attached (by finishTime), skipping honey calculation.");
+                            continue;
+                        }
+
+                        // Use the first flower's rate for honey production
+                        double flowerRate = beehive.firstFlowerRate;
+                        long flowerAttachedUntil = finishTime;
+
+                        // Calculate honey produced since last update (from honey.updatedAt)
+                        long productionStartTime = honeyUpdatedAt;
+                        long productionEndTime = Math.min(currentTime, flowerAttachedUntil);
+                        long timeSinceStart = Math.max(0, productionEndTime - productionStartTime);
+                        double honeyProducedNow = timeSinceStart * flowerRate;
+
+                        double currentHoney = alreadyProduced + honeyProducedNow;
+                        double remainingCapacity = 86400000.0 - currentHoney;
+
+                        if (remainingCapacity > 0) {
+                            long millisecondsToFull = Math.round(remainingCapacity / flowerRate);
+                            long fullnessTime = currentTime + millisecondsToFull;
+
+                            // Only include if fullness will occur BEFORE flower detaches
+                            if (fullnessTime > currentTime && fullnessTime < flowerAttachedUntil) {
+                                int fullItem = items.add("Beehive Full", "Beehive " + displayNumber, 1, fullnessTime);
+                                items.setBuildingName(fullItem, uuid); // Store UUID for reference
+                                Log.d(TAG, "Added beehive fullness alert: Beehive " + displayNumber + " (uuid: " + uuid + ") full at " + formatTimestamp(fullnessTime) +
+                                        " (current: " + String.format("%.0f", currentHoney) + "ml, rate: " + flowerRate + "ml/ms, flower detaches at: " + formatTimestamp(flowerAttachedUntil) + ")");
                             } else {
-                                Log.d(TAG, "Beehive " + displayNumber + " already full or over capacity: " + String.format("%.0f", currentHoney) + "ml");
+                                Log.d(TAG, "Beehive " + displayNumber + " won't fill before flower detaches: fullAt=" + formatTimestamp(fullnessTime) +
+                                        " detachAt=" + formatTimestamp(flowerAttachedUntil));
                             }
+                        } else {
+                            Log.d(TAG, "Beehive " + displayNumber + " already full or over capacity: " + String.format("%.0f", currentHoney) + "ml");
                         }
                     } catch (Exception e) {
                         Log.w(TAG, "Error processing beehive honey for uuid " + uuid + ": " + e.getMessage());
@@ -1462,8 +1317,6 @@ public class CategoryExtractors {
         } catch (Exception e) {
             Log.e(TAG, "Error extracting beehives: " + e.getMessage(), e);
         }
-        
-        return items;
     }
 
     /**
@@ -1473,52 +1326,66 @@ public class CategoryExtractors {
     public static List<FarmItem> extractCropMachine(JsonObject farmObject) {
         List<FarmItem> items = new ArrayList<>();
         
+        if (!farmObject.has("buildings")) {
+            Log.d(TAG, "No buildings found in farm data");
+            return items;
+        }
+
+        ItemBatch batch = new ItemBatch();
+
+        extractCropMachineInto(new ExtractionContext(System.currentTimeMillis()), FarmStateReader.fromTree(farmObject).buildings, batch);
+
+        items.addAll(batch.toItems());
+        
+        return items;
+    }
+
+    /**
+     * Walks farm.buildings and appends its items to items (unsorted)
+     */
+    static void extractCropMachineInto(ExtractionContext ctx, Map<String, List<FarmState.Building>> buildings, ItemBatch items) {
+        if (buildings == null) {
+            return;
+        }
         try {
-            if (!farmObject.has("buildings")) {
-                Log.d(TAG, "No buildings found in farm data");
-                return items;
-            }
-            
-            JsonObject buildings = farmObject.getAsJsonObject("buildings");
-            if (!buildings.has("Crop Machine")) {
+            List<FarmState.Building> cropMachines = buildings.get(CROP_MACHINE);
+            if (cropMachines == null) {
                 Log.d(TAG, "No Crop Machine buildings found");
-                return items;
+                return;
             }
             
-            JsonArray cropMachines = buildings.getAsJsonArray("Crop Machine");
-            long currentTime = System.currentTimeMillis();
+            long currentTime = ctx.now;
             
             // Iterate through each Crop Machine instance
             for (int machineIdx = 0; machineIdx < cropMachines.size(); machineIdx++) {
-                JsonObject machine = cropMachines.get(machineIdx).getAsJsonObject();
+                FarmState.Building machine = cropMachines.get(machineIdx);
                 
                 // Check for queue
-                if (!machine.has("queue")) {
+                if (machine.queue == null) {
                     Log.d(TAG, "Crop Machine " + machineIdx + " has no queue");
                     continue;
                 }
                 
-                JsonArray queue = machine.getAsJsonArray("queue");
+                List<FarmState.QueueItem> queue = machine.queue;
                 
                 // Extract each queued item
                 for (int queueIdx = 0; queueIdx < queue.size(); queueIdx++) {
                     try {
-                        JsonObject queueItem = queue.get(queueIdx).getAsJsonObject();
+                        FarmState.QueueItem queueItem = queue.get(queueIdx);
                         
-                        if (!queueItem.has("readyAt") || !queueItem.has("crop")) {
+                        if (queueItem.readyAt <= 0 || queueItem.crop == null) {
                             Log.d(TAG, "Queue item missing readyAt or crop name");
                             continue;
                         }
                         
-                        long readyAt = queueItem.get("readyAt").getAsLong();
-                        String cropName = queueItem.get("crop").getAsString();
-                        long seedAmount = queueItem.has("seeds") ? queueItem.get("seeds").getAsLong() : 0;
+                        long readyAt = queueItem.readyAt;
+                        String cropName = queueItem.crop;
+                        long seedAmount = queueItem.seeds;
                         
                         // Only include if readyAt is in the future
                         if (readyAt > currentTime) {
                             // Create item: category=Crop Machine, name=crop name, amount=seed count, timestamp=readyAt
-                            FarmItem cropItem = new FarmItem("Crop Machine", cropName, (int) seedAmount, readyAt);
-                            items.add(cropItem);
+                            items.add("Crop Machine", cropName, (int) seedAmount, readyAt);
                             Log.d(TAG, "Added Crop Machine item: " + cropName + " (" + seedAmount + " seeds) ready at " + formatTimestamp(readyAt));
                         } else {
                             Log.d(TAG, "Crop Machine item already ready or in past: " + cropName + " at " + formatTimestamp(readyAt));
@@ -1532,8 +1399,6 @@ public class CategoryExtractors {
         } catch (Exception e) {
             Log.e(TAG, "Error extracting Crop Machine: " + e.getMessage(), e);
         }
-        
-        return items;
     }
 
     /**
@@ -1543,44 +1408,51 @@ public class CategoryExtractors {
     public static List<FarmItem> extractSunstones(JsonObject farmObject) {
         List<FarmItem> items = new ArrayList<>();
         
+        if (!farmObject.has("sunstones")) {
+            Log.d(TAG, "No sunstones found in farm data");
+            return items;
+        }
+
+        ItemBatch batch = new ItemBatch();
+
+        extractSunstonesInto(new ExtractionContext(System.currentTimeMillis()), FarmStateReader.fromTree(farmObject).resources.get("sunstones"), batch);
+
+        items.addAll(batch.toItems());
+        
+        return items;
+    }
+
+    /**
+     * Walks farm.sunstones and appends its items to items (unsorted)
+     */
+    static void extractSunstonesInto(ExtractionContext ctx, Map<String, FarmState.ResourceNode> sunstones, ItemBatch items) {
+        if (sunstones == null) {
+            return;
+        }
         try {
-            if (!farmObject.has("sunstones")) {
-                Log.d(TAG, "No sunstones found in farm data");
-                return items;
-            }
-            
-            JsonObject sunstones = farmObject.getAsJsonObject("sunstones");
-            long currentTime = System.currentTimeMillis();
+            long currentTime = ctx.now;
             
             // Sunstone growth time: 3 days = 259200000 ms
             long sunstoneGrowthTime = 3L * 24 * 60 * 60 * 1000;
             
             Log.d(TAG, "Found " + sunstones.size() + " sunstone node(s)");
             
-            for (String uuid : sunstones.keySet()) {
+            for (Map.Entry<String, FarmState.ResourceNode> sunstone : sunstones.entrySet()) {
+                String uuid = sunstone.getKey();
                 try {
-                    JsonObject sunstone = sunstones.getAsJsonObject(uuid);
-                    
-                    if (!sunstone.has("stone")) {
-                        Log.d(TAG, "Sunstone " + uuid + " missing stone data");
+                    long minedAt = sunstone.getValue().harvestedAt;
+                    if (minedAt <= 0) {
+                        Log.d(TAG, "Sunstone " + uuid + " missing stone.minedAt");
                         continue;
                     }
                     
-                    JsonObject stone = sunstone.getAsJsonObject("stone");
-                    
-                    if (!stone.has("minedAt")) {
-                        Log.d(TAG, "Sunstone " + uuid + " missing minedAt");
-                        continue;
-                    }
-                    
-                    long minedAt = stone.get("minedAt").getAsLong();
                     long readyAt = minedAt + sunstoneGrowthTime;
                     
                     // Only include if ready time is in the future
                     if (readyAt > currentTime) {
-                        // Create FarmItem with UUID as ID to track individual sunstones
-                        FarmItem sunstoneItem = new FarmItem(uuid, "Sunstones", "Sunstone", 1, readyAt);
-                        items.add(sunstoneItem);
+                        // Keep the UUID as the item ID to track individual sunstones
+                        int sunstoneItem = items.add("Sunstones", "Sunstone", 1, readyAt);
+                        items.setId(sunstoneItem, uuid);
                         Log.d(TAG, "Added sunstone [UUID: " + uuid + "] ready at " + formatTimestamp(readyAt) + " (mined at " + formatTimestamp(minedAt) + ")");
                     } else {
                         Log.d(TAG, "Sunstone [UUID: " + uuid + "] already ready or in past: ready at " + formatTimestamp(readyAt));
@@ -1593,15 +1465,13 @@ public class CategoryExtractors {
         } catch (Exception e) {
             Log.e(TAG, "Error extracting sunstones: " + e.getMessage(), e);
         }
-        
-        return items;
     }
 
     /**
      * Extracts daily reset notification - fires every day at 00:00 UTC
      * Always creates one notification for today's reset if enabled
      */
-    public static List<FarmItem> extractDailyReset(JsonObject farmObject) {
+    public static List<FarmItem> extractDailyReset(FarmState farm) {
         List<FarmItem> items = new ArrayList<>();
         
         try {
@@ -1635,14 +1505,7 @@ public class CategoryExtractors {
     }
 
     public static String formatTimestamp(long timestamp) {
-        try {
-            Date date = new Date(timestamp);
-            SimpleDateFormat sdf = new SimpleDateFormat("MM/dd HH:mm:ss", Locale.US);
-            return sdf.format(date);
-        } catch (Exception e) {
-            Log.w(TAG, "Error formatting timestamp: " + timestamp);
-            return "Unknown";
-        }
+        return TimeUtils.formatShort(timestamp);
     }
 
     /**
@@ -1650,8 +1513,8 @@ public class CategoryExtractors {
      * Note: This method requires context, so it's delegated to FloatingIslandExtractor
      * which is called directly from NotificationManagerService
      */
-    public static List<FarmItem> extractFloatingIsland(JsonObject farmData, android.content.Context context) {
+    public static List<FarmItem> extractFloatingIsland(FarmState farm, android.content.Context context) {
         FloatingIslandExtractor extractor = new FloatingIslandExtractor(context);
-        return extractor.extractFloatingIslandNotifications(farmData);
+        return extractor.extractFloatingIslandNotifications(farm);
     }
 }
@@ -7,9 +7,6 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 
 /**
  * General debug log utility for app-wide logging.
@@ -221,11 +218,6 @@ public class DebugLog {
      * Return current timestamp in MM/dd HH:mm:ss format
      */
     private static String getCurrentTimestamp() {
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("MM/dd HH:mm:ss", Locale.US);
-            return sdf.format(new Date());
-        } catch (Exception e) {
-            return "00/00 00:00:00";
-        }
+        return TimeUtils.formatShort(System.currentTimeMillis());
     }
 }
@@ -11,9 +11,6 @@ import android.widget.Toast;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 
 /**
  * Activity to display the general debug log file
@@ -97,7 +94,7 @@ public class DebugLogActivity extends AppCompatActivity {
             }
 
             // Create filename with timestamp
-            String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss", Locale.US).format(new Date());
+            String timestamp = TimeUtils.formatFileStamp(System.currentTimeMillis());
             String filename = "sunflower_debug_" + timestamp + ".txt";
 
             // Get Download folder
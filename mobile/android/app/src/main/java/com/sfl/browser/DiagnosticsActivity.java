@@ -4,8 +4,13 @@ import android.os.Bundle;
 import android.content.Intent;
 import android.net.Uri;
 import android.content.Context;
+import android.content.ClipData;
+import android.content.ClipboardManager;
+import android.widget.Button;
+import android.widget.LinearLayout;
 import android.widget.ScrollView;
 import android.widget.TextView;
+import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import android.app.NotificationManager;
 import android.content.Context;
@@ -99,6 +104,16 @@ public class DiagnosticsActivity extends AppCompatActivity {
             sb.append("Number of Workers: error\n");
         }
 
+        // How recent pipeline runs ended (full / skipped because unchanged / failed)
+        sb.append("\nPipeline Outcomes:\n");
+        sb.append(PipelineOutcome.getSummary(this));
+        sb.append("\nFarm API Circuit Breaker:\n");
+        sb.append(new FetchCircuitBreaker(this).getSummary());
+        // What polling costs: per-phase latency and bytes of every farm API request
+        NetworkMetrics.init(this);
+        sb.append("\nNetwork (farm API, last 24h):\n");
+        sb.append(NetworkMetrics.getSummary());
+
         // Help blurb
         sb.append("\n");
         sb.append("---\n");
@@ -111,7 +126,20 @@ public class DiagnosticsActivity extends AppCompatActivity {
         sb.append("• If using Data Saver, whitelist this app.\n");
         sb.append("\n");
         textView.setText(sb.toString());
-        scrollView.addView(textView);
+
+        Button exportButton = new Button(this);
+        exportButton.setText("Copy network metrics (JSON)");
+        exportButton.setOnClickListener(v -> {
+            ClipboardManager clipboard = (ClipboardManager) getSystemService(CLIPBOARD_SERVICE);
+            clipboard.setPrimaryClip(ClipData.newPlainText("Network metrics", NetworkMetrics.exportJson()));
+            Toast.makeText(DiagnosticsActivity.this, "Network metrics copied to clipboard", Toast.LENGTH_SHORT).show();
+        });
+
+        LinearLayout container = new LinearLayout(this);
+        container.setOrientation(LinearLayout.VERTICAL);
+        container.addView(textView);
+        container.addView(exportButton);
+        scrollView.addView(container);
         setContentView(scrollView);
     }
 }
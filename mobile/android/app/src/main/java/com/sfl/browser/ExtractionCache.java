@@ -0,0 +1,108 @@
+package com.sfl.browser;
+
+import com.sfl.browser.clustering.GroupTracker;
+import com.sfl.browser.clustering.NotificationGroup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The previous poll's extraction and clustering results for one farm, kept in memory so the
+ * next poll only redoes the farm sections that changed.
+ *
+ * FarmExtractionEngine stores each handler's items under the fingerprint of the farm key it
+ * read and reuses them while that fingerprint is unchanged, dropping items whose ready time
+ * has passed. FarmDataProcessor keeps each category's groups and reuses them while the
+ * category's items are unchanged, and its GroupTracker holds the groups last handed to
+ * AlarmScheduler so the next poll only re-arms what changed. Everything is dropped when the settings stamp changes,
+ * since the plan decides which handlers run and which items survive muting.
+ *
+ * Runs for one farm are serialised by PipelineCoordinator, so an instance is only ever used
+ * by one pipeline at a time. A new process starts with an empty cache and extracts everything.
+ *
+ * Usage:
+ *   ExtractionCache cache = ExtractionCache.forFarm(farmId);
+ *   cache.validate(plan.settingsStamp());
+ *   FarmExtractionEngine.Buckets items = FarmExtractionEngine.extract(farmState, plan, cache);
+ */
+public class ExtractionCache {
+    private static final Map<String, ExtractionCache> BY_FARM = new HashMap<>();
+
+    /**
+     * One handler's output and the fingerprint of the farm key it was extracted from
+     */
+    static final class Entry {
+        final long fingerprint;
+        final FarmExtractionEngine.Buckets items;
+
+        Entry(long fingerprint, FarmExtractionEngine.Buckets items) {
+            this.fingerprint = fingerprint;
+            this.items = items;
+        }
+    }
+
+    private String stamp;
+    private final Map<Integer, Entry> entries = new HashMap<>();            // handler ID -> items
+    private final Map<String, List<NotificationGroup>> groups = new HashMap<>();  // category -> groups
+    private final GroupTracker scheduled = new GroupTracker();
+
+    /**
+     * The cache for a farm, created empty on first use
+     */
+    public static synchronized ExtractionCache forFarm(String farmId) {
+        ExtractionCache cache = BY_FARM.get(farmId);
+        if (cache == null) {
+            cache = new ExtractionCache();
+            BY_FARM.put(farmId, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Drop everything cached under different settings
+     * @param stamp Settings the results are about to be derived under
+     * @return true if the cached results still apply
+     */
+    public boolean validate(String stamp) {
+        if (stamp.equals(this.stamp)) {
+            return true;
+        }
+        clear();
+        this.stamp = stamp;
+        return false;
+    }
+
+    public void clear() {
+        entries.clear();
+        groups.clear();
+        scheduled.clear();
+        stamp = null;
+    }
+
+    Entry get(int handlerId) {
+        return entries.get(handlerId);
+    }
+
+    void put(int handlerId, long fingerprint, FarmExtractionEngine.Buckets items) {
+        entries.put(handlerId, new Entry(fingerprint, items));
+    }
+
+    /**
+     * @return The category's groups from the previous run, or null if none were kept
+     */
+    public List<NotificationGroup> getGroups(String category) {
+        return groups.get(category);
+    }
+
+    public void putGroups(String category, List<NotificationGroup> categoryGroups) {
+        groups.put(category, categoryGroups);
+    }
+
+    /**
+     * The groups scheduled by the previous run, for scheduling this run's incrementally
+     */
+    public GroupTracker scheduledGroups() {
+        return scheduled;
+    }
+}
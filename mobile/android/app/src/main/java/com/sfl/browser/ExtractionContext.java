@@ -0,0 +1,30 @@
+package com.sfl.browser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Everything one extraction run reads or writes besides the farm itself.
+ *
+ * Extractors take the clock from here instead of calling System.currentTimeMillis() per
+ * item, so every category in a run is cut off at the same instant, and keep scratch state
+ * here instead of in static fields, so runs for different farms or workers can overlap.
+ * GameTables is immutable and shared by all runs.
+ *
+ * Usage:
+ *   ExtractionContext ctx = new ExtractionContext(System.currentTimeMillis());
+ *   CategoryExtractors.extractFlowersInto(ctx, farm.flowerBeds, flowers);
+ *   CategoryExtractors.extractBeehivesInto(ctx, farm.beehives, beehives);
+ */
+public final class ExtractionContext {
+    // Items ready at or before this instant are skipped
+    public final long now;
+
+    // Flower bed ID -> when its flower finishes, recorded by the flowers extractor for the
+    // beehive extractor. Not synchronised: FarmExtractionEngine runs the two in one task.
+    final Map<String, Long> flowerBedFinishTimes = new HashMap<>();
+
+    public ExtractionContext(long now) {
+        this.now = now;
+    }
+}
@@ -0,0 +1,164 @@
+package com.sfl.browser;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.preference.PreferenceManager;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Decides whether a freshly fetched farm payload differs from the one the last full
+ * pipeline run processed.
+ *
+ * Uses the server's validators (ETag / Last-Modified, sent back as a conditional request)
+ * when available, and otherwise the CRC32 + length of the decoded body. The notification
+ * preferences and the auction schedule file also feed the fingerprint, so toggling a
+ * category still forces a full run. A full run is forced at least every MAX_SKIP_AGE_MS so
+ * rolling schedules (daily reset, auctions) keep being re-armed.
+ */
+public class FarmChangeDetector {
+    private static final String TAG = "FarmChangeDetector";
+    private static final String PREFS_NAME = "farm_change_detector";
+    private static final long MAX_SKIP_AGE_MS = 60 * 60 * 1000; // 1 hour
+
+    // Default-prefs settings outside the NotificationPlan that still shape the schedule
+    private static final String[] SCHEDULE_KEYS = {
+            "auction_schedule_enabled", "cooking_group_by_building",
+            "digest_enabled", "digest_window_minutes",
+            "alarm_budget_enabled", "alarm_budget"
+    };
+
+    private final SharedPreferences state;
+    private final Context context;
+    private final String farmId;
+
+    public FarmChangeDetector(Context context, String farmId) {
+        this.context = context;
+        this.farmId = farmId;
+        this.state = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * ETag of the last fully processed payload, or null
+     */
+    public String getETag() {
+        return state.getString(farmId + "_etag", null);
+    }
+
+    /**
+     * Last-Modified of the last fully processed payload, or null
+     */
+    public String getLastModified() {
+        return state.getString(farmId + "_last_modified", null);
+    }
+
+    /**
+     * Check whether this fetch can skip extraction, clustering and alarm scheduling
+     * @param result Result of APIClient.fetchConditional
+     * @return true if nothing the pipeline depends on has changed
+     */
+    public boolean isUnchanged(APIClient.FetchResult<?> result) {
+        try {
+            if (!isLastRunCurrent()) {
+                return false;
+            }
+            if (result.isNotModified()) {
+                return true;
+            }
+            return result.bodyLength > 0
+                    && state.getLong(farmId + "_body_crc", -1) == result.bodyChecksum
+                    && state.getLong(farmId + "_body_length", -1) == result.bodyLength;
+        } catch (Exception e) {
+            Log.w(TAG, "Change check failed, treating farm as changed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Whether the alarms armed by the last run (full or offline) are still valid apart from
+     * any change in the payload itself: it ran recently and the settings are the same
+     */
+    public boolean isLastRunCurrent() {
+        try {
+            long lastFullRun = state.getLong(farmId + "_last_full_run", 0);
+            long age = System.currentTimeMillis() - lastFullRun;
+            if (lastFullRun == 0 || age < 0 || age > MAX_SKIP_AGE_MS) {
+                return false;
+            }
+            if (state.getLong(farmId + "_settings_hash", 0) != computeSettingsHash()) {
+                Log.d(TAG, "Notification settings changed since last full run");
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            Log.w(TAG, "Run freshness check failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Remember that alarms were re-armed from the on-disk snapshot. The payload validators
+     * are kept, since the snapshot is the payload of the last full run.
+     */
+    public void recordOfflineRun() {
+        try {
+            state.edit()
+                    .putLong(farmId + "_settings_hash", computeSettingsHash())
+                    .putLong(farmId + "_last_full_run", System.currentTimeMillis())
+                    .apply();
+        } catch (Exception e) {
+            Log.w(TAG, "Error recording offline run: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remember the payload a full pipeline run just processed
+     */
+    public void recordFullRun(APIClient.FetchResult<?> result) {
+        try {
+            state.edit()
+                    .putString(farmId + "_etag", result.etag)
+                    .putString(farmId + "_last_modified", result.lastModified)
+                    .putLong(farmId + "_body_crc", result.bodyChecksum)
+                    .putLong(farmId + "_body_length", result.bodyLength)
+                    .putLong(farmId + "_settings_hash", computeSettingsHash())
+                    .putLong(farmId + "_last_full_run", System.currentTimeMillis())
+                    .apply();
+        } catch (Exception e) {
+            Log.w(TAG, "Error recording full run: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forget the stored fingerprint so the next poll always runs the full pipeline
+     */
+    public void invalidate() {
+        state.edit().remove(farmId + "_last_full_run").apply();
+    }
+
+    /**
+     * Hash of the notification settings plus the auction schedule file's modification time
+     */
+    private long computeSettingsHash() {
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+        long hash = settingsFingerprint(prefs.getAll()).hashCode();
+        File auctionFile = new File(context.getFilesDir(), "auction_schedule_raw.json");
+        hash = hash * 31 + auctionFile.lastModified();
+        return hash;
+    }
+
+    /**
+     * The plan's toggles (master, category_*, per-item) plus the grouping, digest and budget
+     * settings. Run state kept in the same file (last auction, expiry flags) is left out.
+     */
+    static String settingsFingerprint(Map<String, ?> prefs) {
+        StringBuilder fingerprint = new StringBuilder(new NotificationPlan(prefs).settingsStamp());
+        for (String key : SCHEDULE_KEYS) {
+            fingerprint.append(' ').append(key).append('=').append(prefs.get(key));
+        }
+        return fingerprint.toString();
+    }
+}
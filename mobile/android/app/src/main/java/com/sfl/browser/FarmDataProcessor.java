@@ -7,23 +7,24 @@ import android.util.Log;
 import androidx.preference.PreferenceManager;
 import androidx.work.Data;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import com.sfl.browser.clustering.CategoryClusterer;
+import com.google.gson.stream.JsonWriter;
+import com.sfl.browser.clustering.DigestCoalescer;
+import com.sfl.browser.clustering.GroupTracker;
 import com.sfl.browser.clustering.ClustererFactory;
 import com.sfl.browser.clustering.NotificationGroup;
 import com.sfl.browser.clustering.PetSleepClusterer;
 import com.sfl.browser.models.FarmItem;
+import com.sfl.browser.models.FarmState;
+import com.sfl.browser.models.ItemBatch;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileReader;
 import java.io.FileWriter;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Utility class for farm data processing pipeline.
@@ -41,6 +42,13 @@ import java.util.Locale;
 public class FarmDataProcessor {
     private static final String TAG = "FarmDataProcessor";
     private static final String API_BASE_URL = "https://api.sunflower-land.com/community/farms/";
+    private static volatile String apiBaseUrl = API_BASE_URL;
+    // How old farm_api_raw.json may be and still drive notifications while the API is down
+    private static final long MAX_SNAPSHOT_AGE_MS = 24 * 60 * 60 * 1000;
+    // Farm whose body farm_api_raw.json last received
+    static final String PREFS_KEY_SNAPSHOT_FARM_ID = "raw_snapshot_farm_id";
+    // Deadline for every farm of a multi-farm poll; FarmHttpClient's timeouts bound each request
+    private static final long MULTI_FARM_TIMEOUT_MS = 2 * 60 * 1000;
 
     /**
      * Process farm data using input data from WorkRequest
@@ -55,6 +63,9 @@ public class FarmDataProcessor {
             int workerId = inputData.getInt("worker_id", -1);
 
             processFarmData(context, farmId, apiKey, source, workerId);
+        } catch (FarmFetchException e) {
+            // Let the worker decide whether to retry based on the typed failure
+            throw e;
         } catch (Exception e) {
             Log.e(TAG, "Error processing farm data from worker input: " + e.getMessage(), e);
             DebugLog.error("Error in processFarmDataFromWorker", e);
@@ -65,408 +76,698 @@ public class FarmDataProcessor {
     /**
      * Process farm data using provided credentials
      * @param context Application context
-     * @param farmId Farm ID from settings
-     * @param apiKey API key from settings
+     * @param farmId Farm ID from settings; several IDs separated by commas poll every farm
+     * @param apiKey API key from settings; one for every farm, or one per farm in the same order
      * @param source Source identifier ("manual", "auto", "immediate", etc.)
      * @param workerId Worker ID (-1 for non-worker calls)
      */
     public static void processFarmData(Context context, String farmId, String apiKey, String source, int workerId) {
+        DebugLog.log("🚀 processFarmData CALLED with source: " + source);
+        List<FarmFetchEngine.FarmCredentials> farms;
+        try {
+            farms = FarmFetchEngine.parseCredentials(farmId, apiKey);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Farm IDs and API keys don't match: " + e.getMessage());
+            DebugLog.error("Farm IDs and API keys don't match: " + e.getMessage(), null);
+            writeErrorLog(context, e.getMessage());
+            return;
+        }
+        if (farms.isEmpty()) {
+            Log.e(TAG, "Farm ID or API key not found");
+            DebugLog.error("Farm ID or API key not configured", null);
+            writeErrorLog(context, "Farm ID or API key not configured");
+            return;
+        }
+
+        // Only one run per farm (or set of farms) at a time; overlapping callers join the run in flight
+        if (farms.size() > 1) {
+            String farmIds = joinFarmIds(farms);
+            PipelineCoordinator.runOrJoin(context, farmIds,
+                    () -> runMultiFarmPipeline(context, farms, farmIds, source, workerId));
+            return;
+        }
+        FarmFetchEngine.FarmCredentials farm = farms.get(0);
+        PipelineCoordinator.runOrJoin(context, farm.farmId,
+                () -> runPipeline(context, farm.farmId, farm.apiKey, source, workerId));
+    }
+
+    /**
+     * The fetch → extract → cluster → schedule cycle. Callers go through
+     * PipelineCoordinator so this never runs twice concurrently for one farm.
+     * @return true if the run completed, false if it failed after the fetch
+     * @throws FarmFetchException if no farm could be fetched or recovered from the snapshot
+     */
+    private static boolean runPipeline(Context context, String farmId, String apiKey, String source, int workerId) {
         try {
             String workerTag = workerId >= 0 ? "Worker #" + workerId : "Processor";
             Log.d(TAG, "=== " + workerTag + " - Starting Farm Data Processing Pipeline (source: " + source + ") ===");
-            DebugLog.log("🚀 processFarmData CALLED with source: " + source);
             DebugLog.log("=== " + workerTag + " - Starting Farm Data Processing Pipeline (source: " + source + ") ===");
 
-            if (farmId == null || farmId.isEmpty() || apiKey == null || apiKey.isEmpty()) {
-                Log.e(TAG, "Farm ID or API key not found");
-                DebugLog.error("Farm ID or API key not configured", null);
-                writeErrorLog(context, "Farm ID or API key not configured");
-                return;
-            }
-
-            // OPTIMIZATION: Check if we just fetched data within the last 30 seconds
             SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
-            long lastAPICallTime = prefs.getLong("lastAPICallTime", 0);
             long currentTime = System.currentTimeMillis();
-            long timeSinceLastCall = currentTime - lastAPICallTime;
 
-            if (timeSinceLastCall < 30000) {  // 30 seconds
-                Log.d(TAG, "Skipping API call - last call was " + (timeSinceLastCall / 1000) + " seconds ago (cache window: 30 seconds)");
-                DebugLog.logStep("Cache Check", "Skipping API call - last call was " + (timeSinceLastCall / 1000) + " seconds ago");
-                return;
-            }
+            // Decide up front what the user wants notified; disabled categories are never parsed,
+            // extracted, clustered or scheduled
+            NotificationPlan plan = NotificationPlan.fromPreferences(context);
+            DebugLog.logStep("Plan", plan.describe());
 
             // Build API URL
-            String apiUrl = API_BASE_URL + farmId;
+            String apiUrl = farmUrl(farmId);
             Log.d(TAG, "API URL: " + apiUrl);
             DebugLog.logStep("API Setup", "URL: " + apiUrl);
 
             // Step 1: API Call
             Log.d(TAG, "Step 1: Fetching raw JSON from API...");
             DebugLog.logStep("Step 1", "Fetching raw JSON from API");
-            String rawJSON = APIClient.fetchRawJSON(apiUrl, apiKey);
-            if (rawJSON == null || rawJSON.isEmpty()) {
-                Log.e(TAG, "Failed to fetch raw JSON from API");
-                DebugLog.error("Step 1 Failed: API call returned no data", null);
-                writeErrorLog(context, "API call failed - no response received");
-                throw new RuntimeException("API call failed - no valid response received. Will retry in 20 seconds.");
+            FarmChangeDetector changeDetector = new FarmChangeDetector(context, farmId);
+            APIClient.FetchResult<FarmState> fetchResult = null;
+            FarmState farm;
+            String snapshotNote = null;
+            try {
+                FetchCircuitBreaker breaker = new FetchCircuitBreaker(context);
+                if (!breaker.allowRequest()) {
+                    throw new FarmFetchException(new FetchFailure(FetchFailure.Kind.CIRCUIT_OPEN, -1,
+                            breaker.getOpenUntil() - currentTime, "Polling paused after repeated API failures"));
+                }
+                // Stream the (gzip) body straight into the parser instead of buffering it as a String
+                fetchResult = fetchFarm(context, breaker, plan, farmId, apiUrl, apiKey,
+                        changeDetector.getETag(), changeDetector.getLastModified());
+                farm = fetchResult.body;
+
+                // Step 1.5: Nothing changed since the last full run - existing alarms are still correct
+                if (changeDetector.isUnchanged(fetchResult)) {
+                    Log.d(TAG, "Step 1.5: Farm unchanged (" + (fetchResult.isNotModified() ? "304" : "same checksum") + ") - skipping pipeline");
+                    DebugLog.logStep("Step 1.5", "Farm unchanged - skipping extraction and scheduling");
+                    PipelineOutcome.record(context, PipelineOutcome.SKIPPED_UNCHANGED);
+                    return true;
+                }
+                if (farm == null) {
+                    // 304 but our own fingerprint is stale (settings changed or too old): refetch unconditionally
+                    fetchResult = fetchFarm(context, breaker, plan, farmId, apiUrl, apiKey, null, null);
+                    farm = fetchResult.body;
+                }
+                Log.d(TAG, "Step 1 Complete: Raw JSON saved");
+                DebugLog.logStep("Step 1", "Complete: Raw JSON saved successfully");
+            } catch (FarmFetchException e) {
+                // Degraded mode: every ready time is absolute, so the last snapshot still yields
+                // correct notifications for hours. Re-arm from it instead of failing the run, but
+                // only while the API is unreachable: a rejected farm ID / API key or a bad body
+                // must surface rather than be papered over for a day.
+                if (!e.getFailure().isUnavailable()) {
+                    throw e;
+                }
+                File snapshot = new File(context.getFilesDir(), "farm_api_raw.json");
+                long snapshotAge = currentTime - snapshot.lastModified();
+                boolean sameFarm = farmId.equals(prefs.getString(PREFS_KEY_SNAPSHOT_FARM_ID, null));
+                farm = sameFarm && snapshot.isFile() && snapshotAge <= MAX_SNAPSHOT_AGE_MS ? loadRawSnapshot(snapshot, plan) : null;
+                if (farm == null) {
+                    throw e;
+                }
+                Log.w(TAG, "Step 1 Failed (" + e.getFailure() + ") - using snapshot from " + (snapshotAge / 60000) + " min ago");
+                DebugLog.logStep("Step 1", "API unavailable (" + e.getFailure() + ") - falling back to snapshot from " + (snapshotAge / 60000) + " min ago");
+                if (changeDetector.isLastRunCurrent()) {
+                    // Alarms from the snapshot are already armed; the next periodic poll retries the network
+                    DebugLog.logStep("Step 1", "Alarms from this snapshot are already armed - nothing to recompute");
+                    PipelineOutcome.record(context, PipelineOutcome.OFFLINE_SKIPPED);
+                    return true;
+                }
+                snapshotNote = "OFFLINE: API unavailable (" + e.getFailure().kind + "), recomputed from snapshot taken "
+                        + (snapshotAge / 60000) + " min ago";
+            }
+
+            // Step 2: Extract all categories from the parsed farm
+            Log.d(TAG, "Step 2: Extracting farm items...");
+            DebugLog.logStep("Step 2", "Extracting farm items");
+
+            // Single pass over the typed farm fills every enabled category from its subtree.
+            // Farm keys unchanged since the last poll reuse that poll's items (minus those now ready).
+            // From here on each stage releases what it consumed; the farm goes with extraction.
+            ExtractionCache cache = ExtractionCache.forFarm(farmId);
+            boolean groupCookingByBuilding = NotificationPreferences.shouldGroupCookingByBuilding(context);
+            cache.validate(plan.settingsStamp() + " cooking_group_by_building=" + groupCookingByBuilding);
+            FarmExtraction extraction = extractFarm(plan, farm, new MarketplaceListingsExtractor(context),
+                    cache, groupCookingByBuilding);
+            farm = null;
+
+            List<FarmExtraction> farms = new ArrayList<>();
+            farms.add(extraction);
+            scheduleExtraction(context, plan, prefs, farms, extraction.run, cache, currentTime, snapshotNote);
+
+            if (fetchResult != null) {
+                changeDetector.recordFullRun(fetchResult);
+                PipelineOutcome.record(context, PipelineOutcome.FULL);
+            } else {
+                changeDetector.recordOfflineRun();
+                PipelineOutcome.record(context, PipelineOutcome.OFFLINE_RECOMPUTE);
             }
 
-            // Record successful API call time
-            prefs.edit().putLong("lastAPICallTime", currentTime).apply();
-            saveRawJSON(context, rawJSON);
-            Log.d(TAG, "Step 1 Complete: Raw JSON saved");
-            DebugLog.logStep("Step 1", "Complete: Raw JSON saved successfully");
+            Log.d(TAG, "=== " + workerTag + " - Farm Data Processing Pipeline Complete ===");
+            DebugLog.log("=== " + workerTag + " - Farm Data Processing Pipeline Complete ===");
+            return true;
+        } catch (FarmFetchException e) {
+            Log.e(TAG, "Step 1 Failed: " + e.getFailure());
+            DebugLog.error("Step 1 Failed: " + e.getFailure(), null);
+            writeErrorLog(context, e.getMessage());
+            PipelineOutcome.record(context, PipelineOutcome.FAILED);
+            throw e;
+        } catch (Exception e) {
+            Log.e(TAG, "Error in processFarmData: " + e.getMessage(), e);
+            DebugLog.error("Pipeline error in processFarmData", e);
+            writeErrorLog(context, "Processing pipeline failed: " + e.getMessage());
+            PipelineOutcome.record(context, PipelineOutcome.FAILED);
+            return false;
+        }
+    }
 
-            // Step 2: Parse JSON and extract all categories
-            Log.d(TAG, "Step 2: Parsing JSON and extracting farm items...");
-            DebugLog.logStep("Step 2", "Parsing JSON and extracting farm items");
-            JsonObject parsedJson = JsonParser.parseString(rawJSON).getAsJsonObject();
-            JsonObject farmObject = parsedJson.getAsJsonObject("farm");
+    /**
+     * The same cycle for several farms. FarmFetchEngine fetches them in parallel and each
+     * farm is extracted on its fetch thread as soon as it has been decoded; their items are
+     * then clustered and scheduled together, so one farm's run never cancels another's alarms.
+     *
+     * A farm that can't be reached fails the whole run with alarms left as they are, and the
+     * worker retries it like a single-farm failure. A farm whose ID or key is rejected is
+     * reported and left out, so one bad entry doesn't silence the others.
+     * @param farmIds farms' IDs joined, the run's PipelineCoordinator key
+     * @return true if the run completed, false if it failed after the fetch
+     * @throws FarmFetchException if a farm could not be reached, or none was accepted
+     */
+    private static boolean runMultiFarmPipeline(Context context, List<FarmFetchEngine.FarmCredentials> farms,
+                                                String farmIds, String source, int workerId) {
+        try {
+            String workerTag = workerId >= 0 ? "Worker #" + workerId : "Processor";
+            Log.d(TAG, "=== " + workerTag + " - Starting Farm Data Processing Pipeline for " + farms.size() + " farms (source: " + source + ") ===");
+            DebugLog.log("=== " + workerTag + " - Starting Farm Data Processing Pipeline for " + farms.size() + " farms (source: " + source + ") ===");
 
-            List<FarmItem> crops = CategoryExtractors.extractCrops(farmObject);
-            List<FarmItem> fruits = CategoryExtractors.extractFruits(farmObject);
-            
-            // Extract greenhouse crops if enabled
-            List<FarmItem> greenhouseCrops = new ArrayList<>();
-            if (prefs.getBoolean("category_greenhouse_crops", true)) {
-                greenhouseCrops = CategoryExtractors.extractGreenhouseCrops(farmObject);
+            SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+            long currentTime = System.currentTimeMillis();
+            NotificationPlan plan = NotificationPlan.fromPreferences(context);
+            DebugLog.logStep("Plan", plan.describe());
+            boolean groupCookingByBuilding = NotificationPreferences.shouldGroupCookingByBuilding(context);
+            String settingsStamp = plan.settingsStamp() + " cooking_group_by_building=" + groupCookingByBuilding;
+
+            // Steps 1-2: Fetch every farm and extract each one as it arrives. Extraction caches
+            // are kept per farm within this set of farms, apart from the single-farm run's.
+            Log.d(TAG, "Steps 1-2: Fetching and extracting " + farms.size() + " farms (" + farmIds + ")...");
+            DebugLog.logStep("Step 1", "Fetching and extracting " + farms.size() + " farms: " + farmIds);
+            FarmFetchEngine engine = new FarmFetchEngine(new FetchCircuitBreaker(context), apiBaseUrl,
+                    FarmFetchEngine.DEFAULT_MAX_PARALLEL, FarmFetchEngine.DEFAULT_MIN_KEY_INTERVAL_MS);
+            List<FarmFetchEngine.FarmOutcome<FarmExtraction>> outcomes;
+            try {
+                outcomes = engine.fetchAll(farms, plan, (farmId, farm) -> {
+                    ExtractionCache farmCache = ExtractionCache.forFarm(farmIds + "/" + farmId);
+                    farmCache.validate(settingsStamp);
+                    return extractFarm(plan, farm, new MarketplaceListingsExtractor(context, farmId),
+                            farmCache, groupCookingByBuilding);
+                }, MULTI_FARM_TIMEOUT_MS);
+            } finally {
+                engine.shutdown();
             }
-            
-            List<FarmItem> resources = CategoryExtractors.extractResources(farmObject);
-            List<FarmItem> animals = CategoryExtractors.extractAnimals(farmObject);
-            List<FarmItem> cooking = CategoryExtractors.extractCooking(farmObject);
-            List<FarmItem> composters = CategoryExtractors.extractComposters(farmObject);
-            List<FarmItem> flowers = CategoryExtractors.extractFlowers(farmObject);
-            List<FarmItem> craftingBox = CategoryExtractors.extractCraftingBox(farmObject);
-            List<FarmItem> beehives = CategoryExtractors.extractBeehives(farmObject);
-            List<FarmItem> cropMachine = CategoryExtractors.extractCropMachine(farmObject);
-            List<FarmItem> sunstones = CategoryExtractors.extractSunstones(farmObject);
-
-            // Extract skill cooldowns if enabled
-            List<FarmItem> skillCooldowns = new ArrayList<>();
-            if (prefs.getBoolean("category_skill_cooldown", true)) {
-                JsonObject bumpkinObject = farmObject.getAsJsonObject("bumpkin");
-                if (bumpkinObject != null) {
-                    skillCooldowns = SkillExtractors.extractSkillCooldowns(bumpkinObject);
+
+            List<FarmExtraction> extracted = new ArrayList<>();
+            List<String> accepted = new ArrayList<>();
+            List<String> rejected = new ArrayList<>();
+            FarmFetchException firstRejection = null;
+            for (FarmFetchEngine.FarmOutcome<FarmExtraction> outcome : outcomes) {
+                if (outcome.isSuccess()) {
+                    Log.d(TAG, "  Farm " + outcome.farmId + ": fetched in " + outcome.fetchMillis + " ms, extracted in " + outcome.handleMillis + " ms");
+                    extracted.add(outcome.value);
+                    accepted.add(outcome.farmId);
+                } else if (outcome.failure.isUnavailable()) {
+                    // Scheduling without this farm would cancel its alarms; keep every alarm until it is back
+                    throw new FarmFetchException(outcome.failure);
+                } else {
+                    rejected.add(outcome.farmId + ": " + outcome.failure);
+                    if (firstRejection == null) {
+                        firstRejection = new FarmFetchException(outcome.failure);
+                    }
                 }
             }
-
-            // Extract daily reset if enabled
-            List<FarmItem> dailyReset = new ArrayList<>();
-            if (prefs.getBoolean("category_daily_reset", true)) {
-                dailyReset = CategoryExtractors.extractDailyReset(farmObject);
+            if (extracted.isEmpty()) {
+                throw firstRejection;
             }
-
-            // Extract marketplace sold listings
-            List<MarketplaceListingsExtractor.SoldListing> soldListings = new ArrayList<>();
-            if (prefs.getBoolean("marketplace_listings_enabled", true)) {
-                MarketplaceListingsExtractor marketplaceExtractor = new MarketplaceListingsExtractor(context);
-                soldListings = marketplaceExtractor.extractSoldListings(farmObject);
+            String skippedNote = null;
+            if (!rejected.isEmpty()) {
+                skippedNote = "SKIPPED: " + rejected.size() + " farm(s) rejected by the API - " + String.join(", ", rejected);
+                Log.w(TAG, "Steps 1-2: " + skippedNote);
+                DebugLog.logStep("Step 1", skippedNote);
+                writeErrorLog(context, skippedNote);
             }
+            Log.d(TAG, "Steps 1-2 Complete: " + extracted.size() + " of " + farms.size() + " farms extracted");
+            DebugLog.logStep("Step 2", "Complete: " + extracted.size() + " of " + farms.size() + " farms extracted");
+
+            // One run over every accepted farm's items; its groups and scheduled alarms are
+            // cached under exactly these farms, so a farm dropping out re-arms from scratch
+            FarmExtractionEngine.Buckets merged = new FarmExtractionEngine.Buckets();
+            for (FarmExtraction extraction : extracted) {
+                merged.addAll(extraction.run.items);
+                merged.changedCategories.addAll(extraction.run.items.changedCategories);
+                extraction.run.items = null;
+            }
+            PipelineRun run = new PipelineRun(null, FarmDataProcessor::logStageHeap);
+            run.items = merged;
+            ExtractionCache cache = ExtractionCache.forFarm("farms:" + String.join(",", accepted));
+            cache.validate(settingsStamp);
+
+            scheduleExtraction(context, plan, prefs, extracted, run, cache, currentTime, skippedNote);
+            PipelineOutcome.record(context, PipelineOutcome.FULL);
+
+            Log.d(TAG, "=== " + workerTag + " - Farm Data Processing Pipeline Complete ===");
+            DebugLog.log("=== " + workerTag + " - Farm Data Processing Pipeline Complete ===");
+            return true;
+        } catch (FarmFetchException e) {
+            Log.e(TAG, "Step 1 Failed: " + e.getFailure());
+            DebugLog.error("Step 1 Failed: " + e.getFailure(), null);
+            writeErrorLog(context, e.getMessage());
+            PipelineOutcome.record(context, PipelineOutcome.FAILED);
+            throw e;
+        } catch (Exception e) {
+            Log.e(TAG, "Error in processFarmData: " + e.getMessage(), e);
+            DebugLog.error("Pipeline error in processFarmData", e);
+            writeErrorLog(context, "Processing pipeline failed: " + e.getMessage());
+            PipelineOutcome.record(context, PipelineOutcome.FAILED);
+            return false;
+        }
+    }
+
+    /**
+     * One farm's share of a run, extracted as soon as the farm is decoded
+     */
+    private static final class FarmExtraction {
+        final PipelineRun run;
+        // Detects this farm's sold listings against its own snapshot
+        final MarketplaceListingsExtractor marketplace;
+        // Just the farm sections whose extractors update a snapshot on disk: they are read
+        // once the run is certain to schedule, so an aborted run can't swallow a change
+        final FarmState snapshotSections = new FarmState();
+
+        FarmExtraction(PipelineRun run, MarketplaceListingsExtractor marketplace) {
+            this.run = run;
+            this.marketplace = marketplace;
+        }
+    }
+
+    /**
+     * Step 2 for one farm: extract every enabled category, then let go of the farm
+     */
+    private static FarmExtraction extractFarm(NotificationPlan plan, FarmState farm,
+                                              MarketplaceListingsExtractor marketplace, ExtractionCache cache,
+                                              boolean groupCookingByBuilding) {
+        FarmExtraction extraction = new FarmExtraction(new PipelineRun(farm, FarmDataProcessor::logStageHeap), marketplace);
+        if (farm != null) {
+            extraction.snapshotSections.listings = farm.listings;
+            extraction.snapshotSections.floatingIsland = farm.floatingIsland;
+        }
+        extraction.run.extract(plan, cache, groupCookingByBuilding);
+        return extraction;
+    }
+
+    /**
+     * Steps 2-6 after the item extraction: the farm-independent categories, save, cluster,
+     * schedule and log
+     * @param farms Every farm in the run, for sold listings and pets
+     * @param run Holds the items of every farm in the run; emptied as it goes
+     * @param cache Where the run's groups and scheduled alarms are kept between polls
+     * @param logNote Extra line for the scheduled notifications log, or null
+     */
+    private static void scheduleExtraction(Context context, NotificationPlan plan, SharedPreferences prefs,
+                                           List<FarmExtraction> farms, PipelineRun run, ExtractionCache cache,
+                                           long currentTime, String logNote) {
+        // Extract daily reset if enabled
+        List<FarmItem> dailyReset = new ArrayList<>();
+        if (plan.isCategoryEnabled("Daily Reset")) {
+            dailyReset = CategoryExtractors.extractDailyReset(farms.get(0).snapshotSections);
+        }
 
-            // Extract floating island notifications
-            List<FarmItem> floatingIsland = new ArrayList<>();
-            if (prefs.getBoolean("floating_island_enabled", true)) {
-                floatingIsland = CategoryExtractors.extractFloatingIsland(farmObject, context);
+        // Extract marketplace sold listings
+        List<MarketplaceListingsExtractor.SoldListing> soldListings = new ArrayList<>();
+        if (plan.isCategoryEnabled("marketplace")) {
+            for (FarmExtraction farm : farms) {
+                soldListings.addAll(farm.marketplace.extractSoldListings(farm.snapshotSections));
             }
+        }
 
-            // Extract auction schedule at the end of API extraction
-            // This reads from the independent raw file, independent from API data
-            List<FarmItem> auctions = new ArrayList<>();
-            if (prefs.getBoolean("auction_schedule_enabled", true)) {
-                try {
-                    AuctionScheduleExtractor auctionExtractor = new AuctionScheduleExtractor(context);
-                    auctions = auctionExtractor.extractAuctionNotifications(farmObject);
-                    DebugLog.log("Auction extraction complete: " + auctions.size() + " future auction(s) found");
-                } catch (Exception auctionError) {
-                    Log.e(TAG, "Error during auction extraction: " + auctionError.getMessage(), auctionError);
-                    DebugLog.error("Error during auction extraction", auctionError);
-                    DebugLog.log("⚠️ Auction extraction failed - continuing without auctions");
-                    // Don't break the pipeline - just skip auctions this run
-                    auctions = new ArrayList<>();
-                }
-            } else {
-                DebugLog.log("Auction schedule processing disabled in preferences");
+        // Extract floating island notifications (the same for every farm, so from the first only)
+        List<FarmItem> floatingIsland = new ArrayList<>();
+        if (plan.isCategoryEnabled("floating_island")) {
+            floatingIsland = CategoryExtractors.extractFloatingIsland(farms.get(0).snapshotSections, context);
+        }
+
+        // Extract auction schedule at the end of API extraction
+        // This reads from the independent raw file, independent from API data
+        List<FarmItem> auctions = new ArrayList<>();
+        if (prefs.getBoolean("auction_schedule_enabled", true) && plan.isCategoryEnabled("auction")) {
+            try {
+                AuctionScheduleExtractor auctionExtractor = new AuctionScheduleExtractor(context);
+                auctions = auctionExtractor.extractAuctionNotifications();
+                DebugLog.log("Auction extraction complete: " + auctions.size() + " future auction(s) found");
+            } catch (Exception auctionError) {
+                Log.e(TAG, "Error during auction extraction: " + auctionError.getMessage(), auctionError);
+                DebugLog.error("Error during auction extraction", auctionError);
+                DebugLog.log("⚠️ Auction extraction failed - continuing without auctions");
+                // Don't break the pipeline - just skip auctions this run
+                auctions = new ArrayList<>();
             }
+        } else {
+            DebugLog.log("Auction schedule processing disabled in preferences");
+        }
 
-            // Merge auction data with other extracted data for unified processing
-            List<FarmItem> allExtractedItems = new ArrayList<>();
-            allExtractedItems.addAll(crops);
-            allExtractedItems.addAll(fruits);
-            allExtractedItems.addAll(greenhouseCrops);
-            allExtractedItems.addAll(resources);
-            allExtractedItems.addAll(animals);
-            allExtractedItems.addAll(cooking);
-            allExtractedItems.addAll(composters);
-            allExtractedItems.addAll(flowers);
-            allExtractedItems.addAll(craftingBox);
-            allExtractedItems.addAll(beehives);
-            allExtractedItems.addAll(cropMachine);
-            allExtractedItems.addAll(sunstones);
-            allExtractedItems.addAll(skillCooldowns);
-            allExtractedItems.addAll(dailyReset);
-            allExtractedItems.addAll(floatingIsland);
-            allExtractedItems.addAll(auctions);
-
-            Log.d(TAG, "Step 2 Complete: Extracted " + crops.size() + " crop(s), " + fruits.size() + " fruit(s), " + greenhouseCrops.size() + " greenhouse crop(s), " + resources.size() + " resource(s), " + animals.size() + " animal(s), " + auctions.size() + " auction(s), total " + allExtractedItems.size() + " item(s)");
-            DebugLog.logStep("Step 2", "Complete: Extracted items - Total: " + allExtractedItems.size() + ", Auctions: " + auctions.size());
-
-            // Step 3: Cluster items by category
-            Log.d(TAG, "Step 3: Clustering items by readiness time...");
-            DebugLog.logStep("Step 3", "Clustering items by readiness time");
-            List<NotificationGroup> allGroups = new ArrayList<>();
-
-            // Cluster all standard categories
-            CategoryClusterer cropClusterer = ClustererFactory.getClusterer("crops", context);
-            List<NotificationGroup> cropGroups = cropClusterer.cluster(crops);
-            allGroups.addAll(cropGroups);
-
-            CategoryClusterer fruitClusterer = ClustererFactory.getClusterer("fruits", context);
-            List<NotificationGroup> fruitGroups = fruitClusterer.cluster(fruits);
-            allGroups.addAll(fruitGroups);
-
-            CategoryClusterer greenhouseCropClusterer = ClustererFactory.getClusterer("greenhouse_crops", context);
-            List<NotificationGroup> greenhouseCropGroups = greenhouseCropClusterer.cluster(greenhouseCrops);
-            allGroups.addAll(greenhouseCropGroups);
-
-            CategoryClusterer resourceClusterer = ClustererFactory.getClusterer("resources", context);
-            List<NotificationGroup> resourceGroups = resourceClusterer.cluster(resources);
-            allGroups.addAll(resourceGroups);
-
-            CategoryClusterer animalClusterer = ClustererFactory.getClusterer("animals", context);
-            List<NotificationGroup> animalGroups = animalClusterer.cluster(animals);
-            allGroups.addAll(animalGroups);
-
-            CategoryClusterer cookingClusterer = ClustererFactory.getClusterer("cooking", context);
-            List<NotificationGroup> cookingGroups = cookingClusterer.cluster(cooking);
-            allGroups.addAll(cookingGroups);
-
-            CategoryClusterer composterClusterer = ClustererFactory.getClusterer("composters", context);
-            List<NotificationGroup> composterGroups = composterClusterer.cluster(composters);
-            allGroups.addAll(composterGroups);
-
-            CategoryClusterer flowerClusterer = ClustererFactory.getClusterer("flowers", context);
-            List<NotificationGroup> flowerGroups = flowerClusterer.cluster(flowers);
-            allGroups.addAll(flowerGroups);
-
-            CategoryClusterer craftingBoxClusterer = ClustererFactory.getClusterer("crafting_box", context);
-            List<NotificationGroup> craftingBoxGroups = craftingBoxClusterer.cluster(craftingBox);
-            allGroups.addAll(craftingBoxGroups);
-
-            CategoryClusterer beehiveClusterer = ClustererFactory.getClusterer("beehives", context);
-            List<NotificationGroup> beehiveGroups = beehiveClusterer.cluster(beehives);
-            allGroups.addAll(beehiveGroups);
-
-            CategoryClusterer cropMachineClusterer = ClustererFactory.getClusterer("crop_machine", context);
-            List<NotificationGroup> cropMachineGroups = cropMachineClusterer.cluster(cropMachine);
-            allGroups.addAll(cropMachineGroups);
-
-            CategoryClusterer sunstoneClusterer = ClustererFactory.getClusterer("sunstones", context);
-            List<NotificationGroup> sunstoneGroups = sunstoneClusterer.cluster(sunstones);
-            allGroups.addAll(sunstoneGroups);
-
-            CategoryClusterer skillCooldownClusterer = ClustererFactory.getClusterer("skill_cooldown", context);
-            List<NotificationGroup> skillCooldownGroups = skillCooldownClusterer.cluster(skillCooldowns);
-            allGroups.addAll(skillCooldownGroups);
-
-            CategoryClusterer dailyResetClusterer = ClustererFactory.getClusterer("daily_reset", context);
-            List<NotificationGroup> dailyResetGroups = dailyResetClusterer.cluster(dailyReset);
-            allGroups.addAll(dailyResetGroups);
-
-            // Convert sold marketplace listings to notification groups
-            List<NotificationGroup> marketplaceGroups = convertSoldListingsToNotifications(soldListings);
-            allGroups.addAll(marketplaceGroups);
-            Log.d(TAG, "  Marketplace: Created " + marketplaceGroups.size() + " group(s)");
-
-            CategoryClusterer floatingIslandClusterer = ClustererFactory.getClusterer("floating_island", context);
-            List<NotificationGroup> floatingIslandGroups = floatingIslandClusterer.cluster(floatingIsland);
-            allGroups.addAll(floatingIslandGroups);
-
-            // Handle auctions separately (one at a time, no clustering)
-            // Process auctions: Only schedule ONE at a time, the soonest upcoming
-            Log.d(TAG, "Processing " + auctions.size() + " auction(s)");
-            DebugLog.log("Auction Processing: Found " + auctions.size() + " auction(s) in file");
-            
-            if (!auctions.isEmpty()) {
-                // Find the soonest auction
-                FarmItem nextAuction = auctions.stream()
-                    .min((a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()))
-                    .orElse(null);
-
-                if (nextAuction != null) {
-                    long nextAuctionStartAt = nextAuction.getTimestamp();
-
-                    // Check if we should schedule this auction
-                    String lastScheduledAuctionId = getLastScheduledAuctionId(context);
-                    long lastScheduledAuctionStart = getLastScheduledAuctionStart(context);
-
-                    Log.d(TAG, "Next auction: " + nextAuction.getName() + " (ID: " + nextAuction.getId() + ") at " + formatTimestamp(nextAuctionStartAt));
-                    Log.d(TAG, "Last scheduled: ID=" + lastScheduledAuctionId + ", StartAt=" + formatTimestamp(lastScheduledAuctionStart) + ", CurrentTime=" + formatTimestamp(currentTime));
-                    DebugLog.log("Next auction: " + nextAuction.getName() + " (ID: " + nextAuction.getId() + ") at " + formatTimestamp(nextAuctionStartAt));
-                    DebugLog.log("Last scheduled: ID=" + lastScheduledAuctionId + " | Current: " + formatTimestamp(currentTime));
-
-                    // Create single notification group for this auction
-                    // Always add to display list (even if already scheduled)
-                    NotificationGroup group = new NotificationGroup();
-                    group.category = "auction";
-                    group.name = formatAuctionDisplayName(nextAuction.getName(), nextAuction.getDetails());
-                    group.quantity = 1;
-                    group.earliestReadyTime = nextAuctionStartAt;
-
-                    // Parse details for icon/metadata
-                    String details = nextAuction.getDetails();
-                    if (details != null && !details.isEmpty()) {
-                        String[] parts = details.split("\\|", 4);
-                        if (parts.length >= 2) {
-                            group.details = parts[1] + "|" + parts[2] + "|" + (parts.length > 3 ? parts[3] : "");
-                        } else {
-                            group.details = details;
-                        }
-                    }
+        FarmExtractionEngine.Buckets extracted = run.items;
+
+        // Counted rather than merged into one list, so no item is copied for the log line
+        int totalItems = extracted.size() + dailyReset.size() + floatingIsland.size() + auctions.size();
+
+        Log.d(TAG, "Step 2 Complete: Extracted " + extracted.crops.size() + " crop(s), " + extracted.fruits.size() + " fruit(s), " + extracted.greenhouseCrops.size() + " greenhouse crop(s), " + extracted.resources.size() + " resource(s), " + extracted.animals.size() + " animal(s), " + auctions.size() + " auction(s), total " + totalItems + " item(s)");
+        DebugLog.logStep("Step 2", "Complete: Extracted items - Total: " + totalItems + ", Auctions: " + auctions.size());
+
+        // Step 3: Save processed JSON, before clustering empties the batches
+        Log.d(TAG, "Step 3: Saving processed data...");
+        DebugLog.logStep("Step 3", "Saving processed data");
+        saveProcessedJSON(context, extracted);
+        extracted = null;  // run.cluster() releases the items; nothing else may hold them
+        Log.d(TAG, "Step 3 Complete: Processed data saved");
+        DebugLog.logStep("Step 3", "Complete: Processed data saved");
+
+        // Step 4: Cluster items by category
+        Log.d(TAG, "Step 4: Clustering items by readiness time...");
+        DebugLog.logStep("Step 4", "Clustering items by readiness time");
+
+        // Categories outside run.cluster(): built first so the alarm budget counts them too
+        List<NotificationGroup> otherGroups = new ArrayList<>();
+        clusterCategory(context, plan, "Daily Reset", "daily_reset", dailyReset, otherGroups);
+
+        // Convert sold marketplace listings to notification groups
+        List<NotificationGroup> marketplaceGroups = convertSoldListingsToNotifications(soldListings);
+        otherGroups.addAll(marketplaceGroups);
+        Log.d(TAG, "  Marketplace: Created " + marketplaceGroups.size() + " group(s)");
+
+        clusterCategory(context, plan, "floating_island", "floating_island", floatingIsland, otherGroups);
+
+        // Handle auctions separately (one at a time, no clustering)
+        // Process auctions: Only schedule ONE at a time, the soonest upcoming
+        Log.d(TAG, "Processing " + auctions.size() + " auction(s)");
+        DebugLog.log("Auction Processing: Found " + auctions.size() + " auction(s) in file");
 
-                    group.groupId = "auction_" + nextAuction.getId();
-                    allGroups.add(group);
-
-                    // Only update stored info if:
-                    // 1. Different auction than last scheduled, OR
-                    // 2. Same auction but its time has passed (ready to fire)
-                    if (nextAuctionStartAt != lastScheduledAuctionStart || currentTime >= nextAuctionStartAt) {
-                        Log.d(TAG, "SCHEDULING NEW AUCTION: Different from last (" + (nextAuctionStartAt != lastScheduledAuctionStart) + ") OR time passed (" + (currentTime >= nextAuctionStartAt) + ")");
-                        DebugLog.log("✅ SCHEDULING NEW AUCTION (Different: " + (nextAuctionStartAt != lastScheduledAuctionStart) + " | TimePassed: " + (currentTime >= nextAuctionStartAt) + ")");
-                        
-                        // Store this auction as scheduled
-                        storeLastScheduledAuctionId(context, nextAuction.getId());
-                        storeLastScheduledAuctionStart(context, nextAuctionStartAt);
-
-                        Log.d(TAG, "✅ AUCTION ADDED TO NOTIFICATION LIST: " + nextAuction.getName());
-                        DebugLog.log("✅ AUCTION ADDED TO NOTIFICATION LIST: " + nextAuction.getName());
+        if (!auctions.isEmpty()) {
+            // Find the soonest auction
+            FarmItem nextAuction = auctions.stream()
+                .min((a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()))
+                .orElse(null);
+
+            if (nextAuction != null) {
+                long nextAuctionStartAt = nextAuction.getTimestamp();
+
+                // Check if we should schedule this auction
+                String lastScheduledAuctionId = getLastScheduledAuctionId(context);
+                long lastScheduledAuctionStart = getLastScheduledAuctionStart(context);
+
+                Log.d(TAG, "Next auction: " + nextAuction.getName() + " (ID: " + nextAuction.getId() + ") at " + formatTimestamp(nextAuctionStartAt));
+                Log.d(TAG, "Last scheduled: ID=" + lastScheduledAuctionId + ", StartAt=" + formatTimestamp(lastScheduledAuctionStart) + ", CurrentTime=" + formatTimestamp(currentTime));
+                DebugLog.log("Next auction: " + nextAuction.getName() + " (ID: " + nextAuction.getId() + ") at " + formatTimestamp(nextAuctionStartAt));
+                DebugLog.log("Last scheduled: ID=" + lastScheduledAuctionId + " | Current: " + formatTimestamp(currentTime));
+
+                // Create single notification group for this auction
+                // Always add to display list (even if already scheduled)
+                NotificationGroup group = new NotificationGroup();
+                group.category = "auction";
+                group.name = formatAuctionDisplayName(nextAuction.getName(), nextAuction.getDetails());
+                group.quantity = 1;
+                group.earliestReadyTime = nextAuctionStartAt;
+
+                // Parse details for icon/metadata
+                String details = nextAuction.getDetails();
+                if (details != null && !details.isEmpty()) {
+                    String[] parts = details.split("\\|", 4);
+                    if (parts.length >= 2) {
+                        group.details = parts[1] + "|" + parts[2] + "|" + (parts.length > 3 ? parts[3] : "");
                     } else {
-                        Log.d(TAG, "⏭️  Auction already scheduled and time hasn't passed - keeping existing");
-                        DebugLog.log("⏭️  Auction already scheduled (ID: " + lastScheduledAuctionId + ") - keeping existing (displaying in log)");
+                        group.details = details;
                     }
+                }
+
+                group.groupId = "auction_" + nextAuction.getId();
+                otherGroups.add(group);
+
+                // Only update stored info if:
+                // 1. Different auction than last scheduled, OR
+                // 2. Same auction but its time has passed (ready to fire)
+                if (nextAuctionStartAt != lastScheduledAuctionStart || currentTime >= nextAuctionStartAt) {
+                    Log.d(TAG, "SCHEDULING NEW AUCTION: Different from last (" + (nextAuctionStartAt != lastScheduledAuctionStart) + ") OR time passed (" + (currentTime >= nextAuctionStartAt) + ")");
+                    DebugLog.log("✅ SCHEDULING NEW AUCTION (Different: " + (nextAuctionStartAt != lastScheduledAuctionStart) + " | TimePassed: " + (currentTime >= nextAuctionStartAt) + ")");
+
+                    // Store this auction as scheduled
+                    storeLastScheduledAuctionId(context, nextAuction.getId());
+                    storeLastScheduledAuctionStart(context, nextAuctionStartAt);
+
+                    Log.d(TAG, "✅ AUCTION ADDED TO NOTIFICATION LIST: " + nextAuction.getName());
+                    DebugLog.log("✅ AUCTION ADDED TO NOTIFICATION LIST: " + nextAuction.getName());
                 } else {
-                    Log.d(TAG, "No next auction found even though list has " + auctions.size() + " items");
-                    DebugLog.log("❌ No next auction found even though list has " + auctions.size() + " items");
+                    Log.d(TAG, "⏭️  Auction already scheduled and time hasn't passed - keeping existing");
+                    DebugLog.log("⏭️  Auction already scheduled (ID: " + lastScheduledAuctionId + ") - keeping existing (displaying in log)");
                 }
             } else {
-                Log.d(TAG, "No auctions to process");
-                DebugLog.log("No auctions to process");
+                Log.d(TAG, "No next auction found even though list has " + auctions.size() + " items");
+                DebugLog.log("❌ No next auction found even though list has " + auctions.size() + " items");
             }
+        } else {
+            Log.d(TAG, "No auctions to process");
+            DebugLog.log("No auctions to process");
+        }
 
-            Log.d(TAG, "Step 3 Complete: Created " + allGroups.size() + " total notification group(s)");
-            DebugLog.logStep("Step 3", "Complete: Created " + allGroups.size() + " notification group(s)");
-
-            // Step 3.5: Process pet sleep notifications
-            Log.d(TAG, "Step 3.5: Processing pet sleep notifications...");
-            DebugLog.logStep("Step 3.5", "Processing pet sleep notifications");
-            try {
-                boolean petSleepEnabled = prefs.getBoolean("category_pet_sleep", true);
-                if (petSleepEnabled) {
-                    JsonObject petsData = farmObject.getAsJsonObject("pets");
-                    if (petsData != null && !petsData.entrySet().isEmpty()) {
-                        PetSleepClusterer petSleepClusterer = new PetSleepClusterer();
+        // Step 4.5: Process pet sleep notifications
+        Log.d(TAG, "Step 4.5: Processing pet sleep notifications...");
+        DebugLog.logStep("Step 4.5", "Processing pet sleep notifications");
+        try {
+            boolean petSleepEnabled = plan.isCategoryEnabled("pet_sleep");
+            if (petSleepEnabled) {
+                int petSleepCount = 0;
+                PetSleepClusterer petSleepClusterer = new PetSleepClusterer();
+                for (FarmExtraction farm : farms) {
+                    FarmState.Pets petsData = farm.run.pets;
+                    if (petsData != null && !petsData.isEmpty()) {
                         List<NotificationGroup> petSleepGroups = petSleepClusterer.clusterPetSleep(petsData);
-                        allGroups.addAll(petSleepGroups);
-                        Log.d(TAG, "Step 3.5: Added " + petSleepGroups.size() + " pet sleep notification group(s)");
-                        DebugLog.logStep("Step 3.5", "Complete: Added " + petSleepGroups.size() + " pet sleep group(s)");
-                    } else {
-                        Log.d(TAG, "Step 3.5: No pets data found");
-                        DebugLog.logStep("Step 3.5", "No pets data found");
+                        otherGroups.addAll(petSleepGroups);
+                        petSleepCount += petSleepGroups.size();
                     }
-                } else {
-                    Log.d(TAG, "Step 3.5: Pet sleep notifications are disabled");
-                    DebugLog.logStep("Step 3.5", "Pet sleep notifications disabled");
                 }
-            } catch (Exception e) {
-                Log.w(TAG, "Error processing pet sleep notifications: " + e.getMessage(), e);
-                DebugLog.log("⚠️ Warning: Pet sleep processing failed: " + e.getMessage());
+                Log.d(TAG, "Step 4.5: Added " + petSleepCount + " pet sleep notification group(s)");
+                DebugLog.logStep("Step 4.5", "Complete: Added " + petSleepCount + " pet sleep group(s)");
+            } else {
+                Log.d(TAG, "Step 4.5: Pet sleep notifications are disabled");
+                DebugLog.logStep("Step 4.5", "Pet sleep notifications disabled");
             }
+        } catch (Exception e) {
+            Log.w(TAG, "Error processing pet sleep notifications: " + e.getMessage(), e);
+            DebugLog.log("⚠️ Warning: Pet sleep processing failed: " + e.getMessage());
+        }
 
-            // Step 4: Save processed JSON
-            Log.d(TAG, "Step 4: Saving processed data...");
-            DebugLog.logStep("Step 4", "Saving processed data");
-            saveProcessedJSON(context, crops, fruits, resources, animals, cooking, composters, flowers, craftingBox, beehives, cropMachine, sunstones, dailyReset);
-            Log.d(TAG, "Step 4 Complete: Processed data saved");
-            DebugLog.logStep("Step 4", "Complete: Processed data saved");
-
-            // Step 5: Schedule notifications using AlarmManager
-            Log.d(TAG, "Step 5: Scheduling notifications for " + allGroups.size() + " group(s)...");
-            DebugLog.logStep("Step 5", "Scheduling notifications for " + allGroups.size() + " group(s)");
-            AlarmScheduler scheduler = new AlarmScheduler(context);
+        // Cluster all standard categories (disabled ones are skipped, unchanged ones reuse
+        // their groups from the last poll); each batch is emptied once it is clustered
+        // (after them, the groups above, which the alarm budget counts but never regroups)
+        run.fixedGroups = otherGroups;
+        run.alarmBudget = NotificationPreferences.getAlarmBudget(context);
+        run.cluster(context, plan, cache);
+        if (run.budgetReport != null) {
+            Log.d(TAG, "Step 4: " + run.budgetReport);
+            DebugLog.logStep("Step 4", run.budgetReport);
+        }
+        List<NotificationGroup> allGroups = run.groups;
+        Log.d(TAG, "Step 4 Complete: Created " + allGroups.size() + " total notification group(s)");
+        DebugLog.logStep("Step 4", "Complete: Created " + allGroups.size() + " notification group(s)");
+
+        // Step 5: Schedule notifications using AlarmManager
+        Log.d(TAG, "Step 5: Scheduling notifications for " + allGroups.size() + " group(s)...");
+        DebugLog.logStep("Step 5", "Scheduling notifications for " + allGroups.size() + " group(s)");
+        allGroups = plan.retainEnabledGroups(allGroups);
+        run.groups.clear();  // Unfiltered groups are not needed past this point
+        long digestWindow = NotificationPreferences.getDigestWindowMillis(context);
+        if (digestWindow >= 0) {
+            int beforeDigest = allGroups.size();
+            allGroups = DigestCoalescer.coalesce(allGroups, digestWindow, System.currentTimeMillis());
+            Log.d(TAG, "Step 5: Digest coalescing (" + digestWindow / 60000 + " min window): " + beforeDigest + " -> " + allGroups.size() + " group(s)");
+            DebugLog.logStep("Step 5", "Digests: " + beforeDigest + " -> " + allGroups.size() + " group(s)");
+        }
+        AlarmScheduler scheduler = new AlarmScheduler(context);
+        GroupTracker scheduled = cache.scheduledGroups();
+        if (scheduled.isCurrent(scheduler.getAlarmGeneration())) {
+            // Same groups keep their IDs; only new, changed and removed ones touch AlarmManager
+            GroupTracker.Changes changes = scheduled.update(allGroups, scheduler.getAlarmGeneration());
+            Log.d(TAG, "Step 5: Incremental update: " + changes);
+            DebugLog.logStep("Step 5", "Incremental update: " + changes);
+            if (!changes.isEmpty()) {
+                scheduler.applyChanges(changes.added, changes.changed, changes.removed);
+            }
+        } else {
+            // First run in this process, or alarms were reset elsewhere: arm everything
             scheduler.cancelAllPendingAlarms();
             scheduler.clearScheduledTracking();
+            scheduled.update(allGroups, scheduler.getAlarmGeneration());
             scheduler.scheduleNotificationAlarms(allGroups);
-            Log.d(TAG, "Step 5 Complete: Notifications scheduled");
-            DebugLog.logStep("Step 5", "Complete: Notifications scheduled");
+        }
+        Log.d(TAG, "Step 5 Complete: Notifications scheduled");
+        DebugLog.logStep("Step 5", "Complete: Notifications scheduled");
+        run.stageComplete("schedule");
 
-            // Step 6: Write scheduled notifications log
-            Log.d(TAG, "Step 6: Writing scheduled notifications log...");
-            DebugLog.logStep("Step 6", "Writing scheduled notifications log");
-            
-            // Sort groups by earliest ready time (chronological order - soonest first)
-            allGroups.sort((g1, g2) -> Long.compare(g1.earliestReadyTime, g2.earliestReadyTime));
-            
-            writeScheduledNotificationsLog(context, allGroups);
-            Log.d(TAG, "Step 6 Complete: Log written");
-            DebugLog.logStep("Step 6", "Complete: Log written");
+        // Step 6: Write scheduled notifications log
+        Log.d(TAG, "Step 6: Writing scheduled notifications log...");
+        DebugLog.logStep("Step 6", "Writing scheduled notifications log");
 
-            Log.d(TAG, "=== " + workerTag + " - Farm Data Processing Pipeline Complete ===");
-            DebugLog.log("=== " + workerTag + " - Farm Data Processing Pipeline Complete ===");
-        } catch (Exception e) {
-            Log.e(TAG, "Error in processFarmData: " + e.getMessage(), e);
-            DebugLog.error("Pipeline error in processFarmData", e);
-            writeErrorLog(context, "Processing pipeline failed: " + e.getMessage());
+        // Sort groups by earliest ready time (chronological order - soonest first)
+        allGroups.sort((g1, g2) -> Long.compare(g1.earliestReadyTime, g2.earliestReadyTime));
+
+        if (run.budgetReport != null) {
+            logNote = logNote == null ? run.budgetReport : logNote + "\n" + run.budgetReport;
         }
+        writeScheduledNotificationsLog(context, allGroups, logNote);
+        Log.d(TAG, "Step 6 Complete: Log written");
+        DebugLog.logStep("Step 6", "Complete: Log written");
+    }
+
+    private static String joinFarmIds(List<FarmFetchEngine.FarmCredentials> farms) {
+        StringBuilder ids = new StringBuilder();
+        for (FarmFetchEngine.FarmCredentials farm : farms) {
+            if (ids.length() > 0) {
+                ids.append(',');
+            }
+            ids.append(farm.farmId);
+        }
+        return ids.toString();
     }
 
     /**
-     * Save raw JSON response from API for debugging
+     * Cluster one category's items into allGroups, unless the plan has it disabled
+     * @param category NotificationGroup category checked against the plan
+     * @param clusterer ClustererFactory key
      */
-    private static void saveRawJSON(Context context, String rawJSON) {
-        try {
-            File file = new File(context.getFilesDir(), "farm_api_raw.json");
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-                writer.write(rawJSON);
-                writer.flush();
-            }
-            Log.d(TAG, "Raw JSON saved: " + file.getAbsolutePath());
+    private static void clusterCategory(Context context, NotificationPlan plan, String category, String clusterer,
+                                        List<FarmItem> items, List<NotificationGroup> allGroups) {
+        if (!plan.isCategoryEnabled(category)) {
+            return;
+        }
+        allGroups.addAll(ClustererFactory.getClusterer(clusterer, context).cluster(items));
+    }
+
+    /**
+     * Point the pipeline at another farms endpoint, e.g. StubFarmApiServer in tests
+     * @param baseUrl URL the farm ID is appended to, or null for the live API
+     */
+    static void setApiBaseUrl(String baseUrl) {
+        apiBaseUrl = baseUrl != null ? baseUrl : API_BASE_URL;
+    }
+
+    static String farmUrl(String farmId) {
+        return apiBaseUrl + farmId;
+    }
+
+    /**
+     * Fetch and parse the farm, reporting the outcome to the shared circuit breaker
+     * @return Result with a parsed body, or a 304 with none
+     * @throws FarmFetchException carrying the typed failure if no farm was received
+     */
+    private static APIClient.FetchResult<FarmState> fetchFarm(Context context, FetchCircuitBreaker breaker,
+                                                              NotificationPlan plan, String farmId, String apiUrl,
+                                                              String apiKey, String etag, String lastModified) {
+        // The raw body is teed into farm_api_raw.json while it is decoded; only enabled categories' keys are read
+        APIClient.FetchResult<FarmState> result = fetchFarm(breaker, plan, apiUrl, apiKey, etag, lastModified,
+                new File(context.getFilesDir(), "farm_api_raw.json"));
+        if (result.body != null) {
+            recordSnapshotFarm(context, farmId);
+        }
+        return result;
+    }
+
+    /**
+     * The network half of fetchFarm, without the Context-bound bookkeeping
+     * @param snapshotFile Where to keep the raw body, or null for no copy
+     */
+    static APIClient.FetchResult<FarmState> fetchFarm(FetchCircuitBreaker breaker, NotificationPlan plan, String apiUrl,
+                                                      String apiKey, String etag, String lastModified, File snapshotFile) {
+        APIClient.FetchResult<FarmState> result = APIClient.fetchConditional(apiUrl, apiKey, etag, lastModified,
+                snapshotFile, body -> APIClient.readFarmState(body, plan));
+        FetchFailure failure = result.failure;
+        if (failure != null) {
+            breaker.recordFailure(failure);
+            throw new FarmFetchException(failure);
+        }
+        breaker.recordSuccess();
+        return result;
+    }
+
+    /**
+     * Note which farm farm_api_raw.json now holds, so an offline run for another farm never
+     * recomputes from it. Call after a body has been saved to the file.
+     */
+    static void recordSnapshotFarm(Context context, String farmId) {
+        PreferenceManager.getDefaultSharedPreferences(context).edit()
+                .putString(PREFS_KEY_SNAPSHOT_FARM_ID, farmId).apply();
+    }
+
+    /**
+     * Read the last saved farm_api_raw.json back for an offline recompute
+     * @return Decoded farm, or null if the snapshot is missing or unreadable
+     */
+    private static FarmState loadRawSnapshot(File snapshot, NotificationPlan plan) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(snapshot))) {
+            return APIClient.readFarmState(reader, plan);
         } catch (Exception e) {
-            Log.e(TAG, "Error saving raw JSON: " + e.getMessage(), e);
+            Log.w(TAG, "Could not read raw snapshot: " + e.getMessage());
+            return null;
         }
     }
 
     /**
-     * Save processed farm data as JSON for debugging
+     * Save processed farm data as JSON for debugging. Items are streamed straight from the
+     * batches to the file, with the fields and layout Gson gave the FarmItem lists.
      */
-    private static void saveProcessedJSON(Context context, List<FarmItem> crops, List<FarmItem> fruits,
-                                          List<FarmItem> resources, List<FarmItem> animals, List<FarmItem> cooking,
-                                          List<FarmItem> composters, List<FarmItem> flowers, List<FarmItem> craftingBox,
-                                          List<FarmItem> beehives, List<FarmItem> cropMachine, List<FarmItem> sunstones,
-                                          List<FarmItem> dailyReset) {
-        try {
-            Gson gson = new Gson();
-            JsonObject processedData = new JsonObject();
-            processedData.add("crops", gson.toJsonTree(crops));
-            processedData.add("fruits", gson.toJsonTree(fruits));
-            processedData.add("resources", gson.toJsonTree(resources));
-            processedData.add("animals", gson.toJsonTree(animals));
-
-            File file = new File(context.getFilesDir(), "processed_data.json");
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-                writer.write(gson.toJson(processedData));
-                writer.flush();
-            }
+    private static void saveProcessedJSON(Context context, FarmExtractionEngine.Buckets items) {
+        File file = new File(context.getFilesDir(), "processed_data.json");
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new FileWriter(file)))) {
+            writer.beginObject();
+            writeItems(writer, "crops", items.crops);
+            writeItems(writer, "fruits", items.fruits);
+            writeItems(writer, "resources", items.resources);
+            writeItems(writer, "animals", items.animals);
+            writer.endObject();
             Log.d(TAG, "Processed JSON saved: " + file.getAbsolutePath());
         } catch (Exception e) {
             Log.e(TAG, "Error saving processed JSON: " + e.getMessage(), e);
         }
     }
 
+    private static void writeItems(JsonWriter writer, String name, ItemBatch batch) throws IOException {
+        writer.name(name).beginArray();
+        for (int i = 0; i < batch.size(); i++) {
+            writer.beginObject();
+            if (batch.id(i) != null) {
+                writer.name("id").value(batch.id(i));
+            }
+            writer.name("category").value(batch.category(i));
+            writer.name("name").value(batch.name(i));
+            writer.name("amount").value(batch.amount(i));
+            writer.name("timestamp").value(batch.readyTime(i));
+            if (batch.buildingName(i) != null) {
+                writer.name("buildingName").value(batch.buildingName(i));
+            }
+            if (batch.details(i) != null) {
+                writer.name("details").value(batch.details(i));
+            }
+            writer.endObject();
+        }
+        writer.endArray();
+    }
+
+    /**
+     * PipelineRun.StageListener that logs the heap in use at each checkpoint
+     */
+    private static void logStageHeap(String checkpoint, PipelineRun run) {
+        Runtime runtime = Runtime.getRuntime();
+        long usedKb = (runtime.totalMemory() - runtime.freeMemory()) / 1024;
+        Log.d(TAG, "Heap at " + checkpoint + ": " + usedKb + " KB used of " + (runtime.maxMemory() / 1024) + " KB");
+    }
+
     /**
      * Write scheduled notifications log in plain English format
      */
-    private static void writeScheduledNotificationsLog(Context context, List<NotificationGroup> groups) {
+    private static void writeScheduledNotificationsLog(Context context, List<NotificationGroup> groups, String note) {
         try {
             Log.d(TAG, "writeScheduledNotificationsLog: Starting with " + groups.size() + " groups");
             File file = new File(context.getFilesDir(), "notification_summary.log");
@@ -475,6 +776,9 @@ public class FarmDataProcessor {
             try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, false))) {
                 writer.write("=== Currently Scheduled Notifications ===\n");
                 writer.write("Generated at: " + getCurrentTimestamp() + "\n");
+                if (note != null) {
+                    writer.write(note + "\n");
+                }
                 writer.write("---\n\n");
 
                 if (groups.isEmpty()) {
@@ -540,24 +844,14 @@ public class FarmDataProcessor {
      * Return current timestamp in full format
      */
     private static String getCurrentTimestamp() {
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy h:mm:ss a", Locale.US);
-            return sdf.format(new Date());
-        } catch (Exception e) {
-            return "00/00/0000 00:00:00";
-        }
+        return TimeUtils.formatLogHeader(System.currentTimeMillis());
     }
 
     /**
      * Format timestamp for notification display
      */
     private static String formatTimeForNotification(long timestamp) {
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss", Locale.US);
-            return sdf.format(new Date(timestamp));
-        } catch (Exception e) {
-            return "Unknown";
-        }
+        return TimeUtils.formatTime(timestamp);
     }
 
     /**
@@ -616,12 +910,7 @@ public class FarmDataProcessor {
      * Format timestamp for logging
      */
     private static String formatTimestamp(long timestamp) {
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-            return sdf.format(new Date(timestamp));
-        } catch (Exception e) {
-            return String.valueOf(timestamp);
-        }
+        return TimeUtils.formatDateTime(timestamp);
     }
 
     /**
@@ -0,0 +1,396 @@
+package com.sfl.browser;
+
+import android.util.Log;
+
+import com.google.gson.JsonObject;
+import com.sfl.browser.models.FarmItem;
+import com.sfl.browser.models.FarmState;
+import com.sfl.browser.models.ItemBatch;
+import com.sfl.browser.models.SickAnimal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Extracts every category from the typed farm in a single pass.
+ *
+ * Each top-level farm key's FarmState field is handed to the handlers registered for it,
+ * each of which appends to its own Buckets; those are merged into one per run. "buildings" feeds cooking, composters and the
+ * crop machine; "sunstones" feeds both resources and the sunstone category; henHouse/barn
+ * feed animals and sick-animal states. The per-category CategoryExtractors.extract* methods
+ * still exist for one-off callers with a JsonObject and produce the same items as lists.
+ *
+ * Given an ExtractionCache, a handler whose farm key has the same fingerprint as last run
+ * is not run again: its previous items are reused minus those now ready. Handlers whose
+ * output depends on the clock beyond that (flowers, beehives, sick animals) always run.
+ *
+ * Handlers take the clock and scratch state from a per-run ExtractionContext, so runs for
+ * different farms can overlap. Within a run, the handlers of each farm key form one task and
+ * tasks run in parallel on a small shared ForkJoinPool; beehives run in the flowers task
+ * because they read what it records. Items are merged in HANDLERS order afterwards, so the
+ * output is the same as a sequential run.
+ *
+ * Usage:
+ *   FarmExtractionEngine.Buckets items = FarmExtractionEngine.extract(farmState, plan, cache);
+ *   clusterer.cluster(items.crops);
+ */
+public class FarmExtractionEngine {
+    private static final String TAG = "FarmExtractionEngine";
+
+    /**
+     * Category batches filled by one extraction run. Every batch is allocated once and sorted
+     * by timestamp the same way the matching CategoryExtractors method sorts its list.
+     */
+    public static class Buckets {
+        public final ItemBatch crops = new ItemBatch();
+        public final ItemBatch fruits = new ItemBatch();
+        public final ItemBatch greenhouseCrops = new ItemBatch();
+        public final ItemBatch resources = new ItemBatch();
+        public final ItemBatch animals = new ItemBatch();
+        public final List<SickAnimal> sickAnimals = new ArrayList<>();
+        public final ItemBatch cooking = new ItemBatch();
+        public final ItemBatch composters = new ItemBatch();
+        public final ItemBatch flowers = new ItemBatch();
+        public final ItemBatch craftingBox = new ItemBatch();
+        public final ItemBatch beehives = new ItemBatch();
+        public final ItemBatch cropMachine = new ItemBatch();
+        public final ItemBatch sunstones = new ItemBatch();
+        public final ItemBatch skillCooldowns = new ItemBatch();
+
+        // Categories whose items may differ from the previous cached run (every category run
+        // when there was no cache)
+        public final Set<String> changedCategories = new HashSet<>();
+
+        /**
+         * Total number of farm items across all categories (sick-animal states excluded)
+         */
+        public int size() {
+            return crops.size() + fruits.size() + greenhouseCrops.size() + resources.size() + animals.size()
+                    + cooking.size() + composters.size() + flowers.size() + craftingBox.size() + beehives.size()
+                    + cropMachine.size() + sunstones.size() + skillCooldowns.size();
+        }
+
+        void addAll(Buckets other) {
+            crops.addAll(other.crops);
+            fruits.addAll(other.fruits);
+            greenhouseCrops.addAll(other.greenhouseCrops);
+            resources.addAll(other.resources);
+            animals.addAll(other.animals);
+            sickAnimals.addAll(other.sickAnimals);
+            cooking.addAll(other.cooking);
+            composters.addAll(other.composters);
+            flowers.addAll(other.flowers);
+            craftingBox.addAll(other.craftingBox);
+            beehives.addAll(other.beehives);
+            cropMachine.addAll(other.cropMachine);
+            sunstones.addAll(other.sunstones);
+            skillCooldowns.addAll(other.skillCooldowns);
+        }
+
+        /**
+         * Drop items that are ready by now, as a fresh extraction would have skipped them
+         * @return Number of items dropped
+         */
+        int pruneReady(long now) {
+            return crops.removeReadyBy(now) + fruits.removeReadyBy(now) + greenhouseCrops.removeReadyBy(now)
+                    + resources.removeReadyBy(now) + animals.removeReadyBy(now) + cooking.removeReadyBy(now)
+                    + composters.removeReadyBy(now) + flowers.removeReadyBy(now) + craftingBox.removeReadyBy(now)
+                    + beehives.removeReadyBy(now) + cropMachine.removeReadyBy(now) + sunstones.removeReadyBy(now)
+                    + skillCooldowns.removeReadyBy(now);
+        }
+    }
+
+    /**
+     * Consumes one top-level farm field; must tolerate the field being null (key absent)
+     */
+    interface SubtreeHandler {
+        void handle(FarmState farm, ExtractionContext ctx, Buckets out);
+    }
+
+    /**
+     * A handler and the notification categories it produces items for
+     */
+    private static final class Registration {
+        final int id;
+        final SubtreeHandler handler;
+        final String[] categories;
+        final boolean clockDependent;  // output changes with time, not only by items falling due
+
+        Registration(int id, SubtreeHandler handler, String[] categories, boolean clockDependent) {
+            this.id = id;
+            this.handler = handler;
+            this.categories = categories;
+            this.clockDependent = clockDependent;
+        }
+    }
+
+    // Fingerprint used for a farm key that was absent from the response
+    private static final long ABSENT = 0;
+
+    // Top-level farm key -> handlers, visited in insertion order. flowers must stay ahead of
+    // beehives: beehive items use the flower bed finish times recorded while walking flowers.
+    private static final Map<String, List<Registration>> HANDLERS = new LinkedHashMap<>();
+    private static int registered;
+
+    // Farm key -> key whose handlers must finish first; the pair runs as one task
+    private static final Map<String, String> RUN_AFTER = new HashMap<>();
+
+    // Shared by every farm and worker; null on a single core, where handlers run inline
+    private static final ForkJoinPool POOL = createPool();
+
+    /**
+     * One handler run this pass and the Buckets it fills
+     */
+    private static final class Job {
+        final String key;
+        final Registration registration;
+        final long fingerprint;
+        final Buckets items = new Buckets();
+        boolean succeeded;
+
+        Job(String key, Registration registration, long fingerprint) {
+            this.key = key;
+            this.registration = registration;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    static {
+        on("crops", "crops", (farm, ctx, out) -> CategoryExtractors.extractCropsInto(ctx, farm.crops, out.crops));
+        on("fruitPatches", "fruits", (farm, ctx, out) -> CategoryExtractors.extractFruitsInto(ctx, farm.fruitPatches, out.fruits));
+        on("greenhouse", "greenhouse_crops", (farm, ctx, out) -> CategoryExtractors.extractGreenhouseCropsInto(ctx, farm.greenhousePots, out.greenhouseCrops));
+        for (String resourceType : CategoryExtractors.RESOURCE_TYPES) {
+            on(resourceType, "resource", (farm, ctx, out) -> CategoryExtractors.extractResourceTypeInto(ctx, resourceType, farm.resources.get(resourceType), out.resources));
+        }
+        on("lavaPits", "resource", (farm, ctx, out) -> CategoryExtractors.extractLavaPitsInto(ctx, farm.lavaPits, out.resources));
+        on("henHouse", "animals", (farm, ctx, out) -> CategoryExtractors.extractAnimalHouseInto(ctx, "henHouse", farm.henHouse, out.animals));
+        onEveryRun("henHouse", new String[]{"animal_sick"}, (farm, ctx, out) -> CategoryExtractors.extractAnimalStatesInto(ctx, "henHouse", farm.henHouse, out.sickAnimals));
+        on("barn", "animals", (farm, ctx, out) -> CategoryExtractors.extractAnimalHouseInto(ctx, "barn", farm.barn, out.animals));
+        onEveryRun("barn", new String[]{"animal_sick"}, (farm, ctx, out) -> CategoryExtractors.extractAnimalStatesInto(ctx, "barn", farm.barn, out.sickAnimals));
+        on("buildings", "cooking", (farm, ctx, out) -> CategoryExtractors.extractCookingInto(ctx, farm.buildings, out.cooking));
+        on("buildings", "composters", (farm, ctx, out) -> CategoryExtractors.extractCompostersInto(ctx, farm.buildings, out.composters));
+        on("buildings", "cropMachine", (farm, ctx, out) -> CategoryExtractors.extractCropMachineInto(ctx, farm.buildings, out.cropMachine));
+        // Records the flower bed finish times beehives read, so it has to run whenever they do
+        onEveryRun("flowers", new String[]{"flowers", "beehive"}, (farm, ctx, out) -> CategoryExtractors.extractFlowersInto(ctx, farm.flowerBeds, out.flowers));
+        on("craftingBox", "crafting", (farm, ctx, out) -> CategoryExtractors.extractCraftingBoxInto(ctx, farm.craftingBox, out.craftingBox));
+        onEveryRun("beehives", new String[]{"beehive"}, (farm, ctx, out) -> CategoryExtractors.extractBeehivesInto(ctx, farm.beehives, out.beehives));
+        RUN_AFTER.put("beehives", "flowers");
+        on("sunstones", "sunstones", (farm, ctx, out) -> CategoryExtractors.extractSunstonesInto(ctx, farm.resources.get("sunstones"), out.sunstones));
+        on("bumpkin", "skill_cooldown", (farm, ctx, out) -> {
+            if (farm.bumpkin != null) {
+                for (FarmItem item : SkillExtractors.extractSkillCooldowns(ctx, farm.bumpkin)) {
+                    out.skillCooldowns.add(item);
+                }
+            }
+        });
+    }
+
+    private static void on(String key, String category, SubtreeHandler handler) {
+        on(key, new String[]{category}, handler);
+    }
+
+    private static void on(String key, String[] categories, SubtreeHandler handler) {
+        register(key, categories, handler, false);
+    }
+
+    /**
+     * Register a handler that is never served from the cache
+     */
+    private static void onEveryRun(String key, String[] categories, SubtreeHandler handler) {
+        register(key, categories, handler, true);
+    }
+
+    private static ForkJoinPool createPool() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return cores < 2 ? null : new ForkJoinPool(Math.min(4, cores));
+    }
+
+    private static void register(String key, String[] categories, SubtreeHandler handler, boolean clockDependent) {
+        List<Registration> registrations = HANDLERS.get(key);
+        if (registrations == null) {
+            registrations = new ArrayList<>();
+            HANDLERS.put(key, registrations);
+        }
+        registrations.add(new Registration(registered++, handler, categories, clockDependent));
+    }
+
+    /**
+     * Walk an already parsed farm object once and fill every category
+     * @param farmData JsonObject farm object from API response
+     * @return Per-category batches; empty batches when farmData is null
+     */
+    public static Buckets extract(JsonObject farmData) {
+        return extract(farmData, null);
+    }
+
+    /**
+     * Same as extract(FarmState, NotificationPlan) for an already parsed farm object
+     * @param farmData JsonObject farm object from API response
+     * @param plan Enabled categories, or null for all of them
+     */
+    public static Buckets extract(JsonObject farmData, NotificationPlan plan) {
+        if (farmData == null) {
+            Log.w(TAG, "farmData is null");
+            return new Buckets();
+        }
+        return extract(FarmStateReader.fromTree(farmData), plan);
+    }
+
+    /**
+     * Walk the farm once, running only the handlers for categories the plan enables.
+     * Buckets of disabled categories stay empty.
+     * @param farm Typed farm from FarmStateReader
+     * @param plan Enabled categories, or null for all of them
+     */
+    public static Buckets extract(FarmState farm, NotificationPlan plan) {
+        return extract(farm, plan, null);
+    }
+
+    /**
+     * Walk the farm once, re-running only the handlers whose farm key changed since the run
+     * cached in cache. Buckets.changedCategories names the categories that may differ.
+     * Handlers for different farm keys run in parallel on a shared pool.
+     * @param farm Typed farm from FarmStateReader; a farm without fingerprints is extracted in full
+     * @param plan Enabled categories, or null for all of them
+     * @param cache This farm's cache, validated against the plan; null extracts everything
+     */
+    public static Buckets extract(FarmState farm, NotificationPlan plan, ExtractionCache cache) {
+        return extract(farm, plan, cache, POOL);
+    }
+
+    /**
+     * @param pool Runs the handlers of different farm keys concurrently; null runs them inline
+     */
+    static Buckets extract(FarmState farm, NotificationPlan plan, ExtractionCache cache, ForkJoinPool pool) {
+        Buckets out = new Buckets();
+        if (farm == null) {
+            Log.w(TAG, "farm is null");
+            return out;
+        }
+
+        ExtractionContext ctx = new ExtractionContext(System.currentTimeMillis());
+        boolean cacheable = cache != null && !farm.fingerprints.isEmpty();
+        int skipped = 0;
+        int reused = 0;
+        // Each handler's items in HANDLERS order, merged once every job is done, so the
+        // result does not depend on which task finished first
+        List<Buckets> parts = new ArrayList<>();
+        List<Job> jobs = new ArrayList<>();
+        Map<String, List<Job>> tasks = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Registration>> entry : HANDLERS.entrySet()) {
+            String key = entry.getKey();
+            Long keyFingerprint = farm.fingerprints.get(key);
+            long fingerprint = keyFingerprint != null ? keyFingerprint : ABSENT;
+            for (Registration registration : entry.getValue()) {
+                if (plan != null && !plan.isAnyEnabled(registration.categories)) {
+                    skipped++;
+                    continue;
+                }
+
+                ExtractionCache.Entry cached = cacheable && !registration.clockDependent
+                        ? cache.get(registration.id) : null;
+                if (cached != null && cached.fingerprint == fingerprint) {
+                    if (cached.items.pruneReady(ctx.now) > 0) {
+                        markChanged(out, registration);
+                    }
+                    parts.add(cached.items);
+                    reused++;
+                    continue;
+                }
+
+                Job job = new Job(key, registration, fingerprint);
+                parts.add(job.items);
+                jobs.add(job);
+                String taskKey = RUN_AFTER.containsKey(key) ? RUN_AFTER.get(key) : key;
+                List<Job> task = tasks.get(taskKey);
+                if (task == null) {
+                    task = new ArrayList<>();
+                    tasks.put(taskKey, task);
+                }
+                task.add(job);
+            }
+        }
+
+        runTasks(tasks, farm, ctx, pool);
+
+        for (Job job : jobs) {
+            markChanged(out, job.registration);
+            if (cacheable && job.succeeded && !job.registration.clockDependent) {
+                cache.put(job.registration.id, job.fingerprint, job.items);
+            }
+        }
+        // Copied, so nothing downstream can alter the cached batches
+        for (Buckets part : parts) {
+            out.addAll(part);
+        }
+
+        // Same ordering as the per-category extractors (crafting box, beehives, crop machine
+        // and sunstones are left in farm order there too)
+        out.crops.sortByReadyTime();
+        out.fruits.sortByReadyTime();
+        out.greenhouseCrops.sortByReadyTime();
+        out.resources.sortByReadyTime();
+        out.animals.sortByReadyTime();
+        out.cooking.sortByReadyTime();
+        out.composters.sortByReadyTime();
+        out.flowers.sortByReadyTime();
+
+        Log.d(TAG, "Extracted " + out.size() + " item(s) in one pass over " + HANDLERS.size() + " farm key(s), "
+                + skipped + " disabled handler(s) skipped, " + reused + " unchanged handler(s) reused, "
+                + jobs.size() + " run in " + tasks.size() + " task(s)");
+        return out;
+    }
+
+    /**
+     * Run each task's jobs in order, the tasks themselves concurrently when a pool is given
+     */
+    private static void runTasks(Map<String, List<Job>> tasks, FarmState farm, ExtractionContext ctx,
+                                 ForkJoinPool pool) {
+        if (pool == null || tasks.size() < 2) {
+            for (List<Job> task : tasks.values()) {
+                runTask(task, farm, ctx);
+            }
+            return;
+        }
+        List<ForkJoinTask<?>> submitted = new ArrayList<>();
+        for (List<Job> task : tasks.values()) {
+            submitted.add(pool.submit(() -> runTask(task, farm, ctx)));
+        }
+        for (ForkJoinTask<?> task : submitted) {
+            task.join();
+        }
+    }
+
+    private static void runTask(List<Job> task, FarmState farm, ExtractionContext ctx) {
+        for (Job job : task) {
+            job.succeeded = run(job.registration, job.key, farm, ctx, job.items);
+        }
+    }
+
+    /**
+     * @return false if the handler threw; whatever it appended before that is kept
+     */
+    private static boolean run(Registration registration, String key, FarmState farm, ExtractionContext ctx,
+                               Buckets out) {
+        try {
+            registration.handler.handle(farm, ctx, out);
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error extracting farm." + key + ": " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private static void markChanged(Buckets out, Registration registration) {
+        for (String category : registration.categories) {
+            out.changedCategories.add(category);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.sfl.browser;
+
+import android.util.Log;
+
+import com.sfl.browser.models.FarmState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches many farms at once on a dedicated, bounded thread pool.
+ *
+ * FarmDataProcessor uses it when the Farm ID setting lists several farms. Each farm's
+ * response is decoded into FarmState as it streams in and handed to the caller's handler on
+ * the same thread, so extraction for a fast farm starts while slow ones are still
+ * downloading and a poll takes about as long as its slowest farm rather than the sum.
+ *
+ * Requests sharing an API key are spaced at least minKeyIntervalMs apart, and a 429/503 holds
+ * back every remaining request for that key for its Retry-After. Every request also goes
+ * through the shared FetchCircuitBreaker, like the single-farm pipeline's.
+ *
+ * Usage:
+ *   FarmFetchEngine engine = new FarmFetchEngine(breaker, baseUrl, 4, 1000);
+ *   try {
+ *       List<FarmOutcome<T>> outcomes = engine.fetchAll(farms, plan, handler, timeoutMs);
+ *   } finally {
+ *       engine.shutdown();
+ *   }
+ */
+public class FarmFetchEngine {
+    private static final String TAG = "FarmFetchEngine";
+    public static final int DEFAULT_MAX_PARALLEL = 4;              // under FarmHttpClient's 5 pooled sockets
+    public static final long DEFAULT_MIN_KEY_INTERVAL_MS = 1000;
+
+    /**
+     * One farm to poll
+     */
+    public static class FarmCredentials {
+        public final String farmId;
+        public final String apiKey;
+
+        public FarmCredentials(String farmId, String apiKey) {
+            this.farmId = farmId;
+            this.apiKey = apiKey;
+        }
+    }
+
+    /**
+     * Consumes a farm on the fetch thread as soon as it has been decoded
+     */
+    public interface FarmHandler<T> {
+        T onFarm(String farmId, FarmState farm) throws Exception;
+    }
+
+    /**
+     * What happened to one farm: the handler's value, or why it was not produced
+     */
+    public static class FarmOutcome<T> {
+        public final String farmId;
+        public final T value;
+        public final FetchFailure failure;
+        public final long fetchMillis;    // request start → body decoded
+        public final long handleMillis;   // time spent in the handler
+
+        FarmOutcome(String farmId, T value, FetchFailure failure, long fetchMillis, long handleMillis) {
+            this.farmId = farmId;
+            this.value = value;
+            this.failure = failure;
+            this.fetchMillis = fetchMillis;
+            this.handleMillis = handleMillis;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+    }
+
+    private final FetchCircuitBreaker breaker;
+    private final String baseUrl;
+    private final long minKeyIntervalMs;
+    private final ScheduledThreadPoolExecutor executor;
+    // Per API key: earliest time the next request may start (guarded by this)
+    private final Map<String, Long> nextSlotByKey = new HashMap<>();
+    // Per API key: set from Retry-After, requests before this fail fast (guarded by this)
+    private final Map<String, Long> blockedUntilByKey = new HashMap<>();
+
+    /**
+     * @param breaker Shared breaker every request checks and reports to
+     * @param baseUrl Farm endpoint; the farm ID is appended
+     * @param maxParallel Most requests in flight at once
+     * @param minKeyIntervalMs Minimum spacing between request starts on the same API key
+     */
+    public FarmFetchEngine(FetchCircuitBreaker breaker, String baseUrl, int maxParallel, long minKeyIntervalMs) {
+        this.breaker = breaker;
+        this.baseUrl = baseUrl;
+        this.minKeyIntervalMs = minKeyIntervalMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threads = r -> {
+            Thread t = new Thread(r, "FarmFetch-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, maxParallel), threads);
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Pair the Farm ID and API Key settings up. Either may list several values separated by
+     * commas or whitespace; a single API key is shared by every farm.
+     * @return One entry per farm ID, empty if either setting is blank
+     * @throws IllegalArgumentException if several keys are given but not one per farm
+     */
+    public static List<FarmCredentials> parseCredentials(String farmIds, String apiKeys) {
+        String[] ids = split(farmIds);
+        String[] keys = split(apiKeys);
+        List<FarmCredentials> farms = new ArrayList<>(ids.length);
+        if (ids.length == 0 || keys.length == 0) {
+            return farms;
+        }
+        if (keys.length != 1 && keys.length != ids.length) {
+            throw new IllegalArgumentException(ids.length + " farm IDs but " + keys.length
+                    + " API keys - give one key for all farms or one per farm");
+        }
+        for (int i = 0; i < ids.length; i++) {
+            farms.add(new FarmCredentials(ids[i], keys.length == 1 ? keys[0] : keys[i]));
+        }
+        return farms;
+    }
+
+    private static String[] split(String value) {
+        String trimmed = value != null ? value.trim() : "";
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("[,\\s]+");
+    }
+
+    /**
+     * Fetch every farm and run the handler on each one as it arrives
+     * @param farms Farms to poll
+     * @param plan Enabled categories; only their farm keys are decoded
+     * @param handler Per-farm extraction, called on a fetch thread
+     * @param timeoutMs Overall deadline; farms not finished by then are cancelled
+     * @return One outcome per farm, in the order given
+     */
+    public <T> List<FarmOutcome<T>> fetchAll(List<FarmCredentials> farms, NotificationPlan plan,
+                                             FarmHandler<T> handler, long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        List<Future<FarmOutcome<T>>> futures = new ArrayList<>(farms.size());
+        for (FarmCredentials farm : farms) {
+            long delay = reserveSlot(farm.apiKey);
+            futures.add(executor.schedule(() -> fetchOne(farm, plan, handler), delay, TimeUnit.MILLISECONDS));
+        }
+
+        List<FarmOutcome<T>> outcomes = new ArrayList<>(farms.size());
+        for (int i = 0; i < futures.size(); i++) {
+            Future<FarmOutcome<T>> future = futures.get(i);
+            String farmId = farms.get(i).farmId;
+            try {
+                outcomes.add(future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS));
+            } catch (TimeoutException | CancellationException e) {
+                future.cancel(true);
+                outcomes.add(new FarmOutcome<>(farmId, null,
+                        new FetchFailure(FetchFailure.Kind.TIMEOUT, -1, -1, "Poll deadline passed"), 0, 0));
+            } catch (ExecutionException e) {
+                Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                outcomes.add(new FarmOutcome<>(farmId, null, FetchFailure.fromException(cause), 0, 0));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                outcomes.add(new FarmOutcome<>(farmId, null,
+                        new FetchFailure(FetchFailure.Kind.IO, -1, -1, "Interrupted"), 0, 0));
+            }
+        }
+
+        int ok = 0;
+        for (FarmOutcome<T> outcome : outcomes) {
+            if (outcome.isSuccess()) ok++;
+        }
+        Log.d(TAG, "Polled " + farms.size() + " farms: " + ok + " ok, " + (farms.size() - ok) + " failed");
+        return outcomes;
+    }
+
+    /**
+     * Stop the pool; in-flight requests are interrupted
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> FarmOutcome<T> fetchOne(FarmCredentials farm, NotificationPlan plan, FarmHandler<T> handler) throws Exception {
+        long blockedFor = blockedFor(farm.apiKey);
+        if (blockedFor > 0) {
+            return new FarmOutcome<>(farm.farmId, null, new FetchFailure(FetchFailure.Kind.RATE_LIMITED, -1, blockedFor,
+                    "Key is backing off after a rate limit"), 0, 0);
+        }
+        if (!breaker.allowRequest()) {
+            return new FarmOutcome<>(farm.farmId, null, new FetchFailure(FetchFailure.Kind.CIRCUIT_OPEN, -1,
+                    breaker.getOpenUntil() - System.currentTimeMillis(), "Polling paused after repeated API failures"), 0, 0);
+        }
+
+        long start = System.currentTimeMillis();
+        APIClient.FetchResult<FarmState> result = APIClient.fetchConditional(baseUrl + farm.farmId, farm.apiKey,
+                null, null, body -> APIClient.readFarmState(body, plan));
+        long fetched = System.currentTimeMillis();
+        if (result.isFailure()) {
+            breaker.recordFailure(result.failure);
+            if (result.failure.isBackpressure()) {
+                blockKey(farm.apiKey, result.failure.retryAfterMs > 0 ? result.failure.retryAfterMs : minKeyIntervalMs * 10);
+            }
+            Log.w(TAG, "Farm " + farm.farmId + " failed: " + result.failure);
+            return new FarmOutcome<>(farm.farmId, null, result.failure, fetched - start, 0);
+        }
+        breaker.recordSuccess();
+
+        T value = handler.onFarm(farm.farmId, result.body);
+        return new FarmOutcome<>(farm.farmId, value, null, fetched - start, System.currentTimeMillis() - fetched);
+    }
+
+    /**
+     * Book the next start slot for a key
+     * @return Delay before the request may start
+     */
+    private synchronized long reserveSlot(String apiKey) {
+        long now = System.currentTimeMillis();
+        Long next = nextSlotByKey.get(apiKey);
+        long start = next == null ? now : Math.max(now, next);
+        nextSlotByKey.put(apiKey, start + minKeyIntervalMs);
+        return start - now;
+    }
+
+    private synchronized long blockedFor(String apiKey) {
+        Long until = blockedUntilByKey.get(apiKey);
+        return until == null ? 0 : until - System.currentTimeMillis();
+    }
+
+    private synchronized void blockKey(String apiKey, long forMs) {
+        long until = System.currentTimeMillis() + forMs;
+        Long current = blockedUntilByKey.get(apiKey);
+        if (current == null || current < until) {
+            blockedUntilByKey.put(apiKey, until);
+        }
+    }
+}
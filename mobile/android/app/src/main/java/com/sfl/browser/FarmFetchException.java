@@ -0,0 +1,20 @@
+package com.sfl.browser;
+
+/**
+ * Thrown out of the pipeline when the farm could not be fetched, carrying the typed failure
+ * so workers can pick retry / wait / give up without parsing the message.
+ */
+public class FarmFetchException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final FetchFailure failure;
+
+    public FarmFetchException(FetchFailure failure) {
+        super("API call failed - " + failure);
+        this.failure = failure;
+    }
+
+    public FetchFailure getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,147 @@
+package com.sfl.browser;
+
+import android.util.Log;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide HTTP client used for every background farm fetch.
+ *
+ * HttpURLConnection already pools sockets per host, but only when callers leave the
+ * connection alive: the body must be read to the end and closed, and disconnect() must
+ * NOT be called. APIClient used to disconnect after every request, so each staggered
+ * worker paid for a fresh TCP + TLS handshake. All fetches now go through open()/release()
+ * here so the pooled connection survives between runs in the same process.
+ *
+ * HTTP/2 is not offered by the platform HttpURLConnection stack; keep-alive on HTTP/1.1
+ * gives the handshake savings for our single API host without a new dependency.
+ */
+public class FarmHttpClient {
+    private static final String TAG = "FarmHttpClient";
+    private static final int DEFAULT_CONNECT_TIMEOUT = 30000; // 30 seconds
+    private static final int DEFAULT_READ_TIMEOUT = 30000; // 30 seconds
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    // Slightly longer than the shortest refresh interval so consecutive polls find the socket warm
+    private static final long KEEP_ALIVE_DURATION_MS = 6 * 60 * 1000;
+
+    private static volatile FarmHttpClient shared;
+
+    private final int connectTimeout;
+    private final int readTimeout;
+    // host:port -> when the socket last returned to the pool for it goes stale
+    private final ConcurrentHashMap<String, Long> warmUntil = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            System.setProperty("http.keepAlive", "true");
+            System.setProperty("http.maxConnections", String.valueOf(MAX_IDLE_CONNECTIONS));
+            // Honoured by Android's platform connection pool
+            System.setProperty("http.keepAliveDuration", String.valueOf(KEEP_ALIVE_DURATION_MS));
+        } catch (SecurityException e) {
+            Log.w(TAG, "Could not configure keep-alive properties: " + e.getMessage());
+        }
+    }
+
+    public FarmHttpClient(int connectTimeout, int readTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * The shared client used by APIClient (and through it every pipeline entry point)
+     */
+    public static FarmHttpClient getShared() {
+        if (shared == null) {
+            synchronized (FarmHttpClient.class) {
+                if (shared == null) {
+                    shared = new FarmHttpClient(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Replace the shared client, e.g. with different timeouts
+     */
+    public static void setShared(FarmHttpClient client) {
+        shared = client;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Open a keep-alive GET connection with this client's timeouts
+     * @param apiUrl URL to request
+     * @return Unconnected HttpURLConnection; headers may still be added
+     */
+    public HttpURLConnection open(String apiUrl) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(apiUrl).openConnection();
+        connection.setRequestMethod("GET");
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setUseCaches(false);
+        connection.setRequestProperty("Connection", "keep-alive");
+        return connection;
+    }
+
+    /**
+     * Hand a finished connection back to the pool.
+     * @param connection Connection returned by open()
+     * @param bodyConsumed true if the response body was read to EOF and closed; otherwise the
+     *                     socket is in an unknown state and is torn down instead
+     */
+    public void release(HttpURLConnection connection, boolean bodyConsumed) {
+        if (connection == null) {
+            return;
+        }
+        String authority = connection.getURL().getAuthority();
+        if (bodyConsumed) {
+            warmUntil.put(authority, System.currentTimeMillis() + KEEP_ALIVE_DURATION_MS);
+        } else {
+            warmUntil.remove(authority);
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Whether the next request to this URL's host should find a pooled socket, so it skips
+     * DNS and the handshake. A guess: the platform pool can still evict the socket early.
+     */
+    public boolean hasWarmConnection(String apiUrl) {
+        try {
+            Long until = warmUntil.get(new URL(apiUrl).getAuthority());
+            return until != null && System.currentTimeMillis() < until;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Read and close an error body so the socket can be reused for the next request
+     * @return true if the stream was drained cleanly
+     */
+    public boolean drainErrorStream(HttpURLConnection connection) {
+        try (InputStream err = connection.getErrorStream()) {
+            if (err != null) {
+                byte[] buffer = new byte[4096];
+                while (err.read(buffer) != -1) {
+                    // discard
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            Log.d(TAG, "Could not drain error stream: " + e.getMessage());
+            return false;
+        }
+    }
+}
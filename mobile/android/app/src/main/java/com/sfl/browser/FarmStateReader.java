@@ -0,0 +1,1036 @@
+package com.sfl.browser;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import com.sfl.browser.models.FarmState;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decodes the farm API response straight into a FarmState.
+ *
+ * Hand-written streaming readers read each value into primitive fields of the model as
+ * the tokens arrive, so no JsonObject tree (and none of its LinkedTreeMap nodes or boxed
+ * primitives) is built for the farm. Keys, buildings and fields the extractors do not read are
+ * skipped at token level. A value of an unexpected JSON type is skipped rather than failing
+ * the whole document, matching the per-item try/catch the extractors have always used.
+ *
+ * Usage:
+ *   FarmState farm = FarmStateReader.read(body, plan);      // from the response stream
+ *   FarmState farm = FarmStateReader.fromTree(farmObject);  // from an already parsed farm
+ *
+ * When an extractor starts reading a new farm field, add it to FarmState, FIELDS and
+ * KEY_CATEGORIES below.
+ */
+public class FarmStateReader {
+
+    /**
+     * Decodes one top-level farm key into its FarmState field
+     */
+    private interface FieldReader {
+        void read(JsonReader in, FarmState farm) throws IOException;
+    }
+
+    /**
+     * Decodes one JSON value into a model object. Nothing in the app serialises FarmState
+     * back, so unlike a Gson TypeAdapter there is no write side.
+     */
+    interface ValueReader<T> {
+        T read(JsonReader in) throws IOException;
+    }
+
+    // Buildings the extractors read; every other building type is skipped unread
+    private static final Set<String> BUILDINGS = new HashSet<>();
+
+    static {
+        BUILDINGS.addAll(Arrays.asList(CategoryExtractors.COOKING_BUILDINGS));
+        BUILDINGS.addAll(Arrays.asList(CategoryExtractors.COMPOSTER_BUILDINGS));
+        BUILDINGS.add(CategoryExtractors.CROP_MACHINE);
+    }
+
+    static final ValueReader<FarmState.Planting> PLANTING = new ValueReader<FarmState.Planting>() {
+        @Override
+        public FarmState.Planting read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.Planting planting = new FarmState.Planting();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name":
+                        planting.name = nextString(in);
+                        planting.itemId = GameTables.idOf(planting.name);
+                        break;
+                    case "plantedAt": planting.plantedAt = nextLong(in, 0); break;
+                    case "harvestedAt": planting.harvestedAt = nextLong(in, 0); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return planting;
+        }
+    };
+
+    static final ValueReader<FarmState.Animal> ANIMAL = new ValueReader<FarmState.Animal>() {
+        @Override
+        public FarmState.Animal read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.Animal animal = new FarmState.Animal();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type": animal.type = nextString(in); break;
+                    case "state": animal.state = nextString(in); break;
+                    case "awakeAt": animal.awakeAt = nextLong(in, 0); break;
+                    case "asleepAt": animal.asleepAt = nextLong(in, 0); break;
+                    case "lovedAt": animal.lovedAt = nextLong(in, 0); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return animal;
+        }
+    };
+
+    static final ValueReader<FarmState.LavaPit> LAVA_PIT = new ValueReader<FarmState.LavaPit>() {
+        @Override
+        public FarmState.LavaPit read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.LavaPit pit = new FarmState.LavaPit();
+            while (in.hasNext()) {
+                if ("readyAt".equals(in.nextName())) {
+                    pit.readyAt = nextLong(in, 0);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return pit;
+        }
+    };
+
+    static final ValueReader<FarmState.CraftingItem> CRAFTING_ITEM = new ValueReader<FarmState.CraftingItem>() {
+        @Override
+        public FarmState.CraftingItem read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.CraftingItem item = new FarmState.CraftingItem();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name": item.name = nextString(in); break;
+                    case "readyAt": item.readyAt = nextLong(in, 0); break;
+                    case "amount": item.amount = (int) nextLong(in, 1); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return item;
+        }
+    };
+
+    static final ValueReader<FarmState.QueueItem> QUEUE_ITEM = new ValueReader<FarmState.QueueItem>() {
+        @Override
+        public FarmState.QueueItem read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.QueueItem item = new FarmState.QueueItem();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "crop": item.crop = nextString(in); break;
+                    case "readyAt": item.readyAt = nextLong(in, 0); break;
+                    case "seeds": item.seeds = nextLong(in, 0); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return item;
+        }
+    };
+
+    static final ValueReader<FarmState.Producing> PRODUCING = new ValueReader<FarmState.Producing>() {
+        @Override
+        public FarmState.Producing read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.Producing producing = new FarmState.Producing();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "readyAt": producing.readyAt = nextLong(in, 0); break;
+                    case "items": producing.items = readQuantities(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return producing;
+        }
+    };
+
+    static final ValueReader<FarmState.Building> BUILDING = new ValueReader<FarmState.Building>() {
+        @Override
+        public FarmState.Building read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.Building building = new FarmState.Building();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "crafting": building.crafting = readList(in, CRAFTING_ITEM); break;
+                    case "producing": building.producing = PRODUCING.read(in); break;
+                    case "queue": building.queue = readList(in, QUEUE_ITEM); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return building;
+        }
+    };
+
+    static final ValueReader<FarmState.CraftingBox> CRAFTING_BOX = new ValueReader<FarmState.CraftingBox>() {
+        @Override
+        public FarmState.CraftingBox read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.CraftingBox box = new FarmState.CraftingBox();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "status": box.status = nextString(in); break;
+                    case "readyAt": box.readyAt = nextLong(in, 0); break;
+                    case "item": box.collectible = readStringMember(in, "collectible"); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return box;
+        }
+    };
+
+    static final ValueReader<FarmState.Beehive> BEEHIVE = new ValueReader<FarmState.Beehive>() {
+        @Override
+        public FarmState.Beehive read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.Beehive beehive = new FarmState.Beehive();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "swarm": beehive.swarm = nextBoolean(in); break;
+                    case "honey": readHoney(in, beehive); break;
+                    case "flowers": readBeehiveFlowers(in, beehive); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return beehive;
+        }
+    };
+
+    static final ValueReader<FarmState.Bumpkin> BUMPKIN = new ValueReader<FarmState.Bumpkin>() {
+        @Override
+        public FarmState.Bumpkin read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.Bumpkin bumpkin = new FarmState.Bumpkin();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "previousPowerUseAt": bumpkin.previousPowerUseAt = readTimestamps(in); break;
+                    case "skills": bumpkin.skills = readKeys(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return bumpkin;
+        }
+    };
+
+    static final ValueReader<FarmState.Pet> PET = new ValueReader<FarmState.Pet>() {
+        @Override
+        public FarmState.Pet read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.Pet pet = new FarmState.Pet();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name": pet.name = nextString(in); break;
+                    case "pettedAt": pet.pettedAt = nextLong(in, -1); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return pet;
+        }
+    };
+
+    static final ValueReader<FarmState.Pets> PETS = new ValueReader<FarmState.Pets>() {
+        @Override
+        public FarmState.Pets read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.Pets pets = new FarmState.Pets();
+            while (in.hasNext()) {
+                String category = in.nextName();
+                if ("requestsGeneratedAt".equals(category) || in.peek() != JsonToken.BEGIN_OBJECT) {
+                    in.skipValue();
+                    continue;
+                }
+                List<FarmState.Pet> members = "nfts".equals(category) ? pets.nfts : new ArrayList<>();
+                in.beginObject();
+                while (in.hasNext()) {
+                    String key = in.nextName();
+                    FarmState.Pet pet = PET.read(in);
+                    if (pet != null) {
+                        pet.key = key;
+                        members.add(pet);
+                    }
+                }
+                in.endObject();
+                if (members != pets.nfts) {
+                    pets.categories.put(category, members);
+                }
+            }
+            in.endObject();
+            return pets;
+        }
+    };
+
+    static final ValueReader<FarmState.Listing> LISTING = new ValueReader<FarmState.Listing>() {
+        @Override
+        public FarmState.Listing read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.Listing listing = new FarmState.Listing();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "items": readFirstItem(in, listing); break;
+                    case "sfl": listing.sfl = nextDouble(in); break;
+                    case "fulfilledAt":
+                        listing.fulfilled = in.peek() != JsonToken.NULL;
+                        listing.fulfilledAt = nextLong(in, 0);
+                        break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return listing;
+        }
+    };
+
+    static final ValueReader<FarmState.ScheduleEntry> SCHEDULE_ENTRY = new ValueReader<FarmState.ScheduleEntry>() {
+        @Override
+        public FarmState.ScheduleEntry read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.ScheduleEntry entry = new FarmState.ScheduleEntry();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "startAt": entry.startAt = nextLong(in, 0); break;
+                    case "endAt": entry.endAt = nextLong(in, 0); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return entry;
+        }
+    };
+
+    static final ValueReader<FarmState.ShopEntry> SHOP_ENTRY = new ValueReader<FarmState.ShopEntry>() {
+        @Override
+        public FarmState.ShopEntry read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.ShopEntry entry = new FarmState.ShopEntry();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name": entry.name = nextString(in); break;
+                    case "cost": readLoveCharmCost(in, entry); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return entry;
+        }
+    };
+
+    static final ValueReader<FarmState.FloatingIsland> FLOATING_ISLAND = new ValueReader<FarmState.FloatingIsland>() {
+        @Override
+        public FarmState.FloatingIsland read(JsonReader in) throws IOException {
+            if (!beginObject(in)) {
+                return null;
+            }
+            FarmState.FloatingIsland island = new FarmState.FloatingIsland();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "schedule": island.schedule = readList(in, SCHEDULE_ENTRY); break;
+                    case "shop":
+                        Map<String, FarmState.ShopEntry> shop = readMap(in, SHOP_ENTRY);
+                        island.shop = shop != null ? new ArrayList<>(shop.values()) : null;
+                        break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return island;
+        }
+    };
+
+    // Top-level farm key -> the FarmState field it fills
+    private static final Map<String, FieldReader> FIELDS = new HashMap<>();
+
+    static {
+        FIELDS.put("crops", (in, farm) -> farm.crops = readWrapped(in, "crop"));
+        FIELDS.put("fruitPatches", (in, farm) -> farm.fruitPatches = readWrapped(in, "fruit"));
+        FIELDS.put("greenhouse", (in, farm) -> farm.greenhousePots = readNestedWrapped(in, "pots", "plant"));
+        FIELDS.put("flowers", (in, farm) -> farm.flowerBeds = readNestedWrapped(in, "flowerBeds", "flower"));
+        for (String resourceType : CategoryExtractors.RESOURCE_TYPES) {
+            FIELDS.put(resourceType, (in, farm) -> {
+                Map<String, FarmState.ResourceNode> nodes = readResourceNodes(in, resourceType);
+                if (nodes != null) {
+                    farm.resources.put(resourceType, nodes);
+                }
+            });
+        }
+        FIELDS.put("lavaPits", (in, farm) -> farm.lavaPits = readMap(in, LAVA_PIT));
+        FIELDS.put("henHouse", (in, farm) -> farm.henHouse = readNestedMap(in, "animals", ANIMAL));
+        FIELDS.put("barn", (in, farm) -> farm.barn = readNestedMap(in, "animals", ANIMAL));
+        FIELDS.put("buildings", (in, farm) -> farm.buildings = readBuildings(in));
+        FIELDS.put("craftingBox", (in, farm) -> farm.craftingBox = CRAFTING_BOX.read(in));
+        FIELDS.put("beehives", (in, farm) -> farm.beehives = readMap(in, BEEHIVE));
+        FIELDS.put("bumpkin", (in, farm) -> farm.bumpkin = BUMPKIN.read(in));
+        FIELDS.put("pets", (in, farm) -> farm.pets = PETS.read(in));
+        FIELDS.put("trades", (in, farm) -> farm.listings = readNestedMap(in, "listings", LISTING));
+        FIELDS.put("floatingIsland", (in, farm) -> farm.floatingIsland = FLOATING_ISLAND.read(in));
+    }
+
+    // Notification categories that read each FIELDS key; a key is only decoded if one of them is on
+    private static final Map<String, String[]> KEY_CATEGORIES = new HashMap<>();
+
+    static {
+        KEY_CATEGORIES.put("crops", new String[]{"crops"});
+        KEY_CATEGORIES.put("fruitPatches", new String[]{"fruits"});
+        KEY_CATEGORIES.put("greenhouse", new String[]{"greenhouse_crops"});
+        KEY_CATEGORIES.put("flowers", new String[]{"flowers", "beehive"});   // beehives read flower bed times
+        KEY_CATEGORIES.put("beehives", new String[]{"beehive"});
+        for (String resourceType : CategoryExtractors.RESOURCE_TYPES) {
+            KEY_CATEGORIES.put(resourceType, new String[]{"resource"});
+        }
+        KEY_CATEGORIES.put("sunstones", new String[]{"resource", "sunstones"});
+        KEY_CATEGORIES.put("lavaPits", new String[]{"resource"});
+        KEY_CATEGORIES.put("henHouse", new String[]{"animals", "animal_sick"});
+        KEY_CATEGORIES.put("barn", new String[]{"animals", "animal_sick"});
+        KEY_CATEGORIES.put("pets", new String[]{"pet_sleep"});
+        KEY_CATEGORIES.put("buildings", new String[]{"cooking", "composters", "cropMachine"});
+        KEY_CATEGORIES.put("craftingBox", new String[]{"crafting"});
+        KEY_CATEGORIES.put("trades", new String[]{"marketplace"});
+        KEY_CATEGORIES.put("floatingIsland", new String[]{"floating_island"});
+        KEY_CATEGORIES.put("bumpkin", new String[]{"skill_cooldown"});
+    }
+
+    /**
+     * Whether at least one enabled category reads this top-level farm key
+     */
+    static boolean isKeyWanted(String key, NotificationPlan plan) {
+        String[] categories = KEY_CATEGORIES.get(key);
+        return categories == null || plan.isAnyEnabled(categories);
+    }
+
+    /**
+     * The whole farm object, every known key
+     */
+    static final ValueReader<FarmState> FARM = new ValueReader<FarmState>() {
+        @Override
+        public FarmState read(JsonReader in) throws IOException {
+            return readFarm(in, null);
+        }
+    };
+
+    /**
+     * Decode a farm API response ({"farm": {...}}) as it streams in, fingerprinting each
+     * top-level key into FarmState.fingerprints
+     * @param body Decoded response body
+     * @param plan Enabled categories; keys only disabled categories read are skipped. Null reads all.
+     * @throws JsonParseException if the body is not JSON or has no farm object
+     */
+    public static FarmState read(Reader body, NotificationPlan plan) throws IOException {
+        JsonReader in = new FingerprintingReader(body);
+        try {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new IllegalStateException("Expected a JSON object but was " + in.peek());
+            }
+            FarmState farm = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("farm".equals(in.nextName()) && in.peek() == JsonToken.BEGIN_OBJECT) {
+                    farm = readFarm(in, plan);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            if (farm == null) {
+                throw new JsonParseException("Response has no farm object");
+            }
+            return farm;
+        } catch (MalformedJsonException e) {
+            // Same exception JsonParser would throw, so FetchFailure still classifies it as PARSE
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Decode an already parsed farm object (farm, not the whole response)
+     * @return FarmState, empty if farmObject is null
+     */
+    public static FarmState fromTree(JsonObject farmObject) {
+        if (farmObject == null) {
+            return new FarmState();
+        }
+        return readTree(FARM, farmObject);
+    }
+
+    /**
+     * Decode an already parsed value with one of the readers. Only the JsonObject entry
+     * points of the extractors come through here; the pipeline streams the response.
+     */
+    static <T> T readTree(ValueReader<T> reader, JsonElement tree) {
+        try (JsonReader in = new JsonReader(new StringReader(tree.toString()))) {
+            return reader.read(in);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    private static FarmState readFarm(JsonReader in, NotificationPlan plan) throws IOException {
+        FarmState farm = new FarmState();
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            FieldReader field = FIELDS.get(key);
+            if (field == null || (plan != null && !isKeyWanted(key, plan))) {
+                in.skipValue();
+                continue;
+            }
+            if (in instanceof FingerprintingReader) {
+                FingerprintingReader fingerprinting = (FingerprintingReader) in;
+                fingerprinting.reset();
+                field.read(in, farm);
+                farm.fingerprints.put(key, fingerprinting.fingerprint());
+            } else {
+                field.read(in, farm);
+            }
+        }
+        in.endObject();
+        return farm;
+    }
+
+    /**
+     * JsonReader that hashes every token it hands out, so equal fingerprints mean the
+     * adapters consumed equal values. Skipped values are not hashed: FarmState never sees them.
+     */
+    private static final class FingerprintingReader extends JsonReader {
+        private static final long BEGIN_OBJECT = 1, END_OBJECT = 2, BEGIN_ARRAY = 3, END_ARRAY = 4;
+        private static final long NAME = 5, STRING = 6, NUMBER = 7, BOOLEAN = 8, NULL = 9;
+
+        private long hash;
+
+        FingerprintingReader(Reader in) {
+            super(in);
+        }
+
+        void reset() {
+            hash = 0;
+        }
+
+        long fingerprint() {
+            return hash;
+        }
+
+        private void mix(long value) {
+            // 64-bit multiply-xorshift; order-sensitive, so moved tokens change the hash too
+            hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+
+        private void mix(long tag, String value) {
+            long h = 0xCBF29CE484222325L;  // FNV-1a over the chars, no copy of the string
+            for (int i = 0; i < value.length(); i++) {
+                h = (h ^ value.charAt(i)) * 0x100000001B3L;
+            }
+            mix(tag);
+            mix(h ^ value.length());
+        }
+
+        @Override
+        public void beginObject() throws IOException {
+            super.beginObject();
+            mix(BEGIN_OBJECT);
+        }
+
+        @Override
+        public void endObject() throws IOException {
+            super.endObject();
+            mix(END_OBJECT);
+        }
+
+        @Override
+        public void beginArray() throws IOException {
+            super.beginArray();
+            mix(BEGIN_ARRAY);
+        }
+
+        @Override
+        public void endArray() throws IOException {
+            super.endArray();
+            mix(END_ARRAY);
+        }
+
+        @Override
+        public String nextName() throws IOException {
+            String name = super.nextName();
+            mix(NAME, name);
+            return name;
+        }
+
+        @Override
+        public String nextString() throws IOException {
+            String value = super.nextString();
+            mix(STRING, value);
+            return value;
+        }
+
+        @Override
+        public long nextLong() throws IOException {
+            long value = super.nextLong();
+            mix(NUMBER);
+            mix(value);
+            return value;
+        }
+
+        @Override
+        public int nextInt() throws IOException {
+            int value = super.nextInt();
+            mix(NUMBER);
+            mix(value);
+            return value;
+        }
+
+        @Override
+        public double nextDouble() throws IOException {
+            double value = super.nextDouble();
+            mix(NUMBER);
+            mix(Double.doubleToLongBits(value));
+            return value;
+        }
+
+        @Override
+        public boolean nextBoolean() throws IOException {
+            boolean value = super.nextBoolean();
+            mix(BOOLEAN);
+            mix(value ? 1 : 0);
+            return value;
+        }
+
+        @Override
+        public void nextNull() throws IOException {
+            super.nextNull();
+            mix(NULL);
+        }
+    }
+
+    /**
+     * {id: {wrapper: planting}} as id -> planting; entries without the wrapper are left out
+     */
+    private static Map<String, FarmState.Planting> readWrapped(JsonReader in, String wrapper) throws IOException {
+        if (!beginObject(in)) {
+            return null;
+        }
+        Map<String, FarmState.Planting> plantings = new LinkedHashMap<>();
+        while (in.hasNext()) {
+            String id = in.nextName();
+            if (!beginObject(in)) {
+                continue;
+            }
+            while (in.hasNext()) {
+                if (wrapper.equals(in.nextName())) {
+                    FarmState.Planting planting = PLANTING.read(in);
+                    if (planting != null) {
+                        plantings.put(id, planting);
+                    }
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        in.endObject();
+        return plantings;
+    }
+
+    /**
+     * {container: {id: {wrapper: planting}}}, e.g. greenhouse.pots and flowers.flowerBeds
+     */
+    private static Map<String, FarmState.Planting> readNestedWrapped(JsonReader in, String container, String wrapper)
+            throws IOException {
+        if (!beginObject(in)) {
+            return null;
+        }
+        Map<String, FarmState.Planting> plantings = null;
+        while (in.hasNext()) {
+            if (container.equals(in.nextName())) {
+                plantings = readWrapped(in, wrapper);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return plantings;
+    }
+
+    /**
+     * {id: {wood|oil|stone: {choppedAt|drilledAt|minedAt}}} for one of CategoryExtractors.RESOURCE_TYPES
+     */
+    private static Map<String, FarmState.ResourceNode> readResourceNodes(JsonReader in, String resourceType)
+            throws IOException {
+        if (!beginObject(in)) {
+            return null;
+        }
+        String harvestField = CategoryExtractors.harvestFieldFor(resourceType);
+        String timestampField = CategoryExtractors.harvestTimestampFieldFor(resourceType);
+        Map<String, FarmState.ResourceNode> nodes = new LinkedHashMap<>();
+        while (in.hasNext()) {
+            String id = in.nextName();
+            if (!beginObject(in)) {
+                continue;
+            }
+            FarmState.ResourceNode node = new FarmState.ResourceNode();
+            while (in.hasNext()) {
+                if (harvestField.equals(in.nextName()) && beginObject(in)) {
+                    while (in.hasNext()) {
+                        if (timestampField.equals(in.nextName())) {
+                            node.harvestedAt = nextLong(in, 0);
+                        } else {
+                            in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            nodes.put(id, node);
+        }
+        in.endObject();
+        return nodes;
+    }
+
+    /**
+     * farm.buildings: name -> instances, for the building types in BUILDINGS only
+     */
+    private static Map<String, List<FarmState.Building>> readBuildings(JsonReader in) throws IOException {
+        if (!beginObject(in)) {
+            return null;
+        }
+        Map<String, List<FarmState.Building>> buildings = new HashMap<>();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (!BUILDINGS.contains(name)) {
+                in.skipValue();
+                continue;
+            }
+            List<FarmState.Building> instances = readList(in, BUILDING);
+            if (instances != null) {
+                buildings.put(name, instances);
+            }
+        }
+        in.endObject();
+        return buildings;
+    }
+
+    private static void readHoney(JsonReader in, FarmState.Beehive beehive) throws IOException {
+        if (!beginObject(in)) {
+            return;
+        }
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "updatedAt": beehive.honeyUpdatedAt = nextLong(in, 0); break;
+                case "produced": beehive.honeyProduced = nextDouble(in); break;
+                default: in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    /**
+     * Counts the attached flowers and keeps the first one's bed id and rate
+     */
+    private static void readBeehiveFlowers(JsonReader in, FarmState.Beehive beehive) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return;
+        }
+        in.beginArray();
+        while (in.hasNext()) {
+            if (beehive.flowerCount++ > 0) {
+                in.skipValue();
+                continue;
+            }
+            if (!beginObject(in)) {
+                continue;
+            }
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": beehive.firstFlowerId = nextString(in); break;
+                    case "rate": beehive.firstFlowerRate = nextDouble(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        in.endArray();
+    }
+
+    /**
+     * trades listing items: keeps only the first (usually only) item and its amount
+     */
+    private static void readFirstItem(JsonReader in, FarmState.Listing listing) throws IOException {
+        if (!beginObject(in)) {
+            return;
+        }
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (listing.itemName == null) {
+                listing.itemName = name;
+                listing.amount = nextLong(in, 0);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    /**
+     * shop item cost: {items: {"Love Charm": n}}
+     */
+    private static void readLoveCharmCost(JsonReader in, FarmState.ShopEntry entry) throws IOException {
+        if (!beginObject(in)) {
+            return;
+        }
+        while (in.hasNext()) {
+            if ("items".equals(in.nextName()) && beginObject(in)) {
+                while (in.hasNext()) {
+                    if ("Love Charm".equals(in.nextName())) {
+                        entry.loveCharmCost = nextLong(in, 0);
+                    } else {
+                        in.skipValue();
+                    }
+                }
+                in.endObject();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    /**
+     * {container: {id: value}} as id -> value
+     */
+    private static <T> Map<String, T> readNestedMap(JsonReader in, String container, ValueReader<T> adapter)
+            throws IOException {
+        if (!beginObject(in)) {
+            return null;
+        }
+        Map<String, T> values = null;
+        while (in.hasNext()) {
+            if (container.equals(in.nextName())) {
+                values = readMap(in, adapter);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return values;
+    }
+
+    /**
+     * {id: value} in key order; values the adapter rejects are left out
+     */
+    private static <T> Map<String, T> readMap(JsonReader in, ValueReader<T> adapter) throws IOException {
+        if (!beginObject(in)) {
+            return null;
+        }
+        Map<String, T> values = new LinkedHashMap<>();
+        while (in.hasNext()) {
+            String id = in.nextName();
+            T value = adapter.read(in);
+            if (value != null) {
+                values.put(id, value);
+            }
+        }
+        in.endObject();
+        return values;
+    }
+
+    private static <T> List<T> readList(JsonReader in, ValueReader<T> adapter) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+        List<T> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            T value = adapter.read(in);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static Map<String, Integer> readQuantities(JsonReader in) throws IOException {
+        if (!beginObject(in)) {
+            return null;
+        }
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            quantities.put(name, (int) nextLong(in, 0));
+        }
+        in.endObject();
+        return quantities;
+    }
+
+    private static Map<String, Long> readTimestamps(JsonReader in) throws IOException {
+        if (!beginObject(in)) {
+            return null;
+        }
+        Map<String, Long> timestamps = new LinkedHashMap<>();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            timestamps.put(name, nextLong(in, 0));
+        }
+        in.endObject();
+        return timestamps;
+    }
+
+    private static Set<String> readKeys(JsonReader in) throws IOException {
+        if (!beginObject(in)) {
+            return null;
+        }
+        Set<String> keys = new HashSet<>();
+        while (in.hasNext()) {
+            keys.add(in.nextName());
+            in.skipValue();
+        }
+        in.endObject();
+        return keys;
+    }
+
+    private static String readStringMember(JsonReader in, String member) throws IOException {
+        if (!beginObject(in)) {
+            return null;
+        }
+        String value = null;
+        while (in.hasNext()) {
+            if (member.equals(in.nextName())) {
+                value = nextString(in);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return value;
+    }
+
+    /**
+     * Enter an object, or skip the value if it is anything else
+     * @return true if positioned inside an object
+     */
+    private static boolean beginObject(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.BEGIN_OBJECT) {
+            in.beginObject();
+            return true;
+        }
+        in.skipValue();
+        return false;
+    }
+
+    private static long nextLong(JsonReader in, long defaultValue) throws IOException {
+        JsonToken token = in.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            in.skipValue();
+            return defaultValue;
+        }
+        try {
+            return in.nextLong();
+        } catch (NumberFormatException e) {
+            // Fractional or non-numeric; the token is still buffered
+            try {
+                return (long) in.nextDouble();
+            } catch (NumberFormatException notANumber) {
+                in.skipValue();
+                return defaultValue;
+            }
+        }
+    }
+
+    private static double nextDouble(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            in.skipValue();
+            return 0;
+        }
+        try {
+            return in.nextDouble();
+        } catch (NumberFormatException e) {
+            in.skipValue();
+            return 0;
+        }
+    }
+
+    private static boolean nextBoolean(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.BOOLEAN) {
+            return in.nextBoolean();
+        }
+        in.skipValue();
+        return false;
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return in.nextString();
+        }
+        in.skipValue();
+        return null;
+    }
+}
@@ -0,0 +1,149 @@
+package com.sfl.browser;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+/**
+ * Shared circuit breaker and retry budget for the farm API.
+ *
+ * State lives in SharedPreferences, so every staggered worker and the immediate worker (all
+ * in the app process) see the same view, however many instances they create. Updates are
+ * read-modify-write, so they all hold the one static LOCK. SharedPreferences is not shared
+ * between processes: the legacy NotificationManagerService, in its own :notifications
+ * process, keeps a separate copy of this state.
+ *
+ * - After FAILURE_THRESHOLD consecutive retryable failures the circuit opens and polls are
+ *   held back with exponential backoff (capped at MAX_OPEN_MS).
+ * - A 429 / 503 opens it immediately for at least the server's Retry-After.
+ * - Parse errors and 4xx never open it (the network is fine) and are never retried.
+ * - WorkManager retries draw from a budget of RETRY_BUDGET per RETRY_WINDOW_MS, so an outage
+ *   can't turn into a retry storm across all staggered workers.
+ */
+public class FetchCircuitBreaker {
+    private static final String TAG = "FetchCircuitBreaker";
+    private static final String PREFS_NAME = "fetch_circuit_breaker";
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long BASE_OPEN_MS = 60 * 1000;            // 1 minute
+    private static final long MAX_OPEN_MS = 30 * 60 * 1000;        // 30 minutes
+    private static final long DEFAULT_BACKPRESSURE_MS = 5 * 60 * 1000;
+    private static final int RETRY_BUDGET = 6;
+    private static final long RETRY_WINDOW_MS = 60 * 60 * 1000;    // 1 hour
+
+    private static final String KEY_FAILURES = "consecutive_failures";
+    private static final String KEY_OPEN_UNTIL = "open_until";
+    private static final String KEY_LAST_FAILURE = "last_failure";
+    private static final String KEY_RETRY_WINDOW_START = "retry_window_start";
+    private static final String KEY_RETRIES_USED = "retries_used";
+
+    // Every instance reads and writes the same preferences
+    private static final Object LOCK = new Object();
+
+    private final SharedPreferences prefs;
+
+    public FetchCircuitBreaker(Context context) {
+        this(context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+    }
+
+    FetchCircuitBreaker(SharedPreferences prefs) {
+        this.prefs = prefs;
+    }
+
+    /**
+     * Check before touching the network
+     * @return true if the circuit is closed (or half-open after its cool-down)
+     */
+    public boolean allowRequest() {
+        synchronized (LOCK) {
+            long openUntil = prefs.getLong(KEY_OPEN_UNTIL, 0);
+            if (System.currentTimeMillis() < openUntil) {
+                Log.d(TAG, "Circuit open for another " + ((openUntil - System.currentTimeMillis()) / 1000) + "s");
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * When the circuit will let requests through again (0 if closed)
+     */
+    public long getOpenUntil() {
+        return prefs.getLong(KEY_OPEN_UNTIL, 0);
+    }
+
+    public void recordSuccess() {
+        synchronized (LOCK) {
+            if (prefs.getInt(KEY_FAILURES, 0) != 0 || prefs.getLong(KEY_OPEN_UNTIL, 0) != 0) {
+                Log.d(TAG, "Fetch succeeded - closing circuit");
+            }
+            prefs.edit()
+                    .putInt(KEY_FAILURES, 0)
+                    .putLong(KEY_OPEN_UNTIL, 0)
+                    .apply();
+        }
+    }
+
+    public void recordFailure(FetchFailure failure) {
+        synchronized (LOCK) {
+            long now = System.currentTimeMillis();
+            SharedPreferences.Editor editor = prefs.edit().putString(KEY_LAST_FAILURE, failure.toString());
+
+            if (failure.isBackpressure()) {
+                // Server asked us to slow down: push the next poll back for every worker
+                long delay = failure.retryAfterMs > 0 ? failure.retryAfterMs : DEFAULT_BACKPRESSURE_MS;
+                long openUntil = Math.max(prefs.getLong(KEY_OPEN_UNTIL, 0), now + Math.min(delay, MAX_OPEN_MS));
+                editor.putLong(KEY_OPEN_UNTIL, openUntil);
+                Log.w(TAG, "Backpressure (" + failure + ") - holding polls for " + ((openUntil - now) / 1000) + "s");
+            } else if (failure.isRetryable()) {
+                int failures = prefs.getInt(KEY_FAILURES, 0) + 1;
+                editor.putInt(KEY_FAILURES, failures);
+                if (failures >= FAILURE_THRESHOLD) {
+                    int exponent = Math.min(failures - FAILURE_THRESHOLD, 10);
+                    long openFor = Math.min(BASE_OPEN_MS << exponent, MAX_OPEN_MS);
+                    editor.putLong(KEY_OPEN_UNTIL, now + openFor);
+                    Log.w(TAG, failures + " consecutive failures - circuit open for " + (openFor / 1000) + "s");
+                }
+            }
+            // Parse / client errors leave the network state alone
+            editor.apply();
+        }
+    }
+
+    /**
+     * Take one retry from the shared budget
+     * @return true if the caller may ask WorkManager to retry
+     */
+    public boolean tryConsumeRetry() {
+        synchronized (LOCK) {
+            long now = System.currentTimeMillis();
+            long windowStart = prefs.getLong(KEY_RETRY_WINDOW_START, 0);
+            int used = prefs.getInt(KEY_RETRIES_USED, 0);
+            if (now - windowStart > RETRY_WINDOW_MS || now < windowStart) {
+                windowStart = now;
+                used = 0;
+            }
+            if (used >= RETRY_BUDGET) {
+                Log.w(TAG, "Retry budget exhausted (" + RETRY_BUDGET + " per hour) - waiting for next scheduled poll");
+                return false;
+            }
+            prefs.edit()
+                    .putLong(KEY_RETRY_WINDOW_START, windowStart)
+                    .putInt(KEY_RETRIES_USED, used + 1)
+                    .apply();
+            return true;
+        }
+    }
+
+    /**
+     * Human-readable state for the Diagnostics screen
+     */
+    public String getSummary() {
+        long openUntil = prefs.getLong(KEY_OPEN_UNTIL, 0);
+        long now = System.currentTimeMillis();
+        return "  state: " + (now < openUntil ? "OPEN (" + ((openUntil - now) / 1000) + "s left)" : "closed") + "\n"
+                + "  consecutive failures: " + prefs.getInt(KEY_FAILURES, 0) + "\n"
+                + "  retries used this hour: " + prefs.getInt(KEY_RETRIES_USED, 0) + "/" + RETRY_BUDGET + "\n"
+                + "  last failure: " + prefs.getString(KEY_LAST_FAILURE, "none") + "\n";
+    }
+}
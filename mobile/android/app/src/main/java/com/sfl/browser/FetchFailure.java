@@ -0,0 +1,123 @@
+package com.sfl.browser;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
+
+import java.io.EOFException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+/**
+ * Why a farm fetch failed. Replaces matching "API call failed" in exception messages:
+ * workers and the circuit breaker decide what to do from the kind, status and Retry-After.
+ */
+public class FetchFailure {
+    public enum Kind {
+        RATE_LIMITED,        // 429
+        SERVER_UNAVAILABLE,  // 503
+        SERVER_ERROR,        // other 5xx
+        CLIENT_ERROR,        // 4xx other than 429 (bad farm ID / API key) - retrying won't help
+        TIMEOUT,
+        DNS,
+        CONNECT,
+        IO,
+        PARSE,               // body arrived but was not a farm document
+        CIRCUIT_OPEN         // not attempted: the shared breaker is holding polls back
+    }
+
+    public final Kind kind;
+    public final int httpStatus;      // -1 when no HTTP response was received
+    public final long retryAfterMs;   // from Retry-After, -1 if absent
+    public final String message;
+
+    public FetchFailure(Kind kind, int httpStatus, long retryAfterMs, String message) {
+        this.kind = kind;
+        this.httpStatus = httpStatus;
+        this.retryAfterMs = retryAfterMs;
+        this.message = message;
+    }
+
+    /**
+     * Map an HTTP error status to a failure
+     */
+    public static FetchFailure fromStatus(int status, long retryAfterMs) {
+        Kind kind;
+        if (status == 429) {
+            kind = Kind.RATE_LIMITED;
+        } else if (status == 503) {
+            kind = Kind.SERVER_UNAVAILABLE;
+        } else if (status >= 500) {
+            kind = Kind.SERVER_ERROR;
+        } else {
+            kind = Kind.CLIENT_ERROR;
+        }
+        return new FetchFailure(kind, status, retryAfterMs, "HTTP " + status);
+    }
+
+    /**
+     * Map an exception thrown while connecting, reading or parsing to a failure
+     */
+    public static FetchFailure fromException(Exception e) {
+        Kind kind;
+        if (e instanceof UnknownHostException) {
+            kind = Kind.DNS;
+        } else if (e instanceof SocketTimeoutException) {
+            kind = Kind.TIMEOUT;
+        } else if (e instanceof ConnectException || e instanceof NoRouteToHostException) {
+            kind = Kind.CONNECT;
+        } else if (e instanceof JsonIOException && e.getCause() instanceof Exception) {
+            // Socket error surfaced through the streaming parser: classify the real cause
+            return fromException((Exception) e.getCause());
+        } else if (e instanceof JsonParseException || e instanceof IllegalStateException) {
+            // A body cut off mid-document is a transfer problem; anything else is bad data
+            kind = e.getCause() instanceof EOFException ? Kind.IO : Kind.PARSE;
+        } else {
+            kind = Kind.IO;
+        }
+        return new FetchFailure(kind, -1, -1, e.getClass().getSimpleName() + ": " + e.getMessage());
+    }
+
+    /**
+     * Whether trying the same request again soon can succeed
+     */
+    public boolean isRetryable() {
+        switch (kind) {
+            case CLIENT_ERROR:
+            case PARSE:
+            case CIRCUIT_OPEN:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Whether the farm could not be reached, as opposed to being refused (bad farm ID or API
+     * key) or malformed: only then is the last good snapshot still the right data to use
+     */
+    public boolean isUnavailable() {
+        switch (kind) {
+            case CLIENT_ERROR:
+            case PARSE:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Whether the server asked everyone to back off (429 / 503)
+     */
+    public boolean isBackpressure() {
+        return kind == Kind.RATE_LIMITED || kind == Kind.SERVER_UNAVAILABLE;
+    }
+
+    @Override
+    public String toString() {
+        return kind + (httpStatus > 0 ? " (" + httpStatus + ")" : "")
+                + (retryAfterMs >= 0 ? " retry-after " + (retryAfterMs / 1000) + "s" : "")
+                + (message != null ? " - " + message : "");
+    }
+}
@@ -4,19 +4,15 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.util.Log;
 import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonArray;
 import com.sfl.browser.models.FarmItem;
+import com.sfl.browser.models.FarmState;
 import androidx.preference.PreferenceManager;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Extracts floating island schedule and shop data for notifications
@@ -56,16 +52,16 @@ public class FloatingIslandExtractor {
     /**
      * Main extraction method - returns list of FarmItems for notifications
      */
-    public List<FarmItem> extractFloatingIslandNotifications(JsonObject farmData) {
+    public List<FarmItem> extractFloatingIslandNotifications(FarmState farm) {
         List<FarmItem> items = new ArrayList<>();
 
-        if (farmData == null || !farmData.has("floatingIsland")) {
+        if (farm == null || farm.floatingIsland == null) {
             DebugLog.log("🏝️ Floating Island: No floatingIsland data found in farm response");
             return items;
         }
 
         try {
-            JsonObject floatingIsland = farmData.getAsJsonObject("floatingIsland");
+            FarmState.FloatingIsland floatingIsland = farm.floatingIsland;
             long currentTime = System.currentTimeMillis();
             DebugLog.log("🏝️ Floating Island: Processing floating island notifications (currentTime: " + currentTime + ")");
 
@@ -89,23 +85,23 @@ public class FloatingIslandExtractor {
     /**
      * Extract schedule entries and create notifications for startAt times
      */
-    private List<FarmItem> extractScheduleNotifications(JsonObject floatingIsland, long currentTime) {
+    private List<FarmItem> extractScheduleNotifications(FarmState.FloatingIsland floatingIsland, long currentTime) {
         List<FarmItem> items = new ArrayList<>();
 
         try {
-            if (!floatingIsland.has("schedule")) {
+            if (floatingIsland.schedule == null) {
                 DebugLog.log("🏝️ Floating Island: No schedule found in floatingIsland data");
                 return items;
             }
 
-            JsonArray schedule = floatingIsland.getAsJsonArray("schedule");
+            List<FarmState.ScheduleEntry> schedule = floatingIsland.schedule;
             DebugLog.log("🏝️ Floating Island: Processing " + schedule.size() + " schedule entries (currentTime: " + currentTime + ")");
 
             for (int i = 0; i < schedule.size(); i++) {
-                JsonObject entry = schedule.get(i).getAsJsonObject();
+                FarmState.ScheduleEntry entry = schedule.get(i);
 
-                long startAt = entry.get("startAt").getAsLong();
-                long endAt = entry.get("endAt").getAsLong();
+                long startAt = entry.startAt;
+                long endAt = entry.endAt;
 
                 DebugLog.log("🏝️ Floating Island: Schedule entry " + (i+1) + ": startAt=" + formatTimestamp(startAt) + 
                       " (" + startAt + "), endAt=" + formatTimestamp(endAt) + ", currentTime=" + currentTime);
@@ -133,33 +129,25 @@ public class FloatingIslandExtractor {
     /**
      * Extract shop items and detect changes
      */
-    private List<FarmItem> extractShopChangeNotifications(JsonObject floatingIsland, long currentTime) {
+    private List<FarmItem> extractShopChangeNotifications(FarmState.FloatingIsland floatingIsland, long currentTime) {
         List<FarmItem> items = new ArrayList<>();
 
         try {
-            if (!floatingIsland.has("shop")) {
+            if (floatingIsland.shop == null) {
                 DebugLog.log("🏝️ Floating Island: No shop found");
                 return items;
             }
 
-            JsonObject shop = floatingIsland.getAsJsonObject("shop");
             List<ShopItem> currentItems = new ArrayList<>();
 
             // Parse current shop items
-            for (String key : shop.keySet()) {
-                JsonObject itemData = shop.getAsJsonObject(key);
-                String itemName = itemData.get("name").getAsString();
-                
-                long loveCost = 0;
-                if (itemData.has("cost")) {
-                    JsonObject cost = itemData.getAsJsonObject("cost");
-                    if (cost.has("items")) {
-                        JsonObject items_obj = cost.getAsJsonObject("items");
-                        if (items_obj.has("Love Charm")) {
-                            loveCost = items_obj.get("Love Charm").getAsLong();
-                        }
-                    }
+            for (FarmState.ShopEntry itemData : floatingIsland.shop) {
+                String itemName = itemData.name;
+                if (itemName == null) {
+                    continue;
                 }
+                
+                long loveCost = itemData.loveCharmCost;
 
                 currentItems.add(new ShopItem(itemName, loveCost));
                 DebugLog.log("🏝️ Floating Island: Found shop item: " + itemName + " - " + loveCost + " Love Charm");
@@ -287,11 +275,6 @@ public class FloatingIslandExtractor {
      * Format timestamp as human-readable string
      */
     private String formatTimestamp(long timestamp) {
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-            return sdf.format(new Date(timestamp));
-        } catch (Exception e) {
-            return String.valueOf(timestamp);
-        }
+        return TimeUtils.formatDateTime(timestamp);
     }
 }
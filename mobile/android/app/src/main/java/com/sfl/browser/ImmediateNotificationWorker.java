@@ -29,6 +29,7 @@ public class ImmediateNotificationWorker extends Worker {
     public Result doWork() {
         // Ensure DebugLog is initialized in this worker process
         DebugLog.init(getApplicationContext());
+        NetworkMetrics.init(getApplicationContext());
         
         Log.d(TAG, "=== IMMEDIATE Execution - One-Time Farm Data Processing ===");
         DebugLog.log("=== IMMEDIATE Execution - One-Time Farm Data Processing ===");
@@ -44,22 +45,27 @@ public class ImmediateNotificationWorker extends Worker {
             DebugLog.flush(getApplicationContext());
             
             return Result.success();
-        } catch (RuntimeException e) {
-            // API failure - retry instead of failing
-            if (e.getMessage() != null && e.getMessage().contains("API call failed")) {
-                Log.w(TAG, "⚠️  IMMEDIATE execution - API call failed, will retry...");
-                DebugLog.log("⚠️  IMMEDIATE execution - API call failed, will retry...");
+        } catch (FarmFetchException e) {
+            FetchFailure failure = e.getFailure();
+            // Retry transient network failures (even though this is one-time) while the shared
+            // budget lasts; backpressure, parse and 4xx errors are left to the periodic workers
+            if (failure.isRetryable() && !failure.isBackpressure()
+                    && new FetchCircuitBreaker(getApplicationContext()).tryConsumeRetry()) {
+                Log.w(TAG, "⚠️  IMMEDIATE execution - API call failed (" + failure + "), will retry...");
+                DebugLog.log("⚠️  IMMEDIATE execution - API call failed (" + failure + "), will retry...");
                 DebugLog.flush(getApplicationContext());
-                
-                // Retry on API failure (even though this is one-time)
                 return Result.retry();
-            } else {
-                // Other runtime exceptions = actual errors, don't retry
-                Log.e(TAG, "❌ IMMEDIATE execution error: " + e.getMessage(), e);
-                DebugLog.error("❌ IMMEDIATE execution error", e);
-                DebugLog.flush(getApplicationContext());
-                return Result.failure();
             }
+            Log.w(TAG, "❌ IMMEDIATE execution - API call failed (" + failure + "), not retrying");
+            DebugLog.log("❌ IMMEDIATE execution - API call failed (" + failure + "), not retrying");
+            DebugLog.flush(getApplicationContext());
+            return Result.failure();
+        } catch (RuntimeException e) {
+            // Other runtime exceptions = actual errors, don't retry
+            Log.e(TAG, "❌ IMMEDIATE execution error: " + e.getMessage(), e);
+            DebugLog.error("❌ IMMEDIATE execution error", e);
+            DebugLog.flush(getApplicationContext());
+            return Result.failure();
         } catch (Exception e) {
             Log.e(TAG, "❌ IMMEDIATE execution error: " + e.getMessage(), e);
             DebugLog.error("❌ IMMEDIATE execution error", e);
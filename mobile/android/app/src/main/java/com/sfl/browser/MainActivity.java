@@ -449,6 +449,7 @@ public class MainActivity extends BridgeActivity {
         
         // Initialize debug log system
         DebugLog.init(this);
+        NetworkMetrics.init(this);
         
         Log.i("NOTIFICATION_DEBUG", "=== Sunflower Land App Starting ===");
         Log.i("NOTIFICATION_DEBUG", "Process ID: " + android.os.Process.myPid());
@@ -5,6 +5,7 @@ import android.util.Log;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
+import com.sfl.browser.models.FarmState;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
@@ -32,21 +33,32 @@ public class MarketplaceListingsExtractor {
     private static final String SNAPSHOT_FILE = "marketplace_listings_snapshot.json";
     
     private Context context;
+    private final String snapshotFile;
     
     public MarketplaceListingsExtractor(Context context) {
         this.context = context;
+        this.snapshotFile = SNAPSHOT_FILE;
+    }
+    
+    /**
+     * Extractor with its own snapshot for one of several polled farms, so their listings
+     * don't overwrite each other's
+     */
+    public MarketplaceListingsExtractor(Context context, String farmId) {
+        this.context = context;
+        this.snapshotFile = "marketplace_listings_snapshot_" + farmId.replaceAll("[^A-Za-z0-9_-]", "_") + ".json";
     }
     
     /**
      * Main entry point: detect newly-sold listings
      */
-    public List<SoldListing> extractSoldListings(JsonObject farmObject) {
+    public List<SoldListing> extractSoldListings(FarmState farm) {
         List<SoldListing> soldListings = new ArrayList<>();
         
         try {
-            // Get current listings
-            JsonObject currentListings = getCurrentListings(farmObject);
-            if (currentListings == null || currentListings.entrySet().isEmpty()) {
+            // Get current listings (farm.trades.listings)
+            Map<String, FarmState.Listing> currentListings = farm != null ? farm.listings : null;
+            if (currentListings == null || currentListings.isEmpty()) {
                 Log.d(TAG, "No current listings found");
                 return soldListings;
             }
@@ -55,11 +67,12 @@ public class MarketplaceListingsExtractor {
             Map<String, Boolean> previousSnapshot = loadSnapshot();
             
             // Compare and detect newly-sold listings
-            for (String listingId : currentListings.keySet()) {
+            for (Map.Entry<String, FarmState.Listing> entry : currentListings.entrySet()) {
+                String listingId = entry.getKey();
                 try {
-                    JsonObject listing = currentListings.getAsJsonObject(listingId);
+                    FarmState.Listing listing = entry.getValue();
                     
-                    boolean currentlyFulfilled = listing.has("fulfilledAt") && !listing.get("fulfilledAt").isJsonNull();
+                    boolean currentlyFulfilled = listing.fulfilled;
                     boolean previouslyFulfilled = previousSnapshot.getOrDefault(listingId, false);
                     
                     // Detect state change: was NOT fulfilled before, NOW is fulfilled
@@ -89,57 +102,18 @@ public class MarketplaceListingsExtractor {
         return soldListings;
     }
     
-    /**
-     * Get the listings section from farm object
-     */
-    private JsonObject getCurrentListings(JsonObject farmObject) {
-        try {
-            if (!farmObject.has("trades")) {
-                return null;
-            }
-            
-            JsonObject trades = farmObject.getAsJsonObject("trades");
-            if (!trades.has("listings")) {
-                return null;
-            }
-            
-            return trades.getAsJsonObject("listings");
-        } catch (Exception e) {
-            Log.e(TAG, "Error getting current listings: " + e.getMessage());
-            return null;
-        }
-    }
-    
     /**
      * Parse a sold listing into SoldListing object
      */
-    private SoldListing parseSoldListing(String listingId, JsonObject listing) {
+    private SoldListing parseSoldListing(String listingId, FarmState.Listing listing) {
         try {
-            // Extract item name and amount
-            String itemName = "Unknown";
-            long amount = 0;
-            
-            if (listing.has("items")) {
-                JsonObject items = listing.getAsJsonObject("items");
-                if (!items.entrySet().isEmpty()) {
-                    // Get first (usually only) item
-                    String firstItemKey = items.keySet().iterator().next();
-                    itemName = firstItemKey;
-                    amount = items.get(firstItemKey).getAsLong();
-                }
-            }
-            
-            // Extract SFL price
-            double sfl = 0;
-            if (listing.has("sfl")) {
-                sfl = listing.get("sfl").getAsDouble();
-            }
+            // Item name and amount of the first (usually only) item
+            String itemName = listing.itemName != null ? listing.itemName : "Unknown";
+            long amount = listing.amount;
             
-            // Extract fulfilled timestamp
-            long fulfilledAt = 0;
-            if (listing.has("fulfilledAt")) {
-                fulfilledAt = listing.get("fulfilledAt").getAsLong();
-            }
+            // SFL price and fulfilled timestamp
+            double sfl = listing.sfl;
+            long fulfilledAt = listing.fulfilledAt;
             
             SoldListing sold = new SoldListing(listingId, itemName, amount, sfl, fulfilledAt);
             Log.d(TAG, "Parsed sold listing: " + amount + " " + itemName + " for " + sfl + " SFL (ID: " + listingId + ")");
@@ -160,7 +134,7 @@ public class MarketplaceListingsExtractor {
         Map<String, Boolean> snapshot = new HashMap<>();
         
         try {
-            File file = new File(context.getFilesDir(), SNAPSHOT_FILE);
+            File file = new File(context.getFilesDir(), snapshotFile);
             if (!file.exists()) {
                 Log.d(TAG, "Snapshot file doesn't exist yet (first run)");
                 return snapshot;
@@ -193,17 +167,11 @@ public class MarketplaceListingsExtractor {
      * Create snapshot of current state
      * Map<listingId, isFulfilled>
      */
-    private Map<String, Boolean> createSnapshot(JsonObject currentListings) {
+    private Map<String, Boolean> createSnapshot(Map<String, FarmState.Listing> currentListings) {
         Map<String, Boolean> snapshot = new HashMap<>();
         
-        for (String listingId : currentListings.keySet()) {
-            try {
-                JsonObject listing = currentListings.getAsJsonObject(listingId);
-                boolean isFulfilled = listing.has("fulfilledAt") && !listing.get("fulfilledAt").isJsonNull();
-                snapshot.put(listingId, isFulfilled);
-            } catch (Exception e) {
-                Log.w(TAG, "Error creating snapshot for " + listingId + ": " + e.getMessage());
-            }
+        for (Map.Entry<String, FarmState.Listing> listing : currentListings.entrySet()) {
+            snapshot.put(listing.getKey(), listing.getValue().fulfilled);
         }
         
         return snapshot;
@@ -214,7 +182,7 @@ public class MarketplaceListingsExtractor {
      */
     private void saveSnapshot(Map<String, Boolean> snapshot) {
         try {
-            File file = new File(context.getFilesDir(), SNAPSHOT_FILE);
+            File file = new File(context.getFilesDir(), snapshotFile);
             
             JsonObject snapshotObj = new JsonObject();
             for (String listingId : snapshot.keySet()) {
@@ -0,0 +1,338 @@
+package com.sfl.browser;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Per-request cost and latency of farm API polls.
+ *
+ * APIClient records one Sample per request. Samples are appended to
+ * filesDir/network_metrics.log, which is compacted to the most recent MAX_SAMPLES once it
+ * grows past twice that. The workers and the legacy service in :notifications all write it,
+ * so every read and write re-reads the file under a FileLock on network_metrics.lock rather
+ * than trusting an in-memory copy. DiagnosticsActivity shows p50/p95/max per phase over the
+ * last 24 hours and can export the raw samples as JSON.
+ *
+ * Usage:
+ *   NetworkMetrics.init(context)  // Call once at startup, like DebugLog.init
+ *   NetworkMetrics.getSummary()
+ */
+public class NetworkMetrics {
+    private static final String TAG = "NetworkMetrics";
+    private static final String METRICS_FILE = "network_metrics.log";
+    private static final int MAX_SAMPLES = 1000;           // ~3 workers × 12 polls/hour × 24h, with headroom
+    private static final long WINDOW_MS = 24 * 60 * 60 * 1000;
+    private static final Object LOCK = new Object();
+
+    private static File metricsFile = null;
+    private static int linesInFile = 0;                    // as of the last load()
+
+    /**
+     * One request. Durations are in milliseconds; connectMs includes the TLS handshake, which
+     * HttpURLConnection does not expose separately.
+     */
+    public static class Sample {
+        public long timestamp = System.currentTimeMillis();
+        public int status = -1;
+        public String failure;          // FetchFailure.Kind name, null on success
+        public long dnsMs;
+        public long connectMs;
+        public long ttfbMs;
+        public long downloadMs;
+        public long wireBytes;          // as received (gzip)
+        public long decodedBytes;
+        public int retry;               // failed requests immediately before this one
+
+        String toLine() {
+            return timestamp + "," + status + "," + (failure != null ? failure : "") + "," + dnsMs + "," + connectMs
+                    + "," + ttfbMs + "," + downloadMs + "," + wireBytes + "," + decodedBytes + "," + retry;
+        }
+
+        static Sample fromLine(String line) {
+            String[] f = line.split(",", -1);
+            if (f.length != 10) {
+                return null;
+            }
+            try {
+                Sample s = new Sample();
+                s.timestamp = Long.parseLong(f[0]);
+                s.status = Integer.parseInt(f[1]);
+                s.failure = f[2].isEmpty() ? null : f[2];
+                s.dnsMs = Long.parseLong(f[3]);
+                s.connectMs = Long.parseLong(f[4]);
+                s.ttfbMs = Long.parseLong(f[5]);
+                s.downloadMs = Long.parseLong(f[6]);
+                s.wireBytes = Long.parseLong(f[7]);
+                s.decodedBytes = Long.parseLong(f[8]);
+                s.retry = Integer.parseInt(f[9]);
+                return s;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        long totalMs() {
+            return dnsMs + connectMs + ttfbMs + downloadMs;
+        }
+    }
+
+    /**
+     * Initialize with application context. Until then record() is a no-op.
+     */
+    public static void init(Context context) {
+        init(new File(context.getApplicationContext().getFilesDir(), METRICS_FILE));
+    }
+
+    static void init(File file) {
+        synchronized (LOCK) {
+            if (metricsFile == null) {
+                metricsFile = file;
+            }
+        }
+    }
+
+    /**
+     * Store one request's metrics
+     */
+    public static void record(Sample sample) {
+        synchronized (LOCK) {
+            if (metricsFile == null) {
+                return;
+            }
+            try (FileChannel channel = openStoreLock();
+                 FileLock lock = channel.lock()) {
+                ArrayDeque<Sample> store = load();
+                int retry = 0;
+                for (Iterator<Sample> it = store.descendingIterator(); it.hasNext() && it.next().failure != null; ) {
+                    retry++;
+                }
+                sample.retry = retry;
+                store.addLast(sample);
+                while (store.size() > MAX_SAMPLES) {
+                    store.removeFirst();
+                }
+                if (linesInFile >= MAX_SAMPLES * 2) {
+                    rewriteFile(store);
+                } else {
+                    try (BufferedWriter writer = new BufferedWriter(new FileWriter(metricsFile, true))) {
+                        writer.write(sample.toLine());
+                        writer.newLine();
+                    }
+                    linesInFile++;
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Could not record network metrics: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * p50/p95/max of each phase, bytes and failure counts over the last 24 hours
+     */
+    public static String getSummary() {
+        List<Sample> recent = recentSamples();
+        if (recent.isEmpty()) {
+            return "  No requests recorded in the last 24h\n";
+        }
+        int failures = 0;
+        int retries = 0;
+        long wireTotal = 0;
+        long decodedTotal = 0;
+        for (Sample s : recent) {
+            if (s.failure != null) failures++;
+            if (s.retry > 0) retries++;
+            wireTotal += s.wireBytes;
+            decodedTotal += s.decodedBytes;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("  Requests (24h): ").append(recent.size()).append(" (").append(failures).append(" failed, ")
+                .append(retries).append(" after a failure)\n");
+        sb.append("  Data (24h): ").append(formatBytes(wireTotal)).append(" on the wire, ")
+                .append(formatBytes(decodedTotal)).append(" decoded\n");
+        sb.append("  Phase (ms)     p50     p95     max\n");
+        appendRow(sb, "dns", recent, s -> s.dnsMs);
+        appendRow(sb, "connect+tls", recent, s -> s.connectMs);
+        appendRow(sb, "ttfb", recent, s -> s.ttfbMs);
+        appendRow(sb, "download", recent, s -> s.downloadMs);
+        appendRow(sb, "total", recent, Sample::totalMs);
+        appendRow(sb, "wire KB", recent, s -> s.wireBytes / 1024);
+        return sb.toString();
+    }
+
+    /**
+     * Every stored sample from the last 24 hours plus the percentile table, as JSON
+     */
+    public static String exportJson() {
+        List<Sample> recent = recentSamples();
+        JsonObject root = new JsonObject();
+        root.addProperty("exportedAt", System.currentTimeMillis());
+        root.addProperty("windowMs", WINDOW_MS);
+        JsonObject percentiles = new JsonObject();
+        percentiles.add("dnsMs", percentileJson(recent, s -> s.dnsMs));
+        percentiles.add("connectMs", percentileJson(recent, s -> s.connectMs));
+        percentiles.add("ttfbMs", percentileJson(recent, s -> s.ttfbMs));
+        percentiles.add("downloadMs", percentileJson(recent, s -> s.downloadMs));
+        percentiles.add("totalMs", percentileJson(recent, Sample::totalMs));
+        percentiles.add("wireBytes", percentileJson(recent, s -> s.wireBytes));
+        percentiles.add("decodedBytes", percentileJson(recent, s -> s.decodedBytes));
+        root.add("percentiles", percentiles);
+        JsonArray array = new JsonArray();
+        for (Sample s : recent) {
+            JsonObject o = new JsonObject();
+            o.addProperty("timestamp", s.timestamp);
+            o.addProperty("status", s.status);
+            o.addProperty("failure", s.failure);
+            o.addProperty("dnsMs", s.dnsMs);
+            o.addProperty("connectMs", s.connectMs);
+            o.addProperty("ttfbMs", s.ttfbMs);
+            o.addProperty("downloadMs", s.downloadMs);
+            o.addProperty("wireBytes", s.wireBytes);
+            o.addProperty("decodedBytes", s.decodedBytes);
+            o.addProperty("retry", s.retry);
+            array.add(o);
+        }
+        root.add("samples", array);
+        return new GsonBuilder().setPrettyPrinting().create().toJson(root);
+    }
+
+    interface Metric {
+        long of(Sample s);
+    }
+
+    private static List<Sample> recentSamples() {
+        synchronized (LOCK) {
+            List<Sample> recent = new ArrayList<>();
+            if (metricsFile == null) {
+                return recent;
+            }
+            long cutoff = System.currentTimeMillis() - WINDOW_MS;
+            try (FileChannel channel = openStoreLock();
+                 FileLock lock = channel.lock()) {
+                for (Sample s : load()) {
+                    if (s.timestamp >= cutoff) {
+                        recent.add(s);
+                    }
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Could not lock network metrics: " + e.getMessage());
+            }
+            return recent;
+        }
+    }
+
+    /**
+     * @return {p50, p95, max} by nearest rank
+     */
+    static long[] percentiles(List<Sample> samples, Metric metric) {
+        if (samples.isEmpty()) {
+            return new long[]{0, 0, 0};
+        }
+        long[] values = new long[samples.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = metric.of(samples.get(i));
+        }
+        Arrays.sort(values);
+        return new long[]{rank(values, 0.50), rank(values, 0.95), values[values.length - 1]};
+    }
+
+    private static long rank(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static void appendRow(StringBuilder sb, String label, List<Sample> samples, Metric metric) {
+        long[] p = percentiles(samples, metric);
+        sb.append(String.format(Locale.US, "  %-12s %7d %7d %7d\n", label, p[0], p[1], p[2]));
+    }
+
+    private static JsonObject percentileJson(List<Sample> samples, Metric metric) {
+        long[] p = percentiles(samples, metric);
+        JsonObject o = new JsonObject();
+        o.addProperty("p50", p[0]);
+        o.addProperty("p95", p[1]);
+        o.addProperty("max", p[2]);
+        return o;
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.US, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.US, "%.2f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    /**
+     * Open the file whose FileLock guards the store across processes. Callers hold LOCK
+     * before locking it, since FileLocks are held per process and a second lock() from this
+     * process would throw.
+     */
+    private static FileChannel openStoreLock() throws IOException {
+        File lockFile = new File(metricsFile.getParentFile(), METRICS_FILE + ".lock");
+        return new RandomAccessFile(lockFile, "rw").getChannel();
+    }
+
+    /**
+     * Read the store from disk; another process may have written it since the last call
+     * (caller holds LOCK and the store lock)
+     */
+    private static ArrayDeque<Sample> load() {
+        ArrayDeque<Sample> samples = new ArrayDeque<>();
+        linesInFile = 0;
+        if (metricsFile.exists()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(metricsFile))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    linesInFile++;
+                    Sample s = Sample.fromLine(line);
+                    if (s != null) {
+                        samples.addLast(s);
+                        if (samples.size() > MAX_SAMPLES) {
+                            samples.removeFirst();
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Could not read network metrics: " + e.getMessage());
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Compact the append-only file back down to the last MAX_SAMPLES (caller holds LOCK and
+     * the store lock)
+     */
+    private static void rewriteFile(ArrayDeque<Sample> store) throws Exception {
+        File temp = new File(metricsFile.getParentFile(), METRICS_FILE + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(temp, false))) {
+            for (Sample s : store) {
+                writer.write(s.toLine());
+                writer.newLine();
+            }
+        }
+        if (!temp.renameTo(metricsFile)) {
+            throw new IOException("Could not replace " + METRICS_FILE);
+        }
+        linesInFile = store.size();
+    }
+}
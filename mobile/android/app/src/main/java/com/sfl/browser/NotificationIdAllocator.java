@@ -0,0 +1,262 @@
+package com.sfl.browser;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Gives every notification group its own notification ID, which AlarmScheduler also uses as
+ * the request code of the group's alarm.
+ *
+ * IDs were a hash of the groupId folded into 1000 slots, so two groups could silently
+ * overwrite each other's alarm, and clearing alarms meant probing every slot. Here a groupId
+ * keeps the ID it was first given until the ID expires, EXPIRY_MS after the alarm was due to
+ * fire (the posted notification keeps the ID that long), or is released when its alarm is
+ * cancelled before it fires. A group that has already fired keeps its ID even once it is
+ * gone from the farm, so a new group cannot replace its notification. Freed IDs are reused
+ * lowest first, so the IDs in use stay packed just above BASE.
+ *
+ * The allocation is persisted in filesDir/FILE_NAME, since alarms outlive the process. The
+ * workers and the legacy service (in its own :notifications process) both arm alarms, so
+ * AlarmScheduler reads, changes and writes it while holding a FileLock on that file.
+ * SharedPreferences would not do here: each process caches its own copy.
+ *
+ * Not thread-safe; AlarmScheduler also holds one lock within the process.
+ *
+ * Usage:
+ *   NotificationIdAllocator ids = NotificationIdAllocator.read(channel);  // channel locked
+ *   ids.expire(System.currentTimeMillis());
+ *   int notificationId = ids.idFor(group.groupId, group.earliestReadyTime);
+ *   ids.write(channel);
+ */
+public class NotificationIdAllocator {
+    private static final String TAG = "NotificationIdAllocator";
+    static final String FILE_NAME = "notification_ids";
+    static final int BASE = 5000;                        // Same base as the hashed IDs had
+    static final int CAPACITY = 5000;                    // BASE .. BASE + CAPACITY - 1
+    static final long EXPIRY_MS = 12 * 60 * 60 * 1000;   // after the alarm was due
+
+    private static final class Entry {
+        final int id;
+        final String groupId;
+        long dueAt;
+
+        Entry(int id, String groupId, long dueAt) {
+            this.id = id;
+            this.groupId = groupId;
+            this.dueAt = dueAt;
+        }
+    }
+
+    private final Map<String, Entry> byGroupId = new HashMap<>();
+    private final TreeSet<Integer> free = new TreeSet<>();
+    private int next = BASE;   // lowest ID never handed out
+
+    /**
+     * The allocation stored in the channel's file, or an empty one if the file is empty
+     * (it is before the first write). The caller holds the file's lock.
+     */
+    public static NotificationIdAllocator read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+            // read until the whole file is in
+        }
+        return fromStoreString(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Replace the channel's file with this allocation. The caller holds the file's lock.
+     */
+    public void write(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(toStoreString().getBytes(StandardCharsets.UTF_8));
+        channel.truncate(0);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+        channel.force(false);
+    }
+
+    /**
+     * The group's ID, allocating one if it has none. Either way the ID now expires relative
+     * to dueAt.
+     * @param dueAt When the group's alarm fires (or fired)
+     */
+    public int idFor(String groupId, long dueAt) {
+        Entry entry = byGroupId.get(groupId);
+        if (entry == null) {
+            entry = new Entry(allocate(), groupId, dueAt);
+            byGroupId.put(groupId, entry);
+        }
+        entry.dueAt = dueAt;
+        return entry.id;
+    }
+
+    /**
+     * @return The group's ID, or -1 if it has none
+     */
+    public int find(String groupId) {
+        Entry entry = byGroupId.get(groupId);
+        return entry != null ? entry.id : -1;
+    }
+
+    /**
+     * Free the group's ID for reuse
+     * @return The ID it had, or -1 if it had none
+     */
+    public int release(String groupId) {
+        Entry entry = byGroupId.remove(groupId);
+        if (entry == null) {
+            return -1;
+        }
+        free.add(entry.id);
+        return entry.id;
+    }
+
+    /**
+     * Free the group's ID if its alarm is still to fire; once fired, the notification may be
+     * posted under the ID, which then stays held until it expires
+     * @return The ID freed, or -1 if the group had none or has fired
+     */
+    public int releasePending(String groupId, long now) {
+        Entry entry = byGroupId.get(groupId);
+        if (entry == null || entry.dueAt <= now) {
+            return -1;
+        }
+        return release(groupId);
+    }
+
+    /**
+     * Free the ID of every group whose alarm is still to fire, keeping those that have fired
+     * @return The IDs freed, whose alarms the caller cancels
+     */
+    public List<Integer> releaseAllPending(long now) {
+        List<String> pending = new ArrayList<>();
+        for (Entry entry : byGroupId.values()) {
+            if (entry.dueAt > now) {
+                pending.add(entry.groupId);
+            }
+        }
+        List<Integer> released = new ArrayList<>(pending.size());
+        for (String groupId : pending) {
+            released.add(release(groupId));
+        }
+        return released;
+    }
+
+    /**
+     * Free every ID whose alarm was due more than EXPIRY_MS before now
+     * @return Number of IDs freed
+     */
+    public int expire(long now) {
+        List<String> expired = new ArrayList<>();
+        for (Entry entry : byGroupId.values()) {
+            if (entry.dueAt + EXPIRY_MS <= now) {
+                expired.add(entry.groupId);
+            }
+        }
+        for (String groupId : expired) {
+            release(groupId);
+        }
+        return expired.size();
+    }
+
+    /**
+     * IDs currently held by a group, in ascending order
+     */
+    public List<Integer> idsInUse() {
+        TreeSet<Integer> ids = new TreeSet<>();
+        for (Entry entry : byGroupId.values()) {
+            ids.add(entry.id);
+        }
+        return new ArrayList<>(ids);
+    }
+
+    public int size() {
+        return byGroupId.size();
+    }
+
+    /**
+     * Free every ID
+     */
+    public void clear() {
+        byGroupId.clear();
+        free.clear();
+        next = BASE;
+    }
+
+    private int allocate() {
+        if (!free.isEmpty()) {
+            return free.pollFirst();
+        }
+        if (next < BASE + CAPACITY) {
+            return next++;
+        }
+        // Every ID is held: take the one due longest ago
+        Entry oldest = null;
+        for (Entry entry : byGroupId.values()) {
+            if (oldest == null || entry.dueAt < oldest.dueAt) {
+                oldest = entry;
+            }
+        }
+        Log.w(TAG, "All " + CAPACITY + " notification IDs in use, reusing " + oldest.id + " of " + oldest.groupId);
+        byGroupId.remove(oldest.groupId);
+        return oldest.id;
+    }
+
+    /**
+     * "next" on the first line, then "id,dueAt,groupId" per held ID. Free IDs are the ones
+     * below next that no group holds.
+     */
+    String toStoreString() {
+        StringBuilder out = new StringBuilder().append(next);
+        for (Entry entry : byGroupId.values()) {
+            out.append('\n').append(entry.id).append(',').append(entry.dueAt).append(',').append(entry.groupId);
+        }
+        return out.toString();
+    }
+
+    static NotificationIdAllocator fromStoreString(String stored) {
+        NotificationIdAllocator ids = new NotificationIdAllocator();
+        if (stored == null || stored.isEmpty()) {
+            return ids;
+        }
+        String[] lines = stored.split("\n");
+        try {
+            ids.next = Math.max(BASE, Math.min(BASE + CAPACITY, Integer.parseInt(lines[0])));
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Discarding unreadable notification IDs: " + e.getMessage());
+            return ids;
+        }
+        TreeSet<Integer> held = new TreeSet<>();
+        for (int i = 1; i < lines.length; i++) {
+            // groupId last: it is the only field that may contain commas
+            String[] f = lines[i].split(",", 3);
+            if (f.length != 3) {
+                continue;
+            }
+            try {
+                int id = Integer.parseInt(f[0]);
+                long dueAt = Long.parseLong(f[1]);
+                if (id >= BASE && id < ids.next && !ids.byGroupId.containsKey(f[2]) && held.add(id)) {
+                    ids.byGroupId.put(f[2], new Entry(id, f[2], dueAt));
+                }
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Skipping unreadable notification ID line: " + lines[i]);
+            }
+        }
+        for (int id = BASE; id < ids.next; id++) {
+            if (!held.contains(id)) {
+                ids.free.add(id);
+            }
+        }
+        return ids;
+    }
+}
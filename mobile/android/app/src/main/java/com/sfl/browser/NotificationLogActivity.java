@@ -96,10 +96,10 @@ public class NotificationLogActivity extends AppCompatActivity {
                     if (logLine.startsWith("Generated at:")) {
                         generatedAt = logLine;
                         String ts = logLine.replace("Generated at:", "").trim();
-                        try {
-                            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                            generatedTimestamp = sdf.parse(ts).getTime();
-                        } catch (Exception ignore) {}
+                        long parsed = TimeUtils.parseLocalDateTime(ts);
+                        if (parsed > 0) {
+                            generatedTimestamp = parsed;
+                        }
                     } else if (logLine.startsWith("[")) {
                         NotificationEntry entry = parseNotificationLine(logLine, generatedTimestamp);
                         if (entry != null && entry.getRemainingMs() > 0) {
@@ -213,14 +213,7 @@ public class NotificationLogActivity extends AppCompatActivity {
             this.itemName = name;
             this.quantity = qty;
             // Convert deliveryTimeRaw (HH:mm:ss) to 12-hour format with AM/PM
-            String formatted = deliveryTimeRaw;
-            try {
-                java.text.SimpleDateFormat inFormat = new java.text.SimpleDateFormat("HH:mm:ss");
-                java.text.SimpleDateFormat outFormat = new java.text.SimpleDateFormat("h:mm:ss a");
-                java.util.Date date = inFormat.parse(deliveryTimeRaw);
-                formatted = outFormat.format(date);
-            } catch (Exception ignored) {}
-            this.deliveryTime = formatted;
+            this.deliveryTime = TimeUtils.to12Hour(deliveryTimeRaw);
         }
 
         long getRemainingMs() {
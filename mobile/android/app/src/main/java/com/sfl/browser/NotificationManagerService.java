@@ -19,24 +19,21 @@ import androidx.work.ExistingPeriodicWorkPolicy;
 import java.util.concurrent.TimeUnit;
 import android.util.Log;
 import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.sfl.browser.clustering.CategoryClusterer;
 import com.sfl.browser.clustering.ClustererFactory;
+import com.sfl.browser.clustering.DigestCoalescer;
 import com.sfl.browser.clustering.NotificationGroup;
 import com.sfl.browser.models.FarmItem;
+import com.sfl.browser.models.FarmState;
 import com.sfl.browser.models.SickAnimal;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 
 public class NotificationManagerService extends Service {
@@ -63,6 +60,7 @@ public class NotificationManagerService extends Service {
     @Override
     public void onCreate() {
         super.onCreate();
+        NetworkMetrics.init(this);
         Log.d(TAG, "Service created");
     }
 
@@ -181,94 +179,108 @@ public class NotificationManagerService extends Service {
      */
     private void processFarmData() {
         try {
-            Log.d(TAG, "=== Starting Farm Data Processing Pipeline ===");
-            
             // Get farm ID and API key from SharedPreferences
             SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(this);
             String farmId = prefs.getString("farm_id", "");
             String apiKey = prefs.getString("api_key", "");
             
-            if (farmId == null || farmId.isEmpty() || apiKey == null || apiKey.isEmpty()) {
+            List<FarmFetchEngine.FarmCredentials> farms = FarmFetchEngine.parseCredentials(farmId, apiKey);
+            if (farms.isEmpty()) {
                 Log.e(TAG, "Farm ID or API key not configured");
                 writeErrorLog("Farm ID or API key not configured in settings");
                 return;
             }
-            
-            // OPTIMIZATION: Check if we just fetched data within the last 30 seconds
-            // This prevents redundant API calls on rapid re-opens
-            long lastAPICallTime = prefs.getLong("lastAPICallTime", 0);
-            long currentTime = System.currentTimeMillis();
-            long timeSinceLastCall = currentTime - lastAPICallTime;
-            
-            if (timeSinceLastCall < 30000) {  // 30 seconds
-                Log.d(TAG, "Skipping API call - last call was " + (timeSinceLastCall / 1000) + " seconds ago (cache window: 30 seconds)");
-                return;
+            // This legacy service polls one farm; several configured farms are left to the WorkManager pipeline
+            FarmFetchEngine.FarmCredentials farm = farms.get(0);
+            if (farms.size() > 1) {
+                Log.w(TAG, farms.size() + " farms configured - legacy service only polls farm " + farm.farmId);
             }
-            
+
+            // Share the single-flight guard with the WorkManager pipeline so the two never
+            // fetch the same farm at once or cancel each other's alarms
+            PipelineCoordinator.runOrJoin(this, farm.farmId, () -> runPipeline(prefs, farm.farmId, farm.apiKey));
+        } catch (Exception e) {
+            Log.e(TAG, "Error in processFarmData: " + e.getMessage(), e);
+            writeErrorLog("Processing pipeline failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Pipeline body; only ever entered through PipelineCoordinator
+     * @return true if the run completed, false if it was held back or failed
+     */
+    private boolean runPipeline(SharedPreferences prefs, String farmId, String apiKey) {
+        try {
+            Log.d(TAG, "=== Starting Farm Data Processing Pipeline ===");
+
             // Build API URL: https://api.sunflower-land.com/community/farms/{farmId}
             String apiUrl = API_BASE_URL + farmId;
             Log.d(TAG, "API URL: " + apiUrl);
             
             // Step 1: API Call and Raw JSON Save
             Log.d(TAG, "Step 1: Fetching raw JSON from API...");
-            String rawJSON = APIClient.fetchRawJSON(apiUrl, apiKey);
-            if (rawJSON == null || rawJSON.isEmpty()) {
-                Log.e(TAG, "Failed to fetch raw JSON from API");
-                writeErrorLog("API call failed - no response received");
-                return;
+            FetchCircuitBreaker breaker = new FetchCircuitBreaker(this);
+            if (!breaker.allowRequest()) {
+                Log.w(TAG, "Skipping API call - circuit breaker is holding polls back");
+                return false;
             }
-            
-            // Record the time of this successful API call
-            prefs.edit().putLong("lastAPICallTime", currentTime).apply();
-            
-            // Save raw JSON
-            saveRawJSON(rawJSON);
+            // Parse the body as it streams in; it is teed into farm_api_raw.json on the way
+            APIClient.FetchResult<FarmState> fetchResult = APIClient.fetchConditional(apiUrl, apiKey, null, null,
+                    new File(getFilesDir(), "farm_api_raw.json"), body -> APIClient.readFarmState(body, null));
+            if (fetchResult.isFailure()) {
+                FetchFailure failure = fetchResult.failure;
+                breaker.recordFailure(failure);
+                Log.e(TAG, "Failed to fetch raw JSON from API: " + failure);
+                writeErrorLog("API call failed - " + failure);
+                return false;
+            }
+            breaker.recordSuccess();
+            FarmDataProcessor.recordSnapshotFarm(this, farmId);
             Log.d(TAG, "Step 1 Complete: Raw JSON saved");
 
             // Step 2: Parse JSON and extract all categories
             Log.d(TAG, "Step 2: Parsing JSON and extracting crops, fruits, greenhouse crops, resources, animals, cooking, composters, flowers, beehives, crop machine, sunstones & daily reset...");
-            JsonObject parsedJson = JsonParser.parseString(rawJSON).getAsJsonObject();
-            JsonObject farmObject = parsedJson.getAsJsonObject("farm");
-            List<FarmItem> crops = CategoryExtractors.extractCrops(farmObject);
-            List<FarmItem> fruits = CategoryExtractors.extractFruits(farmObject);
-            List<FarmItem> greenhouseCrops = CategoryExtractors.extractGreenhouseCrops(farmObject);
-            List<FarmItem> resources = CategoryExtractors.extractResources(farmObject);
-            List<FarmItem> animals = CategoryExtractors.extractAnimals(farmObject);
-            List<FarmItem> cooking = CategoryExtractors.extractCooking(farmObject);
-            List<FarmItem> composters = CategoryExtractors.extractComposters(farmObject);
-            List<FarmItem> flowers = CategoryExtractors.extractFlowers(farmObject);
-            List<FarmItem> craftingBox = CategoryExtractors.extractCraftingBox(farmObject);
-            List<FarmItem> beehives = CategoryExtractors.extractBeehives(farmObject);
-            List<FarmItem> cropMachine = CategoryExtractors.extractCropMachine(farmObject);
-            List<FarmItem> sunstones = CategoryExtractors.extractSunstones(farmObject);
+            FarmState farm = fetchResult.body;
+            FarmExtractionEngine.Buckets extracted = FarmExtractionEngine.extract(farm, null);
+            List<FarmItem> crops = extracted.crops.toItems();
+            List<FarmItem> fruits = extracted.fruits.toItems();
+            List<FarmItem> greenhouseCrops = extracted.greenhouseCrops.toItems();
+            List<FarmItem> resources = extracted.resources.toItems();
+            List<FarmItem> animals = extracted.animals.toItems();
+            List<FarmItem> cooking = extracted.cooking.toItems();
+            List<FarmItem> composters = extracted.composters.toItems();
+            List<FarmItem> flowers = extracted.flowers.toItems();
+            List<FarmItem> craftingBox = extracted.craftingBox.toItems();
+            List<FarmItem> beehives = extracted.beehives.toItems();
+            List<FarmItem> cropMachine = extracted.cropMachine.toItems();
+            List<FarmItem> sunstones = extracted.sunstones.toItems();
             
             // Extract daily reset if enabled in preferences
             List<FarmItem> dailyReset = new ArrayList<>();
             if (prefs.getBoolean("category_daily_reset", true)) {
-                dailyReset = CategoryExtractors.extractDailyReset(farmObject);
+                dailyReset = CategoryExtractors.extractDailyReset(farm);
             }
             
             // Extract marketplace sold listings
             List<MarketplaceListingsExtractor.SoldListing> soldListings = new ArrayList<>();
             if (prefs.getBoolean("marketplace_listings_enabled", true)) {
                 MarketplaceListingsExtractor marketplaceExtractor = new MarketplaceListingsExtractor(this);
-                soldListings = marketplaceExtractor.extractSoldListings(farmObject);
+                soldListings = marketplaceExtractor.extractSoldListings(farm);
             }
             
             // Extract floating island notifications (schedule and shop changes)
             List<FarmItem> floatingIsland = new ArrayList<>();
             if (prefs.getBoolean("floating_island_enabled", true)) {
-                floatingIsland = CategoryExtractors.extractFloatingIsland(farmObject, this);
+                floatingIsland = CategoryExtractors.extractFloatingIsland(farm, this);
             }
 
             // Extract sick animals for health monitoring
-            List<SickAnimal> sickAnimals = CategoryExtractors.extractSickAnimals(farmObject);
+            List<SickAnimal> sickAnimals = extracted.sickAnimals;
 
             // Extract skill cooldown notifications
             List<FarmItem> skillCooldowns = new ArrayList<>();
-            if (prefs.getBoolean("category_skill_cooldown", true) && farmObject.has("bumpkin")) {
-                JsonObject bumpkinObject = farmObject.getAsJsonObject("bumpkin");
-                skillCooldowns = SkillExtractors.extractSkillCooldowns(bumpkinObject);
+            if (prefs.getBoolean("category_skill_cooldown", true)) {
+                skillCooldowns = extracted.skillCooldowns;
             }
 
             Log.d(TAG, "Step 2 Complete: Extracted " + crops.size() + " crop(s), " + fruits.size() + " fruit(s), " + resources.size() + " resource(s), " + animals.size() + " animal(s), " + cooking.size() + " cooking item(s), " + composters.size() + " composter(s), " + flowers.size() + " flower(s), " + craftingBox.size() + " crafting box item(s), " + beehives.size() + " beehive item(s), " + cropMachine.size() + " crop machine item(s), " + sunstones.size() + " sunstone(s), " + dailyReset.size() + " daily reset(s), " + soldListings.size() + " sold listing(s), " + floatingIsland.size() + " floating island item(s), " + sickAnimals.size() + " sick animal(s), " + skillCooldowns.size() + " skill cooldown(s)");
@@ -416,6 +428,14 @@ public class NotificationManagerService extends Service {
             scheduler.clearScheduledTracking();
             Log.d(TAG, "Cleared scheduled tracking to re-evaluate all alarms on this run");
             
+            // Merge groups ready close together into digests, if enabled
+            long digestWindow = NotificationPreferences.getDigestWindowMillis(this);
+            if (digestWindow >= 0) {
+                int beforeDigest = allGroups.size();
+                allGroups = DigestCoalescer.coalesce(allGroups, digestWindow, System.currentTimeMillis());
+                Log.d(TAG, "Digest coalescing: " + beforeDigest + " -> " + allGroups.size() + " group(s)");
+            }
+
             // Schedule only the current/future notifications
             scheduler.scheduleNotificationAlarms(allGroups);
             Log.d(TAG, "Step 6 Complete: Alarms scheduled with system");
@@ -426,25 +446,11 @@ public class NotificationManagerService extends Service {
             Log.d(TAG, "Step 7 Complete: Notifications log written");
 
             Log.d(TAG, "=== Farm Data Processing Pipeline Complete ===");
+            return true;
         } catch (Exception e) {
             Log.e(TAG, "Error in processFarmData: " + e.getMessage(), e);
             writeErrorLog("Processing pipeline failed: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Saves raw JSON response to farm_api_raw.json (overwrites previous)
-     */
-    private void saveRawJSON(String rawJSON) {
-        try {
-            File file = new File(getFilesDir(), "farm_api_raw.json");
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, false))) {
-                writer.write(rawJSON);
-                writer.flush();
-            }
-            Log.d(TAG, "Raw JSON saved: " + file.getAbsolutePath() + " (" + rawJSON.length() + " bytes)");
-        } catch (IOException e) {
-            Log.e(TAG, "Error saving raw JSON: " + e.getMessage(), e);
+            return false;
         }
     }
 
@@ -771,9 +777,9 @@ public class NotificationManagerService extends Service {
                 // Sort by timestamp
                 allItems.sort((a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()));
                 
+                // Streamed to the file rather than built as one String first
                 Gson gson = new Gson();
-                String json = gson.toJson(allItems);
-                writer.write(json);
+                gson.toJson(allItems, writer);
                 writer.flush();
             }
             Log.d(TAG, "Processed JSON saved: " + file.getAbsolutePath());
@@ -838,36 +844,21 @@ public class NotificationManagerService extends Service {
      * Returns current timestamp in MM/DD HH:MM:SS format
      */
     private String getCurrentTime() {
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("MM/dd HH:mm:ss", Locale.US);
-            return sdf.format(new Date());
-        } catch (Exception e) {
-            return "00/00 00:00:00";
-        }
+        return TimeUtils.formatShort(System.currentTimeMillis());
     }
 
     /**
      * Returns current timestamp in full format
      */
     private String getCurrentTimestamp() {
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy h:mm:ss a", Locale.US);
-            return sdf.format(new Date());
-        } catch (Exception e) {
-            return "00/00/0000 00:00:00";
-        }
+        return TimeUtils.formatLogHeader(System.currentTimeMillis());
     }
 
     /**
      * Formats timestamp for notification display (HH:MM AM/PM format)
      */
     private String formatTimeForNotification(long timestamp) {
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("h:mm a", Locale.US);
-            return sdf.format(new Date(timestamp));
-        } catch (Exception e) {
-            return "Unknown";
-        }
+        return TimeUtils.formatClock(timestamp);
     }
 
     /**
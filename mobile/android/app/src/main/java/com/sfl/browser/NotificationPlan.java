@@ -0,0 +1,264 @@
+package com.sfl.browser;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.preference.PreferenceManager;
+
+import com.sfl.browser.clustering.NotificationGroup;
+import com.sfl.browser.models.FarmItem;
+import com.sfl.browser.models.ItemBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which notification categories and items the user currently wants, read once per pipeline run.
+ *
+ * Categories are the NotificationGroup.category strings the clusterers produce. Each maps to
+ * the switch and per-item keys its settings screen writes (e.g. "crops" -> crop_sunflower,
+ * "cropMachine" -> category_crop_machine), so the pipeline can skip parsing, extraction,
+ * clustering and alarm scheduling for anything that would only be dropped when it fires.
+ * NotificationReceiver checks the same rules through NotificationPreferences.
+ *
+ * Usage:
+ *   NotificationPlan plan = NotificationPlan.fromPreferences(context);
+ *   if (plan.isCategoryEnabled("crops")) { ... }
+ */
+public class NotificationPlan {
+    private static final String TAG = "NotificationPlan";
+
+    /**
+     * Preference keys behind one category: an on/off switch and a prefix for per-item
+     * toggles (prefix + "_" + item name, lowercased, spaces as underscores). Either may be null.
+     */
+    static final class CategoryKeys {
+        final String switchKey;
+        final String itemPrefix;
+
+        CategoryKeys(String switchKey, String itemPrefix) {
+            this.switchKey = switchKey;
+            this.itemPrefix = itemPrefix;
+        }
+    }
+
+    // Group category -> keys written by SettingsFragment and the *SettingsActivity screens
+    private static final Map<String, CategoryKeys> CATEGORIES = new HashMap<>();
+
+    static {
+        CATEGORIES.put("crops", new CategoryKeys(null, "crop"));
+        CATEGORIES.put("fruits", new CategoryKeys(null, "fruit"));
+        CATEGORIES.put("greenhouse_crops", new CategoryKeys("category_greenhouse_crops", "greenhouse_crop"));
+        CATEGORIES.put("resource", new CategoryKeys(null, "resource"));
+        CATEGORIES.put("animals", new CategoryKeys(null, "animal"));
+        CATEGORIES.put("cooking", new CategoryKeys(null, "cooking"));
+        CATEGORIES.put("composters", new CategoryKeys(null, "composter"));
+        CATEGORIES.put("flowers", new CategoryKeys(null, "flower"));
+        CATEGORIES.put("crafting", new CategoryKeys("category_crafting", "crafting"));
+        CATEGORIES.put("beehive", new CategoryKeys(null, null));
+        CATEGORIES.put("cropMachine", new CategoryKeys("category_crop_machine", null));
+        CATEGORIES.put("sunstones", new CategoryKeys(null, null));
+        CATEGORIES.put("skill_cooldown", new CategoryKeys("category_skill_cooldown", "skill"));
+        CATEGORIES.put("Daily Reset", new CategoryKeys("category_daily_reset", null));
+        CATEGORIES.put("marketplace", new CategoryKeys("marketplace_listings_enabled", null));
+        CATEGORIES.put("floating_island", new CategoryKeys("floating_island_enabled", null));
+        CATEGORIES.put("auction", new CategoryKeys("category_auction", null));
+        CATEGORIES.put("pet_sleep", new CategoryKeys("category_pet_sleep", null));
+        CATEGORIES.put("animal_sick", new CategoryKeys("category_animal_sick", null));
+        CATEGORIES.put("digest", new CategoryKeys(null, null));   // members were filtered before merging
+    }
+
+    private final Map<String, ?> prefs;
+    private final boolean masterEnabled;
+
+    /**
+     * Snapshot the default preferences
+     */
+    public static NotificationPlan fromPreferences(Context context) {
+        return new NotificationPlan(PreferenceManager.getDefaultSharedPreferences(context).getAll());
+    }
+
+    NotificationPlan(Map<String, ?> prefs) {
+        this.prefs = prefs;
+        this.masterEnabled = getBoolean("notifications_master");
+    }
+
+    /**
+     * Whether any notification of this category can be shown
+     * @param category NotificationGroup.category, e.g. "crops", "resource", "cropMachine"
+     */
+    public boolean isCategoryEnabled(String category) {
+        if (!masterEnabled) {
+            return false;
+        }
+        return getBoolean(keysFor(category).switchKey);
+    }
+
+    /**
+     * Whether at least one of the given categories is enabled
+     */
+    public boolean isAnyEnabled(String... categories) {
+        for (String category : categories) {
+            if (isCategoryEnabled(category)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a notification for this category and item would be shown
+     * @param itemName NotificationGroup.name / FarmItem name, e.g. "Sunflower"
+     */
+    public boolean isItemEnabled(String category, String itemName) {
+        if (!isCategoryEnabled(category)) {
+            return false;
+        }
+        String prefix = keysFor(category).itemPrefix;
+        if (prefix == null || itemName == null) {
+            return true;
+        }
+        return getBoolean(prefix + "_" + itemName.toLowerCase().replace(" ", "_"));
+    }
+
+    /**
+     * Drop items the user has muted, before they are clustered. Only valid for categories whose
+     * groups are named after their items (not cooking grouped by building, beehives, etc.).
+     * @return The same list if nothing was dropped, otherwise a filtered copy
+     */
+    public List<FarmItem> retainEnabled(String category, List<FarmItem> items) {
+        if (!isCategoryEnabled(category)) {
+            return new ArrayList<>();
+        }
+        if (keysFor(category).itemPrefix == null) {
+            return items;
+        }
+        List<FarmItem> kept = null;
+        for (int i = 0; i < items.size(); i++) {
+            FarmItem item = items.get(i);
+            boolean enabled = isItemEnabled(category, item.getName());
+            if (!enabled && kept == null) {
+                kept = new ArrayList<>(items.subList(0, i));
+            } else if (enabled && kept != null) {
+                kept.add(item);
+            }
+        }
+        return kept != null ? kept : items;
+    }
+
+    /**
+     * retainEnabled for a batch from FarmExtractionEngine, which is filtered in place (each
+     * run's batches are fresh copies). Each distinct name is looked up in the prefs once.
+     * @return items
+     */
+    public ItemBatch retainEnabled(String category, ItemBatch items) {
+        if (!isCategoryEnabled(category)) {
+            items.retain(new boolean[items.size()]);
+            return items;
+        }
+        if (keysFor(category).itemPrefix == null) {
+            return items;
+        }
+        Map<Integer, Boolean> enabledByName = new HashMap<>();
+        boolean[] keep = new boolean[items.size()];
+        boolean anyMuted = false;
+        for (int i = 0; i < items.size(); i++) {
+            Boolean enabled = enabledByName.get(items.nameId(i));
+            if (enabled == null) {
+                enabled = isItemEnabled(category, items.name(i));
+                enabledByName.put(items.nameId(i), enabled);
+            }
+            keep[i] = enabled;
+            anyMuted |= !enabled;
+        }
+        if (anyMuted) {
+            items.retain(keep);
+        }
+        return items;
+    }
+
+    /**
+     * Drop groups whose alarm would only be discarded by NotificationReceiver
+     */
+    public List<NotificationGroup> retainEnabledGroups(List<NotificationGroup> groups) {
+        List<NotificationGroup> kept = new ArrayList<>(groups.size());
+        for (NotificationGroup group : groups) {
+            if (isItemEnabled(group.category, group.name)) {
+                kept.add(group);
+            }
+        }
+        if (kept.size() != groups.size()) {
+            Log.d(TAG, "Dropped " + (groups.size() - kept.size()) + " muted group(s) before scheduling");
+        }
+        return kept;
+    }
+
+    /**
+     * Disabled categories, for the pipeline log
+     */
+    public String describe() {
+        if (!masterEnabled) {
+            return "all notifications off";
+        }
+        List<String> off = new ArrayList<>();
+        for (String category : CATEGORIES.keySet()) {
+            if (!isCategoryEnabled(category)) {
+                off.add(category);
+            }
+        }
+        Collections.sort(off);
+        return off.isEmpty() ? "all categories on" : "off: " + off;
+    }
+
+    /**
+     * Every preference this plan reads, as one comparable string. Equal stamps mean the plan
+     * would enable, mute and skip exactly the same things, so results derived under one still
+     * apply under the other.
+     */
+    public String settingsStamp() {
+        List<String> entries = new ArrayList<>();
+        for (Map.Entry<String, ?> entry : prefs.entrySet()) {
+            if (isPlanKey(entry.getKey())) {
+                entries.add(entry.getKey() + "=" + entry.getValue());
+            }
+        }
+        Collections.sort(entries);
+        return entries.toString();
+    }
+
+    private static boolean isPlanKey(String key) {
+        if ("notifications_master".equals(key)) {
+            return true;
+        }
+        for (CategoryKeys keys : CATEGORIES.values()) {
+            if (key.equals(keys.switchKey) || (keys.itemPrefix != null && key.startsWith(keys.itemPrefix + "_"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Keys for a category; unknown categories use the generic category_<name> / <name>_<item>
+     * scheme NotificationPreferences has always applied
+     */
+    static CategoryKeys keysFor(String category) {
+        CategoryKeys keys = CATEGORIES.get(category);
+        if (keys != null) {
+            return keys;
+        }
+        String lower = category == null ? "" : category.toLowerCase();
+        return new CategoryKeys("category_" + lower, lower);
+    }
+
+    private boolean getBoolean(String key) {
+        if (key == null) {
+            return true;
+        }
+        Object value = prefs.get(key);
+        return !(value instanceof Boolean) || (Boolean) value;
+    }
+}
@@ -9,46 +9,17 @@ public class NotificationPreferences {
     private static final String TAG = "NotificationPreferences";
     
     public static boolean areNotificationsEnabled(Context context, String category, String itemName) {
-        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
-        
         Log.d(TAG, "========== Checking notification preferences ==========");
         Log.d(TAG, "Category: " + category + ", Item: " + itemName);
         
-        // Check master toggle
-        boolean masterEnabled = prefs.getBoolean("notifications_master", true);
-        Log.d(TAG, "Master toggle (notifications_master): " + masterEnabled);
-        if (!masterEnabled) {
-            Log.d(TAG, "❌ Master toggle disabled - blocking all notifications");
-            return false;
-        }
-        
-        // Check category toggle (special case for marketplace and floating_island)
-        String categoryKey;
-        if ("marketplace".equals(category)) {
-            categoryKey = "marketplace_listings_enabled";
-        } else if ("floating_island".equals(category)) {
-            categoryKey = "floating_island_enabled";
-        } else {
-            categoryKey = "category_" + category.toLowerCase();
-        }
-        
-        boolean categoryEnabled = prefs.getBoolean(categoryKey, true);
-        Log.d(TAG, "Category toggle (" + categoryKey + "): " + categoryEnabled);
-        if (!categoryEnabled) {
-            Log.d(TAG, "❌ Category '" + category + "' disabled - blocking notification");
+        // Same rules the pipeline used when it scheduled this alarm; settings may have changed since
+        NotificationPlan plan = NotificationPlan.fromPreferences(context);
+        if (!plan.isCategoryEnabled(category)) {
+            Log.d(TAG, "❌ Category '" + category + "' (or master toggle) disabled - blocking notification");
             return false;
         }
         
-        // Check specific item toggle (marketplace, crafting, auction, floating_island, and animal_sick don't have per-item toggles)
-        if ("marketplace".equals(category) || "crafting".equals(category) || "auction".equals(category) || "floating_island".equals(category) || "animal_sick".equals(category)) {
-            Log.d(TAG, "✅ Final result for " + category + "/" + itemName + ": true (no per-item toggles for " + category + ")");
-            return true;
-        }
-        
-        String itemKey = category.toLowerCase() + "_" + itemName.toLowerCase().replace(" ", "_");
-        boolean itemEnabled = prefs.getBoolean(itemKey, true);
-        Log.d(TAG, "Item toggle (" + itemKey + "): " + itemEnabled);
-        
+        boolean itemEnabled = plan.isItemEnabled(category, itemName);
         Log.d(TAG, "✅ Final result for " + category + "/" + itemName + ": " + itemEnabled);
         return itemEnabled;
     }
@@ -57,4 +28,42 @@ public class NotificationPreferences {
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
         return prefs.getBoolean("cooking_group_by_building", false);
     }
+
+    /**
+     * Window for merging groups of different categories into digests (DigestCoalescer)
+     * @return Window in ms, or -1 if digests are off
+     */
+    public static long getDigestWindowMillis(Context context) {
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+        if (!prefs.getBoolean("digest_enabled", false)) {
+            return -1;
+        }
+        String windowStr = prefs.getString("digest_window_minutes", "2");
+        long windowMinutes = 2;
+        try {
+            windowMinutes = Math.max(0, Long.parseLong(windowStr.trim()));
+        } catch (NumberFormatException e) {
+            Log.e(TAG, "Invalid digest_window_minutes value: " + windowStr + ", using default 2 minutes");
+        }
+        return windowMinutes * 60 * 1000;
+    }
+
+    /**
+     * Most alarms a run should arm when clustering windows adapt to a budget (AlarmBudget)
+     * @return The budget, or 0 if windows are fixed
+     */
+    public static int getAlarmBudget(Context context) {
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+        if (!prefs.getBoolean("alarm_budget_enabled", false)) {
+            return 0;
+        }
+        String budgetStr = prefs.getString("alarm_budget", "40");
+        int budget = 40;
+        try {
+            budget = Math.max(1, Integer.parseInt(budgetStr.trim()));
+        } catch (NumberFormatException e) {
+            Log.e(TAG, "Invalid alarm_budget value: " + budgetStr + ", using default 40");
+        }
+        return budget;
+    }
 }
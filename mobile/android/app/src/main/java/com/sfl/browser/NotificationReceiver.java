@@ -13,6 +13,8 @@ import androidx.core.app.NotificationCompat;
 import androidx.preference.PreferenceManager;
 import android.util.Log;
 
+import com.sfl.browser.clustering.DigestCoalescer;
+
 public class NotificationReceiver extends BroadcastReceiver {
     private static final String CHANNEL_ID = "sunflower_notifications";
     private static final String CHANNEL_NAME = "Sunflower Land";
@@ -227,6 +229,20 @@ public class NotificationReceiver extends BroadcastReceiver {
             builder.setContentTitle(title != null ? title : "Got Api");
             builder.setContentText(body != null ? body : "");
             builder.setStyle(new NotificationCompat.BigTextStyle().bigText(body != null ? body : ""));
+        } else if (DigestCoalescer.CATEGORY.equals(category)) {
+            // Digest of several categories: one line per merged group
+            String[] lines = details != null ? details.split(DigestCoalescer.DIGEST_LINE_SEPARATOR) : new String[0];
+            String digestTitle = count + " things are ready!";
+            NotificationCompat.InboxStyle inbox = new NotificationCompat.InboxStyle()
+                .setBigContentTitle(digestTitle);
+            for (String line : lines) {
+                inbox.addLine(line);
+            }
+            builder.setContentTitle(digestTitle);
+            builder.setContentText(lines.length > 0 ? lines[0] : "");
+            builder.setNumber(count);
+            builder.setStyle(inbox);
+            Log.i("NOTIFICATION_DEBUG", "Digest notification with " + lines.length + " line(s)");
         } else {
             // Get the custom icon for this item
             // For marketplace notifications, use the marketplace icon instead of the item icon
@@ -606,12 +622,6 @@ public class NotificationReceiver extends BroadcastReceiver {
      * Format timestamp to user-friendly end time (e.g., "2:30 PM")
      */
     private String formatEndTime(long timestamp) {
-        try {
-            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("h:mm a");
-            return sdf.format(new java.util.Date(timestamp));
-        } catch (Exception e) {
-            Log.w("NOTIFICATION_DEBUG", "Error formatting end time: " + e.getMessage());
-            return "later";
-        }
+        return TimeUtils.formatClock(timestamp);
     }
 }
@@ -103,10 +103,10 @@ public class NotificationTestingActivity extends AppCompatActivity {
     }
     
     /**
-     * Initialize all test notification options based on real game items from Constants
+     * Initialize all test notification options based on real game items from GameTables
      */
     private void initializeTestOptions() {
-        // === CROPS (from Constants.CROP_GROWTH_TIMES) ===
+        // === CROPS (from GameTables.CROPS) ===
         addOption("Crop - Sunflower", "crops", "Sunflower");
         addOption("Crop - Potato", "crops", "Potato");
         addOption("Crop - Rhubarb", "crops", "Rhubarb");
@@ -131,7 +131,7 @@ public class NotificationTestingActivity extends AppCompatActivity {
         addOption("Crop - Artichoke", "crops", "Artichoke");
         addOption("Crop - Barley", "crops", "Barley");
         
-        // === FRUITS (from Constants.FRUIT_GROWTH_TIMES) ===
+        // === FRUITS (from GameTables.FRUITS) ===
         addOption("Fruit - Tomato", "fruits", "Tomato");
         addOption("Fruit - Lemon", "fruits", "Lemon");
         addOption("Fruit - Blueberry", "fruits", "Blueberry");
@@ -167,7 +167,7 @@ public class NotificationTestingActivity extends AppCompatActivity {
         addOption("Animal - Cow Needs Love", "animals_love", "Cow");
         addOption("Animal - Sheep Needs Love", "animals_love", "Sheep");
         
-        // === FLOWERS (from Constants.FLOWER_GROWTH_TIMES) ===
+        // === FLOWERS (from GameTables.FLOWERS) ===
         // Pansies (1 day)
         addOption("Flower - Red Pansy", "flowers", "Red Pansy");
         addOption("Flower - Yellow Pansy", "flowers", "Yellow Pansy");
@@ -232,7 +232,7 @@ public class NotificationTestingActivity extends AppCompatActivity {
         addOption("Flower - Blue Lotus", "flowers", "Blue Lotus");
         addOption("Flower - Primula Enigma", "flowers", "Primula Enigma");
         
-        // === COOKING (from Constants.COOKING_TIMES) ===
+        // === COOKING (from GameTables.COOKING) ===
         // Basic foods
         addOption("Cooking - Mashed Potato", "cooking", "Mashed Potato");
         addOption("Cooking - Pumpkin Soup", "cooking", "Pumpkin Soup");
@@ -322,7 +322,7 @@ public class NotificationTestingActivity extends AppCompatActivity {
         addOption("Composter - Turbo Composter", "composters", "Turbo Composter");
         addOption("Composter - Premium Composter", "composters", "Premium Composter");
         
-        // === CRAFTING - DOLLS (from Constants.CRAFTING_BOX_TIMES) ===
+        // === CRAFTING - DOLLS (from GameTables.CRAFTING_BOX) ===
         addOption("Crafting - Doll", "crafting", "Doll");
         addOption("Crafting - Angler Doll", "crafting", "Angler Doll");
         addOption("Crafting - Bigfin Doll", "crafting", "Bigfin Doll");
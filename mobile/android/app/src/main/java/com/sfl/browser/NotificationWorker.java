@@ -37,6 +37,7 @@ public class NotificationWorker extends Worker {
         
         // Ensure DebugLog is initialized in this worker process
         DebugLog.init(getApplicationContext());
+        NetworkMetrics.init(getApplicationContext());
         
         Log.d(TAG, "=== PERIODIC Execution - Worker #" + workerId + " Starting ===");
         DebugLog.log("=== PERIODIC Execution - Worker #" + workerId + " Starting ===");
@@ -52,22 +53,27 @@ public class NotificationWorker extends Worker {
             DebugLog.flush(getApplicationContext());
             
             return Result.success();
-        } catch (RuntimeException e) {
-            // API failure - log and retry with custom backoff
-            if (e.getMessage() != null && e.getMessage().contains("API call failed")) {
-                Log.w(TAG, "⚠️  Worker #" + workerId + " - API call failed, retrying in ~30 seconds...");
-                DebugLog.log("⚠️  Worker #" + workerId + " - API call failed, retrying in ~30 seconds...");
-                DebugLog.flush(getApplicationContext());
-                
-                // Return retry with automatic exponential backoff
-                return Result.retry();
-            } else {
-                // Other runtime exceptions = actual errors
-                Log.e(TAG, "❌ Worker #" + workerId + " - Processing error: " + e.getMessage(), e);
-                DebugLog.error("❌ Worker #" + workerId + " - Processing error", e);
+        } catch (FarmFetchException e) {
+            FetchFailure failure = e.getFailure();
+            // Only transient network failures are retried, and only while the shared budget lasts.
+            // 429/503 and an open circuit wait for the breaker; parse/4xx errors wait for the next poll.
+            if (failure.isRetryable() && !failure.isBackpressure()
+                    && new FetchCircuitBreaker(getApplicationContext()).tryConsumeRetry()) {
+                Log.w(TAG, "⚠️  Worker #" + workerId + " - API call failed (" + failure + "), retrying with backoff...");
+                DebugLog.log("⚠️  Worker #" + workerId + " - API call failed (" + failure + "), retrying with backoff...");
                 DebugLog.flush(getApplicationContext());
                 return Result.retry();
             }
+            Log.w(TAG, "⏭️  Worker #" + workerId + " - API call failed (" + failure + "), waiting for next scheduled poll");
+            DebugLog.log("⏭️  Worker #" + workerId + " - API call failed (" + failure + "), waiting for next scheduled poll");
+            DebugLog.flush(getApplicationContext());
+            return Result.success();
+        } catch (RuntimeException e) {
+            // Other runtime exceptions = actual errors
+            Log.e(TAG, "❌ Worker #" + workerId + " - Processing error: " + e.getMessage(), e);
+            DebugLog.error("❌ Worker #" + workerId + " - Processing error", e);
+            DebugLog.flush(getApplicationContext());
+            return Result.retry();
         } catch (Exception e) {
             Log.e(TAG, "❌ Worker #" + workerId + " - PERIODIC execution error: " + e.getMessage(), e);
             DebugLog.error("❌ Worker #" + workerId + " - PERIODIC execution error", e);
@@ -0,0 +1,148 @@
+package com.sfl.browser;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Single-flight guard for the farm pipeline.
+ *
+ * ImmediateNotificationWorker, the staggered NotificationWorkers and the legacy
+ * NotificationManagerService can all start a run for the same farm at overlapping times.
+ * Only one run per farm ID executes at once:
+ * - Within a process, callers that arrive while a run is in flight wait for it and share
+ *   its result (including its failure) instead of fetching again.
+ * - Across processes, a FileLock on filesDir/pipeline_<farmId>.lock serialises runs. The
+ *   lock file stores when the last run completed, so a caller that waited on the lock while
+ *   another process completed a run joins that run rather than repeating it. A run that
+ *   failed is not recorded, so the caller behind it runs the pipeline itself.
+ */
+public class PipelineCoordinator {
+    private static final String TAG = "PipelineCoordinator";
+
+    private static final ConcurrentHashMap<String, FutureTask<Void>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * The fetch → extract → cluster → schedule cycle
+     */
+    public interface Pipeline {
+        /**
+         * @return true if the run completed (including deciding nothing needed doing), false
+         *         if it failed and the next caller should try again
+         */
+        boolean run();
+    }
+
+    /**
+     * Run the pipeline for a farm, or join the run already in flight for it
+     * @param context Application context (for the lock file location)
+     * @param farmId Farm the pipeline is for
+     * @param pipeline The fetch → extract → cluster → schedule cycle
+     * @return true if this caller executed the pipeline, false if it joined another run
+     */
+    public static boolean runOrJoin(Context context, String farmId, Pipeline pipeline) {
+        final long arrivedAt = System.currentTimeMillis();
+        final boolean[] executed = {false};
+        File lockFile = new File(context.getFilesDir(), "pipeline_" + farmId.replaceAll("[^A-Za-z0-9_-]", "_") + ".lock");
+        FutureTask<Void> flight = new FutureTask<>(() -> {
+            executed[0] = runWithFileLock(lockFile, farmId, arrivedAt, pipeline);
+            return null;
+        });
+
+        FutureTask<Void> existing = inFlight.putIfAbsent(farmId, flight);
+        if (existing != null) {
+            Log.d(TAG, "Run already in flight for farm " + farmId + " - joining it");
+            DebugLog.log("⏸️ Pipeline already running for this farm - waiting for its result");
+            await(existing);
+            PipelineOutcome.record(context, PipelineOutcome.JOINED);
+            return false;
+        }
+
+        try {
+            flight.run();
+            await(flight);
+        } finally {
+            inFlight.remove(farmId, flight);
+        }
+        if (!executed[0]) {
+            PipelineOutcome.record(context, PipelineOutcome.JOINED);
+        }
+        return executed[0];
+    }
+
+    /**
+     * Take the cross-process lock and run the pipeline unless another process completed a run
+     * while we were waiting for it
+     * @return true if this caller ran the pipeline
+     */
+    static boolean runWithFileLock(File lockFile, String farmId, long arrivedAt, Pipeline pipeline) throws Exception {
+        try (RandomAccessFile raf = new RandomAccessFile(lockFile, "rw");
+             FileChannel channel = raf.getChannel();
+             FileLock lock = channel.lock()) {
+            long lastFinishedAt = readLastFinished(channel);
+            if (lastFinishedAt >= arrivedAt) {
+                Log.d(TAG, "Another process completed a run for farm " + farmId + " while we waited - joining it");
+                DebugLog.log("⏸️ Another process just processed this farm - skipping duplicate run");
+                return false;
+            }
+            // Only completed runs can be joined; after a failure the next caller tries again
+            if (pipeline.run()) {
+                writeLastFinished(channel, System.currentTimeMillis());
+            }
+            return true;
+        }
+    }
+
+    private static long readLastFinished(FileChannel channel) {
+        try {
+            if (channel.size() < Long.BYTES) {
+                return 0;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            channel.read(buffer, 0);
+            buffer.flip();
+            return buffer.getLong();
+        } catch (Exception e) {
+            Log.w(TAG, "Could not read pipeline lock file: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static void writeLastFinished(FileChannel channel, long finishedAt) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            buffer.putLong(finishedAt);
+            buffer.flip();
+            channel.write(buffer, 0);
+            channel.force(false);
+        } catch (Exception e) {
+            Log.w(TAG, "Could not write pipeline lock file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Wait for a run and rethrow its failure, so joiners see the same outcome as the runner
+     */
+    private static void await(FutureTask<Void> flight) {
+        try {
+            flight.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for in-flight pipeline run", e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.sfl.browser;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+/**
+ * Counts how each farm pipeline run ended so Diagnostics can show how often
+ * polls are skipped, fail, or do the full fetch → schedule cycle.
+ */
+public class PipelineOutcome {
+    private static final String TAG = "PipelineOutcome";
+    private static final String PREFS_NAME = "pipeline_outcomes";
+
+    public static final String FULL = "full";
+    public static final String SKIPPED_UNCHANGED = "skipped_unchanged";
+    public static final String FAILED = "failed";
+    public static final String JOINED = "joined_in_flight";
+    public static final String OFFLINE_RECOMPUTE = "offline_recompute";
+    public static final String OFFLINE_SKIPPED = "offline_skipped";
+
+    private static final String[] ALL = {FULL, SKIPPED_UNCHANGED, JOINED, OFFLINE_RECOMPUTE, OFFLINE_SKIPPED, FAILED};
+
+    /**
+     * Record one finished run
+     * @param outcome One of the outcome constants
+     */
+    public static void record(Context context, String outcome) {
+        try {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            prefs.edit()
+                    .putLong(outcome + "_count", prefs.getLong(outcome + "_count", 0) + 1)
+                    .putString("last_outcome", outcome)
+                    .putLong("last_outcome_time", System.currentTimeMillis())
+                    .apply();
+        } catch (Exception e) {
+            Log.w(TAG, "Error recording pipeline outcome: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Human-readable counts for the Diagnostics screen
+     */
+    public static String getSummary(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        StringBuilder sb = new StringBuilder();
+        for (String outcome : ALL) {
+            sb.append("  ").append(outcome).append(": ").append(prefs.getLong(outcome + "_count", 0)).append("\n");
+        }
+        sb.append("  last: ").append(prefs.getString("last_outcome", "none")).append("\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,204 @@
+package com.sfl.browser;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.sfl.browser.clustering.AlarmBudget;
+import com.sfl.browser.clustering.CategoryClusterer;
+import com.sfl.browser.clustering.ClustererFactory;
+import com.sfl.browser.clustering.NotificationGroup;
+import com.sfl.browser.models.FarmState;
+import com.sfl.browser.models.ItemBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One pipeline run's intermediate results, handed from stage to stage.
+ *
+ * Each stage lets go of what it consumed before the next one starts, so a run never holds
+ * the decoded farm, its extracted items and the clustered groups at once: extract() drops
+ * the farm (keeping only its pets, for pet sleep notifications) and cluster() empties each
+ * category's batch as soon as its groups exist. Peak heap is then about the largest stage
+ * rather than the sum of them, which is what gets the worker killed on low-RAM phones.
+ *
+ * With an alarm budget set, cluster() holds the batches of the time-window categories until
+ * every category is clustered, and lets AlarmBudget widen their windows until the run's
+ * groups fit the budget.
+ *
+ * A StageListener sees the run after every stage, and inside extract() and cluster() at the
+ * point where the stage holds the most: its input and its output at once. FarmDataProcessor
+ * logs heap use there; PipelineMemoryTest measures retained heap there against its budget.
+ *
+ * Usage:
+ *   PipelineRun run = new PipelineRun(farm, listener);
+ *   run.extract(plan, cache, groupCookingByBuilding);
+ *   run.cluster(context, plan, cache);
+ *   scheduler.scheduleNotificationAlarms(run.groups);
+ */
+final class PipelineRun {
+    private static final String TAG = "PipelineRun";
+
+    /**
+     * Called at each checkpoint: "<stage> peak" inside a stage, before its input is released,
+     * and "<stage>" after it, with the input already released
+     */
+    interface StageListener {
+        void onCheckpoint(String checkpoint, PipelineRun run);
+    }
+
+    // Input of extract(); null afterwards
+    FarmState farm;
+    // farm.pets, kept past extract() for pet sleep notifications
+    FarmState.Pets pets;
+    // Output of extract() and input of cluster(); null after cluster()
+    FarmExtractionEngine.Buckets items;
+    // Output of cluster(); later stages append theirs
+    final List<NotificationGroup> groups = new ArrayList<>();
+    // Groups of categories built outside cluster() (daily reset, marketplace, auctions, pets,
+    // ...); cluster() counts them against alarmBudget and appends them to groups
+    List<NotificationGroup> fixedGroups;
+    // Most alarms cluster()'s groups should arm, 0 for every clusterer's own windows
+    int alarmBudget;
+    // AlarmBudget.describe() of the last cluster() with a budget, for the processing log
+    String budgetReport;
+
+    private final StageListener listener;
+
+    PipelineRun(FarmState farm, StageListener listener) {
+        this.farm = farm;
+        this.listener = listener;
+    }
+
+    /**
+     * Extract every enabled category, drop muted items, then release the farm
+     * @param groupCookingByBuilding Cooking groups are named after buildings then, so muted
+     *                               dishes are not dropped
+     */
+    void extract(NotificationPlan plan, ExtractionCache cache, boolean groupCookingByBuilding) {
+        items = FarmExtractionEngine.extract(farm, plan, cache);
+        // Muted items are dropped before clustering wherever a group is named after its items
+        plan.retainEnabled("crops", items.crops);
+        plan.retainEnabled("fruits", items.fruits);
+        plan.retainEnabled("greenhouse_crops", items.greenhouseCrops);
+        plan.retainEnabled("resource", items.resources);
+        plan.retainEnabled("animals", items.animals);
+        if (!groupCookingByBuilding) {
+            plan.retainEnabled("cooking", items.cooking);
+        }
+        plan.retainEnabled("composters", items.composters);
+        plan.retainEnabled("flowers", items.flowers);
+        plan.retainEnabled("crafting", items.craftingBox);
+        plan.retainEnabled("skill_cooldown", items.skillCooldowns);
+        stagePeak("extract");
+
+        pets = farm != null ? farm.pets : null;
+        farm = null;
+        stageComplete("extract");
+    }
+
+    /**
+     * Cluster every extracted category into groups, emptying each batch once it is
+     * clustered, then release the items. Categories unchanged since the last poll reuse
+     * their cached groups.
+     * @param context For the clusterers that read preferences; may be null
+     */
+    void cluster(Context context, NotificationPlan plan, ExtractionCache cache) {
+        Set<String> changed = items.changedCategories;
+        AlarmBudget budget = alarmBudget > 0 ? new AlarmBudget(alarmBudget, System.currentTimeMillis()) : null;
+        // Each category's groups in order; null for those AlarmBudget has yet to cluster
+        List<List<NotificationGroup>> byCategory = new ArrayList<>();
+        List<String> budgeted = new ArrayList<>();
+        cluster(context, plan, cache, changed, budget, byCategory, budgeted, "crops", "crops", items.crops);
+        cluster(context, plan, cache, changed, budget, byCategory, budgeted, "fruits", "fruits", items.fruits);
+        cluster(context, plan, cache, changed, budget, byCategory, budgeted, "greenhouse_crops", "greenhouse_crops", items.greenhouseCrops);
+        cluster(context, plan, cache, changed, budget, byCategory, budgeted, "resource", "resources", items.resources);
+        cluster(context, plan, cache, changed, budget, byCategory, budgeted, "animals", "animals", items.animals);
+        cluster(context, plan, cache, changed, budget, byCategory, budgeted, "cooking", "cooking", items.cooking);
+        cluster(context, plan, cache, changed, budget, byCategory, budgeted, "composters", "composters", items.composters);
+        cluster(context, plan, cache, changed, budget, byCategory, budgeted, "flowers", "flowers", items.flowers);
+        cluster(context, plan, cache, changed, budget, byCategory, budgeted, "crafting", "crafting_box", items.craftingBox);
+        cluster(context, plan, cache, changed, budget, byCategory, budgeted, "beehive", "beehives", items.beehives);
+        cluster(context, plan, cache, changed, budget, byCategory, budgeted, "cropMachine", "crop_machine", items.cropMachine);
+        cluster(context, plan, cache, changed, budget, byCategory, budgeted, "sunstones", "sunstones", items.sunstones);
+        cluster(context, plan, cache, changed, budget, byCategory, budgeted, "skill_cooldown", "skill_cooldown", items.skillCooldowns);
+
+        if (budget != null) {
+            if (fixedGroups != null) {
+                budget.addFixed(fixedGroups);
+            }
+            budget.optimize();
+            budgetReport = budget.describe();
+            for (int i = 0, next = 0; i < byCategory.size(); i++) {
+                if (byCategory.get(i) == null) {
+                    byCategory.set(i, budget.groups(budgeted.get(next++)));
+                }
+            }
+        }
+        for (List<NotificationGroup> categoryGroups : byCategory) {
+            groups.addAll(categoryGroups);
+        }
+        if (fixedGroups != null) {
+            groups.addAll(fixedGroups);
+            fixedGroups = null;
+        }
+        stagePeak("cluster");
+        items = null;
+        stageComplete("cluster");
+    }
+
+    /**
+     * Report a stage finished by the caller (scheduling, logging) to the listener
+     */
+    void stageComplete(String stage) {
+        if (listener != null) {
+            listener.onCheckpoint(stage, this);
+        }
+    }
+
+    /**
+     * Report a stage at its peak, still holding its input alongside its output
+     */
+    private void stagePeak(String stage) {
+        if (listener != null) {
+            listener.onCheckpoint(stage + " peak", this);
+        }
+    }
+
+    /**
+     * Cluster one category into groups unless the plan has it disabled, reusing the groups
+     * cached for it while its items are unchanged. With a budget, time-window categories
+     * are handed to it instead and get a null entry in byCategory.
+     * @param changed Buckets.changedCategories of this run's extraction
+     * @param budgeted Categories handed to the budget, in order
+     */
+    private void cluster(Context context, NotificationPlan plan, ExtractionCache cache, Set<String> changed,
+                         AlarmBudget budget, List<List<NotificationGroup>> byCategory, List<String> budgeted,
+                         String category, String clusterer, ItemBatch batch) {
+        if (plan.isCategoryEnabled(category)) {
+            CategoryClusterer categoryClusterer = ClustererFactory.getClusterer(clusterer, context);
+            if (budget != null && categoryClusterer.policy() != null) {
+                // Windows depend on the whole run, so cached groups no longer apply either way
+                cache.putGroups(category, null);
+                budget.add(category, batch, categoryClusterer.policy());
+                budgeted.add(category);
+                byCategory.add(null);
+                batch.clear();
+                return;
+            }
+            List<NotificationGroup> categoryGroups = changed.contains(category) ? null : cache.getGroups(category);
+            if (categoryGroups != null) {
+                Log.d(TAG, "  " + category + ": unchanged, reusing " + categoryGroups.size() + " group(s)");
+            } else {
+                categoryGroups = categoryClusterer.cluster(batch);
+                cache.putGroups(category, categoryGroups);
+            }
+            if (budget != null) {
+                budget.addFixed(categoryGroups);
+            }
+            byCategory.add(categoryGroups);
+        }
+        batch.clear();
+    }
+}
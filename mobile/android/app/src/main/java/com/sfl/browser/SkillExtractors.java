@@ -2,6 +2,7 @@ package com.sfl.browser;
 
 import com.google.gson.JsonObject;
 import com.sfl.browser.models.FarmItem;
+import com.sfl.browser.models.FarmState;
 import android.util.Log;
 
 import java.util.ArrayList;
@@ -31,22 +32,35 @@ public class SkillExtractors {
      * 3. Will refresh in the future
      */
     public static List<FarmItem> extractSkillCooldowns(JsonObject bumpkinObject) {
+        return extractSkillCooldowns(bumpkinObject == null ? null : FarmStateReader.readTree(FarmStateReader.BUMPKIN, bumpkinObject));
+    }
+
+    /**
+     * Same as above, from the typed farm.bumpkin
+     */
+    public static List<FarmItem> extractSkillCooldowns(FarmState.Bumpkin bumpkin) {
+        return extractSkillCooldowns(new ExtractionContext(System.currentTimeMillis()), bumpkin);
+    }
+
+    /**
+     * Same as above, cut off at the run's clock
+     */
+    static List<FarmItem> extractSkillCooldowns(ExtractionContext ctx, FarmState.Bumpkin bumpkin) {
         List<FarmItem> items = new ArrayList<>();
         
         try {
-            if (!bumpkinObject.has("previousPowerUseAt") || !bumpkinObject.has("skills")) {
+            if (bumpkin == null || bumpkin.previousPowerUseAt == null || bumpkin.skills == null) {
                 Log.d(TAG, "No previousPowerUseAt or skills section found in bumpkin data");
                 return items;
             }
             
-            JsonObject previousPowerUseAt = bumpkinObject.getAsJsonObject("previousPowerUseAt");
-            JsonObject skills = bumpkinObject.getAsJsonObject("skills");
-            long currentTime = System.currentTimeMillis();
+            long currentTime = ctx.now;
             
             // Check each skill that has been used
-            for (String skillName : previousPowerUseAt.keySet()) {
+            for (Map.Entry<String, Long> powerUse : bumpkin.previousPowerUseAt.entrySet()) {
+                String skillName = powerUse.getKey();
                 // Only process skills that the player has learned
-                if (!skills.has(skillName)) {
+                if (!bumpkin.skills.contains(skillName)) {
                     Log.d(TAG, "Skill " + skillName + " not in skills section, skipping");
                     continue;
                 }
@@ -59,7 +73,7 @@ public class SkillExtractors {
                 }
                 
                 // Get when the skill was last used
-                long lastUsedTime = previousPowerUseAt.get(skillName).getAsLong();
+                long lastUsedTime = powerUse.getValue();
                 
                 // Calculate when the skill will be ready
                 long readyTime = lastUsedTime + cooldownMs;
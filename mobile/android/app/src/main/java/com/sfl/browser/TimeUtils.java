@@ -0,0 +1,287 @@
+package com.sfl.browser;
+
+import java.util.TimeZone;
+
+/**
+ * Allocation-light time parsing and formatting for the extraction and logging paths.
+ *
+ * SimpleDateFormat builds a Calendar, a DecimalFormat and a Date per use, and the extractors
+ * format a timestamp for nearly every item they log. These helpers compute the calendar fields
+ * arithmetically and write them into one StringBuilder, so a call allocates little beyond its result.
+ * java.time would do the same but needs API 26 (minSdk is 23).
+ *
+ * All formatters use the device time zone and US-style AM/PM, matching the SimpleDateFormat
+ * patterns they replace (noted on each method). Everything here is stateless and thread-safe.
+ */
+public final class TimeUtils {
+    private static final long MS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final long INVALID = Long.MIN_VALUE;
+
+    // TimeZone.getDefault() returns a clone, so re-read it at most once a minute;
+    // that still follows a time zone change long before any alarm could notice
+    private static final long ZONE_REFRESH_MS = 60 * 1000;
+    private static volatile TimeZone cachedZone;
+    private static volatile long zoneReadAt;
+
+    private TimeUtils() {}
+
+    /**
+     * Parse an ISO 8601 date-time such as "2025-11-01T15:30:00Z", "2025-11-01T15:30:00.123Z"
+     * or "2025-11-01T15:30:00+02:00". A missing offset is read as UTC, which is what the API sends.
+     * @return Epoch milliseconds, or 0 if the string is null or not in that form
+     */
+    public static long parseIso8601(String text) {
+        long parsed = parseUtc(text);
+        return parsed == INVALID ? 0 : parsed;
+    }
+
+    /**
+     * parseIso8601 without the 0 fallback, so the epoch itself stays distinguishable
+     * @return Epoch milliseconds, or INVALID
+     */
+    private static long parseUtc(String text) {
+        if (text == null || text.length() < 19 || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || (text.charAt(10) != 'T' && text.charAt(10) != ' ')
+                || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return INVALID;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return INVALID;
+        }
+
+        int pos = 19;
+        int millis = 0;
+        if (pos < text.length() && text.charAt(pos) == '.') {
+            pos++;
+            int scale = 100;
+            while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                millis += (text.charAt(pos) - '0') * scale;
+                scale /= 10;
+                pos++;
+            }
+        }
+
+        long offsetMs = 0;
+        if (pos < text.length()) {
+            char sign = text.charAt(pos);
+            if (sign == '+' || sign == '-') {
+                int offsetHours = digits(text, pos + 1, 2);
+                int offsetMinutes = 0;
+                if (pos + 3 < text.length()) {
+                    offsetMinutes = digits(text, text.charAt(pos + 3) == ':' ? pos + 4 : pos + 3, 2);
+                }
+                if (offsetHours < 0 || offsetMinutes < 0) {
+                    return INVALID;
+                }
+                offsetMs = (offsetHours * 60L + offsetMinutes) * 60 * 1000;
+                if (sign == '-') {
+                    offsetMs = -offsetMs;
+                }
+            } else if (sign != 'Z' && sign != 'z') {
+                return INVALID;
+            }
+        }
+
+        long days = daysFromCivil(year, month, day);
+        return days * MS_PER_DAY + ((hour * 60L + minute) * 60 + second) * 1000 + millis - offsetMs;
+    }
+
+    /**
+     * Parse a local "yyyy-MM-dd HH:mm:ss" date-time in the device time zone
+     * @return Epoch milliseconds, or -1 if the string is not in that form
+     */
+    public static long parseLocalDateTime(String text) {
+        if (text == null || text.length() != 19 || text.charAt(10) != ' ') {
+            return -1;
+        }
+        long utc = parseUtc(text);
+        if (utc == INVALID) {
+            return -1;
+        }
+        // Offset at the wall-clock instant; only ambiguous inside a DST transition hour
+        TimeZone zone = zone();
+        long guess = utc - zone.getOffset(utc);
+        return utc - zone.getOffset(guess);
+    }
+
+    /**
+     * "MM/dd HH:mm:ss" - extractor and debug log lines
+     */
+    public static String formatShort(long timestamp) {
+        int[] f = fields(timestamp);
+        StringBuilder sb = new StringBuilder(14);
+        pad2(sb, f[1]).append('/');
+        pad2(sb, f[2]).append(' ');
+        return appendTime(sb, f[3], f[4], f[5]).toString();
+    }
+
+    /**
+     * "yyyy-MM-dd HH:mm:ss"
+     */
+    public static String formatDateTime(long timestamp) {
+        int[] f = fields(timestamp);
+        StringBuilder sb = new StringBuilder(19);
+        sb.append(f[0]).append('-');
+        pad2(sb, f[1]).append('-');
+        pad2(sb, f[2]).append(' ');
+        return appendTime(sb, f[3], f[4], f[5]).toString();
+    }
+
+    /**
+     * "MM/dd/yyyy h:mm:ss a" - the "Generated at" header of the log files
+     */
+    public static String formatLogHeader(long timestamp) {
+        int[] f = fields(timestamp);
+        StringBuilder sb = new StringBuilder(22);
+        pad2(sb, f[1]).append('/');
+        pad2(sb, f[2]).append('/').append(f[0]).append(' ');
+        return appendClock(sb, f[3], f[4], f[5], true).toString();
+    }
+
+    /**
+     * "HH:mm:ss"
+     */
+    public static String formatTime(long timestamp) {
+        int[] f = fields(timestamp);
+        return appendTime(new StringBuilder(8), f[3], f[4], f[5]).toString();
+    }
+
+    /**
+     * "h:mm a" - delivery times shown in notifications
+     */
+    public static String formatClock(long timestamp) {
+        int[] f = fields(timestamp);
+        return appendClock(new StringBuilder(8), f[3], f[4], 0, false).toString();
+    }
+
+    /**
+     * "yyyy-MM-dd_HH-mm-ss" - safe in file names
+     */
+    public static String formatFileStamp(long timestamp) {
+        int[] f = fields(timestamp);
+        StringBuilder sb = new StringBuilder(19);
+        sb.append(f[0]).append('-');
+        pad2(sb, f[1]).append('-');
+        pad2(sb, f[2]).append('_');
+        pad2(sb, f[3]).append('-');
+        pad2(sb, f[4]).append('-');
+        return pad2(sb, f[5]).toString();
+    }
+
+    /**
+     * Rewrite a 24-hour "HH:mm:ss" string as "h:mm:ss a"
+     * @return The converted time, or the input unchanged if it is not in that form
+     */
+    public static String to12Hour(String time) {
+        if (time == null || time.length() != 8 || time.charAt(2) != ':' || time.charAt(5) != ':') {
+            return time;
+        }
+        int hour = digits(time, 0, 2);
+        int minute = digits(time, 3, 2);
+        int second = digits(time, 6, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return time;
+        }
+        return appendClock(new StringBuilder(11), hour, minute, second, true).toString();
+    }
+
+    /**
+     * Local calendar fields {year, month, day, hour, minute, second} for an epoch timestamp
+     */
+    static int[] fields(long timestamp) {
+        long local = timestamp + zone().getOffset(timestamp);
+        long days = Math.floorDiv(local, MS_PER_DAY);
+        int msOfDay = (int) Math.floorMod(local, MS_PER_DAY);
+
+        // Civil date from days since 1970-01-01 (Howard Hinnant's algorithm)
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+
+        int secondOfDay = msOfDay / 1000;
+        return new int[]{year, month, day, secondOfDay / 3600, (secondOfDay / 60) % 60, secondOfDay % 60};
+    }
+
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /**
+     * Forget the cached zone so the next call reads TimeZone.getDefault() again
+     */
+    static void invalidateZone() {
+        cachedZone = null;
+    }
+
+    private static TimeZone zone() {
+        long now = System.currentTimeMillis();
+        TimeZone zone = cachedZone;
+        if (zone == null || now - zoneReadAt > ZONE_REFRESH_MS || now < zoneReadAt) {
+            zone = TimeZone.getDefault();
+            cachedZone = zone;
+            zoneReadAt = now;
+        }
+        return zone;
+    }
+
+    /**
+     * Reads a run of ASCII digits
+     * @return The value, or -1 if any character is not a digit or the run is out of range
+     */
+    private static int digits(String text, int start, int count) {
+        if (start < 0 || start + count > text.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static StringBuilder pad2(StringBuilder sb, int value) {
+        if (value < 10) {
+            sb.append('0');
+        }
+        return sb.append(value);
+    }
+
+    private static StringBuilder appendTime(StringBuilder sb, int hour, int minute, int second) {
+        pad2(sb, hour).append(':');
+        pad2(sb, minute).append(':');
+        return pad2(sb, second);
+    }
+
+    private static StringBuilder appendClock(StringBuilder sb, int hour, int minute, int second, boolean withSeconds) {
+        int hour12 = hour % 12 == 0 ? 12 : hour % 12;
+        sb.append(hour12).append(':');
+        pad2(sb, minute);
+        if (withSeconds) {
+            sb.append(':');
+            pad2(sb, second);
+        }
+        return sb.append(hour < 12 ? " AM" : " PM");
+    }
+}
@@ -0,0 +1,213 @@
+package com.sfl.browser.clustering;
+
+import android.util.Log;
+import com.sfl.browser.models.ItemBatch;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Widens the clustering windows of time-window categories until a run arms at most a given
+ * number of alarms.
+ *
+ * Every category added is clustered at its clusterer's own window and at each wider window
+ * of WINDOWS. Only groups still in the future count, since AlarmScheduler arms nothing for
+ * the others. While the run is over budget, the optimiser greedily moves one category to the
+ * wider window that saves the most alarms per unit of added delay, where a category's delay
+ * is the total time between each item's ready time and its group's (when its notification
+ * fires). If even the widest windows are over budget, the widest are kept.
+ *
+ * Usage:
+ *   AlarmBudget budget = new AlarmBudget(40, System.currentTimeMillis());
+ *   budget.addFixed(otherGroups);
+ *   budget.add("crops", batch, clusterer.policy());
+ *   budget.optimize();
+ *   List<NotificationGroup> cropGroups = budget.groups("crops");
+ *   Log.d(TAG, budget.describe());
+ */
+public final class AlarmBudget {
+    private static final String TAG = "AlarmBudget";
+    private static final long MINUTE_MS = 60000;
+
+    // Windows tried above a clusterer's own
+    static final long[] WINDOWS = {
+        MINUTE_MS, 2 * MINUTE_MS, 5 * MINUTE_MS, 10 * MINUTE_MS, 15 * MINUTE_MS,
+        30 * MINUTE_MS, 60 * MINUTE_MS, 120 * MINUTE_MS
+    };
+
+    /**
+     * One category's groups at one window
+     */
+    private static final class Step {
+        final long window;
+        final List<NotificationGroup> groups;
+        final int alarms;
+        final long delay;
+
+        Step(long window, List<NotificationGroup> groups, int alarms, long delay) {
+            this.window = window;
+            this.groups = groups;
+            this.alarms = alarms;
+            this.delay = delay;
+        }
+    }
+
+    private static final class Lane {
+        final String category;
+        final List<Step> steps = new ArrayList<>();
+        int chosen;
+
+        Lane(String category) {
+            this.category = category;
+        }
+
+        Step current() {
+            return steps.get(chosen);
+        }
+    }
+
+    private final int budget;
+    private final long now;
+    private final List<Lane> lanes = new ArrayList<>();
+    private int fixedAlarms;
+    private int alarmsBefore;
+    private int alarmsAfter;
+
+    /**
+     * @param budget Most alarms the run should arm
+     * @param now Groups ready at or before this time arm no alarm
+     */
+    public AlarmBudget(int budget, long now) {
+        this.budget = budget;
+        this.now = now;
+    }
+
+    /**
+     * Count groups of categories whose windows are not adjusted against the budget
+     */
+    public void addFixed(List<NotificationGroup> groups) {
+        fixedAlarms += countAlarms(groups);
+    }
+
+    /**
+     * Cluster a category at each candidate window. The batch is not needed afterwards.
+     * @param policy The category's clusterer's policy (CategoryClusterer.policy())
+     */
+    public void add(String category, ItemBatch items, ClusterPolicy policy) {
+        Lane lane = new Lane(category);
+        lane.steps.add(step(items, policy, policy.window));
+        for (long window : WINDOWS) {
+            if (window > policy.window) {
+                lane.steps.add(step(items, policy, window));
+            }
+        }
+        lanes.add(lane);
+    }
+
+    /**
+     * Choose every category's window
+     */
+    public void optimize() {
+        int alarms = fixedAlarms;
+        for (Lane lane : lanes) {
+            lane.chosen = 0;
+            alarms += lane.current().alarms;
+        }
+        alarmsBefore = alarms;
+
+        while (alarms > budget) {
+            Lane bestLane = null;
+            int bestStep = -1;
+            double bestRate = -1;
+            for (Lane lane : lanes) {
+                Step current = lane.current();
+                for (int s = lane.chosen + 1; s < lane.steps.size(); s++) {
+                    Step wider = lane.steps.get(s);
+                    int saved = current.alarms - wider.alarms;
+                    if (saved <= 0) {
+                        continue;
+                    }
+                    // Alarms saved per minute of added delay
+                    double rate = saved / (Math.max(0, wider.delay - current.delay) / (double) MINUTE_MS + 1);
+                    if (rate > bestRate) {
+                        bestRate = rate;
+                        bestLane = lane;
+                        bestStep = s;
+                    }
+                }
+            }
+            if (bestLane == null) {
+                Log.w(TAG, "Cannot get " + alarms + " alarms under budget " + budget + ", keeping widest windows");
+                break;
+            }
+            alarms -= bestLane.current().alarms - bestLane.steps.get(bestStep).alarms;
+            bestLane.chosen = bestStep;
+        }
+        alarmsAfter = alarms;
+        Log.d(TAG, describe());
+    }
+
+    /**
+     * @return The category's groups at its chosen window, or null if it was not added
+     */
+    public List<NotificationGroup> groups(String category) {
+        Lane lane = lane(category);
+        return lane != null ? lane.current().groups : null;
+    }
+
+    /**
+     * @return The category's chosen window in ms, or -1 if it was not added
+     */
+    public long window(String category) {
+        Lane lane = lane(category);
+        return lane != null ? lane.current().window : -1;
+    }
+
+    /**
+     * Chosen windows and alarm counts, for the processing log
+     */
+    public String describe() {
+        StringBuilder out = new StringBuilder("Alarm budget " + budget + ": " + alarmsBefore + " -> " + alarmsAfter + " alarm(s); windows");
+        for (Lane lane : lanes) {
+            out.append(' ').append(lane.category).append('=').append(formatWindow(lane.current().window));
+            if (lane.chosen > 0) {
+                out.append(" (was ").append(formatWindow(lane.steps.get(0).window)).append(')');
+            }
+        }
+        return out.toString();
+    }
+
+    private Lane lane(String category) {
+        for (Lane lane : lanes) {
+            if (lane.category.equals(category)) {
+                return lane;
+            }
+        }
+        return null;
+    }
+
+    private Step step(ItemBatch items, ClusterPolicy policy, long window) {
+        long[] delay = new long[1];
+        List<NotificationGroup> groups = SweepClusterer.cluster(items, policy.withWindow(window), delay);
+        return new Step(window, groups, countAlarms(groups), delay[0]);
+    }
+
+    private int countAlarms(List<NotificationGroup> groups) {
+        int alarms = 0;
+        for (NotificationGroup group : groups) {
+            if (group.earliestReadyTime > now) {
+                alarms++;
+            }
+        }
+        return alarms;
+    }
+
+    private static String formatWindow(long window) {
+        if (window == Long.MAX_VALUE) {
+            return "unlimited";
+        }
+        if (window % MINUTE_MS == 0) {
+            return (window / MINUTE_MS) + "m";
+        }
+        return (window / 1000) + "s";
+    }
+}
@@ -6,12 +6,10 @@ import android.util.Log;
 import androidx.preference.PreferenceManager;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.sfl.browser.TimeUtils;
 import com.sfl.browser.models.FarmItem;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Clustering strategy for auction schedule items
@@ -226,12 +224,7 @@ public class AuctionScheduleClusterer extends CategoryClusterer {
      * Format timestamp for logging
      */
     private String formatTimestamp(long timestamp) {
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-            return sdf.format(new Date(timestamp));
-        } catch (Exception e) {
-            return String.valueOf(timestamp);
-        }
+        return TimeUtils.formatDateTime(timestamp);
     }
 
     /**
@@ -1,6 +1,7 @@
 package com.sfl.browser.clustering;
 
 import com.sfl.browser.models.FarmItem;
+import com.sfl.browser.models.ItemBatch;
 import java.util.List;
 
 /**
@@ -16,12 +17,27 @@ public abstract class CategoryClusterer {
      */
     public abstract List<NotificationGroup> cluster(List<FarmItem> items);
     
+    /**
+     * Cluster a batch from FarmExtractionEngine. Clusterers run by a ClusterPolicy override
+     * this to read the columns; the rest get the batch as FarmItems.
+     */
+    public List<NotificationGroup> cluster(ItemBatch items) {
+        return cluster(items.toItems());
+    }
+    
+    /**
+     * The policy this clusterer sweeps every batch with, if its groups are time windows an
+     * AlarmBudget may widen; null otherwise
+     */
+    public ClusterPolicy policy() {
+        return null;
+    }
+    
     /**
      * Generate a unique cluster ID for tracking in SharedPreferences
      * Override to customize tracking key generation
      */
     public String generateClusterId(NotificationGroup group) {
-        long timeBucket = (group.earliestReadyTime / 60000) * 60000;
-        return group.category + "_" + group.name + "_" + timeBucket;
+        return ClusterPolicy.CLUSTER_ID.groupId(group, group.category);
     }
 }
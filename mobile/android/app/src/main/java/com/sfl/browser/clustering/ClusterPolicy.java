@@ -0,0 +1,175 @@
+package com.sfl.browser.clustering;
+
+/**
+ * One category's clustering rules, as data for SweepClusterer.
+ *
+ * A policy says which items may share a group (categories, key), how far apart their ready
+ * times may be (window, measured from a group's first item), and how a group is written out:
+ * quantity, ready time, category, name, details and groupId.
+ *
+ * Defaults: every category, grouped by item name, 0 ms window, quantity = number of items,
+ * ready time = earliest, category and name from the items, no details, IDs from
+ * CLUSTER_ID.
+ *
+ * Usage:
+ *   static final ClusterPolicy FLOWERS = new ClusterPolicy()
+ *           .window(60_000)
+ *           .quantity(ClusterPolicy.Quantity.SUM)
+ *           .category("flowers");
+ */
+public final class ClusterPolicy {
+
+    /** What items must have in common to be grouped */
+    public enum Key {
+        NAME,       // item name
+        BUILDING,   // building name, "Unknown" when an item has none
+        ITEM,       // nothing: every item is its own group, in batch order
+        NONE        // nothing: all of a category's items are swept together
+    }
+
+    /** How a group's quantity is counted */
+    public enum Quantity {
+        COUNT,      // number of items
+        SUM         // sum of item amounts
+    }
+
+    /** Which item's ready time becomes the group's */
+    public enum ReadyTime {
+        EARLIEST,
+        LATEST
+    }
+
+    /** How a group is named */
+    public enum Naming {
+        KEY,            // the grouping key (item name, or building name for Key.BUILDING)
+        SLEEPING_PETS   // "{name} went to sleep!" or "multiple pets went to sleep!"
+    }
+
+    /** What goes in a group's details */
+    public enum Details {
+        NONE,           // null
+        ITEM_DETAILS,   // the items' own details, joined with ", " (composters)
+        ITEM_TOTALS,    // "3 Sunflower Crunch, Roast Veggies": amount per item name (cooking)
+        NAMES           // item names, joined with ", " (pets)
+    }
+
+    /**
+     * Builds a finished group's groupId
+     */
+    public interface GroupIds {
+        /**
+         * @param itemCategory Category of the group's items, which may differ from group.category
+         */
+        String groupId(NotificationGroup group, String itemCategory);
+    }
+
+    /** category_name_minute, stable across polls while a group keeps its earliest item */
+    public static final GroupIds CLUSTER_ID = (group, itemCategory) -> {
+        long timeBucket = (group.earliestReadyTime / 60000) * 60000;
+        return group.category + "_" + group.name + "_" + timeBucket;
+    };
+
+    /** lowercase name_readyTime */
+    public static final GroupIds NAME_AND_TIME = (group, itemCategory) ->
+            group.name.toLowerCase() + "_" + group.earliestReadyTime;
+
+    /** pet_sleep_pet_single|pet_multiple_hash of the pet names_minute */
+    public static final GroupIds PET_SLEEP = (group, itemCategory) -> {
+        long minuteBucket = (group.earliestReadyTime / 60000) * 60000;
+        String type = group.quantity == 1 ? "pet_single" : "pet_multiple";
+        return "pet_sleep_" + type + "_" + group.details.hashCode() + "_" + minuteBucket;
+    };
+
+    /**
+     * prefix + now + random number; a new ID on every poll
+     */
+    public static GroupIds randomIds(String prefix) {
+        return (group, itemCategory) -> randomId(prefix);
+    }
+
+    static String randomId(String prefix) {
+        return prefix + System.currentTimeMillis() + "_" + (int) (Math.random() * 10000);
+    }
+
+    String[] categories;
+    Key key = Key.NAME;
+    long window;
+    Quantity quantity = Quantity.COUNT;
+    ReadyTime readyTime = ReadyTime.EARLIEST;
+    String category;
+    Naming naming = Naming.KEY;
+    Details details = Details.NONE;
+    GroupIds ids = CLUSTER_ID;
+
+    /**
+     * Only cluster items of these categories, each category's groups after the previous one's
+     */
+    public ClusterPolicy categories(String... categories) {
+        this.categories = categories;
+        return this;
+    }
+
+    public ClusterPolicy key(Key key) {
+        this.key = key;
+        return this;
+    }
+
+    /**
+     * Items ready within this many ms of a group's first item join it; Long.MAX_VALUE puts
+     * all items with the same key in one group
+     */
+    public ClusterPolicy window(long window) {
+        this.window = window;
+        return this;
+    }
+
+    /**
+     * A copy of this policy with another window
+     */
+    public ClusterPolicy withWindow(long window) {
+        ClusterPolicy copy = new ClusterPolicy();
+        copy.categories = categories;
+        copy.key = key;
+        copy.window = window;
+        copy.quantity = quantity;
+        copy.readyTime = readyTime;
+        copy.category = category;
+        copy.naming = naming;
+        copy.details = details;
+        copy.ids = ids;
+        return copy;
+    }
+
+    public ClusterPolicy quantity(Quantity quantity) {
+        this.quantity = quantity;
+        return this;
+    }
+
+    public ClusterPolicy readyTime(ReadyTime readyTime) {
+        this.readyTime = readyTime;
+        return this;
+    }
+
+    /**
+     * Category written on every group, instead of the category of its first item
+     */
+    public ClusterPolicy category(String category) {
+        this.category = category;
+        return this;
+    }
+
+    public ClusterPolicy naming(Naming naming) {
+        this.naming = naming;
+        return this;
+    }
+
+    public ClusterPolicy details(Details details) {
+        this.details = details;
+        return this;
+    }
+
+    public ClusterPolicy ids(GroupIds ids) {
+        this.ids = ids;
+        return this;
+    }
+}
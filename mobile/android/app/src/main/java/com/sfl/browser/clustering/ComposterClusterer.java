@@ -2,10 +2,8 @@ package com.sfl.browser.clustering;
 
 import android.util.Log;
 import com.sfl.browser.models.FarmItem;
-import java.util.ArrayList;
-import java.util.HashMap;
+import com.sfl.browser.models.ItemBatch;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Clustering strategy for composter items
@@ -23,96 +21,28 @@ public class ComposterClusterer extends CategoryClusterer {
     private static final String TAG = "ComposterClusterer";
     private static final long CLUSTERING_WINDOW = 60_000; // 1 minute in milliseconds
 
+    // Name stores the composter type (Compost Bin, Turbo Composter, Premium Composter)
+    private static final ClusterPolicy POLICY = new ClusterPolicy()
+            .window(CLUSTERING_WINDOW)
+            .quantity(ClusterPolicy.Quantity.SUM)
+            .category("composters")
+            .details(ClusterPolicy.Details.ITEM_DETAILS);
+
     @Override
-    public List<NotificationGroup> cluster(List<FarmItem> items) {
+    public List<NotificationGroup> cluster(ItemBatch items) {
         Log.d(TAG, "Clustering " + items.size() + " composter items");
-        List<NotificationGroup> groups = new ArrayList<>();
-
-        if (items.isEmpty()) {
-            return groups;
-        }
-
-        // Map: composterType -> list of items from that composter type
-        Map<String, List<FarmItem>> itemsByType = new HashMap<>();
-
-        for (FarmItem item : items) {
-            String type = item.getName();  // Name stores the composter type (Compost Bin, Turbo Composter, Premium Composter)
-            itemsByType.computeIfAbsent(type, k -> new ArrayList<>()).add(item);
-        }
-
-        // For each composter type, create time-based clusters
-        for (String composterType : itemsByType.keySet()) {
-            List<FarmItem> typeItems = itemsByType.get(composterType);
-
-            // Sort by timestamp
-            typeItems.sort((a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()));
-
-            // Group by time window
-            List<List<FarmItem>> timeClusters = new ArrayList<>();
-            List<FarmItem> currentCluster = new ArrayList<>();
-            long clusterStartTime = 0;
-
-            for (FarmItem item : typeItems) {
-                if (currentCluster.isEmpty()) {
-                    currentCluster.add(item);
-                    clusterStartTime = item.getTimestamp();
-                } else {
-                    // Check if within clustering window of cluster start time (not first item)
-                    long timeSinceClusterStart = item.getTimestamp() - clusterStartTime;
-                    if (timeSinceClusterStart <= CLUSTERING_WINDOW) {
-                        currentCluster.add(item);
-                    } else {
-                        // Start a new cluster
-                        timeClusters.add(currentCluster);
-                        currentCluster = new ArrayList<>();
-                        currentCluster.add(item);
-                        clusterStartTime = item.getTimestamp();
-                    }
-                }
-            }
-
-            // Don't forget the last cluster
-            if (!currentCluster.isEmpty()) {
-                timeClusters.add(currentCluster);
-            }
-
-            // Create one notification group per time cluster
-            for (List<FarmItem> cluster : timeClusters) {
-                int totalQuantity = 0;
-                long earliestTime = Long.MAX_VALUE;
-                StringBuilder detailsBuilder = new StringBuilder();
-
-                for (int i = 0; i < cluster.size(); i++) {
-                    FarmItem item = cluster.get(i);
-                    totalQuantity += item.getAmount();
-                    earliestTime = Math.min(earliestTime, item.getTimestamp());
-                    
-                    // Append item details if available
-                    if (item.getDetails() != null && !item.getDetails().isEmpty()) {
-                        detailsBuilder.append(item.getDetails());
-                        if (i < cluster.size() - 1) {
-                            detailsBuilder.append(", ");
-                        }
-                    }
-                }
-
-                NotificationGroup group = new NotificationGroup(
-                    "composters",
-                    composterType,
-                    totalQuantity,
-                    earliestTime
-                );
-
-                group.groupId = generateClusterId(group);
-                group.details = detailsBuilder.toString();  // Store the produced items
-                groups.add(group);
-
-                Log.d(TAG, "  Group: " + composterType + " with " + totalQuantity + " total items" +
-                      " ready at " + earliestTime + " (id=" + group.groupId + ")");
-            }
-        }
-
+        List<NotificationGroup> groups = SweepClusterer.cluster(items, POLICY);
         Log.d(TAG, "Created " + groups.size() + " notification group(s)");
         return groups;
     }
+
+    @Override
+    public List<NotificationGroup> cluster(List<FarmItem> items) {
+        return cluster(ItemBatch.of(items));
+    }
+
+    @Override
+    public ClusterPolicy policy() {
+        return POLICY;
+    }
 }
@@ -5,10 +5,8 @@ import android.content.SharedPreferences;
 import android.preference.PreferenceManager;
 import android.util.Log;
 import com.sfl.browser.models.FarmItem;
-import java.util.ArrayList;
-import java.util.HashMap;
+import com.sfl.browser.models.ItemBatch;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Clustering strategy for cooking items
@@ -25,6 +23,22 @@ import java.util.Map;
  */
 public class CookingClusterer extends CategoryClusterer {
     private static final String TAG = "CookingClusterer";
+
+    // Mode 1: one group per item
+    private static final ClusterPolicy EACH_ITEM = new ClusterPolicy()
+            .key(ClusterPolicy.Key.ITEM)
+            .quantity(ClusterPolicy.Quantity.SUM)
+            .category("cooking");
+
+    // Mode 2: one group per building, ready when its last item is, listing the items by name
+    private static final ClusterPolicy BY_BUILDING = new ClusterPolicy()
+            .key(ClusterPolicy.Key.BUILDING)
+            .window(Long.MAX_VALUE)
+            .quantity(ClusterPolicy.Quantity.SUM)
+            .readyTime(ClusterPolicy.ReadyTime.LATEST)
+            .category("cooking")
+            .details(ClusterPolicy.Details.ITEM_TOTALS);
+
     private Context context;
 
     public CookingClusterer(Context context) {
@@ -32,13 +46,8 @@ public class CookingClusterer extends CategoryClusterer {
     }
 
     @Override
-    public List<NotificationGroup> cluster(List<FarmItem> items) {
+    public List<NotificationGroup> cluster(ItemBatch items) {
         Log.d(TAG, "Clustering " + items.size() + " cooking items");
-        List<NotificationGroup> groups = new ArrayList<>();
-
-        if (items.isEmpty()) {
-            return groups;
-        }
 
         // Check if "group by building" toggle is enabled
         boolean groupByBuilding = false;
@@ -47,115 +56,14 @@ public class CookingClusterer extends CategoryClusterer {
             groupByBuilding = prefs.getBoolean("cooking_group_by_building", false);
         }
 
-        if (groupByBuilding) {
-            groups = clusterByBuilding(items);
-        } else {
-            groups = clusterNoGrouping(items);
-        }
+        List<NotificationGroup> groups = SweepClusterer.cluster(items, groupByBuilding ? BY_BUILDING : EACH_ITEM);
 
         Log.d(TAG, "Created " + groups.size() + " notification group(s) (groupByBuilding=" + groupByBuilding + ")");
         return groups;
     }
 
-    /**
-     * Mode 1: No grouping - each cooking item gets its own notification
-     */
-    private List<NotificationGroup> clusterNoGrouping(List<FarmItem> items) {
-        List<NotificationGroup> groups = new ArrayList<>();
-
-        for (FarmItem item : items) {
-            NotificationGroup group = new NotificationGroup(
-                "cooking",
-                item.getName(),
-                item.getAmount(),
-                item.getTimestamp()
-            );
-
-            group.groupId = generateClusterId(group);
-            groups.add(group);
-
-            Log.d(TAG, "  Group (no clustering): " + item.getAmount() + " " + item.getName() +
-                  " from " + item.getBuildingName() + 
-                  " ready at " + item.getTimestamp() + " (id=" + group.groupId + ")");
-        }
-
-        return groups;
-    }
-
-    /**
-     * Mode 2: Group by building, use latest timestamp from each building
-     * Items with same name are grouped together with sum of quantities
-     */
-    private List<NotificationGroup> clusterByBuilding(List<FarmItem> items) {
-        List<NotificationGroup> groups = new ArrayList<>();
-
-        // Map: buildingName -> map of itemName -> total quantity
-        Map<String, Map<String, Integer>> itemsByBuildingAndName = new HashMap<>();
-        // Map: buildingName -> latest timestamp
-        Map<String, Long> latestTimestampByBuilding = new HashMap<>();
-
-        for (FarmItem item : items) {
-            String buildingName = item.getBuildingName();
-            if (buildingName == null || buildingName.isEmpty()) {
-                buildingName = "Unknown";
-            }
-
-            // Track latest timestamp for this building
-            long currentLatest = latestTimestampByBuilding.getOrDefault(buildingName, 0L);
-            latestTimestampByBuilding.put(buildingName, Math.max(currentLatest, item.getTimestamp()));
-
-            // Group items by name
-            Map<String, Integer> buildingItems = itemsByBuildingAndName.computeIfAbsent(buildingName, k -> new HashMap<>());
-            String itemName = item.getName();
-            buildingItems.put(itemName, buildingItems.getOrDefault(itemName, 0) + item.getAmount());
-        }
-
-        // For each building, create one notification group with latest timestamp
-        for (String buildingName : itemsByBuildingAndName.keySet()) {
-            Map<String, Integer> itemsByName = itemsByBuildingAndName.get(buildingName);
-            long latestTimestamp = latestTimestampByBuilding.get(buildingName);
-
-            // Calculate total quantity and build items list
-            int totalQuantity = 0;
-            List<String> itemLines = new ArrayList<>();
-            
-            for (String itemName : itemsByName.keySet()) {
-                int quantity = itemsByName.get(itemName);
-                totalQuantity += quantity;
-                // Only show quantity if more than 1
-                if (quantity > 1) {
-                    itemLines.add(quantity + " " + itemName);
-                } else {
-                    itemLines.add(itemName);
-                }
-            }
-
-            StringBuilder itemsList = new StringBuilder();
-            for (int i = 0; i < itemLines.size(); i++) {
-                itemsList.append(itemLines.get(i));
-                if (i < itemLines.size() - 1) {
-                    itemsList.append(", ");
-                }
-            }
-
-            NotificationGroup group = new NotificationGroup(
-                "cooking",
-                buildingName,
-                totalQuantity,
-                latestTimestamp
-            );
-            
-            // Store the items list as a detail in the group for notification display
-            group.details = itemsList.toString();
-
-            group.groupId = generateClusterId(group);
-            groups.add(group);
-
-            Log.d(TAG, "  Group (by building): " + buildingName + 
-                  " with " + itemsByName.size() + " item type(s): " + itemsList.toString() +
-                  " ready at " + latestTimestamp + " (id=" + group.groupId + ")");
-        }
-
-        return groups;
+    @Override
+    public List<NotificationGroup> cluster(List<FarmItem> items) {
+        return cluster(ItemBatch.of(items));
     }
 }
@@ -1,13 +1,11 @@
 package com.sfl.browser.clustering;
 
 import android.util.Log;
+import com.sfl.browser.TimeUtils;
 import com.sfl.browser.models.FarmItem;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -116,13 +114,6 @@ public class CraftingBoxClusterer extends CategoryClusterer {
     }
 
     private String formatTimestamp(long timestamp) {
-        try {
-            Date date = new Date(timestamp);
-            SimpleDateFormat sdf = new SimpleDateFormat("MM/dd HH:mm:ss", Locale.US);
-            return sdf.format(date);
-        } catch (Exception e) {
-            Log.w(TAG, "Error formatting timestamp: " + timestamp);
-            return "Unknown";
-        }
+        return TimeUtils.formatShort(timestamp);
     }
 }
@@ -0,0 +1,124 @@
+package com.sfl.browser.clustering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Optional stage after clustering that merges groups of different categories into digests,
+ * so a burst of crops, fruits, trees and animals ready within a minute or two arms one alarm
+ * and posts one notification instead of one each.
+ *
+ * Groups of the production categories are swept in ready time order. Every window (measured
+ * from its first group) that holds groups of at least two categories becomes one "digest"
+ * group, ready at its earliest member's time; windows of a single category are left as the
+ * category's clusterer made them. Time-critical or specially worded notifications
+ * (marketplace, auctions, daily reset, pets, sick animals, ...) are never merged. Nor are
+ * groups already ready: AlarmScheduler skips past ready times, so a digest starting at one
+ * would silently drop its future members.
+ *
+ * A digest's details hold one line per member, separated by DIGEST_LINE_SEPARATOR, which
+ * NotificationReceiver shows as an InboxStyle notification.
+ *
+ * Usage:
+ *   groups = DigestCoalescer.coalesce(groups, 2 * 60 * 1000, System.currentTimeMillis());
+ */
+public final class DigestCoalescer {
+
+    public static final String CATEGORY = "digest";
+    public static final String DIGEST_LINE_SEPARATOR = "\n";
+
+    // Categories whose notifications read "{name} is ready!" and can share a digest
+    private static final Set<String> MERGEABLE = new HashSet<>(Arrays.asList(
+            "crops", "fruits", "greenhouse_crops", "resource", "animals", "flowers",
+            "composters", "cooking", "crafting", "beehive", "cropMachine"));
+
+    private DigestCoalescer() {
+    }
+
+    /**
+     * @param window Groups ready within this many ms of a digest's first group join it
+     * @param now Groups ready at or before this time are left unmerged
+     * @return Groups that were not merged, in their original order, followed by the digests
+     *         in time order; the input list itself if nothing was merged
+     */
+    public static List<NotificationGroup> coalesce(List<NotificationGroup> groups, long window, long now) {
+        List<NotificationGroup> candidates = new ArrayList<>();
+        for (NotificationGroup group : groups) {
+            if (MERGEABLE.contains(group.category) && group.earliestReadyTime > now) {
+                candidates.add(group);
+            }
+        }
+        // List.sort is stable: groups ready together stay in clustering order
+        candidates.sort((a, b) -> Long.compare(a.earliestReadyTime, b.earliestReadyTime));
+
+        Set<NotificationGroup> merged = new HashSet<>();
+        List<NotificationGroup> digests = new ArrayList<>();
+        int start = 0;
+        while (start < candidates.size()) {
+            long first = candidates.get(start).earliestReadyTime;
+            int end = start + 1;
+            boolean mixed = false;
+            while (end < candidates.size() && candidates.get(end).earliestReadyTime - first <= window) {
+                mixed |= !candidates.get(end).category.equals(candidates.get(start).category);
+                end++;
+            }
+            if (mixed) {
+                List<NotificationGroup> members = candidates.subList(start, end);
+                digests.add(digest(members));
+                merged.addAll(members);
+            }
+            start = end;
+        }
+        if (digests.isEmpty()) {
+            return groups;
+        }
+
+        List<NotificationGroup> result = new ArrayList<>(groups.size() - merged.size() + digests.size());
+        for (NotificationGroup group : groups) {
+            if (!merged.contains(group)) {
+                result.add(group);
+            }
+        }
+        result.addAll(digests);
+        return result;
+    }
+
+    /**
+     * One group standing for members (in time order): quantity = number of members
+     */
+    private static NotificationGroup digest(List<NotificationGroup> members) {
+        NotificationGroup first = members.get(0);
+        NotificationGroup digest = new NotificationGroup(CATEGORY, "Farm digest", members.size(), first.earliestReadyTime);
+        StringBuilder lines = new StringBuilder();
+        for (NotificationGroup member : members) {
+            if (lines.length() > 0) {
+                lines.append(DIGEST_LINE_SEPARATOR);
+            }
+            lines.append(line(member));
+        }
+        digest.details = lines.toString();
+        // Stable across polls while the earliest member stays the same
+        digest.groupId = CATEGORY + "_" + first.earliestReadyTime;
+        return digest;
+    }
+
+    /**
+     * A member's line in the digest, worded like its own notification would be
+     */
+    private static String line(NotificationGroup group) {
+        if (group.groupId != null && group.groupId.contains("animal love at")) {
+            return group.name + " need love";
+        }
+        boolean listsItems = "composters".equals(group.category) || "cooking".equals(group.category);
+        if (listsItems && group.details != null && !group.details.isEmpty()) {
+            return group.name + ": " + group.details;
+        }
+        if (group.quantity > 1) {
+            return group.quantity + " " + group.name + " ready";
+        }
+        return group.name + " ready";
+    }
+}
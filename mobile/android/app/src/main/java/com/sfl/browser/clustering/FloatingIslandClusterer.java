@@ -2,6 +2,7 @@ package com.sfl.browser.clustering;
 
 import android.content.Context;
 import android.util.Log;
+import com.sfl.browser.TimeUtils;
 import com.sfl.browser.models.FarmItem;
 import java.util.ArrayList;
 import java.util.List;
@@ -49,11 +50,6 @@ public class FloatingIslandClusterer extends CategoryClusterer {
     }
 
     private String formatTimestamp(long timestamp) {
-        try {
-            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("MM/dd HH:mm:ss");
-            return sdf.format(new java.util.Date(timestamp));
-        } catch (Exception e) {
-            return String.valueOf(timestamp);
-        }
+        return TimeUtils.formatShort(timestamp);
     }
 }
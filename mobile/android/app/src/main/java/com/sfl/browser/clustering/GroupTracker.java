@@ -0,0 +1,140 @@
+package com.sfl.browser.clustering;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Carries group identities from one poll to the next and works out what changed.
+ *
+ * Clustering runs from scratch every poll and hands out fresh groupIds (random ones for
+ * resources and animals, minute buckets elsewhere). A group of this poll is the same group
+ * as one of the last poll when its category, name and earliest ready time are unchanged:
+ * it takes over that group's groupId, and counts as changed only if its quantity or details
+ * differ. Everything else is new, and last poll's groups left unmatched are removed. Only
+ * those three lists need to reach AlarmScheduler.
+ *
+ * Ready times predicted from the current time (beehives) move by a few hundred ms between
+ * polls; up to DRIFT_MS of that still counts as unchanged, measured from the time the
+ * group was armed at so that drift cannot add up.
+ *
+ * The groups are only comparable with the alarms AlarmScheduler armed for them while its
+ * alarm generation is the one recorded here; a new process, or any cancelAllPendingAlarms()
+ * since, means everything has to be scheduled again.
+ *
+ * Usage:
+ *   if (tracker.isCurrent(scheduler.getAlarmGeneration())) {
+ *       GroupTracker.Changes changes = tracker.update(groups, scheduler.getAlarmGeneration());
+ *       scheduler.applyChanges(changes.added, changes.changed, changes.removed);
+ *   }
+ */
+public final class GroupTracker {
+    static final long DRIFT_MS = 5000;
+
+    /**
+     * One poll's groups compared with the last poll's
+     */
+    public static final class Changes {
+        public final List<NotificationGroup> added = new ArrayList<>();
+        public final List<NotificationGroup> changed = new ArrayList<>();
+        public final List<NotificationGroup> removed = new ArrayList<>();
+        public final List<NotificationGroup> unchanged = new ArrayList<>();
+
+        public boolean isEmpty() {
+            return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return added.size() + " new, " + changed.size() + " changed, " + removed.size() + " removed, "
+                    + unchanged.size() + " unchanged";
+        }
+    }
+
+    // Last poll's groups; null until the first update
+    private List<NotificationGroup> previous;
+    private long generation;
+
+    /**
+     * Whether the last poll's groups are still the ones armed
+     * @param generation AlarmScheduler.getAlarmGeneration() now
+     */
+    public boolean isCurrent(long generation) {
+        return previous != null && generation == this.generation;
+    }
+
+    /**
+     * Match groups against the last poll's, giving matched groups their old groupIds, and
+     * remember them for the next poll. With no last poll every group is new.
+     * @param generation Alarm generation the groups are being armed under
+     */
+    public Changes update(List<NotificationGroup> groups, long generation) {
+        Changes changes = new Changes();
+        Map<String, List<NotificationGroup>> byIdentity = new HashMap<>();
+        if (previous != null) {
+            for (NotificationGroup group : previous) {
+                byIdentity.computeIfAbsent(identity(group), key -> new ArrayList<>()).add(group);
+            }
+        }
+
+        // Copies, as armed: later stages may change this poll's groups
+        List<NotificationGroup> armed = new ArrayList<>(groups.size());
+        for (NotificationGroup group : groups) {
+            NotificationGroup old = take(byIdentity.get(identity(group)), group.earliestReadyTime);
+            if (old == null) {
+                changes.added.add(group);
+                armed.add(copy(group));
+                continue;
+            }
+            group.groupId = old.groupId;
+            if (group.quantity == old.quantity && Objects.equals(group.details, old.details)) {
+                changes.unchanged.add(group);
+                armed.add(old);
+            } else {
+                changes.changed.add(group);
+                armed.add(copy(group));
+            }
+        }
+        for (List<NotificationGroup> unmatched : byIdentity.values()) {
+            changes.removed.addAll(unmatched);
+        }
+
+        previous = armed;
+        this.generation = generation;
+        return changes;
+    }
+
+    public void clear() {
+        previous = null;
+    }
+
+    private static String identity(NotificationGroup group) {
+        return group.category + '\u0000' + group.name;
+    }
+
+    /**
+     * Remove and return the candidate ready closest to readyTime, if within DRIFT_MS
+     */
+    private static NotificationGroup take(List<NotificationGroup> candidates, long readyTime) {
+        if (candidates == null) {
+            return null;
+        }
+        int best = -1;
+        for (int i = 0; i < candidates.size(); i++) {
+            long drift = Math.abs(candidates.get(i).earliestReadyTime - readyTime);
+            if (drift <= DRIFT_MS && (best < 0 || drift < Math.abs(candidates.get(best).earliestReadyTime - readyTime))) {
+                best = i;
+            }
+        }
+        return best >= 0 ? candidates.remove(best) : null;
+    }
+
+    private static NotificationGroup copy(NotificationGroup group) {
+        NotificationGroup copy = new NotificationGroup(group.category, group.name, group.quantity, group.earliestReadyTime);
+        copy.groupId = group.groupId;
+        copy.details = group.details;
+        return copy;
+    }
+}
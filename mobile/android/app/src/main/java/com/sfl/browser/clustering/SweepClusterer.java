@@ -0,0 +1,313 @@
+package com.sfl.browser.clustering;
+
+import com.sfl.browser.models.ItemBatch;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Clustering engine shared by the per-category clusterers, which only supply a ClusterPolicy.
+ *
+ * The batch's item indices are sorted once by (category, key, readyTime) and swept in a
+ * single pass: an item joins the open group while it has the group's key and is ready within
+ * the policy's window of the group's first item, otherwise it opens the next group. No
+ * per-key lists or per-key sorts are built.
+ *
+ * Output order is the one the old per-category clusterers produced: categories in policy
+ * order, keys in the order a HashMap of them iterates, and each key's groups by time.
+ */
+public final class SweepClusterer {
+
+    private SweepClusterer() {
+    }
+
+    public static List<NotificationGroup> cluster(ItemBatch items, ClusterPolicy policy) {
+        return cluster(items, policy, null);
+    }
+
+    /**
+     * @param spread If not null, spread[0] is increased by the sum over all items of the time
+     *               between the item's ready time and its group's
+     */
+    static List<NotificationGroup> cluster(ItemBatch items, ClusterPolicy policy, long[] spread) {
+        List<NotificationGroup> groups = new ArrayList<>();
+        int size = items.size();
+        if (size == 0) {
+            return groups;
+        }
+
+        int[] order = new int[size];
+        int[] keys = new int[size];
+        List<String> keyNames = new ArrayList<>();
+        int count = rankKeys(items, policy, order, keys, keyNames);
+        sort(items, keys, order, count, keyNames.size());
+
+        int start = 0;
+        for (int k = 1; k <= count; k++) {
+            if (k < count) {
+                int first = order[start];
+                int next = order[k];
+                if (keys[next] == keys[first] && items.readyTime(next) - items.readyTime(first) <= policy.window) {
+                    continue;
+                }
+            }
+            NotificationGroup group = group(items, policy, order, start, k, keyNames.get(keys[order[start]]));
+            groups.add(group);
+            for (int m = start; spread != null && m < k; m++) {
+                spread[0] += Math.abs(items.readyTime(order[m]) - group.earliestReadyTime);
+            }
+            start = k;
+        }
+        return groups;
+    }
+
+    /**
+     * Give every item of the policy's categories a key rank (categories in policy order, each
+     * category's keys in HashMap order) and list those items in order, in batch order
+     * @param keys Filled with each item's key rank, by item index
+     * @param keyNames Filled with each rank's key
+     * @return Number of items listed in order
+     */
+    private static int rankKeys(ItemBatch items, ClusterPolicy policy, int[] order, int[] keys, List<String> keyNames) {
+        int lanes = policy.categories != null ? policy.categories.length : 1;
+        int[] laneCategories = new int[lanes];
+        for (int lane = 0; lane < lanes && policy.categories != null; lane++) {
+            laneCategories[lane] = ItemBatch.intern(policy.categories[lane]);
+        }
+
+        // Keys get slots in first-seen order; a slot's position within its lane comes later
+        List<Map<String, Integer>> slotsByLane = new ArrayList<>();
+        for (int lane = 0; lane < lanes; lane++) {
+            slotsByLane.add(new HashMap<>());
+        }
+        int[] laneSlot = new int[lanes];
+        Arrays.fill(laneSlot, -1);
+        int[] slotLane = new int[items.size()];
+        // keys holds each item's slot until the slots are ranked
+        int[] slotOf = keys;
+        List<String> slotNames = new ArrayList<>();
+        int count = 0;
+        for (int i = 0; i < items.size(); i++) {
+            int lane = lane(items.categoryId(i), policy, laneCategories);
+            if (lane < 0) {
+                continue;
+            }
+            int slot;
+            if (policy.key == ClusterPolicy.Key.ITEM) {
+                slot = slotNames.size();
+                slotNames.add(items.name(i));
+            } else if (policy.key == ClusterPolicy.Key.NONE) {
+                if (laneSlot[lane] < 0) {
+                    laneSlot[lane] = slotNames.size();
+                    slotNames.add(null);
+                }
+                slot = laneSlot[lane];
+            } else {
+                // computeIfAbsent, as the per-category maps did: it puts a new key at the head of
+                // its hash bin (put appends), which decides the order colliding keys iterate in
+                slot = slotsByLane.get(lane).computeIfAbsent(key(items, i, policy.key), key -> {
+                    slotNames.add(key);
+                    return slotNames.size() - 1;
+                });
+            }
+            slotLane[slot] = lane;
+            slotOf[i] = slot;
+            order[count++] = i;
+        }
+
+        // Rank = slots of earlier lanes + position within the lane (HashMap order for mapped keys)
+        int slots = slotNames.size();
+        int[] position = new int[slots];
+        int[] laneStart = new int[lanes + 1];
+        boolean mapped = policy.key == ClusterPolicy.Key.NAME || policy.key == ClusterPolicy.Key.BUILDING;
+        for (int lane = 0; lane < lanes; lane++) {
+            if (mapped) {
+                int next = 0;
+                for (Integer slot : slotsByLane.get(lane).values()) {
+                    position[slot] = next++;
+                }
+            }
+        }
+        for (int slot = 0; slot < slots; slot++) {
+            if (!mapped) {
+                position[slot] = laneStart[slotLane[slot] + 1];
+            }
+            laneStart[slotLane[slot] + 1]++;
+        }
+        for (int lane = 0; lane < lanes; lane++) {
+            laneStart[lane + 1] += laneStart[lane];
+        }
+        int[] rankOfSlot = new int[slots];
+        String[] names = new String[slots];
+        for (int slot = 0; slot < slots; slot++) {
+            rankOfSlot[slot] = laneStart[slotLane[slot]] + position[slot];
+            names[rankOfSlot[slot]] = slotNames.get(slot);
+        }
+        keyNames.addAll(Arrays.asList(names));
+        for (int k = 0; k < count; k++) {
+            keys[order[k]] = rankOfSlot[slotOf[order[k]]];
+        }
+        return count;
+    }
+
+    /**
+     * @return Index of the category in the policy's list, 0 if the policy takes every
+     *         category, -1 if it does not take this one
+     */
+    private static int lane(int categoryId, ClusterPolicy policy, int[] laneCategories) {
+        if (policy.categories == null) {
+            return 0;
+        }
+        for (int lane = 0; lane < laneCategories.length; lane++) {
+            if (laneCategories[lane] == categoryId) {
+                return lane;
+            }
+        }
+        return -1;
+    }
+
+    private static String key(ItemBatch items, int i, ClusterPolicy.Key key) {
+        if (key == ClusterPolicy.Key.BUILDING) {
+            String buildingName = items.buildingName(i);
+            return buildingName == null || buildingName.isEmpty() ? "Unknown" : buildingName;
+        }
+        return items.name(i);
+    }
+
+    /**
+     * Stable sort of order[0, count) by key rank, then ready time. Batches from the
+     * extraction engine are already in ready time order, so a counting sort by key rank
+     * is enough for them; anything else gets a merge sort.
+     */
+    private static void sort(ItemBatch items, int[] keys, int[] order, int count, int keyCount) {
+        boolean byTime = true;
+        for (int k = 1; k < count && byTime; k++) {
+            byTime = items.readyTime(order[k - 1]) <= items.readyTime(order[k]);
+        }
+        if (byTime) {
+            int[] starts = new int[keyCount + 1];
+            for (int k = 0; k < count; k++) {
+                starts[keys[order[k]] + 1]++;
+            }
+            for (int key = 0; key < keyCount; key++) {
+                starts[key + 1] += starts[key];
+            }
+            int[] sorted = new int[count];
+            for (int k = 0; k < count; k++) {
+                sorted[starts[keys[order[k]]]++] = order[k];
+            }
+            System.arraycopy(sorted, 0, order, 0, count);
+            return;
+        }
+        int[] scratch = new int[count];
+        // Bottom-up merge sort; merging keeps equal items in batch order
+        for (int width = 1; width < count; width *= 2) {
+            for (int lo = 0; lo < count - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, count);
+                int left = lo;
+                int right = mid;
+                for (int k = lo; k < hi; k++) {
+                    if (left < mid && (right >= hi || !before(items, keys, order[right], order[left]))) {
+                        scratch[k] = order[left++];
+                    } else {
+                        scratch[k] = order[right++];
+                    }
+                }
+                System.arraycopy(scratch, lo, order, lo, hi - lo);
+            }
+        }
+    }
+
+    private static boolean before(ItemBatch items, int[] keys, int a, int b) {
+        if (keys[a] != keys[b]) {
+            return keys[a] < keys[b];
+        }
+        return items.readyTime(a) < items.readyTime(b);
+    }
+
+    /**
+     * Write out the group of items order[start, end)
+     */
+    private static NotificationGroup group(ItemBatch items, ClusterPolicy policy, int[] order, int start, int end, String key) {
+        int first = order[start];
+        int size = end - start;
+        int quantity = size;
+        if (policy.quantity == ClusterPolicy.Quantity.SUM) {
+            quantity = 0;
+            for (int k = start; k < end; k++) {
+                quantity += items.amount(order[k]);
+            }
+        }
+        // Sorted by ready time, so the last item is the latest
+        long readyTime = items.readyTime(policy.readyTime == ClusterPolicy.ReadyTime.LATEST ? order[end - 1] : first);
+        String name = key;
+        if (policy.naming == ClusterPolicy.Naming.SLEEPING_PETS) {
+            name = size == 1 ? items.name(first) + " went to sleep!" : "multiple pets went to sleep!";
+        }
+
+        NotificationGroup group = new NotificationGroup(
+            policy.category != null ? policy.category : items.category(first),
+            name,
+            quantity,
+            readyTime
+        );
+        group.details = details(items, policy.details, order, start, end);
+        group.groupId = policy.ids.groupId(group, items.category(first));
+        return group;
+    }
+
+    private static String details(ItemBatch items, ClusterPolicy.Details details, int[] order, int start, int end) {
+        switch (details) {
+            case ITEM_DETAILS: {
+                StringBuilder out = new StringBuilder();
+                for (int k = start; k < end; k++) {
+                    String detail = items.details(order[k]);
+                    if (detail != null && !detail.isEmpty()) {
+                        out.append(detail);
+                        if (k < end - 1) {
+                            out.append(", ");
+                        }
+                    }
+                }
+                return out.toString();
+            }
+            case ITEM_TOTALS: {
+                // Totals per name, names first seen in batch order
+                int[] members = Arrays.copyOfRange(order, start, end);
+                Arrays.sort(members);
+                Map<String, Integer> totals = new HashMap<>();
+                for (int i : members) {
+                    Integer total = totals.get(items.name(i));
+                    totals.put(items.name(i), (total != null ? total : 0) + items.amount(i));
+                }
+                StringBuilder out = new StringBuilder();
+                for (Map.Entry<String, Integer> total : totals.entrySet()) {
+                    if (out.length() > 0) {
+                        out.append(", ");
+                    }
+                    // Only show quantity if more than 1
+                    if (total.getValue() > 1) {
+                        out.append(total.getValue()).append(' ');
+                    }
+                    out.append(total.getKey());
+                }
+                return out.toString();
+            }
+            case NAMES: {
+                StringBuilder out = new StringBuilder();
+                for (int k = start; k < end; k++) {
+                    if (k > start) {
+                        out.append(", ");
+                    }
+                    out.append(items.name(order[k]));
+                }
+                return out.toString();
+            }
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.sfl.browser.models;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Typed view of the parts of the farm object the extractors read.
+ * Decoded straight from the response stream by FarmStateReader; everything else is skipped.
+ *
+ * A field is null when its farm key was absent or not read (disabled category).
+ * Timestamps are epoch milliseconds, 0 when the API left them out.
+ * Maps keep the API's key order (plot, node, animal and beehive IDs).
+ */
+public class FarmState {
+    public Map<String, Planting> crops;           // farm.crops[id].crop
+    public Map<String, Planting> fruitPatches;    // farm.fruitPatches[id].fruit
+    public Map<String, Planting> greenhousePots;  // farm.greenhouse.pots[id].plant
+    public Map<String, Planting> flowerBeds;      // farm.flowers.flowerBeds[id].flower
+    public final Map<String, Map<String, ResourceNode>> resources = new LinkedHashMap<>();  // farm key ("trees", "sunstones", ...) -> nodes
+    public Map<String, LavaPit> lavaPits;
+    public Map<String, Animal> henHouse;          // farm.henHouse.animals
+    public Map<String, Animal> barn;              // farm.barn.animals
+    public Map<String, List<Building>> buildings; // only cooking, composter and Crop Machine buildings
+    public CraftingBox craftingBox;
+    public Map<String, Beehive> beehives;
+    public Bumpkin bumpkin;
+    public Pets pets;
+    public Map<String, Listing> listings;         // farm.trades.listings
+    public FloatingIsland floatingIsland;
+
+    // Top-level farm key -> hash of the tokens decoded for it, filled only when read from the
+    // stream. Equal hashes mean the field decoded to the same values as last poll.
+    public final Map<String, Long> fingerprints = new LinkedHashMap<>();
+
+    /**
+     * Something growing in a plot, patch, pot or flower bed
+     */
+    public static class Planting {
+        public String name;
+        public int itemId = -1;  // GameTables ID for name, resolved while decoding
+        public long plantedAt;
+        public long harvestedAt;
+    }
+
+    /**
+     * A tree, stone, ore, crimstone, oil reserve or sunstone node
+     */
+    public static class ResourceNode {
+        public long harvestedAt;  // wood.choppedAt, oil.drilledAt or stone.minedAt
+    }
+
+    public static class LavaPit {
+        public long readyAt;
+    }
+
+    public static class Animal {
+        public String type;
+        public String state;
+        public long awakeAt;
+        public long asleepAt;
+        public long lovedAt;
+    }
+
+    /**
+     * One building instance; which fields are set depends on the building type
+     */
+    public static class Building {
+        public List<CraftingItem> crafting;  // cooking buildings
+        public Producing producing;          // composters
+        public List<QueueItem> queue;        // Crop Machine
+    }
+
+    public static class CraftingItem {
+        public String name;
+        public long readyAt;
+        public int amount = 1;
+    }
+
+    public static class Producing {
+        public long readyAt;
+        public Map<String, Integer> items;  // item name -> quantity
+    }
+
+    public static class QueueItem {
+        public String crop;
+        public long readyAt;
+        public long seeds;
+    }
+
+    public static class CraftingBox {
+        public String status;
+        public long readyAt;
+        public String collectible;
+    }
+
+    public static class Beehive {
+        public boolean swarm;
+        public long honeyUpdatedAt;
+        public double honeyProduced;
+        public int flowerCount;
+        public String firstFlowerId;    // flower bed the hive is attached to
+        public double firstFlowerRate = 1.0;
+    }
+
+    public static class Bumpkin {
+        public Map<String, Long> previousPowerUseAt;  // skill -> last use
+        public Set<String> skills;                     // learned skills
+    }
+
+    public static class Pets {
+        public final Map<String, List<Pet>> categories = new LinkedHashMap<>();  // e.g. "common" -> pets
+        public final List<Pet> nfts = new ArrayList<>();
+
+        public boolean isEmpty() {
+            return categories.isEmpty() && nfts.isEmpty();
+        }
+    }
+
+    public static class Pet {
+        public String key;  // name inside its category, or NFT id
+        public String name;
+        public long pettedAt = -1;
+    }
+
+    public static class Listing {
+        public String itemName;  // first entry of items
+        public long amount;
+        public double sfl;
+        public long fulfilledAt;
+        public boolean fulfilled;
+    }
+
+    public static class FloatingIsland {
+        public List<ScheduleEntry> schedule;
+        public List<ShopEntry> shop;
+    }
+
+    public static class ScheduleEntry {
+        public long startAt;
+        public long endAt;
+    }
+
+    public static class ShopEntry {
+        public String name;
+        public long loveCharmCost;
+    }
+}
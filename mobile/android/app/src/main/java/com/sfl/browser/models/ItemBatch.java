@@ -0,0 +1,396 @@
+package com.sfl.browser.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Extracted farm items stored column by column: one array per field instead of one FarmItem
+ * object per item.
+ *
+ * Category and name strings are interned to int IDs shared by every batch in the process,
+ * so an item costs an int each for them instead of a reference to its own decoded String.
+ * Ready times and amounts are primitive arrays. id, buildingName and details are set by only a
+ * few categories, so their columns are allocated the first time one is set.
+ *
+ * Clusterers read the columns directly; toItems() materialises FarmItems for code that still
+ * takes a List<FarmItem>. A batch is not thread-safe; the symbol table behind it is.
+ *
+ * Usage:
+ *   ItemBatch crops = new ItemBatch();
+ *   int i = crops.add("crops", "Sunflower", 1, readyAt);
+ *   String name = crops.name(i);
+ */
+public class ItemBatch {
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Interned symbol -> ID; symbols[ID] is written before the ID is published here
+    private static final ConcurrentHashMap<String, Integer> SYMBOL_IDS = new ConcurrentHashMap<>();
+    private static volatile String[] symbols = new String[256];
+    private static int symbolCount;
+
+    private int size;
+    private int[] categories = new int[INITIAL_CAPACITY];
+    private int[] names = new int[INITIAL_CAPACITY];
+    private int[] amounts = new int[INITIAL_CAPACITY];
+    private long[] readyTimes = new long[INITIAL_CAPACITY];
+    private String[] ids;            // null until a sunstone UUID is set
+    private String[] buildingNames;  // null until a cooking, composter or beehive item sets one
+    private String[] details;        // null until a composter item sets one
+
+    /**
+     * ID of a category or item name, the same in every batch for the life of the process
+     * @return -1 for null
+     */
+    public static int intern(String symbol) {
+        if (symbol == null) {
+            return -1;
+        }
+        Integer id = SYMBOL_IDS.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        synchronized (SYMBOL_IDS) {
+            id = SYMBOL_IDS.get(symbol);
+            if (id != null) {
+                return id;
+            }
+            String[] table = symbols;
+            if (symbolCount == table.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+                symbols = table;
+            }
+            table[symbolCount] = symbol;
+            SYMBOL_IDS.put(symbol, symbolCount);
+            return symbolCount++;
+        }
+    }
+
+    /**
+     * @return The string interned as id, or null for -1
+     */
+    public static String symbol(int id) {
+        return id < 0 ? null : symbols[id];
+    }
+
+    /**
+     * Copy a list of FarmItems into a new batch
+     */
+    public static ItemBatch of(List<FarmItem> items) {
+        ItemBatch batch = new ItemBatch();
+        for (FarmItem item : items) {
+            batch.add(item);
+        }
+        return batch;
+    }
+
+    /**
+     * Append an item
+     * @return Its index
+     */
+    public int add(String category, String name, int amount, long readyTime) {
+        if (size == readyTimes.length) {
+            grow(size * 2);
+        }
+        categories[size] = intern(category);
+        names[size] = intern(name);
+        amounts[size] = amount;
+        readyTimes[size] = readyTime;
+        return size++;
+    }
+
+    /**
+     * Append a FarmItem's fields (its ISO date strings are not kept)
+     * @return Its index
+     */
+    public int add(FarmItem item) {
+        int i = add(item.getCategory(), item.getName(), item.getAmount(), item.getTimestamp());
+        if (item.getId() != null) {
+            setId(i, item.getId());
+        }
+        if (item.getBuildingName() != null) {
+            setBuildingName(i, item.getBuildingName());
+        }
+        if (item.getDetails() != null) {
+            setDetails(i, item.getDetails());
+        }
+        return i;
+    }
+
+    public void addAll(ItemBatch other) {
+        if (other.size == 0) {
+            return;
+        }
+        int total = size + other.size;
+        if (total > readyTimes.length) {
+            grow(Math.max(total, size * 2));
+        }
+        System.arraycopy(other.categories, 0, categories, size, other.size);
+        System.arraycopy(other.names, 0, names, size, other.size);
+        System.arraycopy(other.amounts, 0, amounts, size, other.size);
+        System.arraycopy(other.readyTimes, 0, readyTimes, size, other.size);
+        ids = appendSide(ids, other.ids, other.size);
+        buildingNames = appendSide(buildingNames, other.buildingNames, other.size);
+        details = appendSide(details, other.details, other.size);
+        size = total;
+    }
+
+    /**
+     * Drop every item and let the columns be collected; the batch can be filled again
+     */
+    public void clear() {
+        size = 0;
+        categories = new int[INITIAL_CAPACITY];
+        names = new int[INITIAL_CAPACITY];
+        amounts = new int[INITIAL_CAPACITY];
+        readyTimes = new long[INITIAL_CAPACITY];
+        ids = null;
+        buildingNames = null;
+        details = null;
+    }
+
+    public void setId(int i, String id) {
+        ids = side(ids);
+        ids[i] = id;
+    }
+
+    public void setBuildingName(int i, String buildingName) {
+        buildingNames = side(buildingNames);
+        buildingNames[i] = buildingName;
+    }
+
+    public void setDetails(int i, String detail) {
+        details = side(details);
+        details[i] = detail;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int categoryId(int i) {
+        return categories[i];
+    }
+
+    public int nameId(int i) {
+        return names[i];
+    }
+
+    public String category(int i) {
+        return symbol(categories[i]);
+    }
+
+    public String name(int i) {
+        return symbol(names[i]);
+    }
+
+    public int amount(int i) {
+        return amounts[i];
+    }
+
+    public long readyTime(int i) {
+        return readyTimes[i];
+    }
+
+    public String id(int i) {
+        return ids != null ? ids[i] : null;
+    }
+
+    public String buildingName(int i) {
+        return buildingNames != null ? buildingNames[i] : null;
+    }
+
+    public String details(int i) {
+        return details != null ? details[i] : null;
+    }
+
+    /**
+     * Keep only the items whose keep flag is set, in order
+     * @return Number of items dropped
+     */
+    public int retain(boolean[] keep) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!keep[i]) {
+                continue;
+            }
+            if (kept != i) {
+                categories[kept] = categories[i];
+                names[kept] = names[i];
+                amounts[kept] = amounts[i];
+                readyTimes[kept] = readyTimes[i];
+                if (ids != null) {
+                    ids[kept] = ids[i];
+                }
+                if (buildingNames != null) {
+                    buildingNames[kept] = buildingNames[i];
+                }
+                if (details != null) {
+                    details[kept] = details[i];
+                }
+            }
+            kept++;
+        }
+        int dropped = size - kept;
+        clearSide(kept, size);
+        size = kept;
+        return dropped;
+    }
+
+    /**
+     * Drop items whose ready time is at or before now
+     * @return Number of items dropped
+     */
+    public int removeReadyBy(long now) {
+        boolean[] keep = new boolean[size];
+        boolean any = false;
+        for (int i = 0; i < size; i++) {
+            keep[i] = readyTimes[i] > now;
+            any |= !keep[i];
+        }
+        return any ? retain(keep) : 0;
+    }
+
+    /**
+     * Stable sort by ready time, earliest first (same order Collections.sort gave FarmItem lists)
+     */
+    public void sortByReadyTime() {
+        boolean sorted = true;
+        for (int i = 1; i < size && sorted; i++) {
+            sorted = readyTimes[i - 1] <= readyTimes[i];
+        }
+        if (sorted) {
+            return;
+        }
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        int[] scratch = new int[size];
+        // Bottom-up merge sort of indices; merge sort keeps equal ready times in insertion order
+        for (int width = 1; width < size; width *= 2) {
+            for (int lo = 0; lo < size - width; lo += 2 * width) {
+                merge(order, scratch, lo, lo + width, Math.min(lo + 2 * width, size));
+            }
+        }
+        categories = permute(categories, order);
+        names = permute(names, order);
+        amounts = permute(amounts, order);
+        long[] times = new long[readyTimes.length];
+        for (int i = 0; i < size; i++) {
+            times[i] = readyTimes[order[i]];
+        }
+        readyTimes = times;
+        ids = permute(ids, order);
+        buildingNames = permute(buildingNames, order);
+        details = permute(details, order);
+    }
+
+    /**
+     * @return A FarmItem with item i's fields
+     */
+    public FarmItem toItem(int i) {
+        FarmItem item = new FarmItem(id(i), category(i), name(i), amounts[i], readyTimes[i]);
+        item.setBuildingName(buildingName(i));
+        item.setDetails(details(i));
+        return item;
+    }
+
+    /**
+     * @return A new list of FarmItems, in batch order
+     */
+    public List<FarmItem> toItems() {
+        List<FarmItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(toItem(i));
+        }
+        return items;
+    }
+
+    private void merge(int[] order, int[] scratch, int lo, int mid, int hi) {
+        int left = lo;
+        int right = mid;
+        for (int k = lo; k < hi; k++) {
+            if (left < mid && (right >= hi || readyTimes[order[left]] <= readyTimes[order[right]])) {
+                scratch[k] = order[left++];
+            } else {
+                scratch[k] = order[right++];
+            }
+        }
+        System.arraycopy(scratch, lo, order, lo, hi - lo);
+    }
+
+    private int[] permute(int[] column, int[] order) {
+        int[] out = new int[column.length];
+        for (int i = 0; i < size; i++) {
+            out[i] = column[order[i]];
+        }
+        return out;
+    }
+
+    private String[] permute(String[] column, int[] order) {
+        if (column == null) {
+            return null;
+        }
+        String[] out = new String[column.length];
+        for (int i = 0; i < size; i++) {
+            out[i] = column[order[i]];
+        }
+        return out;
+    }
+
+    private void grow(int capacity) {
+        capacity = Math.max(capacity, INITIAL_CAPACITY);
+        categories = Arrays.copyOf(categories, capacity);
+        names = Arrays.copyOf(names, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        readyTimes = Arrays.copyOf(readyTimes, capacity);
+        if (ids != null) {
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        if (buildingNames != null) {
+            buildingNames = Arrays.copyOf(buildingNames, capacity);
+        }
+        if (details != null) {
+            details = Arrays.copyOf(details, capacity);
+        }
+    }
+
+    private String[] side(String[] column) {
+        return column != null ? column : new String[readyTimes.length];
+    }
+
+    /**
+     * Append other's side column (null when other never set it) after this batch's items.
+     * Called before size moves on and after the primary columns have grown.
+     */
+    private String[] appendSide(String[] column, String[] otherColumn, int otherSize) {
+        if (otherColumn == null) {
+            return column;
+        }
+        if (column == null) {
+            column = new String[readyTimes.length];
+        } else if (column.length < readyTimes.length) {
+            column = Arrays.copyOf(column, readyTimes.length);
+        }
+        System.arraycopy(otherColumn, 0, column, size, otherSize);
+        return column;
+    }
+
+    private void clearSide(int from, int to) {
+        if (ids != null) {
+            Arrays.fill(ids, from, to, null);
+        }
+        if (buildingNames != null) {
+            Arrays.fill(buildingNames, from, to, null);
+        }
+        if (details != null) {
+            Arrays.fill(details, from, to, null);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import com.sfl.browser.clustering.AlarmBudget;
+import com.sfl.browser.clustering.ClusterPolicy;
+import com.sfl.browser.clustering.ClustererFactory;
+import com.sfl.browser.clustering.NotificationGroup;
+import com.sfl.browser.models.ItemBatch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AlarmBudget must widen windows only as far as the budget needs, and keep every
+ * clusterer's own window when the run already fits.
+ */
+public class AlarmBudgetTest {
+    private static final long MINUTE = 60_000;
+
+    @Test
+    public void staggeredFarmIsWidenedUntilWithinBudget() {
+        long now = System.currentTimeMillis();
+        AlarmBudget budget = new AlarmBudget(40, now);
+        budget.add("crops", staggered("crops", new String[]{"Sunflower", "Potato", "Kale"}, 90, now), policy("crops"));
+        budget.add("fruits", staggered("fruits", new String[]{"Apple", "Orange"}, 150, now), policy("fruits"));
+        budget.add("resource", staggered("resource", new String[]{"Tree", "Stone"}, 200, now), policy("resources"));
+        budget.optimize();
+
+        int alarms = alarms(budget.groups("crops"), now) + alarms(budget.groups("fruits"), now)
+                + alarms(budget.groups("resource"), now);
+        assertTrue(alarms + " alarms: " + budget.describe(), alarms <= 40);
+        assertTrue(budget.window("crops") > MINUTE || budget.window("fruits") > MINUTE);
+        assertEquals(150, total(budget.groups("crops")));
+        assertNull(budget.groups("flowers"));
+    }
+
+    @Test
+    public void fixedGroupsCountAgainstTheBudget() {
+        long now = System.currentTimeMillis();
+        ItemBatch crops = staggered("crops", new String[]{"Sunflower"}, 90, now);
+        AlarmBudget alone = new AlarmBudget(40, now);
+        alone.add("crops", crops, policy("crops"));
+        alone.optimize();
+
+        // Daily reset, auctions, pets and the like arm alarms the budget cannot regroup
+        List<NotificationGroup> fixed = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            fixed.add(new NotificationGroup("pet_sleep", "Pet " + i, 1, now + (i + 1) * MINUTE));
+        }
+        AlarmBudget budget = new AlarmBudget(40, now);
+        budget.addFixed(fixed);
+        budget.add("crops", staggered("crops", new String[]{"Sunflower"}, 90, now), policy("crops"));
+        budget.optimize();
+
+        int alarms = alarms(budget.groups("crops"), now) + fixed.size();
+        assertTrue(alarms + " alarms: " + budget.describe(), alarms <= 40);
+        assertTrue(budget.window("crops") > alone.window("crops"));
+    }
+
+    @Test
+    public void farmWithinBudgetKeepsOwnWindows() {
+        long now = System.currentTimeMillis();
+        AlarmBudget budget = new AlarmBudget(1000, now);
+        ItemBatch crops = staggered("crops", new String[]{"Sunflower"}, 90, now);
+        List<NotificationGroup> unbudgeted = ClustererFactory.getClusterer("crops", null).cluster(ItemBatch.of(crops.toItems()));
+        budget.add("crops", crops, policy("crops"));
+        budget.optimize();
+        assertEquals(MINUTE, budget.window("crops"));
+        assertEquals(unbudgeted.size(), budget.groups("crops").size());
+    }
+
+    /**
+     * 50 plantings per name, one every `spacingSeconds`, starting now
+     */
+    private static ItemBatch staggered(String category, String[] names, int spacingSeconds, long now) {
+        ItemBatch items = new ItemBatch();
+        for (int i = 0; i < 50; i++) {
+            for (String name : names) {
+                items.add(category, name, 1, now + MINUTE + i * spacingSeconds * 1000L);
+            }
+        }
+        return items;
+    }
+
+    private static ClusterPolicy policy(String clusterer) {
+        return ClustererFactory.getClusterer(clusterer, null).policy();
+    }
+
+    private static int alarms(List<NotificationGroup> groups, long now) {
+        int alarms = 0;
+        for (NotificationGroup group : groups) {
+            alarms += group.earliestReadyTime > now ? 1 : 0;
+        }
+        return alarms;
+    }
+
+    private static int total(List<NotificationGroup> groups) {
+        int total = 0;
+        for (NotificationGroup group : groups) {
+            total += group.quantity;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,113 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import com.sfl.browser.clustering.CategoryClusterer;
+import com.sfl.browser.clustering.ClustererFactory;
+import com.sfl.browser.clustering.NotificationGroup;
+import com.sfl.browser.clustering.PetSleepClusterer;
+import com.sfl.browser.models.FarmState;
+import com.sfl.browser.models.ItemBatch;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The clusterers must keep producing the recorded NotificationGroups for apiexample.json,
+ * in the recorded order, from both ItemBatches and FarmItem lists.
+ *
+ * The farm is rebased to now by a whole number of minutes; times and IDs are shifted back
+ * before comparing, and the random parts of resource and animal IDs are masked. Regenerate
+ * the golden file with -Dclustering.golden.record=path/to/clustering_golden.txt.
+ */
+public class ClusteringGoldenTest {
+    private static final String GOLDEN = "clustering_golden.txt";
+    private static final Pattern RANDOM_ID = Pattern.compile("(res|ani)_\\d+_\\d+$");
+    private static final Pattern EPOCH_MILLIS = Pattern.compile("\\d{13}");
+
+    @Test
+    public void groupsMatchGoldenFile() throws Exception {
+        byte[] recorded = StubFarmApiServer.loadApiExample();
+        long delta = StubFarmApiServer.rebaseDelta(recorded, 60_000);
+        FarmState farm = FarmStateReader.read(new StringReader(
+                new String(StubFarmApiServer.shift(recorded, delta), StandardCharsets.UTF_8)), null);
+        FarmExtractionEngine.Buckets extracted = FarmExtractionEngine.extract(farm, null);
+
+        List<String> fromBatches = new ArrayList<>();
+        List<String> fromLists = new ArrayList<>();
+        cluster("crops", extracted.crops, delta, fromBatches, fromLists);
+        cluster("fruits", extracted.fruits, delta, fromBatches, fromLists);
+        cluster("greenhouse_crops", extracted.greenhouseCrops, delta, fromBatches, fromLists);
+        cluster("resources", extracted.resources, delta, fromBatches, fromLists);
+        cluster("animals", extracted.animals, delta, fromBatches, fromLists);
+        cluster("cooking", extracted.cooking, delta, fromBatches, fromLists);
+        cluster("composters", extracted.composters, delta, fromBatches, fromLists);
+        cluster("flowers", extracted.flowers, delta, fromBatches, fromLists);
+        List<String> pets = describe("pet_sleep", new PetSleepClusterer().clusterPetSleep(farm.pets), delta);
+        fromBatches.addAll(pets);
+        fromLists.addAll(pets);
+
+        String record = System.getProperty("clustering.golden.record");
+        if (record != null) {
+            Files.write(new File(record).toPath(), fromBatches, StandardCharsets.UTF_8);
+        }
+        List<String> golden = readGolden();
+        assertTrue(golden.size() > 10);
+        assertEquals(golden, fromBatches);
+        assertEquals(golden, fromLists);
+    }
+
+    private static void cluster(String clustererName, ItemBatch items, long delta,
+                                List<String> fromBatches, List<String> fromLists) {
+        CategoryClusterer clusterer = ClustererFactory.getClusterer(clustererName, null);
+        fromLists.addAll(describe(clustererName, clusterer.cluster(items.toItems()), delta));
+        fromBatches.addAll(describe(clustererName, clusterer.cluster(items), delta));
+    }
+
+    /**
+     * One line per group, with times as recorded in apiexample.json
+     */
+    private static List<String> describe(String clustererName, List<NotificationGroup> groups, long delta) {
+        List<String> out = new ArrayList<>();
+        for (NotificationGroup group : groups) {
+            out.add(clustererName + " | " + group.category + " | " + group.name + " | " + group.quantity
+                    + " | " + (group.earliestReadyTime - delta) + " | " + unshiftId(group.groupId, delta)
+                    + " | " + group.details);
+        }
+        return out;
+    }
+
+    private static String unshiftId(String groupId, long delta) {
+        String masked = RANDOM_ID.matcher(groupId).replaceAll("$1_random");
+        Matcher millis = EPOCH_MILLIS.matcher(masked);
+        StringBuffer out = new StringBuffer();
+        while (millis.find()) {
+            millis.appendReplacement(out, Long.toString(Long.parseLong(millis.group()) - delta));
+        }
+        millis.appendTail(out);
+        return out.toString();
+    }
+
+    private static List<String> readGolden() throws Exception {
+        List<String> lines = new ArrayList<>();
+        try (InputStream in = ClusteringGoldenTest.class.getResourceAsStream(GOLDEN)) {
+            assertNotNull(GOLDEN + " missing from test resources", in);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
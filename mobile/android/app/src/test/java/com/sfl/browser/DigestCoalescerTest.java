@@ -0,0 +1,110 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import com.sfl.browser.clustering.ClustererFactory;
+import com.sfl.browser.clustering.DigestCoalescer;
+import com.sfl.browser.clustering.NotificationGroup;
+import com.sfl.browser.models.FarmState;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Digests merge groups of different categories ready within the window, keep the earliest
+ * ready time, and leave single-category windows and special categories alone.
+ */
+public class DigestCoalescerTest {
+    private static final long MINUTE = 60_000;
+    private static final long T = 1_700_000_000_000L;
+
+    @Test
+    public void mergesDifferentCategoriesWithinWindow() {
+        NotificationGroup wheat = group("crops", "Wheat", 12, T + 30_000);
+        NotificationGroup apple = group("fruits", "Apple", 3, T);
+        NotificationGroup tree = group("resource", "Tree", 1, T + 90_000);
+        NotificationGroup later = group("flowers", "Red Pansy", 2, T + 10 * MINUTE);
+        List<NotificationGroup> result = DigestCoalescer.coalesce(Arrays.asList(wheat, apple, tree, later), 2 * MINUTE, T - 1);
+
+        assertEquals(2, result.size());
+        assertSame(later, result.get(0));
+        NotificationGroup digest = result.get(1);
+        assertEquals(DigestCoalescer.CATEGORY, digest.category);
+        assertEquals(3, digest.quantity);
+        assertEquals(T, digest.earliestReadyTime);
+        assertEquals("3 Apple ready\n12 Wheat ready\nTree ready", digest.details);
+        assertEquals("digest_" + T, digest.groupId);
+    }
+
+    @Test
+    public void leavesSingleCategoryWindowsAndSpecialCategories() {
+        List<NotificationGroup> groups = Arrays.asList(
+                group("crops", "Wheat", 1, T),
+                group("crops", "Kale", 1, T + MINUTE),
+                group("marketplace", "Wheat", 10, T),
+                group("Daily Reset", "Daily Reset", 1, T + MINUTE));
+        assertSame(groups, DigestCoalescer.coalesce(groups, 2 * MINUTE, T - 1));
+    }
+
+    @Test
+    public void pastGroupDoesNotStartADigest() {
+        // A beehive swarm predicted at extraction time, then crops and fruits still to come
+        NotificationGroup swarm = group("beehive", "Swarm", 1, T);
+        NotificationGroup wheat = group("crops", "Wheat", 4, T + 30_000);
+        NotificationGroup apple = group("fruits", "Apple", 2, T + 60_000);
+        List<NotificationGroup> result = DigestCoalescer.coalesce(Arrays.asList(swarm, wheat, apple), 2 * MINUTE, T);
+
+        assertEquals(2, result.size());
+        assertSame(swarm, result.get(0));
+        NotificationGroup digest = result.get(1);
+        assertEquals(T + 30_000, digest.earliestReadyTime);
+        assertEquals("4 Wheat ready\n2 Apple ready", digest.details);
+
+        // A past group and one future group of another category are left as they are
+        List<NotificationGroup> pair = Arrays.asList(swarm, wheat);
+        assertSame(pair, DigestCoalescer.coalesce(pair, 2 * MINUTE, T));
+    }
+
+    @Test
+    public void farmNeedsFewerAlarms() throws Exception {
+        byte[] recorded = StubFarmApiServer.rebaseToNow(StubFarmApiServer.loadApiExample());
+        FarmState farm = FarmStateReader.read(new StringReader(new String(recorded, StandardCharsets.UTF_8)), null);
+        FarmExtractionEngine.Buckets extracted = FarmExtractionEngine.extract(farm, null);
+        List<NotificationGroup> groups = new ArrayList<>();
+        groups.addAll(ClustererFactory.getClusterer("crops", null).cluster(extracted.crops));
+        groups.addAll(ClustererFactory.getClusterer("fruits", null).cluster(extracted.fruits));
+        groups.addAll(ClustererFactory.getClusterer("resources", null).cluster(extracted.resources));
+        groups.addAll(ClustererFactory.getClusterer("animals", null).cluster(extracted.animals));
+        groups.addAll(ClustererFactory.getClusterer("flowers", null).cluster(extracted.flowers));
+        groups.addAll(ClustererFactory.getClusterer("composters", null).cluster(extracted.composters));
+
+        List<NotificationGroup> digested = DigestCoalescer.coalesce(groups, 30 * MINUTE, System.currentTimeMillis());
+        assertTrue("30 min digests: " + groups.size() + " -> " + digested.size() + " alarms",
+                digested.size() < groups.size());
+        assertEquals(earliest(groups), earliest(digested));
+        int members = 0;
+        for (NotificationGroup group : digested) {
+            members += DigestCoalescer.CATEGORY.equals(group.category) ? group.quantity : 1;
+        }
+        assertEquals(groups.size(), members);
+    }
+
+    private static long earliest(List<NotificationGroup> groups) {
+        long earliest = Long.MAX_VALUE;
+        for (NotificationGroup group : groups) {
+            earliest = Math.min(earliest, group.earliestReadyTime);
+        }
+        return earliest;
+    }
+
+    private static NotificationGroup group(String category, String name, int quantity, long readyTime) {
+        NotificationGroup group = new NotificationGroup(category, name, quantity, readyTime);
+        group.groupId = category + "_" + name + "_" + readyTime;
+        return group;
+    }
+}
@@ -0,0 +1,188 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sfl.browser.models.FarmState;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Exercises APIClient against recorded farm responses served by StubFarmApiServer,
+ * covering compression, conditional requests, injected faults and timing.
+ */
+public class FarmApiReplayTest {
+    private StubFarmApiServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubFarmApiServer();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    private APIClient.FetchResult<JsonObject> fetch(String etag) {
+        return APIClient.fetchConditional(server.farmUrl("42"), "key", etag, null,
+                body -> JsonParser.parseReader(body).getAsJsonObject());
+    }
+
+    @Test
+    public void replaysApiExampleGzipped() throws Exception {
+        byte[] example = StubFarmApiServer.loadApiExample();
+        server.setDefault(StubFarmApiServer.Response.ok(example));
+
+        long start = System.nanoTime();
+        APIClient.FetchResult<JsonObject> first = fetch(null);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        APIClient.FetchResult<JsonObject> second = fetch(null);
+
+        assertFalse(first.isFailure());
+        assertTrue(first.body.getAsJsonObject("farm").has("crops"));
+        assertEquals("identical payloads must checksum identically", first.bodyChecksum, second.bodyChecksum);
+        StubFarmApiServer.RecordedRequest request = server.getRequests().get(0);
+        assertEquals("gzip", request.headers.get("accept-encoding"));
+        assertEquals("key", request.headers.get("x-api-key"));
+        assertTrue("gzip should shrink the wire payload: " + example.length + " bytes decoded, "
+                + request.bytesSent + " on the wire, " + elapsedMs + " ms end-to-end",
+                request.bytesSent < example.length / 3);
+    }
+
+    @Test
+    public void matchingETagYieldsNotModified() {
+        server.setDefault(StubFarmApiServer.Response.ok("{\"farm\":{}}".getBytes(StandardCharsets.UTF_8))
+                .header("ETag", "\"v1\""));
+
+        APIClient.FetchResult<JsonObject> first = fetch(null);
+        APIClient.FetchResult<JsonObject> second = fetch(first.etag);
+
+        assertEquals("\"v1\"", first.etag);
+        assertTrue(second.isNotModified());
+        assertNull(second.body);
+        assertEquals("\"v1\"", server.getRequests().get(1).headers.get("if-none-match"));
+    }
+
+    @Test
+    public void rateLimitCarriesRetryAfter() {
+        server.enqueue(StubFarmApiServer.Response.status(429).header("Retry-After", "120"));
+
+        APIClient.FetchResult<JsonObject> result = fetch(null);
+
+        assertTrue(result.isFailure());
+        assertEquals(FetchFailure.Kind.RATE_LIMITED, result.failure.kind);
+        assertEquals(120_000, result.failure.retryAfterMs);
+        assertTrue(result.failure.isBackpressure());
+        assertTrue(result.failure.isUnavailable());
+    }
+
+    @Test
+    public void clientErrorsAreNotRetryable() {
+        server.enqueue(StubFarmApiServer.Response.status(401));
+
+        APIClient.FetchResult<JsonObject> result = fetch(null);
+
+        assertEquals(FetchFailure.Kind.CLIENT_ERROR, result.failure.kind);
+        assertFalse(result.failure.isRetryable());
+        // A rejected farm ID / API key must not fall back to the offline snapshot
+        assertFalse(result.failure.isUnavailable());
+    }
+
+    @Test
+    public void truncatedBodyIsATransferFailureNotAParseFailure() throws Exception {
+        server.enqueue(StubFarmApiServer.Response.ok(StubFarmApiServer.loadApiExample())
+                .identityEncoding().truncateAfter(50_000));
+
+        APIClient.FetchResult<JsonObject> result = fetch(null);
+
+        assertTrue(result.isFailure());
+        assertEquals(FetchFailure.Kind.IO, result.failure.kind);
+        assertTrue(result.failure.isRetryable());
+        assertTrue(result.failure.isUnavailable());
+    }
+
+    @Test
+    public void malformedBodyIsAParseFailure() {
+        server.enqueue(StubFarmApiServer.Response.ok("<html>maintenance</html>".getBytes(StandardCharsets.UTF_8)));
+
+        APIClient.FetchResult<JsonObject> result = fetch(null);
+
+        assertEquals(FetchFailure.Kind.PARSE, result.failure.kind);
+        assertFalse(result.failure.isRetryable());
+        assertFalse(result.failure.isUnavailable());
+    }
+
+    @Test
+    public void bodyIsTeedToSnapshotWhileParsing() throws Exception {
+        byte[] example = StubFarmApiServer.loadApiExample();
+        server.setDefault(StubFarmApiServer.Response.ok(example));
+        File snapshot = File.createTempFile("farm_api_raw", ".json");
+        snapshot.deleteOnExit();
+
+        APIClient.FetchResult<FarmState> result = APIClient.fetchConditional(server.farmUrl("42"), "key", null, null,
+                snapshot, body -> APIClient.readFarmState(body, null));
+
+        assertFalse(result.isFailure());
+        assertArrayEquals(example, Files.readAllBytes(snapshot.toPath()));
+        assertFalse(new File(snapshot.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void failedFetchKeepsPreviousSnapshot() throws Exception {
+        server.enqueue(StubFarmApiServer.Response.ok(StubFarmApiServer.loadApiExample())
+                .identityEncoding().truncateAfter(50_000));
+        server.enqueue(StubFarmApiServer.Response.ok("{\"error\":\"maintenance\"}".getBytes(StandardCharsets.UTF_8)));
+        File snapshot = File.createTempFile("farm_api_raw", ".json");
+        snapshot.deleteOnExit();
+        byte[] previous = "{\"farm\":{}}".getBytes(StandardCharsets.UTF_8);
+        Files.write(snapshot.toPath(), previous);
+
+        APIClient.FetchResult<FarmState> truncated = APIClient.fetchConditional(server.farmUrl("42"), "key", null, null,
+                snapshot, body -> APIClient.readFarmState(body, null));
+        APIClient.FetchResult<FarmState> notAFarm = APIClient.fetchConditional(server.farmUrl("42"), "key", null, null,
+                snapshot, body -> APIClient.readFarmState(body, null));
+
+        assertEquals(FetchFailure.Kind.IO, truncated.failure.kind);
+        assertEquals(FetchFailure.Kind.PARSE, notAFarm.failure.kind);
+        assertArrayEquals(previous, Files.readAllBytes(snapshot.toPath()));
+        assertFalse(new File(snapshot.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void latencyAndBandwidthAreInjectedAndTimed() {
+        byte[] body = new byte[20_000];
+        java.util.Arrays.fill(body, (byte) ' ');
+        body[0] = '{';
+        body[body.length - 1] = '}';
+        server.enqueue(StubFarmApiServer.Response.ok(body).identityEncoding().latency(200).bandwidth(40_000));
+
+        long start = System.nanoTime();
+        APIClient.FetchResult<JsonObject> result = fetch(null);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertFalse(result.isFailure());
+        // 200ms latency + 20KB at 40KB/s ≈ 700ms
+        assertTrue("elapsed " + elapsedMs, elapsedMs >= 600);
+        StubFarmApiServer.RecordedRequest request = server.getRequests().get(0);
+        assertTrue(request.timeToFirstByteMillis() >= 200);
+    }
+
+    @Test
+    public void scaledFarmMultipliesExtractableItems() throws Exception {
+        byte[] example = StubFarmApiServer.loadApiExample();
+        JsonObject original = JsonParser.parseString(new String(example, StandardCharsets.UTF_8))
+                .getAsJsonObject().getAsJsonObject("farm");
+        JsonObject scaled = JsonParser.parseString(new String(StubFarmApiServer.scaleFarm(example, 3), StandardCharsets.UTF_8))
+                .getAsJsonObject().getAsJsonObject("farm");
+
+        assertEquals(original.getAsJsonObject("crops").size() * 3, scaled.getAsJsonObject("crops").size());
+    }
+}
@@ -0,0 +1,219 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sfl.browser.models.FarmItem;
+import com.sfl.browser.models.FarmState;
+import com.sfl.browser.models.ItemBatch;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The single-pass extraction must produce the same lists as the per-category extractors,
+ * and cached, parallel and concurrent runs the same lists as a sequential full one
+ */
+public class FarmExtractionEngineTest {
+
+    @Test
+    public void singlePassMatchesPerCategoryExtractors() throws Exception {
+        byte[] recorded = StubFarmApiServer.rebaseToNow(StubFarmApiServer.loadApiExample());
+        String example = new String(recorded, StandardCharsets.UTF_8);
+        JsonObject farm = JsonParser.parseString(example).getAsJsonObject().getAsJsonObject("farm");
+
+        FarmExtractionEngine.Buckets extracted = FarmExtractionEngine.extract(farm);
+
+        assertEquals(describe(CategoryExtractors.extractCrops(farm)), describe(extracted.crops));
+        assertEquals(describe(CategoryExtractors.extractFruits(farm)), describe(extracted.fruits));
+        assertEquals(describe(CategoryExtractors.extractGreenhouseCrops(farm)), describe(extracted.greenhouseCrops));
+        assertEquals(describe(CategoryExtractors.extractResources(farm)), describe(extracted.resources));
+        assertEquals(describe(CategoryExtractors.extractAnimals(farm)), describe(extracted.animals));
+        assertEquals(CategoryExtractors.extractSickAnimals(farm).size(), extracted.sickAnimals.size());
+        assertEquals(describe(CategoryExtractors.extractCooking(farm)), describe(extracted.cooking));
+        assertEquals(describe(CategoryExtractors.extractComposters(farm)), describe(extracted.composters));
+        assertEquals(describe(CategoryExtractors.extractFlowers(farm)), describe(extracted.flowers));
+        assertEquals(describe(CategoryExtractors.extractCraftingBox(farm)), describe(extracted.craftingBox));
+        // Beehive swarm and fullness times are relative to now, so only compare what was found
+        assertEquals(names(CategoryExtractors.extractBeehives(farm)), names(extracted.beehives));
+        assertEquals(describe(CategoryExtractors.extractCropMachine(farm)), describe(extracted.cropMachine));
+        assertEquals(names(CategoryExtractors.extractSunstones(farm)), names(extracted.sunstones));
+        assertEquals(describe(SkillExtractors.extractSkillCooldowns(farm.getAsJsonObject("bumpkin"))),
+                describe(extracted.skillCooldowns));
+        assertTrue(extracted.size() > 10);
+    }
+
+    @Test
+    public void unchangedFarmIsServedFromCache() throws Exception {
+        String example = new String(StubFarmApiServer.rebaseToNow(StubFarmApiServer.loadApiExample()),
+                StandardCharsets.UTF_8);
+        ExtractionCache cache = new ExtractionCache();
+
+        FarmExtractionEngine.Buckets first = FarmExtractionEngine.extract(read(example), null, cache);
+        FarmExtractionEngine.Buckets second = FarmExtractionEngine.extract(read(example), null, cache);
+
+        assertTrue(first.changedCategories.contains("crops"));
+        assertFalse(second.changedCategories.contains("crops"));
+        assertFalse(second.changedCategories.contains("cooking"));
+        // Read the clock, so never cached
+        assertTrue(second.changedCategories.contains("beehive"));
+        assertTrue(second.changedCategories.contains("animal_sick"));
+        assertSameItems(FarmExtractionEngine.extract(read(example), null), second);
+    }
+
+    @Test
+    public void changedKeyIsExtractedAgain() throws Exception {
+        JsonObject response = JsonParser.parseString(new String(
+                StubFarmApiServer.rebaseToNow(StubFarmApiServer.loadApiExample()), StandardCharsets.UTF_8)).getAsJsonObject();
+        ExtractionCache cache = new ExtractionCache();
+        FarmExtractionEngine.extract(read(response.toString()), null, cache);
+
+        // Replant one plot an hour later
+        JsonObject crops = response.getAsJsonObject("farm").getAsJsonObject("crops");
+        JsonObject crop = null;
+        for (String plot : crops.keySet()) {
+            crop = crops.getAsJsonObject(plot).getAsJsonObject("crop");
+            if (crop != null) {
+                break;
+            }
+        }
+        assertNotNull(crop);
+        crop.addProperty("plantedAt", crop.get("plantedAt").getAsLong() + 60 * 60 * 1000);
+        String replanted = response.toString();
+
+        FarmExtractionEngine.Buckets cached = FarmExtractionEngine.extract(read(replanted), null, cache);
+
+        assertTrue(cached.changedCategories.contains("crops"));
+        assertFalse(cached.changedCategories.contains("fruits"));
+        assertSameItems(FarmExtractionEngine.extract(read(replanted), null), cached);
+    }
+
+    @Test
+    public void parallelRunMatchesSequential() throws Exception {
+        byte[] scaled = StubFarmApiServer.scaleFarm(StubFarmApiServer.rebaseToNow(StubFarmApiServer.loadApiExample()), 10);
+        FarmState farm = read(new String(scaled, StandardCharsets.UTF_8));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertSameItems(FarmExtractionEngine.extract(farm, null, null, null),
+                    FarmExtractionEngine.extract(farm, null, null, pool));
+
+            // Timings depend on the machine, so they are only reported on request
+            if (Boolean.getBoolean("sfl.benchmark")) {
+                long sequential = time(() -> FarmExtractionEngine.extract(farm, null, null, null));
+                long parallel = time(() -> FarmExtractionEngine.extract(farm, null, null, pool));
+                System.out.println(String.format("10x apiexample.json, per extraction: sequential %.2f ms, parallel (4) %.2f ms",
+                        sequential / 1e6, parallel / 1e6));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void concurrentFarmsDoNotShareState() throws Exception {
+        String example = new String(StubFarmApiServer.rebaseToNow(StubFarmApiServer.loadApiExample()),
+                StandardCharsets.UTF_8);
+        FarmExtractionEngine.Buckets expected = FarmExtractionEngine.extract(read(example), null, null, null);
+        // A farm without flowers: its beehives must not see another run's flower beds
+        JsonObject response = JsonParser.parseString(example).getAsJsonObject();
+        response.getAsJsonObject("farm").remove("flowers");
+        String noFlowers = response.toString();
+        FarmExtractionEngine.Buckets expectedNoFlowers = FarmExtractionEngine.extract(read(noFlowers), null, null, null);
+
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<FarmExtractionEngine.Buckets>> runs = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                String body = i % 2 == 0 ? example : noFlowers;
+                runs.add(workers.submit(() -> FarmExtractionEngine.extract(read(body), null, null)));
+            }
+            for (int i = 0; i < runs.size(); i++) {
+                assertSameItems(i % 2 == 0 ? expected : expectedNoFlowers, runs.get(i).get());
+            }
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    @Test
+    public void readyItemsArePruned() {
+        FarmExtractionEngine.Buckets buckets = new FarmExtractionEngine.Buckets();
+        buckets.crops.add(new FarmItem("crops", "Sunflower", 1, 1000));
+        buckets.crops.add(new FarmItem("crops", "Potato", 1, 3000));
+        buckets.cooking.add(new FarmItem("cooking", "Boiled Eggs", 1, 2000));
+
+        assertEquals(2, buckets.pruneReady(2000));
+        assertEquals("Potato", buckets.crops.name(0));
+        assertEquals(1, buckets.size());
+    }
+
+    @Test
+    public void nullFarmGivesEmptyBuckets() {
+        assertEquals(0, FarmExtractionEngine.extract(null).size());
+    }
+
+    private static long time(Runnable run) {
+        for (int i = 0; i < 10; i++) {
+            run.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            run.run();
+        }
+        return (System.nanoTime() - start) / 20;
+    }
+
+    private static FarmState read(String response) throws Exception {
+        return FarmStateReader.read(new StringReader(response), null);
+    }
+
+    private static void assertSameItems(FarmExtractionEngine.Buckets expected, FarmExtractionEngine.Buckets actual) {
+        assertEquals(describe(expected.crops), describe(actual.crops));
+        assertEquals(describe(expected.fruits), describe(actual.fruits));
+        assertEquals(describe(expected.greenhouseCrops), describe(actual.greenhouseCrops));
+        assertEquals(describe(expected.resources), describe(actual.resources));
+        assertEquals(describe(expected.animals), describe(actual.animals));
+        assertEquals(describe(expected.cooking), describe(actual.cooking));
+        assertEquals(describe(expected.composters), describe(actual.composters));
+        assertEquals(describe(expected.flowers), describe(actual.flowers));
+        assertEquals(describe(expected.craftingBox), describe(actual.craftingBox));
+        assertEquals(names(expected.beehives), names(actual.beehives));
+        assertEquals(describe(expected.cropMachine), describe(actual.cropMachine));
+        assertEquals(describe(expected.sunstones), describe(actual.sunstones));
+        assertEquals(describe(expected.skillCooldowns), describe(actual.skillCooldowns));
+    }
+
+    private static List<String> describe(ItemBatch items) {
+        return describe(items.toItems());
+    }
+
+    private static List<String> describe(List<FarmItem> items) {
+        List<String> out = new ArrayList<>();
+        for (FarmItem item : items) {
+            out.add(item.getCategory() + "|" + item.getName() + "|" + item.getAmount() + "|" + item.getTimestamp()
+                    + "|" + item.getDetails());
+        }
+        return out;
+    }
+
+    private static List<String> names(ItemBatch items) {
+        return names(items.toItems());
+    }
+
+    private static List<String> names(List<FarmItem> items) {
+        List<String> out = new ArrayList<>();
+        for (FarmItem item : items) {
+            out.add(item.getCategory() + "|" + item.getName());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,126 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Checks that FarmFetchEngine overlaps farms, spaces requests per API key, honours the shared
+ * circuit breaker, and pairs up the Farm ID / API Key settings
+ */
+public class FarmFetchEngineTest {
+    private static final byte[] FARM = "{\"farm\":{\"crops\":{}}}".getBytes(StandardCharsets.UTF_8);
+
+    private final NotificationPlan plan = new NotificationPlan(new HashMap<>());
+    private StubFarmApiServer server;
+    private FetchCircuitBreaker breaker;
+    private FarmFetchEngine engine;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubFarmApiServer();
+        breaker = new FetchCircuitBreaker(new InMemoryPreferences());
+    }
+
+    @After
+    public void tearDown() {
+        if (engine != null) {
+            engine.shutdown();
+        }
+        server.close();
+    }
+
+    private static List<FarmFetchEngine.FarmCredentials> farms(int count, String sharedKey) {
+        List<FarmFetchEngine.FarmCredentials> farms = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            farms.add(new FarmFetchEngine.FarmCredentials(String.valueOf(i), sharedKey != null ? sharedKey : "key" + i));
+        }
+        return farms;
+    }
+
+    @Test
+    public void pollTimeTracksSlowestFarmNotTheSum() {
+        server.setDefault(StubFarmApiServer.Response.ok(FARM).latency(500));
+        engine = new FarmFetchEngine(breaker, server.baseUrl(), 6, 0);
+
+        long start = System.nanoTime();
+        List<FarmFetchEngine.FarmOutcome<Boolean>> outcomes = engine.fetchAll(farms(6, null), plan,
+                (farmId, farm) -> farm.crops != null, 20_000);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(6, outcomes.size());
+        for (int i = 0; i < 6; i++) {
+            assertEquals(String.valueOf(i), outcomes.get(i).farmId);
+            assertTrue(outcomes.get(i).isSuccess());
+            assertEquals(Boolean.TRUE, outcomes.get(i).value);
+        }
+        // One after another would take at least 3000ms
+        assertTrue("elapsed " + elapsedMs, elapsedMs < 2000);
+    }
+
+    @Test
+    public void requestsOnOneKeyAreSpacedAndBackOffAfterRateLimit() {
+        server.enqueue(StubFarmApiServer.Response.ok(FARM));
+        server.enqueue(StubFarmApiServer.Response.status(429).header("Retry-After", "60"));
+        server.setDefault(StubFarmApiServer.Response.ok(FARM));
+        engine = new FarmFetchEngine(breaker, server.baseUrl(), 4, 150);
+
+        List<FarmFetchEngine.FarmOutcome<Boolean>> outcomes = engine.fetchAll(farms(4, "shared"), plan,
+                (farmId, farm) -> true, 20_000);
+
+        List<StubFarmApiServer.RecordedRequest> requests = server.getRequests();
+        assertEquals("requests after the 429 must not reach the server", 2, requests.size());
+        long gapMs = (requests.get(1).receivedAtNanos - requests.get(0).receivedAtNanos) / 1_000_000;
+        assertTrue("gap " + gapMs, gapMs >= 140);
+        assertTrue(outcomes.get(0).isSuccess());
+        for (int i = 1; i < 4; i++) {
+            assertEquals(FetchFailure.Kind.RATE_LIMITED, outcomes.get(i).failure.kind);
+        }
+    }
+
+    @Test
+    public void openCircuitHoldsEveryFarmBack() {
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure(FetchFailure.fromStatus(500, -1));
+        }
+        server.setDefault(StubFarmApiServer.Response.ok(FARM));
+        engine = new FarmFetchEngine(breaker, server.baseUrl(), 4, 0);
+
+        List<FarmFetchEngine.FarmOutcome<Boolean>> outcomes = engine.fetchAll(farms(3, null), plan,
+                (farmId, farm) -> true, 20_000);
+
+        assertTrue(server.getRequests().isEmpty());
+        for (FarmFetchEngine.FarmOutcome<Boolean> outcome : outcomes) {
+            assertEquals(FetchFailure.Kind.CIRCUIT_OPEN, outcome.failure.kind);
+            assertTrue(outcome.failure.isUnavailable());
+        }
+    }
+
+    @Test
+    public void settingsPairEachFarmWithItsKey() {
+        List<FarmFetchEngine.FarmCredentials> shared = FarmFetchEngine.parseCredentials(" 11, 22 ,33", "secret");
+        assertEquals(3, shared.size());
+        assertEquals("22", shared.get(1).farmId);
+        assertEquals("secret", shared.get(2).apiKey);
+
+        List<FarmFetchEngine.FarmCredentials> perFarm = FarmFetchEngine.parseCredentials("11,22", "a, b");
+        assertEquals("a", perFarm.get(0).apiKey);
+        assertEquals("b", perFarm.get(1).apiKey);
+
+        assertEquals(1, FarmFetchEngine.parseCredentials("11", "a").size());
+        assertTrue(FarmFetchEngine.parseCredentials("", "a").isEmpty());
+        assertTrue(FarmFetchEngine.parseCredentials("11", null).isEmpty());
+        try {
+            FarmFetchEngine.parseCredentials("11,22,33", "a,b");
+            fail("two keys for three farms should be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import com.sfl.browser.models.FarmState;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashMap;
+
+/**
+ * The pipeline's fetch step and the shared circuit breaker, run against StubFarmApiServer
+ * through FarmDataProcessor's own farm URL
+ */
+public class FarmFetchPipelineTest {
+    private StubFarmApiServer server;
+    private FetchCircuitBreaker breaker;
+    private File snapshot;
+    private final NotificationPlan plan = new NotificationPlan(new HashMap<>());
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubFarmApiServer();
+        FarmDataProcessor.setApiBaseUrl(server.baseUrl());
+        breaker = new FetchCircuitBreaker(new InMemoryPreferences());
+        snapshot = File.createTempFile("farm_api_raw", ".json");
+        assertTrue(snapshot.delete());
+    }
+
+    @After
+    public void tearDown() {
+        FarmDataProcessor.setApiBaseUrl(null);
+        server.close();
+        snapshot.delete();
+    }
+
+    private APIClient.FetchResult<FarmState> fetch(String etag) {
+        return FarmDataProcessor.fetchFarm(breaker, plan, FarmDataProcessor.farmUrl("1"), "key", etag, null, snapshot);
+    }
+
+    private FetchFailure fetchExpectingFailure() {
+        try {
+            fetch(null);
+        } catch (FarmFetchException e) {
+            return e.getFailure();
+        }
+        fail("fetch should have thrown");
+        return null;
+    }
+
+    @Test
+    public void repeatedServerErrorsOpenTheCircuit() {
+        server.setDefault(StubFarmApiServer.Response.status(500));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.allowRequest());
+            assertEquals(FetchFailure.Kind.SERVER_ERROR, fetchExpectingFailure().kind);
+        }
+
+        assertFalse("third failure in a row opens the circuit", breaker.allowRequest());
+        assertEquals("/community/farms/1", server.getRequests().get(0).path);
+        assertEquals(3, server.getRequests().size());
+    }
+
+    @Test
+    public void rateLimitHoldsPollsBackForRetryAfter() {
+        server.enqueue(StubFarmApiServer.Response.status(429).header("Retry-After", "120"));
+
+        assertEquals(FetchFailure.Kind.RATE_LIMITED, fetchExpectingFailure().kind);
+        assertFalse(breaker.allowRequest());
+        assertTrue(breaker.getOpenUntil() - System.currentTimeMillis() > 60_000);
+    }
+
+    @Test
+    public void successResetsTheCircuitAndKeepsTheSnapshot() throws Exception {
+        server.enqueue(StubFarmApiServer.Response.status(500))
+                .enqueue(StubFarmApiServer.Response.status(500))
+                .setDefault(StubFarmApiServer.Response.ok(StubFarmApiServer.loadApiExample()).header("ETag", "\"v1\""));
+        fetchExpectingFailure();
+        fetchExpectingFailure();
+
+        APIClient.FetchResult<FarmState> result = fetch(null);
+        assertNotNull(result.body);
+        assertEquals("\"v1\"", result.etag);
+        assertTrue("the raw body is teed to the snapshot", snapshot.length() > 0);
+
+        // The failure count restarted, so one more error leaves the circuit closed
+        server.enqueue(StubFarmApiServer.Response.status(500));
+        fetchExpectingFailure();
+        assertTrue(breaker.allowRequest());
+
+        APIClient.FetchResult<FarmState> unchanged = fetch("\"v1\"");
+        assertTrue(unchanged.isNotModified());
+        assertEquals("the stored ETag goes back as If-None-Match", "\"v1\"", server.getRequests().get(4).headers.get("if-none-match"));
+    }
+}
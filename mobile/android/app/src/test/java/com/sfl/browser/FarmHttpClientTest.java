@@ -0,0 +1,74 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Verifies that consecutive farm fetches reuse one pooled connection instead of
+ * opening a new socket per run.
+ */
+public class FarmHttpClientTest {
+    private static final byte[] BODY = "{\"farm\":{\"coins\":1}}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<>());
+
+    @Before
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/community/farms/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            int status = exchange.getRequestURI().getPath().endsWith("/missing") ? 404 : 200;
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, BODY.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(BODY);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private String url(String farmId) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/community/farms/" + farmId;
+    }
+
+    @Test
+    public void consecutiveFetchesReuseConnection() throws Exception {
+        for (int run = 0; run < 3; run++) {
+            assertEquals(new String(BODY, StandardCharsets.UTF_8), APIClient.fetchRawJSON(url("1"), "key"));
+        }
+        assertEquals("all runs should share one socket", 1, clientPorts.size());
+    }
+
+    @Test
+    public void errorResponsesDoNotPoisonThePool() throws Exception {
+        assertNull(APIClient.fetchRawJSON(url("missing"), "key"));
+        assertNotNull(APIClient.fetchRawJSON(url("1"), "key"));
+        assertEquals("error body should be drained and the socket reused", 1, clientPorts.size());
+    }
+
+    @Test
+    public void drainedResponsesLeaveTheHostWarm() throws Exception {
+        FarmHttpClient client = FarmHttpClient.getShared();
+        assertFalse(client.hasWarmConnection(url("1")));
+        assertNotNull(APIClient.fetchRawJSON(url("1"), "key"));
+        assertTrue("a drained response leaves the socket pooled", client.hasWarmConnection(url("2")));
+    }
+}
@@ -0,0 +1,143 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sfl.browser.models.FarmItem;
+import com.sfl.browser.models.FarmState;
+import com.sfl.browser.models.ItemBatch;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The typed FarmState decoded from the stream must extract exactly like the Gson tree, and is
+ * benchmarked against a full Gson tree + tree extraction on apiexample.json
+ */
+public class FarmStateReaderTest {
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Test
+    public void streamedStateExtractsLikeTree() throws Exception {
+        String example = new String(StubFarmApiServer.rebaseToNow(StubFarmApiServer.loadApiExample()),
+                StandardCharsets.UTF_8);
+        JsonObject tree = JsonParser.parseString(example).getAsJsonObject().getAsJsonObject("farm");
+
+        FarmState farm = FarmStateReader.read(new StringReader(example), null);
+        FarmExtractionEngine.Buckets streamed = FarmExtractionEngine.extract(farm, null);
+        FarmExtractionEngine.Buckets fromTree = FarmExtractionEngine.extract(tree);
+
+        assertEquals(describe(fromTree.crops), describe(streamed.crops));
+        assertEquals(describe(fromTree.fruits), describe(streamed.fruits));
+        assertEquals(describe(fromTree.greenhouseCrops), describe(streamed.greenhouseCrops));
+        assertEquals(describe(fromTree.resources), describe(streamed.resources));
+        assertEquals(describe(fromTree.animals), describe(streamed.animals));
+        assertEquals(fromTree.sickAnimals.size(), streamed.sickAnimals.size());
+        assertEquals(describe(fromTree.cooking), describe(streamed.cooking));
+        assertEquals(describe(fromTree.composters), describe(streamed.composters));
+        assertEquals(describe(fromTree.flowers), describe(streamed.flowers));
+        assertEquals(describe(fromTree.craftingBox), describe(streamed.craftingBox));
+        assertEquals(describe(fromTree.cropMachine), describe(streamed.cropMachine));
+        assertEquals(describe(fromTree.sunstones), describe(streamed.sunstones));
+        assertEquals(describe(fromTree.skillCooldowns), describe(streamed.skillCooldowns));
+        assertEquals(fromTree.beehives.size(), streamed.beehives.size());
+        assertTrue(streamed.size() > 10);
+
+        assertNotNull(farm.pets);
+        assertNotNull(farm.bumpkin.skills);
+        assertEquals(tree.getAsJsonObject("crops").size(), farm.crops.size());
+    }
+
+    @Test
+    public void disabledKeysAreNotDecoded() throws Exception {
+        Map<String, Object> prefs = new HashMap<>();
+        prefs.put("category_greenhouse_crops", false);
+        prefs.put("category_crafting", false);
+        String example = new String(StubFarmApiServer.loadApiExample(), StandardCharsets.UTF_8);
+
+        FarmState farm = FarmStateReader.read(new StringReader(example), new NotificationPlan(prefs));
+
+        assertNull(farm.greenhousePots);
+        assertNull(farm.craftingBox);
+        assertNotNull(farm.crops);
+    }
+
+    @Test
+    public void rejectsNonFarmAsParseFailure() {
+        for (String body : new String[]{"<html>maintenance</html>", "{\"error\":\"not found\"}"}) {
+            try {
+                APIClient.readFarmState(new StringReader(body), null);
+                fail("expected a parse error for " + body);
+            } catch (Exception e) {
+                assertEquals(FetchFailure.Kind.PARSE, FetchFailure.fromException(e).kind);
+            }
+        }
+    }
+
+    @Test
+    public void benchmarkAgainstFullTree() throws Exception {
+        String example = new String(StubFarmApiServer.loadApiExample(), StandardCharsets.UTF_8);
+
+        long[] tree = measure(() -> FarmExtractionEngine.extract(
+                JsonParser.parseReader(new StringReader(example)).getAsJsonObject().getAsJsonObject("farm")));
+        long[] typed = measure(() -> FarmExtractionEngine.extract(
+                FarmStateReader.read(new StringReader(example), null), null));
+
+        if (tree[1] > 0) {
+            assertTrue(String.format("typed decode should allocate less, per parse + extract: full tree %.2f ms / %d KB,"
+                            + " typed %.2f ms / %d KB", tree[0] / 1e6, tree[1] / 1024, typed[0] / 1e6, typed[1] / 1024),
+                    typed[1] < tree[1]);
+        }
+    }
+
+    private static List<String> describe(ItemBatch items) {
+        return describe(items.toItems());
+    }
+
+    private static List<String> describe(List<FarmItem> items) {
+        List<String> out = new ArrayList<>();
+        for (FarmItem item : items) {
+            out.add(item.getCategory() + "|" + item.getName() + "|" + item.getAmount() + "|" + item.getTimestamp()
+                    + "|" + item.getDetails());
+        }
+        return out;
+    }
+
+    private interface Parse {
+        Object run() throws Exception;
+    }
+
+    /**
+     * @return {mean nanos per run, mean bytes allocated per run (0 if the JVM can't tell)}
+     */
+    private static long[] measure(Parse parse) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            parse.run();
+        }
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            parse.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        return new long[]{elapsed / ITERATIONS, Math.max(0, allocated / ITERATIONS)};
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,90 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * GameTables IDs must be dense and shared across tables, and an ID lookup is benchmarked
+ * against the String-keyed HashMap<String, Long> it replaced
+ */
+public class GameTablesTest {
+    private static final int ITERATIONS = 2_000_000;
+
+    @Test
+    public void idsAreDenseAndShared() {
+        Set<String> names = new HashSet<>();
+        for (int id = 0; id < GameTables.idCount(); id++) {
+            String name = GameTables.nameOf(id);
+            assertTrue(name, names.add(name));
+            // A copy that is not the interned literal must resolve too
+            assertEquals(id, GameTables.idOf(new String(name.toCharArray())));
+        }
+        assertNull(GameTables.nameOf(GameTables.idCount()));
+        assertEquals(GameTables.UNKNOWN, GameTables.idOf("Not A Crop"));
+        assertEquals(GameTables.UNKNOWN, GameTables.idOf(null));
+
+        int rice = GameTables.idOf("Rice");
+        assertEquals(32L * 60 * 60 * 1000, GameTables.CROPS.duration(rice));
+        assertEquals(GameTables.CROPS.duration(rice), GameTables.GREENHOUSE_CROPS.duration(rice));
+        assertEquals(GameTables.NONE, GameTables.FRUITS.duration(rice));
+        assertEquals(3L * 24 * 60 * 60 * 1000, GameTables.RESOURCES.duration("Lavapit"));
+        assertEquals(0, GameTables.CROP_MACHINE.size());
+    }
+
+    @Test
+    public void cropClassesAreArrayReads() {
+        assertTrue(Constants.isBasicCrop("Sunflower"));
+        assertTrue(Constants.isBasicCrop(GameTables.idOf("Zucchini")));
+        assertFalse(Constants.isBasicCrop("Carrot"));
+        assertTrue(Constants.isOvernightCrop("Barley"));
+        assertFalse(Constants.isOvernightCrop("Corn"));
+        assertFalse(Constants.isBasicCrop("Tomato"));
+        assertFalse(Constants.isOvernightCrop(GameTables.UNKNOWN));
+        assertEquals(Long.valueOf(60L * 1000), Constants.getCropGrowthTime("Sunflower"));
+        assertNull(Constants.getCropGrowthTime("Tomato"));
+    }
+
+    @Test
+    public void benchmarkAgainstStringMap() {
+        String[] crops = {"Sunflower", "Potato", "Carrot", "Cabbage", "Kale", "Wheat", "Barley", "Corn"};
+        Map<String, Long> map = new HashMap<>();
+        for (String crop : crops) {
+            map.put(crop, GameTables.CROPS.duration(crop));
+        }
+        // Distinct String instances, as the JSON reader produces them
+        String[] decoded = new String[1024];
+        int[] ids = new int[decoded.length];
+        for (int i = 0; i < decoded.length; i++) {
+            decoded[i] = new String(crops[i % crops.length].toCharArray());
+            ids[i] = GameTables.idOf(decoded[i]);
+        }
+
+        long sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Long duration = map.get(decoded[i % decoded.length]);
+            if (duration != null) {
+                sum += duration;
+            }
+        }
+        long mapNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long duration = GameTables.CROPS.duration(ids[i % ids.length]);
+            if (duration != GameTables.NONE) {
+                sum -= duration;
+            }
+        }
+        long tableNanos = System.nanoTime() - start;
+
+        assertEquals(String.format("lookups disagree; per lookup: HashMap<String, Long> %.1f ns, GameTables by ID %.1f ns (%d names)",
+                (double) mapNanos / ITERATIONS, (double) tableNanos / ITERATIONS, GameTables.idCount()), 0, sum);
+    }
+}
@@ -0,0 +1,86 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import com.sfl.browser.clustering.GroupTracker;
+import com.sfl.browser.clustering.NotificationGroup;
+import com.sfl.browser.models.FarmState;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Groups keep their identity across polls while their earliest ready time holds, and only
+ * new, changed and removed groups are reported.
+ */
+public class GroupTrackerTest {
+    private static final long T = 1_700_000_000_000L;
+
+    @Test
+    public void unchangedFarmReportsNoChangesAndKeepsIds() throws Exception {
+        byte[] farm = StubFarmApiServer.rebaseToNow(StubFarmApiServer.loadApiExample());
+        GroupTracker tracker = new GroupTracker();
+        assertFalse(tracker.isCurrent(0));
+
+        List<NotificationGroup> first = cluster(farm);
+        GroupTracker.Changes initial = tracker.update(first, 0);
+        assertEquals(first.size(), initial.added.size());
+        assertTrue(tracker.isCurrent(0));
+        assertFalse(tracker.isCurrent(1));
+
+        // Resource and animal clusterers hand out random IDs on every poll
+        List<NotificationGroup> second = cluster(farm);
+        GroupTracker.Changes changes = tracker.update(second, 0);
+        assertTrue(changes.toString(), changes.isEmpty());
+        assertEquals(second.size(), changes.unchanged.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).groupId, second.get(i).groupId);
+        }
+    }
+
+    @Test
+    public void reportsAddedChangedAndRemovedGroups() {
+        GroupTracker tracker = new GroupTracker();
+        NotificationGroup wheat = group("crops", "Wheat", 4, T, "crops_Wheat_1");
+        NotificationGroup kale = group("crops", "Kale", 2, T, "crops_Kale_1");
+        NotificationGroup tree = group("resource", "Tree", 1, T, "res_1");
+        tracker.update(Arrays.asList(wheat, kale, tree), 7);
+
+        // One more Wheat plot, Kale harvested, Tree unchanged but with a new random ID, Potato new
+        NotificationGroup moreWheat = group("crops", "Wheat", 5, T, "crops_Wheat_2");
+        NotificationGroup sameTree = group("resource", "Tree", 1, T, "res_2");
+        NotificationGroup potato = group("crops", "Potato", 1, T + 60_000, "crops_Potato_1");
+        GroupTracker.Changes changes = tracker.update(Arrays.asList(moreWheat, sameTree, potato), 7);
+
+        assertEquals(Arrays.asList(potato), changes.added);
+        assertEquals(Arrays.asList(moreWheat), changes.changed);
+        assertEquals("crops_Wheat_1", moreWheat.groupId);
+        assertEquals(1, changes.removed.size());
+        assertEquals("crops_Kale_1", changes.removed.get(0).groupId);
+        assertEquals(Arrays.asList(sameTree), changes.unchanged);
+        assertEquals("res_1", sameTree.groupId);
+    }
+
+    private static List<NotificationGroup> cluster(byte[] body) throws Exception {
+        NotificationPlan plan = new NotificationPlan(new HashMap<>());
+        FarmState farm = FarmStateReader.read(new StringReader(new String(body, StandardCharsets.UTF_8)), plan);
+        ExtractionCache cache = new ExtractionCache();
+        cache.validate(plan.settingsStamp());
+        PipelineRun run = new PipelineRun(farm, null);
+        run.extract(plan, cache, false);
+        run.cluster(null, plan, cache);
+        return new ArrayList<>(run.groups);
+    }
+
+    private static NotificationGroup group(String category, String name, int quantity, long readyTime, String groupId) {
+        NotificationGroup group = new NotificationGroup(category, name, quantity, readyTime);
+        group.groupId = groupId;
+        return group;
+    }
+}
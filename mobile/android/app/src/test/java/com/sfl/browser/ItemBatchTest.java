@@ -0,0 +1,130 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import com.sfl.browser.clustering.CategoryClusterer;
+import com.sfl.browser.clustering.CropClusterer;
+import com.sfl.browser.clustering.FlowerClusterer;
+import com.sfl.browser.clustering.FruitClusterer;
+import com.sfl.browser.clustering.GreenhouseCropClusterer;
+import com.sfl.browser.clustering.NotificationGroup;
+import com.sfl.browser.models.FarmItem;
+import com.sfl.browser.models.FarmState;
+import com.sfl.browser.models.ItemBatch;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ItemBatch must round-trip FarmItems, columnar clustering must match the List clusterers,
+ * and a batch must hold a large farm's items in less heap than FarmItem lists
+ */
+public class ItemBatchTest {
+    private static final int COPIES = 50;
+
+    @Test
+    public void columnsStayAlignedThroughSortAndRetain() {
+        ItemBatch batch = new ItemBatch();
+        batch.add("crops", "Potato", 1, 3000);
+        int compost = batch.add("composters", "Compost Bin", 4, 1000);
+        batch.setBuildingName(compost, "Compost Bin");
+        batch.setDetails(compost, "4 Sprout Mix");
+        batch.add("crops", "Sunflower", 1, 1000);
+        int sunstone = batch.add("Sunstones", "Sunstone", 1, 2000);
+        batch.setId(sunstone, "uuid-1");
+
+        batch.sortByReadyTime();
+        assertEquals(names(batch), "Compost Bin,Sunflower,Sunstone,Potato");
+        assertEquals("4 Sprout Mix", batch.details(0));
+        assertEquals("uuid-1", batch.id(2));
+        assertNull(batch.buildingName(1));
+
+        assertEquals(2, batch.removeReadyBy(1000));
+        assertEquals(names(batch), "Sunstone,Potato");
+        assertEquals("uuid-1", batch.toItem(0).getId());
+        assertNull(batch.details(1));
+        assertEquals(batch.nameId(0), ItemBatch.intern("Sunstone"));
+    }
+
+    @Test
+    public void columnarClusteringMatchesLists() throws Exception {
+        byte[] scaled = StubFarmApiServer.scaleFarm(StubFarmApiServer.rebaseToNow(StubFarmApiServer.loadApiExample()), 10);
+        FarmState farm = FarmStateReader.read(new StringReader(new String(scaled, StandardCharsets.UTF_8)), null);
+        FarmExtractionEngine.Buckets extracted = FarmExtractionEngine.extract(farm, null);
+        assertTrue(extracted.crops.size() > 100);
+
+        assertSameGroups(new CropClusterer(), extracted.crops);
+        assertSameGroups(new FruitClusterer(), extracted.fruits);
+        assertSameGroups(new GreenhouseCropClusterer(), extracted.greenhouseCrops);
+        assertSameGroups(new FlowerClusterer(), extracted.flowers);
+    }
+
+    @Test
+    public void batchUsesLessHeapThanFarmItems() throws Exception {
+        byte[] scaled = StubFarmApiServer.scaleFarm(StubFarmApiServer.rebaseToNow(StubFarmApiServer.loadApiExample()), 10);
+        FarmState farm = FarmStateReader.read(new StringReader(new String(scaled, StandardCharsets.UTF_8)), null);
+        FarmExtractionEngine.Buckets extracted = FarmExtractionEngine.extract(farm, null);
+        ItemBatch all = new ItemBatch();
+        all.addAll(extracted.crops);
+        all.addAll(extracted.fruits);
+        all.addAll(extracted.resources);
+        all.addAll(extracted.animals);
+        all.addAll(extracted.cooking);
+        all.addAll(extracted.composters);
+
+        List<Object> held = new ArrayList<>();
+        long before = usedHeap();
+        for (int i = 0; i < COPIES; i++) {
+            held.add(all.toItems());
+        }
+        long lists = usedHeap() - before;
+        held.clear();
+
+        before = usedHeap();
+        for (int i = 0; i < COPIES; i++) {
+            ItemBatch copy = new ItemBatch();
+            copy.addAll(all);
+            held.add(copy);
+        }
+        long batches = usedHeap() - before;
+        held.clear();
+
+        if (lists > 0 && batches > 0) {
+            assertTrue(String.format("batch should retain less than FarmItem lists, %d items: List<FarmItem> %d B/item, ItemBatch %d B/item",
+                    all.size(), lists / COPIES / all.size(), batches / COPIES / all.size()), batches < lists);
+        }
+    }
+
+    private static void assertSameGroups(CategoryClusterer clusterer, ItemBatch items) {
+        assertFalse(items.isEmpty());
+        assertEquals(describe(clusterer.cluster(items.toItems())), describe(clusterer.cluster(items)));
+    }
+
+    private static List<String> describe(List<NotificationGroup> groups) {
+        List<String> out = new ArrayList<>();
+        for (NotificationGroup group : groups) {
+            out.add(group + " " + group.groupId + " " + group.details);
+        }
+        return out;
+    }
+
+    private static String names(ItemBatch batch) {
+        StringBuilder out = new StringBuilder();
+        for (FarmItem item : batch.toItems()) {
+            out.append(out.length() > 0 ? "," : "").append(item.getName());
+        }
+        return out.toString();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,74 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+public class NetworkMetricsTest {
+
+    @Test
+    public void percentilesUseNearestRank() {
+        List<NetworkMetrics.Sample> samples = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            NetworkMetrics.Sample s = new NetworkMetrics.Sample();
+            s.ttfbMs = i;
+            samples.add(s);
+        }
+
+        long[] p = NetworkMetrics.percentiles(samples, s -> s.ttfbMs);
+
+        assertEquals(50, p[0]);
+        assertEquals(95, p[1]);
+        assertEquals(100, p[2]);
+    }
+
+    @Test
+    public void sampleSurvivesRoundTripThroughStoreFormat() {
+        NetworkMetrics.Sample s = new NetworkMetrics.Sample();
+        s.status = 429;
+        s.failure = FetchFailure.Kind.RATE_LIMITED.name();
+        s.dnsMs = 3;
+        s.connectMs = 40;
+        s.ttfbMs = 120;
+        s.downloadMs = 80;
+        s.wireBytes = 70_000;
+        s.decodedBytes = 1_100_000;
+        s.retry = 2;
+
+        NetworkMetrics.Sample parsed = NetworkMetrics.Sample.fromLine(s.toLine());
+
+        assertEquals(s.toLine(), parsed.toLine());
+        assertNull(NetworkMetrics.Sample.fromLine("garbage"));
+    }
+
+    @Test
+    public void seesSamplesAnotherProcessAppended() throws Exception {
+        File dir = File.createTempFile("metrics", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        File file = new File(dir, "network_metrics.log");
+        NetworkMetrics.init(file);
+
+        NetworkMetrics.Sample ours = new NetworkMetrics.Sample();
+        ours.status = 200;
+        NetworkMetrics.record(ours);
+        assertTrue(NetworkMetrics.getSummary().contains("Requests (24h): 1 (0 failed"));
+
+        // Written behind this process's back, as the :notifications service would
+        NetworkMetrics.Sample theirs = new NetworkMetrics.Sample();
+        theirs.failure = FetchFailure.Kind.RATE_LIMITED.name();
+        try (FileWriter writer = new FileWriter(file, true)) {
+            writer.write(theirs.toLine() + "\n");
+        }
+        assertTrue(NetworkMetrics.getSummary().contains("Requests (24h): 2 (1 failed"));
+
+        NetworkMetrics.Sample next = new NetworkMetrics.Sample();
+        next.status = 200;
+        NetworkMetrics.record(next);
+        assertEquals(1, next.retry);
+    }
+}
@@ -0,0 +1,132 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Groups whose groupIds collided in the old hashed slots get distinct IDs, freed IDs are
+ * reused lowest first, and the allocation survives the store format.
+ */
+public class NotificationIdAllocatorTest {
+    private static final long T = 1_700_000_000_000L;
+
+    @Test
+    public void collidingGroupIdsGetDistinctIds() {
+        // "Aa" and "BB" have the same hashCode, so they shared a hashed slot
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        NotificationIdAllocator ids = new NotificationIdAllocator();
+        int a = ids.idFor("Aa", T);
+        int b = ids.idFor("BB", T);
+        assertNotEquals(a, b);
+        assertEquals(a, ids.idFor("Aa", T + 1000));
+
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(seen.add(ids.idFor("group_" + i, T)));
+        }
+        assertEquals(2002, ids.size());
+    }
+
+    @Test
+    public void freedIdsAreReusedLowestFirstAndExpire() {
+        NotificationIdAllocator ids = new NotificationIdAllocator();
+        int first = ids.idFor("a", T);
+        int second = ids.idFor("b", T + 60_000);
+        int third = ids.idFor("c", T);
+        assertEquals(NotificationIdAllocator.BASE, first);
+
+        assertEquals(third, ids.release("c"));
+        assertEquals(first, ids.release("a"));
+        assertEquals(-1, ids.release("a"));
+        assertEquals(first, ids.idFor("d", T));
+        assertEquals(third, ids.idFor("e", T));
+
+        // "b" is due a minute after the others, so it expires last
+        assertEquals(2, ids.expire(T + NotificationIdAllocator.EXPIRY_MS));
+        assertEquals(Arrays.asList(second), ids.idsInUse());
+        assertEquals(1, ids.expire(T + 60_000 + NotificationIdAllocator.EXPIRY_MS));
+        assertTrue(ids.idsInUse().isEmpty());
+    }
+
+    @Test
+    public void firedGroupKeepsItsIdThroughReschedule() {
+        NotificationIdAllocator ids = new NotificationIdAllocator();
+        int fired = ids.idFor("crops_Wheat_1", T);
+        int pending = ids.idFor("crops_Kale_1", T + 60 * 60_000);
+        long now = T + 60_000;
+
+        // The fired group drops out of the next run, then everything is rescheduled
+        assertEquals(-1, ids.releasePending("crops_Wheat_1", now));
+        assertEquals(Arrays.asList(pending), ids.releaseAllPending(now));
+        ids = NotificationIdAllocator.fromStoreString(ids.toStoreString());
+        assertEquals(fired, ids.find("crops_Wheat_1"));
+
+        long beforeExpiry = T + NotificationIdAllocator.EXPIRY_MS - 1;
+        assertEquals(0, ids.expire(beforeExpiry));
+        for (int i = 0; i < 10; i++) {
+            assertNotEquals(fired, ids.idFor("new_" + i, beforeExpiry + 60_000));
+        }
+        assertEquals(1, ids.expire(T + NotificationIdAllocator.EXPIRY_MS));
+        assertEquals(fired, ids.idFor("later", T + NotificationIdAllocator.EXPIRY_MS));
+    }
+
+    @Test
+    public void allocationSurvivesStoreFormat() {
+        NotificationIdAllocator ids = new NotificationIdAllocator();
+        ids.idFor("crops_Wheat_1", T);
+        ids.idFor("cooking_Kitchen, Deli_1", T + 5);
+        ids.idFor("res_1", T);
+        ids.release("crops_Wheat_1");
+
+        NotificationIdAllocator loaded = NotificationIdAllocator.fromStoreString(ids.toStoreString());
+        assertEquals(ids.idsInUse(), loaded.idsInUse());
+        assertEquals(ids.find("cooking_Kitchen, Deli_1"), loaded.find("cooking_Kitchen, Deli_1"));
+        assertEquals(-1, loaded.find("crops_Wheat_1"));
+        // The freed ID is reused before a new one is handed out
+        assertEquals(NotificationIdAllocator.BASE, loaded.idFor("new", T));
+        assertEquals(0, NotificationIdAllocator.fromStoreString("garbage").size());
+    }
+
+    @Test
+    public void allocationSurvivesTheLockedFile() throws Exception {
+        File file = File.createTempFile("notification_ids", null);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            assertEquals(0, NotificationIdAllocator.read(channel).size());
+            NotificationIdAllocator ids = new NotificationIdAllocator();
+            for (int i = 0; i < 300; i++) {
+                ids.idFor("group_" + i, T + i);
+            }
+            ids.write(channel);
+            // A shorter allocation must not leave the old tail behind
+            ids.expire(T + 200 + NotificationIdAllocator.EXPIRY_MS);
+            ids.write(channel);
+
+            NotificationIdAllocator loaded = NotificationIdAllocator.read(channel);
+            assertEquals(ids.idsInUse(), loaded.idsInUse());
+            assertEquals(99, loaded.size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void fullAllocatorReusesTheIdDueLongestAgo() {
+        NotificationIdAllocator ids = new NotificationIdAllocator();
+        for (int i = 0; i < NotificationIdAllocator.CAPACITY; i++) {
+            ids.idFor("group_" + i, T + i);
+        }
+        int oldest = ids.find("group_0");
+        assertEquals(oldest, ids.idFor("overflow", T));
+        assertEquals(-1, ids.find("group_0"));
+        assertEquals(NotificationIdAllocator.CAPACITY, ids.size());
+    }
+}
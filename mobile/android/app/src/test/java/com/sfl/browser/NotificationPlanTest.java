@@ -0,0 +1,122 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sfl.browser.clustering.NotificationGroup;
+import com.sfl.browser.models.FarmItem;
+import com.sfl.browser.models.ItemBatch;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * NotificationPlan must read the same keys the settings screens write, and the reader and
+ * extraction engine must skip work for disabled categories
+ */
+public class NotificationPlanTest {
+
+    @Test
+    public void mapsCategoriesToSettingsKeys() {
+        Map<String, Object> prefs = new HashMap<>();
+        prefs.put("crop_sunflower", false);
+        prefs.put("category_crop_machine", false);
+        prefs.put("resource_iron_rock", false);
+        NotificationPlan plan = new NotificationPlan(prefs);
+
+        assertFalse(plan.isItemEnabled("crops", "Sunflower"));
+        assertTrue(plan.isItemEnabled("crops", "Potato"));
+        assertFalse(plan.isItemEnabled("resource", "Iron Rock"));
+        assertFalse(plan.isCategoryEnabled("cropMachine"));
+        assertTrue(plan.isCategoryEnabled("crops"));
+        assertTrue(plan.isItemEnabled("unknown", "Anything"));
+    }
+
+    @Test
+    public void changeDetectorFingerprintCoversScheduleSettings() {
+        Map<String, Object> prefs = new HashMap<>();
+        prefs.put("crop_sunflower", false);
+        prefs.put("digest_enabled", true);
+        prefs.put("digest_window_minutes", "2");
+        prefs.put("alarm_budget", "40");
+        prefs.put("lastScheduledAuctionId", "a1");
+        String before = FarmChangeDetector.settingsFingerprint(prefs);
+
+        prefs.put("lastScheduledAuctionId", "a2");
+        prefs.put("auctionScheduleExpired", true);
+        assertEquals(before, FarmChangeDetector.settingsFingerprint(prefs));
+
+        prefs.put("digest_window_minutes", "5");
+        String widerDigest = FarmChangeDetector.settingsFingerprint(prefs);
+        assertNotEquals(before, widerDigest);
+
+        prefs.put("alarm_budget", "20");
+        String smallerBudget = FarmChangeDetector.settingsFingerprint(prefs);
+        assertNotEquals(widerDigest, smallerBudget);
+
+        prefs.put("crop_sunflower", true);
+        assertNotEquals(smallerBudget, FarmChangeDetector.settingsFingerprint(prefs));
+    }
+
+    @Test
+    public void masterSwitchDisablesEverything() {
+        Map<String, Object> prefs = new HashMap<>();
+        prefs.put("notifications_master", false);
+        NotificationPlan plan = new NotificationPlan(prefs);
+
+        assertFalse(plan.isCategoryEnabled("crops"));
+        assertFalse(plan.isAnyEnabled("flowers", "beehive"));
+        assertEquals("all notifications off", plan.describe());
+    }
+
+    @Test
+    public void retainEnabledDropsMutedItemsOnly() {
+        Map<String, Object> prefs = new HashMap<>();
+        prefs.put("crop_sunflower", false);
+        NotificationPlan plan = new NotificationPlan(prefs);
+
+        List<FarmItem> items = new ArrayList<>(Arrays.asList(
+                new FarmItem("crops", "Potato", 1, 1000L),
+                new FarmItem("crops", "Sunflower", 1, 2000L),
+                new FarmItem("crops", "Carrot", 1, 3000L)));
+        List<FarmItem> kept = plan.retainEnabled("crops", items);
+        assertEquals(2, kept.size());
+        assertEquals("Carrot", kept.get(1).getName());
+
+        List<FarmItem> fruits = new ArrayList<>(Arrays.asList(new FarmItem("fruits", "Apple", 1, 1000L)));
+        assertSame(fruits, plan.retainEnabled("fruits", fruits));
+
+        ItemBatch batch = ItemBatch.of(items);
+        plan.retainEnabled("crops", batch);
+        assertEquals(2, batch.size());
+        assertEquals("Carrot", batch.name(1));
+
+        List<NotificationGroup> groups = new ArrayList<>();
+        groups.add(new NotificationGroup("crops", "Sunflower", 1, 2000L));
+        groups.add(new NotificationGroup("crops", "Potato", 1, 1000L));
+        assertEquals(1, plan.retainEnabledGroups(groups).size());
+    }
+
+    @Test
+    public void disabledCategoriesAreNotExtracted() throws Exception {
+        Map<String, Object> prefs = new HashMap<>();
+        prefs.put("category_greenhouse_crops", false);
+        prefs.put("category_crafting", false);
+        NotificationPlan plan = new NotificationPlan(prefs);
+
+        String example = new String(StubFarmApiServer.rebaseToNow(StubFarmApiServer.loadApiExample()),
+                StandardCharsets.UTF_8);
+        JsonObject full = JsonParser.parseString(example).getAsJsonObject().getAsJsonObject("farm");
+        FarmExtractionEngine.Buckets extracted = FarmExtractionEngine.extract(full, plan);
+        assertTrue(extracted.greenhouseCrops.isEmpty());
+        assertTrue(extracted.craftingBox.isEmpty());
+        assertEquals(FarmExtractionEngine.extract(full).crops.size(), extracted.crops.size());
+    }
+}
@@ -0,0 +1,46 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A caller that waited on the cross-process lock only joins a run that completed; after a
+ * failed run it must fetch again
+ */
+public class PipelineCoordinatorTest {
+
+    private static File lockFile() throws Exception {
+        File file = File.createTempFile("pipeline_", ".lock");
+        file.deleteOnExit();
+        return file;
+    }
+
+    @Test
+    public void waitingCallerRunsAfterAFailedRun() throws Exception {
+        File lock = lockFile();
+        long waiterArrivedAt = System.currentTimeMillis();
+        AtomicInteger runs = new AtomicInteger();
+
+        // Another process held the lock, and its run failed, while the waiter was blocked on it
+        assertTrue(PipelineCoordinator.runWithFileLock(lock, "1", waiterArrivedAt, () -> false));
+
+        assertTrue(PipelineCoordinator.runWithFileLock(lock, "1", waiterArrivedAt, () -> runs.incrementAndGet() > 0));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void waitingCallerJoinsACompletedRun() throws Exception {
+        File lock = lockFile();
+        long waiterArrivedAt = System.currentTimeMillis();
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(PipelineCoordinator.runWithFileLock(lock, "1", waiterArrivedAt, () -> true));
+
+        assertFalse(PipelineCoordinator.runWithFileLock(lock, "1", waiterArrivedAt, () -> runs.incrementAndGet() > 0));
+        assertEquals(0, runs.get());
+    }
+}
@@ -0,0 +1,104 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import com.sfl.browser.models.FarmState;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Each pipeline stage must release its input, and a run over a 10x farm must stay under a
+ * retained-heap budget. Retained heap is sampled after a full GC at every checkpoint,
+ * including each stage's peak while it still holds its input.
+ */
+public class PipelineMemoryTest {
+    // Peak retained heap a run may add, in bytes; override with -Dpipeline.heapBudgetBytes=...
+    private static final long HEAP_BUDGET_BYTES = Long.getLong("pipeline.heapBudgetBytes", 2L * 1024 * 1024);
+
+    @Test
+    public void stagesReleaseTheirInputs() throws Exception {
+        byte[] example = StubFarmApiServer.rebaseToNow(StubFarmApiServer.loadApiExample());
+        NotificationPlan plan = new NotificationPlan(new HashMap<>());
+        ExtractionCache cache = new ExtractionCache();
+        cache.validate(plan.settingsStamp());
+
+        PipelineRun run = new PipelineRun(read(example, plan), null);
+        run.extract(plan, cache, false);
+        assertNull(run.farm);
+        assertNotNull(run.pets);
+        FarmExtractionEngine.Buckets items = run.items;
+        assertTrue(items.size() > 10);
+
+        run.cluster(null, plan, cache);
+        assertNull(run.items);
+        assertEquals(0, items.size());
+        assertFalse(run.groups.isEmpty());
+    }
+
+    @Test
+    public void tenfoldFarmStaysWithinHeapBudget() throws Exception {
+        byte[] scaled = StubFarmApiServer.scaleFarm(StubFarmApiServer.rebaseToNow(StubFarmApiServer.loadApiExample()), 10);
+        NotificationPlan plan = new NotificationPlan(new HashMap<>());
+
+        retained(scaled, plan, false);  // Warm-up: class loading would skew the first baseline
+        Map<String, Long> staged = retained(scaled, plan, false);
+        Map<String, Long> farmHeld = retained(scaled, plan, true);
+
+        // The peak is inside extraction, where the farm and its filled batches are both live
+        long extractPeak = staged.get("extract peak");
+        long peak = Collections.max(staged.values());
+        assertTrue("nothing retained at the extract peak: " + staged, extractPeak > 0);
+        assertTrue("peak retained heap " + peak + " B over budget " + HEAP_BUDGET_BYTES + " B: " + staged,
+                peak <= HEAP_BUDGET_BYTES);
+        // Once extraction lets go of the farm, clustering stays well below that peak
+        assertTrue("releasing the farm should lower what clustering holds: staged " + staged + ", farm held " + farmHeld,
+                staged.get("cluster peak") < farmHeld.get("cluster peak"));
+    }
+
+    /**
+     * Read, extract and cluster the farm, sampling retained heap at each checkpoint
+     * @param holdFarm Keep a reference to the decoded farm for the whole run, as the
+     *                 pipeline did before it was staged
+     * @return Retained heap above the pre-run baseline at each checkpoint, in bytes
+     */
+    private static Map<String, Long> retained(byte[] body, NotificationPlan plan, boolean holdFarm) throws Exception {
+        long baseline = retainedHeap();
+        Map<String, Long> samples = new LinkedHashMap<>();
+        PipelineRun.StageListener sampler = (checkpoint, run) -> samples.put(checkpoint, retainedHeap() - baseline);
+
+        ExtractionCache cache = new ExtractionCache();
+        cache.validate(plan.settingsStamp());
+        FarmState farm = read(body, plan);
+        PipelineRun run = new PipelineRun(farm, sampler);
+        FarmState held = holdFarm ? farm : null;
+        farm = null;
+        run.stageComplete("read");
+        run.extract(plan, cache, false);
+        run.cluster(null, plan, cache);
+        run.stageComplete("schedule");
+
+        assertFalse(run.groups.isEmpty());
+        assertTrue(held == null || held.crops.size() > 0);
+        return samples;
+    }
+
+    private static FarmState read(byte[] body, NotificationPlan plan) throws Exception {
+        return FarmStateReader.read(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8), plan);
+    }
+
+    private static long retainedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
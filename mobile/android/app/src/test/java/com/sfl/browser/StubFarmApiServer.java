@@ -0,0 +1,407 @@
+package com.sfl.browser;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process stand-in for api.sunflower-land.com/community/farms/{id}.
+ *
+ * Replays recorded farm documents (apiexample.json, snapshots taken with record(), or
+ * synthetic variants from scaleFarm()) and can inject latency, bandwidth caps, truncated
+ * bodies and error statuses. Every request is recorded with its headers and server-side
+ * timing so tests can assert on conditional headers, retries and end-to-end latency.
+ */
+public class StubFarmApiServer implements AutoCloseable {
+
+    /**
+     * One scripted response
+     */
+    public static class Response {
+        int status = 200;
+        byte[] body = new byte[0];
+        final Map<String, String> headers = new LinkedHashMap<>();
+        long latencyMs;
+        long bytesPerSecond;      // 0 = unlimited
+        int truncateAfter = -1;   // bytes of the (encoded) body to send before dropping the connection
+        boolean gzip = true;      // honour Accept-Encoding: gzip
+
+        public static Response ok(byte[] body) {
+            Response r = new Response();
+            r.body = body;
+            r.headers.put("Content-Type", "application/json");
+            return r;
+        }
+
+        public static Response status(int status) {
+            Response r = new Response();
+            r.status = status;
+            r.body = ("{\"error\":\"" + status + "\"}").getBytes(StandardCharsets.UTF_8);
+            return r;
+        }
+
+        public Response header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+
+        public Response latency(long ms) {
+            latencyMs = ms;
+            return this;
+        }
+
+        public Response bandwidth(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            return this;
+        }
+
+        public Response truncateAfter(int bytes) {
+            truncateAfter = bytes;
+            return this;
+        }
+
+        public Response identityEncoding() {
+            gzip = false;
+            return this;
+        }
+    }
+
+    /**
+     * What the server saw and how long it took to answer
+     */
+    public static class RecordedRequest {
+        public final String path;
+        public final Map<String, String> headers;
+        public final int remotePort;
+        public final long receivedAtNanos;
+        public volatile long firstByteAtNanos;
+        public volatile long completedAtNanos;
+        public volatile int status;
+        public volatile long bytesSent;
+
+        RecordedRequest(String path, Map<String, String> headers, int remotePort) {
+            this.path = path;
+            this.headers = headers;
+            this.remotePort = remotePort;
+            this.receivedAtNanos = System.nanoTime();
+        }
+
+        /**
+         * Time from receiving the request to sending headers (injected latency)
+         */
+        public long timeToFirstByteMillis() {
+            return (firstByteAtNanos - receivedAtNanos) / 1_000_000;
+        }
+
+        /**
+         * Time from receiving the request to finishing the body; 0 until the handler is done
+         */
+        public long serverMillis() {
+            return completedAtNanos == 0 ? 0 : (completedAtNanos - receivedAtNanos) / 1_000_000;
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+    private final Deque<Response> script = new ArrayDeque<>();
+    private final List<RecordedRequest> requests = Collections.synchronizedList(new ArrayList<>());
+    private Response fallback = Response.status(404);
+
+    public StubFarmApiServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/community/farms/", this::handle);
+        // One thread per request so concurrent clients see independent latency
+        server.setExecutor(handlers);
+        server.start();
+    }
+
+    /**
+     * Base URL to hand to FarmDataProcessor.setApiBaseUrl in place of the live API
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/community/farms/";
+    }
+
+    public String farmUrl(String farmId) {
+        return baseUrl() + farmId;
+    }
+
+    /**
+     * Queue a response for the next request; once the queue is empty the default is served
+     */
+    public synchronized StubFarmApiServer enqueue(Response response) {
+        script.addLast(response);
+        return this;
+    }
+
+    /**
+     * Response served whenever nothing is queued
+     */
+    public synchronized StubFarmApiServer setDefault(Response response) {
+        fallback = response;
+        return this;
+    }
+
+    public List<RecordedRequest> getRequests() {
+        synchronized (requests) {
+            return new ArrayList<>(requests);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private synchronized Response next() {
+        Response queued = script.pollFirst();
+        return queued != null ? queued : fallback;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> h : exchange.getRequestHeaders().entrySet()) {
+            headers.put(h.getKey().toLowerCase(), String.join(",", h.getValue()));
+        }
+        RecordedRequest recorded = new RecordedRequest(exchange.getRequestURI().getPath(), headers,
+                exchange.getRemoteAddress().getPort());
+        requests.add(recorded);
+
+        Response response = next();
+        try {
+            sleep(response.latencyMs);
+
+            int status = response.status;
+            String etag = response.headers.get("ETag");
+            if (status == 200 && etag != null && etag.equals(headers.get("if-none-match"))) {
+                status = 304;
+            }
+            exchange.getResponseHeaders().clear();
+            for (Map.Entry<String, String> h : response.headers.entrySet()) {
+                exchange.getResponseHeaders().set(h.getKey(), h.getValue());
+            }
+
+            byte[] payload = status == 304 ? new byte[0] : response.body;
+            String acceptEncoding = headers.get("accept-encoding");
+            if (payload.length > 0 && response.gzip && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                payload = gzip(payload);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+
+            recorded.status = status;
+            recorded.firstByteAtNanos = System.nanoTime();
+            exchange.sendResponseHeaders(status, payload.length == 0 ? -1 : payload.length);
+            if (payload.length > 0) {
+                OutputStream out = exchange.getResponseBody();
+                int limit = response.truncateAfter >= 0 ? Math.min(response.truncateAfter, payload.length) : payload.length;
+                int chunk = response.bytesPerSecond > 0 ? (int) Math.max(1, response.bytesPerSecond / 20) : 16 * 1024;
+                for (int off = 0; off < limit; off += chunk) {
+                    int len = Math.min(chunk, limit - off);
+                    out.write(payload, off, len);
+                    out.flush();
+                    recorded.bytesSent += len;
+                    if (response.bytesPerSecond > 0) {
+                        sleep(len * 1000L / response.bytesPerSecond);
+                    }
+                }
+                if (limit < payload.length) {
+                    // Drop the socket mid-body, as a flaky mobile connection would
+                    recorded.completedAtNanos = System.nanoTime();
+                    exchange.close();
+                    return;
+                }
+                out.close();
+            }
+        } catch (IOException e) {
+            // Client went away or truncation tore the stream down
+        } finally {
+            if (recorded.completedAtNanos == 0) {
+                recorded.completedAtNanos = System.nanoTime();
+            }
+            exchange.close();
+        }
+    }
+
+    // --- Recorded and synthetic payloads ---
+
+    /**
+     * The sample farm checked in at the repository root
+     */
+    public static byte[] loadApiExample() throws IOException {
+        File dir = new File("").getAbsoluteFile();
+        while (dir != null) {
+            File candidate = new File(dir, "apiexample.json");
+            if (candidate.isFile()) {
+                return Files.readAllBytes(candidate.toPath());
+            }
+            dir = dir.getParentFile();
+        }
+        throw new IOException("apiexample.json not found above " + new File("").getAbsolutePath());
+    }
+
+    /**
+     * Snapshot a live farm response to a file so it can be replayed offline later
+     */
+    public static void record(String liveFarmUrl, String apiKey, File out) throws IOException {
+        String body = APIClient.fetchRawJSON(liveFarmUrl, apiKey);
+        if (body == null) {
+            throw new IOException("Could not record " + liveFarmUrl);
+        }
+        try (FileOutputStream fos = new FileOutputStream(out)) {
+            fos.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Synthetic variant of a recorded farm with every per-item collection the extractors walk
+     * copied `factor` times (ids suffixed), for load and memory testing
+     */
+    public static byte[] scaleFarm(byte[] recorded, int factor) {
+        JsonObject root = JsonParser.parseString(new String(recorded, StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonObject farm = root.getAsJsonObject("farm");
+        String[][] paths = {
+                {"crops"}, {"fruitPatches"}, {"trees"}, {"stones"}, {"iron"}, {"gold"}, {"crimstones"},
+                {"sunstones"}, {"oilReserves"}, {"lavaPits"}, {"beehives"}, {"flowers", "flowerBeds"},
+                {"henHouse", "animals"}, {"barn", "animals"}, {"greenhouse", "pots"}
+        };
+        for (String[] path : paths) {
+            JsonObject node = farm;
+            for (int i = 0; i < path.length && node != null; i++) {
+                JsonElement child = node.get(path[i]);
+                node = child != null && child.isJsonObject() ? child.getAsJsonObject() : null;
+            }
+            if (node == null) {
+                continue;
+            }
+            List<Map.Entry<String, JsonElement>> originals = new ArrayList<>(node.entrySet());
+            for (int copy = 1; copy < factor; copy++) {
+                for (Map.Entry<String, JsonElement> entry : originals) {
+                    node.add(entry.getKey() + "_x" + copy, entry.getValue().deepCopy());
+                }
+            }
+        }
+        return root.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Variant of a recorded farm with every epoch-millisecond timestamp shifted by the same
+     * amount, so the median one lands on the current time. Roughly half of the recorded
+     * plantings, harvests and timers then lie ahead, whenever the test runs.
+     */
+    public static byte[] rebaseToNow(byte[] recorded) {
+        return shift(recorded, rebaseDelta(recorded, 1));
+    }
+
+    /**
+     * How far rebaseToNow shifts a recorded farm, rounded down to a multiple of granularity
+     * so that minute buckets (and group IDs built from them) move by exactly the same amount
+     */
+    public static long rebaseDelta(byte[] recorded, long granularity) {
+        List<Long> timestamps = new ArrayList<>();
+        collectTimestamps(JsonParser.parseString(new String(recorded, StandardCharsets.UTF_8)), timestamps);
+        if (timestamps.isEmpty()) {
+            return 0;
+        }
+        Collections.sort(timestamps);
+        long delta = System.currentTimeMillis() - timestamps.get(timestamps.size() / 2);
+        return Math.floorDiv(delta, granularity) * granularity;
+    }
+
+    /**
+     * Variant of a recorded farm with every epoch-millisecond timestamp moved by delta
+     */
+    public static byte[] shift(byte[] recorded, long delta) {
+        if (delta == 0) {
+            return recorded;
+        }
+        JsonElement root = JsonParser.parseString(new String(recorded, StandardCharsets.UTF_8));
+        shiftTimestamps(root, delta);
+        return root.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean isEpochMillis(JsonElement e) {
+        if (!e.isJsonPrimitive() || !e.getAsJsonPrimitive().isNumber()) {
+            return false;
+        }
+        double value = e.getAsDouble();
+        return value > 1.5e12 && value < 2.5e12 && value == Math.rint(value);
+    }
+
+    private static void collectTimestamps(JsonElement e, List<Long> out) {
+        if (e.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> entry : e.getAsJsonObject().entrySet()) {
+                collectTimestamps(entry.getValue(), out);
+            }
+        } else if (e.isJsonArray()) {
+            for (JsonElement child : e.getAsJsonArray()) {
+                collectTimestamps(child, out);
+            }
+        } else if (isEpochMillis(e)) {
+            out.add(e.getAsLong());
+        }
+    }
+
+    private static void shiftTimestamps(JsonElement e, long delta) {
+        if (e.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> entry : e.getAsJsonObject().entrySet()) {
+                if (isEpochMillis(entry.getValue())) {
+                    entry.setValue(new JsonPrimitive(entry.getValue().getAsLong() + delta));
+                } else {
+                    shiftTimestamps(entry.getValue(), delta);
+                }
+            }
+        } else if (e.isJsonArray()) {
+            JsonArray array = e.getAsJsonArray();
+            for (int i = 0; i < array.size(); i++) {
+                if (isEpochMillis(array.get(i))) {
+                    array.set(i, new JsonPrimitive(array.get(i).getAsLong() + delta));
+                } else {
+                    shiftTimestamps(array.get(i), delta);
+                }
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(bytes)) {
+            gz.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
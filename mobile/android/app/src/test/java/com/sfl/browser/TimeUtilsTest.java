@@ -0,0 +1,125 @@
+package com.sfl.browser;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * TimeUtils must print exactly what the SimpleDateFormat patterns it replaced printed, and is
+ * benchmarked per call against them
+ */
+public class TimeUtilsTest {
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    // Spread over several years, both sides of noon and of DST changes
+    private static final long[] SAMPLES = {
+            0L, 951782400000L, 1700000000000L, 1711846800000L, 1730000000123L, 1762012800000L, 4102444799000L
+    };
+
+    @Test
+    public void formatsMatchSimpleDateFormat() {
+        for (String zone : new String[]{"UTC", "America/New_York", "Asia/Kolkata", "Pacific/Auckland"}) {
+            TimeZone previous = TimeZone.getDefault();
+            TimeZone.setDefault(TimeZone.getTimeZone(zone));
+            TimeUtils.invalidateZone();
+            try {
+                for (long sample : SAMPLES) {
+                    long t = sample + 13 * 3_600_000L;
+                    for (long timestamp : new long[]{sample, t}) {
+                        Date date = new Date(timestamp);
+                        assertEquals(format("MM/dd HH:mm:ss", date), TimeUtils.formatShort(timestamp));
+                        assertEquals(format("yyyy-MM-dd HH:mm:ss", date), TimeUtils.formatDateTime(timestamp));
+                        assertEquals(format("MM/dd/yyyy h:mm:ss a", date), TimeUtils.formatLogHeader(timestamp));
+                        assertEquals(format("HH:mm:ss", date), TimeUtils.formatTime(timestamp));
+                        assertEquals(format("h:mm a", date), TimeUtils.formatClock(timestamp));
+                        assertEquals(format("yyyy-MM-dd_HH-mm-ss", date), TimeUtils.formatFileStamp(timestamp));
+                        long second = timestamp - Math.floorMod(timestamp, 1000L);
+                        assertEquals(zone, second, TimeUtils.parseLocalDateTime(TimeUtils.formatDateTime(timestamp)));
+                    }
+                }
+            } finally {
+                TimeZone.setDefault(previous);
+                TimeUtils.invalidateZone();
+            }
+        }
+    }
+
+    @Test
+    public void parsesIso8601() {
+        assertEquals(1761998400000L, TimeUtils.parseIso8601("2025-11-01T12:00:00Z"));
+        assertEquals(1761998400123L, TimeUtils.parseIso8601("2025-11-01T12:00:00.123Z"));
+        assertEquals(1761998400000L, TimeUtils.parseIso8601("2025-11-01T14:00:00+02:00"));
+        assertEquals(1761998400000L, TimeUtils.parseIso8601("2025-11-01T07:30:00-0430"));
+        assertEquals(1761998400000L, TimeUtils.parseIso8601("2025-11-01T12:00:00"));
+        assertEquals(951782400000L, TimeUtils.parseIso8601("2000-02-29T00:00:00Z"));
+        assertEquals(0L, TimeUtils.parseIso8601("2025-13-01T12:00:00Z"));
+        assertEquals(0L, TimeUtils.parseIso8601("yesterday"));
+        assertEquals(0L, TimeUtils.parseIso8601(null));
+        assertEquals("1:05:09 PM", TimeUtils.to12Hour("13:05:09"));
+        assertEquals("12:00:00 AM", TimeUtils.to12Hour("00:00:00"));
+        assertEquals("soon", TimeUtils.to12Hour("soon"));
+    }
+
+    @Test
+    public void benchmarkAgainstSimpleDateFormat() throws Exception {
+        long base = 1730000000000L;
+
+        long[] sdf = measure(i -> new SimpleDateFormat("MM/dd HH:mm:ss", Locale.US).format(new Date(base + i * 1000L)));
+        long[] fast = measure(i -> TimeUtils.formatShort(base + i * 1000L));
+        long[] sdfParse = measure(i -> {
+            SimpleDateFormat parser = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+            parser.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return parser.parse("2025-11-01T12:00:00.000Z".substring(0, 19));
+        });
+        long[] fastParse = measure(i -> TimeUtils.parseIso8601("2025-11-01T12:00:00.000Z"));
+
+        if (sdf[1] > 0) {
+            assertTrue(String.format("format should allocate less, per call: SimpleDateFormat %d ns / %d B, TimeUtils %d ns / %d B",
+                    sdf[0], sdf[1], fast[0], fast[1]), fast[1] < sdf[1]);
+            assertTrue(String.format("parse should allocate less, per call: SimpleDateFormat %d ns / %d B, TimeUtils %d ns / %d B",
+                    sdfParse[0], sdfParse[1], fastParse[0], fastParse[1]), fastParse[1] < sdfParse[1]);
+        }
+    }
+
+    private static String format(String pattern, Date date) {
+        return new SimpleDateFormat(pattern, Locale.US).format(date);
+    }
+
+    private interface Call {
+        Object run(int i) throws Exception;
+    }
+
+    /**
+     * @return {mean nanos per call, mean bytes allocated per call (0 if the JVM can't tell)}
+     */
+    private static long[] measure(Call call) throws Exception {
+        Object sink = null;
+        for (int i = 0; i < WARMUP; i++) {
+            sink = call.run(i);
+        }
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = call.run(i);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        assertNotNull(sink);
+        return new long[]{elapsed / ITERATIONS, Math.max(0, allocated / ITERATIONS)};
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}